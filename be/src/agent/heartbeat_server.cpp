@@ -32,10 +32,13 @@
 #include "common/status.h"
 #include "gen_cpp/HeartbeatService.h"
 #include "runtime/heartbeat_flags.h"
+#include "runtime/load_channel_mgr.h"
+#include "runtime/mem_tracker.h"
 #include "service/backend_options.h"
 #include "storage/storage_engine.h"
 #include "util/debug_util.h"
 #include "util/network_util.h"
+#include "util/starrocks_metrics.h"
 #include "util/thrift_server.h"
 
 using std::fstream;
@@ -104,6 +107,25 @@ void HeartbeatServer::heartbeat(THeartbeatResult& heartbeat_result, const TMaste
 #endif
         heartbeat_result.backend_info.__set_version(get_short_version());
         heartbeat_result.backend_info.__set_num_hardware_cores(num_hardware_cores);
+        set_load_statistics(&heartbeat_result.backend_info);
+    }
+}
+
+void HeartbeatServer::set_load_statistics(TBackendInfo* backend_info) {
+    ExecEnv* exec_env = ExecEnv::GetInstance();
+    MemTracker* load_mem_tracker = exec_env->load_mem_tracker();
+    if (load_mem_tracker != nullptr) {
+        backend_info->__set_load_mem_bytes(load_mem_tracker->consumption());
+        backend_info->__set_load_mem_limit(load_mem_tracker->limit());
+    }
+    if (exec_env->load_channel_mgr() != nullptr) {
+        backend_info->__set_num_load_channels(exec_env->load_channel_mgr()->num_load_channels());
+    }
+    // registered by StreamLoadAction
+    auto* stream_loads = dynamic_cast<IntGauge*>(
+            StarRocksMetrics::instance()->metrics()->get_metric("streaming_load_current_processing"));
+    if (stream_loads != nullptr) {
+        backend_info->__set_num_running_stream_loads(stream_loads->value());
     }
 }
 
@@ -66,6 +66,9 @@ private:
 
     StatusOr<CmpResult> compare_master_info(const TMasterInfo& master_info);
 
+    // the load statistics for FE to choose the coordinator BE of the stream loads
+    static void set_load_statistics(TBackendInfo* backend_info);
+
     StorageEngine* _olap_engine;
 }; // class HeartBeatServer
 
@@ -170,12 +170,25 @@ Status ESDataSource::_create_scanner() {
         _properties[ESScanReader::KEY_TYPE] = es_scan_range.type;
     }
     _properties[ESScanReader::KEY_SHARD] = std::to_string(es_scan_range.shard_id);
+    if (es_scan_range.__isset.slice_max && es_scan_range.slice_max > 1) {
+        _properties[ESScanReader::KEY_SLICE_ID] = std::to_string(es_scan_range.slice_id);
+        _properties[ESScanReader::KEY_SLICE_MAX] = std::to_string(es_scan_range.slice_max);
+    }
     _properties[ESScanReader::KEY_BATCH_SIZE] =
             std::to_string(std::min(config::es_index_max_result_window, _runtime_state->chunk_size()));
     _properties[ESScanReader::KEY_HOST_PORT] = get_host_port(es_scan_range.es_hosts);
     // push down limit to Elasticsearch
     // if have conjunct ES can not process, then must not push down limit operator
-    if (_conjunct_ctxs.size() == 0 && _read_limit != -1 && _read_limit <= _runtime_state->chunk_size()) {
+    // a sliced shard must be scrolled, the terminate_after search reads the whole shard
+    bool sliced = _properties.find(ESScanReader::KEY_SLICE_MAX) != _properties.end();
+    // the aggregation pushed down to ES must see all the docs of the shard matching the conjuncts,
+    // FE only pushes it down when all the conjuncts can be processed by ES
+    bool aggregation = _properties.find(ESScanReader::KEY_AGGREGATION) != _properties.end();
+    if (aggregation && !_conjunct_ctxs.empty()) {
+        return Status::InternalError("ES aggregation push down with conjuncts ES can not process");
+    }
+    if (!sliced && !aggregation && _conjunct_ctxs.size() == 0 && _read_limit != -1 &&
+        _read_limit <= _runtime_state->chunk_size()) {
         _properties[ESScanReader::KEY_TERMINATE_AFTER] = std::to_string(_read_limit);
     }
 
@@ -41,6 +41,10 @@ const std::string SOURCE_SCROLL_SEARCH_FILTER_PATH =
 const std::string DOCVALUE_SCROLL_SEARCH_FILTER_PATH =
         "filter_path=_scroll_id,hits.total,hits.hits._score,hits.hits.fields";
 
+// the buckets of the composite aggregation and the key to request the next page
+const std::string AGGREGATION_SEARCH_FILTER_PATH =
+        "filter_path=aggregations.groupby.buckets,aggregations.groupby.after_key";
+
 const std::string REQUEST_SCROLL_PATH = "_scroll";
 const std::string REQUEST_PREFERENCE_PREFIX = "&preference=_shards:";
 const std::string REQUEST_SEARCH_SCROLL_PATH = "/_search/scroll";
@@ -77,7 +81,17 @@ ESScanReader::ESScanReader(const std::string& target, const std::map<std::string
     _batch_size = atoi(batch_size_str.c_str());
     std::string filter_path = _doc_value_mode ? DOCVALUE_SCROLL_SEARCH_FILTER_PATH : SOURCE_SCROLL_SEARCH_FILTER_PATH;
 
-    if (props.find(KEY_TERMINATE_AFTER) != props.end()) {
+    if (props.find(KEY_AGGREGATION) != props.end()) {
+        _exactly_once = false;
+        _aggregation_mode = true;
+        if (_type.empty()) {
+            _aggregation_url = fmt::format("{}/{}/_search?preference=_shards:{}&{}", _target, _index, _shards,
+                                           AGGREGATION_SEARCH_FILTER_PATH);
+        } else {
+            _aggregation_url = fmt::format("{}/{}/{}/_search?preference=_shards:{}&{}", _target, _index, _type,
+                                           _shards, AGGREGATION_SEARCH_FILTER_PATH);
+        }
+    } else if (props.find(KEY_TERMINATE_AFTER) != props.end()) {
         _exactly_once = true;
         // just send a normal search  against the elasticsearch with additional terminate_after param to achieve terminate early effect when limit take effect
         if (_type.empty()) {
@@ -107,7 +121,10 @@ ESScanReader::~ESScanReader() = default;
 
 Status ESScanReader::open() {
     _is_first = true;
-    if (_exactly_once) {
+    if (_aggregation_mode) {
+        RETURN_IF_ERROR(_network_client.init(_aggregation_url));
+        LOG(INFO) << "aggregation request URL: " << _aggregation_url;
+    } else if (_exactly_once) {
         RETURN_IF_ERROR(_network_client.init(_search_url));
         LOG(INFO) << "search request URL: " << _search_url;
     } else {
@@ -146,6 +163,10 @@ Status ESScanReader::get_next(bool* scan_eos, std::unique_ptr<T>& scroll_parser)
         if (_exactly_once) {
             return Status::OK();
         }
+        if (_aggregation_mode) {
+            RETURN_IF_ERROR(_next_aggregation_page(&response));
+            return _parse_aggregation_page(response, scan_eos, scroll_parser);
+        }
         RETURN_IF_ERROR(_network_client.init(_next_scroll_url));
         _network_client.set_basic_auth(_user_name, _passwd);
         _network_client.set_content_type("application/json");
@@ -170,6 +191,10 @@ Status ESScanReader::get_next(bool* scan_eos, std::unique_ptr<T>& scroll_parser)
         }
     }
 
+    if (_aggregation_mode) {
+        return _parse_aggregation_page(response, scan_eos, scroll_parser);
+    }
+
     scroll_parser.reset(new T(_doc_value_mode));
     VLOG(1) << "get_next request ES, returned response: " << response;
     Status status = scroll_parser->parse(response, _exactly_once);
@@ -195,6 +220,49 @@ Status ESScanReader::get_next(bool* scan_eos, std::unique_ptr<T>& scroll_parser)
     return Status::OK();
 }
 
+Status ESScanReader::_next_aggregation_page(std::string* response) {
+    RETURN_IF_ERROR(_network_client.init(_aggregation_url));
+    _network_client.set_basic_auth(_user_name, _passwd);
+    _network_client.set_content_type("application/json");
+    _network_client.set_timeout_ms(_http_timeout_ms);
+    if (_ssl_enabled) {
+        _network_client.trust_all_ssl();
+    }
+    RETURN_IF_ERROR(_network_client.execute_post_request(
+            ESScrollQueryBuilder::build_aggregation_page_body(_query, _after_key), response));
+    long status = _network_client.get_http_status();
+    if (status != 200) {
+        LOG(WARNING) << "request aggregation search failure["
+                     << "http status" << status
+                     << ", response: " << (response->empty() ? "empty response" : *response);
+        return Status::InternalError("request aggregation search failure: " +
+                                     (response->empty() ? "empty response" : *response));
+    }
+    return Status::OK();
+}
+
+template <class T>
+Status ESScanReader::_parse_aggregation_page(const std::string& response, bool* scan_eos,
+                                             std::unique_ptr<T>& scroll_parser) {
+    scroll_parser.reset(new T(false));
+    VLOG(1) << "aggregation request ES, returned response: " << response;
+    Status status = scroll_parser->parse_aggregation(response);
+    if (!status.ok()) {
+        _eos = true;
+        LOG(WARNING) << status.get_error_msg();
+        return status;
+    }
+    _after_key = scroll_parser->get_after_key();
+    if (scroll_parser->get_size() == 0) {
+        _eos = true;
+        return Status::OK();
+    }
+    // without after_key there is no more bucket
+    _eos = _after_key.empty();
+    *scan_eos = false;
+    return Status::OK();
+}
+
 template Status ESScanReader::get_next<vectorized::ScrollParser>(
         bool* scan_eos, std::unique_ptr<vectorized::ScrollParser>& scroll_parser);
 
@@ -39,11 +39,15 @@ public:
     static constexpr const char* KEY_INDEX = "index";
     static constexpr const char* KEY_TYPE = "type";
     static constexpr const char* KEY_SHARD = "shard_id";
+    static constexpr const char* KEY_SLICE_ID = "slice_id";
+    static constexpr const char* KEY_SLICE_MAX = "slice_max";
     static constexpr const char* KEY_QUERY = "query";
     static constexpr const char* KEY_BATCH_SIZE = "batch_size";
     static constexpr const char* KEY_TERMINATE_AFTER = "limit";
     static constexpr const char* KEY_DOC_VALUES_MODE = "doc_values_mode";
     static constexpr const char* KEY_ES_NET_SSL = "es.net.ssl";
+    // the composite aggregation pushed down by FE, the shard is read by aggregation pages instead of scroll
+    static constexpr const char* KEY_AGGREGATION = "aggregation";
     ESScanReader(const std::string& target, const std::map<std::string, std::string>& props, bool doc_value_mode);
     ~ESScanReader();
 
@@ -56,6 +60,10 @@ public:
     Status close();
 
 private:
+    Status _next_aggregation_page(std::string* response);
+    template <class T>
+    Status _parse_aggregation_page(const std::string& response, bool* scan_eos, std::unique_ptr<T>& scroll_parser);
+
     std::string _target;
     std::string _user_name;
     std::string _passwd;
@@ -100,6 +108,12 @@ private:
 
     bool _exactly_once;
 
+    // request the composite aggregation of the shard page by page, the next page starts after _after_key:
+    // {index}/{type}/_search?preference=_shards:{shard}
+    bool _aggregation_mode = false;
+    std::string _aggregation_url;
+    std::string _after_key;
+
     bool _doc_value_mode;
 
     bool _ssl_enabled = false;
@@ -4,6 +4,9 @@
 
 #include <fmt/format.h>
 
+#include <cmath>
+#include <cstring>
+
 #include "column/column_helper.h"
 #include "column/nullable_column.h"
 #include "common/config.h"
@@ -20,6 +23,15 @@ static const char* FIELD_INNER_HITS = "hits";
 static const char* FIELD_SOURCE = "_source";
 static const char* FIELD_FIELDS = "fields";
 static const char* FIELD_ID = "_id";
+static const char* FIELD_AGGREGATIONS = "aggregations";
+// keep the same as EsAggregationBuilder of FE
+static const char* FIELD_COMPOSITE = "groupby";
+static const char* FIELD_BUCKETS = "buckets";
+static const char* FIELD_AFTER_KEY = "after_key";
+static const char* FIELD_KEY = "key";
+static const char* FIELD_DOC_COUNT = "doc_count";
+static const char* FIELD_BUCKET_DOC_COUNT = "_doc_count";
+static const char* FIELD_VALUE = "value";
 
 const char* json_type_to_raw_str(rapidjson::Type type) {
     switch (type) {
@@ -150,6 +162,71 @@ Status ScrollParser::parse(const std::string& scroll_result, bool exactly_once)
     return Status::OK();
 }
 
+Status ScrollParser::parse_aggregation(const std::string& aggregation_result) {
+    _size = 0;
+    _cur_line = 0;
+    _after_key.clear();
+    _document_node.Parse(aggregation_result.data(), aggregation_result.size());
+    if (_document_node.HasParseError()) {
+        return Status::InternalError(fmt::format("Parsing json error, json is: {}", aggregation_result));
+    }
+    // the filtered response of an empty page has no aggregations
+    if (!_document_node.HasMember(FIELD_AGGREGATIONS)) {
+        return Status::OK();
+    }
+    const rapidjson::Value& aggregations_node = _document_node[FIELD_AGGREGATIONS];
+    if (!aggregations_node.HasMember(FIELD_COMPOSITE)) {
+        return Status::OK();
+    }
+    const rapidjson::Value& composite_node = aggregations_node[FIELD_COMPOSITE];
+    if (composite_node.HasMember(FIELD_AFTER_KEY)) {
+        _after_key = json_value_to_string(composite_node[FIELD_AFTER_KEY]);
+    }
+    if (!composite_node.HasMember(FIELD_BUCKETS) || !composite_node[FIELD_BUCKETS].IsArray()) {
+        return Status::OK();
+    }
+
+    // normalize every bucket to a document, so the buckets are filled like the hits of a scroll:
+    // {"key": {"k1": "a"}, "doc_count": 3, "v1": {"value": 2.0}} -> {"_source": {"k1": "a", "_doc_count": 3, "v1": 2}}
+    rapidjson::Document::AllocatorType& allocator = _document_node.GetAllocator();
+    const rapidjson::Value& buckets_node = composite_node[FIELD_BUCKETS];
+    _inner_hits_node.SetArray();
+    _inner_hits_node.Reserve(buckets_node.Size(), allocator);
+    for (const auto& bucket : buckets_node.GetArray()) {
+        rapidjson::Value source_node(rapidjson::kObjectType);
+        for (const auto& member : bucket.GetObject()) {
+            const char* name = member.name.GetString();
+            if (strcmp(name, FIELD_KEY) == 0) {
+                for (const auto& key : member.value.GetObject()) {
+                    source_node.AddMember(rapidjson::Value(key.name, allocator), rapidjson::Value(key.value, allocator),
+                                          allocator);
+                }
+            } else if (strcmp(name, FIELD_DOC_COUNT) == 0) {
+                source_node.AddMember(rapidjson::StringRef(FIELD_BUCKET_DOC_COUNT),
+                                      rapidjson::Value(member.value, allocator), allocator);
+            } else if (member.value.IsObject() && member.value.HasMember(FIELD_VALUE)) {
+                const rapidjson::Value& value = member.value[FIELD_VALUE];
+                rapidjson::Value metric_value;
+                // ES returns all the metrics as double, keep integral values as integer,
+                // the dates are read as epoch milliseconds by GetInt64()
+                double number = value.IsNumber() ? value.GetDouble() : 0;
+                if (value.IsNumber() && std::abs(number) < 9.0e18 &&
+                    number == static_cast<double>(static_cast<int64_t>(number))) {
+                    metric_value.SetInt64(static_cast<int64_t>(number));
+                } else {
+                    metric_value.CopyFrom(value, allocator);
+                }
+                source_node.AddMember(rapidjson::Value(member.name, allocator), metric_value, allocator);
+            }
+        }
+        rapidjson::Value hit_node(rapidjson::kObjectType);
+        hit_node.AddMember(rapidjson::StringRef(FIELD_SOURCE), source_node, allocator);
+        _inner_hits_node.PushBack(hit_node, allocator);
+    }
+    _size = _inner_hits_node.Size();
+    return Status::OK();
+}
+
 Status ScrollParser::fill_chunk(RuntimeState* state, ChunkPtr* chunk, bool* line_eos) {
     if (current_eos()) {
         *line_eos = true;
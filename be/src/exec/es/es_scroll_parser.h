@@ -25,9 +25,13 @@ public:
     ~ScrollParser() = default;
 
     Status parse(const std::string& scroll_result, bool exactly_once = false);
+    // parse a page of the composite aggregation, every bucket is a row of the group by keys,
+    // the doc count and the sub aggregation values
+    Status parse_aggregation(const std::string& aggregation_result);
     Status fill_chunk(RuntimeState* state, ChunkPtr* chunk, bool* line_eos);
 
     const std::string& get_scroll_id() { return _scroll_id; }
+    const std::string& get_after_key() { return _after_key; }
     int get_size() { return _size; }
     bool current_eos() { return _cur_line == _size; }
 
@@ -62,6 +66,8 @@ private:
     const std::map<std::string, std::string>* _docvalue_context;
 
     std::string _scroll_id;
+    // the composite key of the last bucket, in json
+    std::string _after_key;
     size_t _size;
     rapidjson::SizeType _cur_line;
     rapidjson::Document _document_node;
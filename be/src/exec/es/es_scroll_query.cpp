@@ -28,6 +28,9 @@
 
 namespace starrocks {
 
+// keep the same as EsAggregationBuilder.COMPOSITE_NAME of FE
+static const char* COMPOSITE_AGGREGATION_NAME = "groupby";
+
 ESScrollQueryBuilder::ESScrollQueryBuilder() = default;
 
 ESScrollQueryBuilder::~ESScrollQueryBuilder() = default;
@@ -57,6 +60,30 @@ std::string ESScrollQueryBuilder::build_clear_scroll_body(const std::string& scr
     return buffer.GetString();
 }
 
+std::string ESScrollQueryBuilder::build_aggregation_page_body(const std::string& query,
+                                                              const std::string& after_key) {
+    if (after_key.empty()) {
+        return query;
+    }
+    rapidjson::Document query_dsl;
+    query_dsl.Parse(query.c_str(), query.size());
+    rapidjson::Document::AllocatorType& allocator = query_dsl.GetAllocator();
+    rapidjson::Value after_node;
+    rapidjson::Document after_document;
+    after_document.Parse(after_key.c_str(), after_key.size());
+    after_node.CopyFrom(after_document, allocator);
+    rapidjson::Value& composite_node = query_dsl["aggregations"][COMPOSITE_AGGREGATION_NAME]["composite"];
+    if (composite_node.HasMember("after")) {
+        composite_node["after"] = after_node;
+    } else {
+        composite_node.AddMember("after", after_node, allocator);
+    }
+    rapidjson::StringBuffer buffer;
+    rapidjson::Writer<rapidjson::StringBuffer> writer(buffer);
+    query_dsl.Accept(writer);
+    return buffer.GetString();
+}
+
 std::string ESScrollQueryBuilder::build(const std::map<std::string, std::string>& properties,
                                         const std::vector<std::string>& fields, std::vector<EsPredicate*>& predicates,
                                         const std::map<std::string, std::string>& docvalue_context,
@@ -71,6 +98,25 @@ std::string ESScrollQueryBuilder::build(const std::map<std::string, std::string>
     BooleanQueryBuilder::to_query(predicates, &scratch_document, &query_node);
     // note: add `query` for this value....
     es_query_dsl.AddMember("query", query_node, allocator);
+
+    // the group by aggregation pushed down by FE, only the buckets are returned and no document
+    if (properties.find(ESScanReader::KEY_AGGREGATION) != properties.end()) {
+        *doc_value_mode = false;
+        const std::string& aggregation = properties.at(ESScanReader::KEY_AGGREGATION);
+        rapidjson::Document aggregation_document;
+        aggregation_document.Parse(aggregation.c_str(), aggregation.size());
+        rapidjson::Value aggregation_node;
+        aggregation_node.CopyFrom(aggregation_document, allocator);
+        es_query_dsl.AddMember("size", 0, allocator);
+        es_query_dsl.AddMember("aggregations", aggregation_node, allocator);
+        rapidjson::StringBuffer buffer;
+        rapidjson::Writer<rapidjson::StringBuffer> writer(buffer);
+        es_query_dsl.Accept(writer);
+        std::string es_query_dsl_json = buffer.GetString();
+        LOG(INFO) << "Generated ES aggregation queryDSL [ " << es_query_dsl_json << " ]";
+        return es_query_dsl_json;
+    }
+
     bool pure_docvalue = true;
 
     // StarRocks FE already has checked docvalue-scan optimization
@@ -126,6 +172,13 @@ std::string ESScrollQueryBuilder::build(const std::map<std::string, std::string>
     es_query_dsl.AddMember("sort", sort_node, allocator);
     // number of docuements returned
     es_query_dsl.AddMember("size", size, allocator);
+    // sliced scroll, the shard is split into several slices scanned by different scan ranges
+    if (properties.find(ESScanReader::KEY_SLICE_MAX) != properties.end()) {
+        rapidjson::Value slice_node(rapidjson::kObjectType);
+        slice_node.AddMember("id", atoi(properties.at(ESScanReader::KEY_SLICE_ID).c_str()), allocator);
+        slice_node.AddMember("max", atoi(properties.at(ESScanReader::KEY_SLICE_MAX).c_str()), allocator);
+        es_query_dsl.AddMember("slice", slice_node, allocator);
+    }
     rapidjson::StringBuffer buffer;
     rapidjson::Writer<rapidjson::StringBuffer> writer(buffer);
     es_query_dsl.Accept(writer);
@@ -31,6 +31,8 @@ public:
     // build the query DSL for elasticsearch
     static std::string build_next_scroll_body(const std::string& scroll_id, const std::string& scroll);
     static std::string build_clear_scroll_body(const std::string& scroll_id);
+    // the aggregation query for the page after the given composite key, the first page if after_key is empty
+    static std::string build_aggregation_page_body(const std::string& query, const std::string& after_key);
     // @note: predicates should processed before pass it to this method,
     // tie breaker for predicate wheather can push down es can reference the push-down filters
     static std::string build(const std::map<std::string, std::string>& properties,
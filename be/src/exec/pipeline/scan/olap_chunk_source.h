@@ -68,6 +68,8 @@ private:
     ObjectPool _obj_pool;
     TabletSharedPtr _tablet;
     int64_t _version = 0;
+    // greater than 0 if only the rowsets loaded after it are read
+    int64_t _start_version = 0;
 
     RuntimeState* _runtime_state = nullptr;
     const std::vector<SlotDescriptor*>* _slots = nullptr;
@@ -2,7 +2,10 @@
 
 #include "exec/pipeline/scan/olap_scan_prepare_operator.h"
 
+#include <fmt/format.h>
+
 #include "exec/vectorized/olap_scan_node.h"
+#include "storage/rowset/rowset.h"
 #include "storage/storage_engine.h"
 
 namespace starrocks::pipeline {
@@ -66,12 +69,22 @@ Status OlapScanPrepareOperator::_capture_tablet_rowsets() {
         auto* scan_range = olap_scan_ranges[i];
 
         int64_t version = strtoul(scan_range->version.c_str(), nullptr, 10);
+        int64_t start_version = scan_range->__isset.start_version ? scan_range->start_version : 0;
         ASSIGN_OR_RETURN(TabletSharedPtr tablet, vectorized::OlapScanNode::get_tablet(scan_range));
 
         // Capture row sets of this version tablet.
         {
             std::shared_lock l(tablet->get_header_lock());
-            RETURN_IF_ERROR(tablet->capture_consistent_rowsets(Version(0, version), &_tablet_rowsets[i]));
+            RETURN_IF_ERROR(tablet->capture_consistent_rowsets(Version(start_version, version), &_tablet_rowsets[i]));
+        }
+        // the rows deleted by the delete predicates are in the rowsets before start version, which are not read
+        if (start_version > 0) {
+            for (const auto& rowset : _tablet_rowsets[i]) {
+                if (rowset->rowset_meta()->has_delete_predicate()) {
+                    return Status::NotSupported(fmt::format("tablet {} has delete in versions [{}, {}]",
+                                                            tablet->tablet_id(), start_version, version));
+                }
+            }
         }
 
         _tablets[i] = std::move(tablet);
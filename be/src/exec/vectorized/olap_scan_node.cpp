@@ -2,6 +2,8 @@
 
 #include "exec/vectorized/olap_scan_node.h"
 
+#include <fmt/format.h>
+
 #include <chrono>
 #include <thread>
 
@@ -661,12 +663,22 @@ Status OlapScanNode::_capture_tablet_rowsets() {
         const auto& scan_range = _scan_ranges[i];
 
         int64_t version = strtoul(scan_range->version.c_str(), nullptr, 10);
+        int64_t start_version = scan_range->__isset.start_version ? scan_range->start_version : 0;
         ASSIGN_OR_RETURN(TabletSharedPtr tablet, get_tablet(scan_range.get()));
 
         // Capture row sets of this version tablet.
         {
             std::shared_lock l(tablet->get_header_lock());
-            RETURN_IF_ERROR(tablet->capture_consistent_rowsets(Version(0, version), &_tablet_rowsets[i]));
+            RETURN_IF_ERROR(tablet->capture_consistent_rowsets(Version(start_version, version), &_tablet_rowsets[i]));
+        }
+        // the rows deleted by the delete predicates are in the rowsets before start version, which are not read
+        if (start_version > 0) {
+            for (const auto& rowset : _tablet_rowsets[i]) {
+                if (rowset->rowset_meta()->has_delete_predicate()) {
+                    return Status::NotSupported(fmt::format("tablet {} has delete in versions [{}, {}]",
+                                                            tablet->tablet_id(), start_version, version));
+                }
+            }
         }
     }
 
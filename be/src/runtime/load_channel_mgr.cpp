@@ -198,4 +198,9 @@ std::shared_ptr<LoadChannel> LoadChannelMgr::remove_load_channel(const UniqueId&
     return nullptr;
 }
 
+size_t LoadChannelMgr::num_load_channels() {
+    std::lock_guard l(_lock);
+    return _load_channels.size();
+}
+
 } // namespace starrocks
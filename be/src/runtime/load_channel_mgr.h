@@ -73,6 +73,8 @@ public:
 
     std::shared_ptr<LoadChannel> remove_load_channel(const UniqueId& load_id);
 
+    size_t num_load_channels();
+
 private:
     static void* load_channel_clean_bg_worker(void* arg);
 
@@ -0,0 +1,127 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+#include "exec/es/es_scroll_parser.h"
+
+#include <gtest/gtest.h>
+
+#include <string>
+
+#include "column/chunk.h"
+#include "column/column.h"
+#include "common/config.h"
+#include "common/object_pool.h"
+#include "gen_cpp/Descriptors_types.h"
+#include "runtime/descriptor_helper.h"
+#include "runtime/descriptors.h"
+#include "runtime/runtime_state.h"
+
+namespace starrocks::vectorized {
+
+class ScrollParserTest : public ::testing::Test {
+protected:
+    void SetUp() override {
+        // the columns of the es scan with a pushed down aggregation:
+        // select k1, count(*), max(v1), sum(v2) from es_table group by k1
+        TDescriptorTableBuilder desc_tbl_builder;
+        TTupleDescriptorBuilder tuple_desc_builder;
+        tuple_desc_builder.add_slot(
+                TSlotDescriptorBuilder().string_type(32).column_name("k1").nullable(true).build());
+        tuple_desc_builder.add_slot(
+                TSlotDescriptorBuilder().type(TYPE_BIGINT).column_name("_doc_count").nullable(false).build());
+        tuple_desc_builder.add_slot(
+                TSlotDescriptorBuilder().type(TYPE_INT).column_name("__agg_3").nullable(true).build());
+        tuple_desc_builder.add_slot(
+                TSlotDescriptorBuilder().type(TYPE_DOUBLE).column_name("__agg_4").nullable(true).build());
+        tuple_desc_builder.build(&desc_tbl_builder);
+
+        DescriptorTbl* desc_tbl = nullptr;
+        Status st =
+                DescriptorTbl::create(&_obj_pool, desc_tbl_builder.desc_tbl(), &desc_tbl, config::vector_chunk_size);
+        CHECK(st.ok()) << st.to_string();
+        _tuple_desc = desc_tbl->get_tuple_descriptor(0);
+
+        _state = _obj_pool.add(new RuntimeState(TUniqueId(), TQueryOptions(), TQueryGlobals(), nullptr));
+        _state->set_desc_tbl(desc_tbl);
+        _state->init_instance_mem_tracker();
+    }
+
+    ColumnPtr& column(const ChunkPtr& chunk, int index) {
+        return chunk->get_column_by_slot_id(_tuple_desc->slots()[index]->id());
+    }
+
+    ObjectPool _obj_pool;
+    TupleDescriptor* _tuple_desc = nullptr;
+    RuntimeState* _state = nullptr;
+    std::map<std::string, std::string> _docvalue_context;
+};
+
+TEST_F(ScrollParserTest, test_parse_aggregation) {
+    std::string response = R"({
+        "took": 3,
+        "timed_out": false,
+        "aggregations": {
+            "groupby": {
+                "after_key": {"k1": "b"},
+                "buckets": [
+                    {"key": {"k1": "a"}, "doc_count": 3, "__agg_3": {"value": 2.0}, "__agg_4": {"value": 2.5}},
+                    {"key": {"k1": null}, "doc_count": 1, "__agg_3": {"value": null}, "__agg_4": {"value": 0.0}},
+                    {"key": {"k1": "b"}, "doc_count": 5, "__agg_3": {"value": -7.0}, "__agg_4": {"value": 1.0E20}}
+                ]
+            }
+        }
+    })";
+    ScrollParser parser(false);
+    parser.set_params(_tuple_desc, &_docvalue_context);
+    ASSERT_TRUE(parser.parse_aggregation(response).ok());
+    ASSERT_EQ(3, parser.get_size());
+    ASSERT_EQ(R"({"k1":"b"})", parser.get_after_key());
+
+    ChunkPtr chunk;
+    bool line_eos = false;
+    ASSERT_TRUE(parser.fill_chunk(_state, &chunk, &line_eos).ok());
+    ASSERT_FALSE(line_eos);
+    ASSERT_EQ(3, chunk->num_rows());
+
+    ASSERT_EQ("a", column(chunk, 0)->get(0).get_slice().to_string());
+    ASSERT_TRUE(column(chunk, 0)->get(1).is_null());
+    ASSERT_EQ("b", column(chunk, 0)->get(2).get_slice().to_string());
+
+    ASSERT_EQ(3, column(chunk, 1)->get(0).get_int64());
+    ASSERT_EQ(1, column(chunk, 1)->get(1).get_int64());
+    ASSERT_EQ(5, column(chunk, 1)->get(2).get_int64());
+
+    // the integral metrics in double are read as integers
+    ASSERT_EQ(2, column(chunk, 2)->get(0).get_int32());
+    ASSERT_TRUE(column(chunk, 2)->get(1).is_null());
+    ASSERT_EQ(-7, column(chunk, 2)->get(2).get_int32());
+
+    ASSERT_DOUBLE_EQ(2.5, column(chunk, 3)->get(0).get_double());
+    ASSERT_DOUBLE_EQ(0.0, column(chunk, 3)->get(1).get_double());
+    ASSERT_DOUBLE_EQ(1.0E20, column(chunk, 3)->get(2).get_double());
+
+    ASSERT_TRUE(parser.fill_chunk(_state, &chunk, &line_eos).ok());
+    ASSERT_TRUE(line_eos);
+}
+
+TEST_F(ScrollParserTest, test_parse_aggregation_last_page) {
+    // the last page has no after_key and no bucket
+    std::string response = R"({"aggregations": {"groupby": {"buckets": []}}})";
+    ScrollParser parser(false);
+    parser.set_params(_tuple_desc, &_docvalue_context);
+    ASSERT_TRUE(parser.parse_aggregation(response).ok());
+    ASSERT_EQ(0, parser.get_size());
+    ASSERT_TRUE(parser.get_after_key().empty());
+
+    // the filtered response of an empty index
+    ASSERT_TRUE(parser.parse_aggregation(R"({"took": 1, "timed_out": false})").ok());
+    ASSERT_EQ(0, parser.get_size());
+    ASSERT_TRUE(parser.current_eos());
+}
+
+TEST_F(ScrollParserTest, test_parse_aggregation_error) {
+    ScrollParser parser(false);
+    parser.set_params(_tuple_desc, &_docvalue_context);
+    ASSERT_FALSE(parser.parse_aggregation(R"({"aggregations": {"groupby": )").ok());
+}
+
+} // namespace starrocks::vectorized
@@ -62,6 +62,8 @@ public class EsTable extends Table {
     public static final String TRANSPORT = "transport";
     public static final String VERSION = "version";
     public static final String DOC_VALUES_MODE = "doc_values_mode";
+    // the group by aggregation pushed down to ES, passed to BE in the properties of the scan node
+    public static final String AGGREGATION = "aggregation";
 
     public static final String TRANSPORT_HTTP = "http";
     public static final String TRANSPORT_THRIFT = "thrift";
@@ -470,6 +472,13 @@ public class EsTable extends Table {
         return majorVersion;
     }
 
+    /**
+     * the version of the remote ES cluster, null if the meta data has not been synced
+     */
+    public EsMajorVersion remoteVersion() {
+        return esMetaStateTracker == null ? null : esMetaStateTracker.searchContext().version();
+    }
+
     public Throwable getLastMetaDataSyncException() {
         return lastMetaDataSyncException;
     }
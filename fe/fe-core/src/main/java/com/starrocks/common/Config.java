@@ -117,6 +117,66 @@ public class Config extends ConfigBase {
     @ConfField
     public static String audit_log_delete_age = "30d";
 
+    /**
+     * The capacity of the queue of the audit events waiting for the audit plugins.
+     */
+    @ConfField
+    public static int audit_event_queue_size = 10000;
+
+    /**
+     * The max audit events handed to the audit plugins at once.
+     */
+    @ConfField(mutable = true)
+    public static int audit_event_batch_size = 500;
+
+    /**
+     * When the audit queue is fuller than this ratio, the audit events are sampled by the free space of the queue,
+     * except the failed and slow queries. 1 for not sampled.
+     */
+    @ConfField(mutable = true)
+    public static double audit_event_sample_watermark = 0.8;
+
+    /**
+     * Load the audit events into the internal table _statistics_.audit_log.
+     */
+    @ConfField(mutable = true)
+    public static boolean enable_audit_table_sink = false;
+
+    /**
+     * The audit events are loaded into the audit table when this number of events are collected,
+     * or every audit_table_sink_flush_interval_ms.
+     */
+    @ConfField(mutable = true)
+    public static int audit_table_sink_batch_rows = 1000;
+
+    @ConfField(mutable = true)
+    public static long audit_table_sink_flush_interval_ms = 10000;
+
+    /**
+     * The times to retry a failed load of the audit events, the events are dropped after that.
+     */
+    @ConfField(mutable = true)
+    public static int audit_table_sink_max_retries = 3;
+
+    /**
+     * The statements longer than this are truncated in the audit table.
+     */
+    @ConfField(mutable = true)
+    public static int audit_table_sink_max_stmt_length = 8192;
+
+    /**
+     * The max length of an INSERT statement loading the audit events, the events of a batch are loaded by
+     * several statements if they are too long for one.
+     */
+    @ConfField(mutable = true)
+    public static int audit_table_sink_max_sql_length = 1024 * 1024;
+
+    /**
+     * The days of the audit events kept in the audit table, it is applied when the table is created.
+     */
+    @ConfField
+    public static int audit_table_retention_days = 30;
+
     /**
      * dump_log_dir:
      * This specifies FE dump log dir.
@@ -566,6 +626,27 @@ public class Config extends ConfigBase {
     @ConfField
     public static String mysql_server_version = "5.1.0";
 
+    /**
+     * Whether to advertise CLIENT_COMPRESS in the handshake, the result sets are compressed by zlib if the client
+     * asks for compression, e.g. mysql --compress or useCompression=true of JDBC.
+     */
+    @ConfField(mutable = true)
+    public static boolean enable_mysql_compression = true;
+
+    /**
+     * The packets smaller than this are not compressed, compressing them costs more than it saves.
+     */
+    @ConfField(mutable = true)
+    public static int mysql_compression_min_packet_bytes = 512;
+
+    /**
+     * The max bytes of the idle direct buffers kept in the pool for sending mysql packets.
+     * The connections borrow the buffers from the pool when they send the result of a command, and give them back
+     * after the result is sent.
+     */
+    @ConfField(mutable = true)
+    public static long mysql_send_buffer_pool_max_bytes = 256L * 1024 * 1024;
+
     /**
      * node(FE or BE) will be considered belonging to the same StarRocks cluster if they have same cluster id.
      * Cluster id is usually a random integer generated when master FE start at first time.
@@ -674,6 +755,26 @@ public class Config extends ConfigBase {
     @ConfField(mutable = true)
     public static int max_stream_load_timeout_second = 259200; // 3days
 
+    /**
+     * Redirect the stream loads to the backends by their load statistics reported by the heartbeats,
+     * rather than in turn.
+     */
+    @ConfField(mutable = true)
+    public static boolean enable_load_aware_stream_load_redirect = true;
+
+    /**
+     * The stream loads are not redirected to the backends running this number of stream loads, 0 for no limit.
+     */
+    @ConfField(mutable = true)
+    public static int stream_load_max_concurrent_per_backend = 0;
+
+    /**
+     * How much the backends holding the replicas of the target table are preferred to coordinate the stream loads,
+     * it's taken off the load score of the backends, 0 for not preferred.
+     */
+    @ConfField(mutable = true)
+    public static double stream_load_replica_locality_weight = 0.5;
+
     /**
      * Default prepared transaction timeout
      */
@@ -889,6 +990,100 @@ public class Config extends ConfigBase {
     @ConfField
     public static int max_connection_scheduler_threads_num = 4096;
 
+    /**
+     * If true, a query exceeding the concurrency_limit of its resource group waits in the query queue of FE
+     * instead of failing on BE.
+     */
+    @ConfField(mutable = true)
+    public static boolean enable_query_queue = true;
+
+    /**
+     * Maximal number of running queries of all the resource groups, 0 means no limit.
+     * Like concurrency_limit of resource group, it is shared by all the alive FEs evenly.
+     */
+    @ConfField(mutable = true)
+    public static int query_queue_concurrency_limit = 0;
+
+    /**
+     * Maximal time a query waits in the query queue, the query fails if it is not admitted in time.
+     */
+    @ConfField(mutable = true)
+    public static int query_queue_pending_timeout_second = 300;
+
+    /**
+     * The number of threads to serialize the plan fragment requests when deploying the fragments of queries.
+     * If it is not positive, the number of threads is the number of CPU cores.
+     */
+    @ConfField
+    public static int deploy_serialize_thread_num = 0;
+
+    /**
+     * The queue size of the threads to serialize the plan fragment requests,
+     * the requests are serialized by the deploying thread itself when the queue is full.
+     */
+    @ConfField
+    public static int deploy_serialize_queue_size = 1024;
+
+    /**
+     * The max number of result batches fetched in advance from BE while the current batch is sent to the client,
+     * 0 to fetch the result batches one by one.
+     */
+    @ConfField(mutable = true)
+    public static int result_prefetch_batch_num = 4;
+
+    /**
+     * The max bytes of the result batches fetched in advance of a query.
+     */
+    @ConfField(mutable = true)
+    public static long result_prefetch_max_bytes = 64L * 1024 * 1024;
+
+    /**
+     * The max number of queries fetching result batches in advance, the other queries fetch their results
+     * one by one.
+     */
+    @ConfField
+    public static int result_prefetch_thread_num = 256;
+
+    /**
+     * Choose the replicas of the scan ranges by the load of the backends, including the running fragment
+     * instances and the recent RPC latencies, rather than only by the number of the assigned scan ranges.
+     */
+    @ConfField(mutable = true)
+    public static boolean enable_load_aware_replica_selection = true;
+
+    /**
+     * The window of the RPC latencies to compute the p99 latency of a backend.
+     */
+    @ConfField(mutable = true)
+    public static int backend_load_latency_window_second = 60;
+
+    /**
+     * A backend is slow if its p99 RPC latency is slow_replica_latency_ratio times of the median of all the
+     * backends and at least slow_replica_min_latency_ms, the scan ranges fall back to the other replicas.
+     */
+    @ConfField(mutable = true)
+    public static double slow_replica_latency_ratio = 4.0;
+
+    @ConfField(mutable = true)
+    public static long slow_replica_min_latency_ms = 100;
+
+    /**
+     * The max bytes of the compressed query profiles kept in memory, the oldest profiles are spilled to
+     * profile_spill_dir or discarded when exceeded.
+     */
+    @ConfField(mutable = true)
+    public static long profile_max_memory_bytes = 128L * 1024 * 1024;
+
+    /**
+     * The max bytes of the query profiles spilled to profile_spill_dir, the oldest spilled profiles are deleted
+     * when exceeded. 0 to discard the profiles rather than spill them.
+     */
+    @ConfField(mutable = true)
+    public static long profile_spill_max_bytes = 0;
+
+    @ConfField
+    public static String profile_spill_dir = tmp_dir + "/profile";
+
     /**
      * Used to limit element num of InPredicate in delete statement.
      */
@@ -901,6 +1096,14 @@ public class Config extends ConfigBase {
     @ConfField(mutable = true)
     public static boolean enable_materialized_view = true;
 
+    /**
+     * refresh the materialized view whose aggregations can be merged by aggregating the rows loaded into
+     * its base table since the last refresh and merging them into the materialized view,
+     * instead of recomputing the partitions, fall back to the full refresh if the base table is not append only
+     */
+    @ConfField(mutable = true)
+    public static boolean enable_mv_incremental_refresh = true;
+
     @ConfField(mutable = true)
     public static boolean enable_udf = false;
 
@@ -1490,12 +1693,57 @@ public class Config extends ConfigBase {
     @ConfField(mutable = true)
     public static long iceberg_worker_num_threads = 64;
 
+    /**
+     * number of threads to read the manifests of iceberg table when planning a scan
+     */
+    @ConfField
+    public static int iceberg_manifest_read_num_threads = 16;
+
+    /**
+     * max number of data files cached from iceberg manifests, used to plan the scan of an unchanged
+     * iceberg table without reading its manifests again
+     */
+    @ConfField
+    public static long iceberg_manifest_cache_max_num_files = 200000;
+
+    /**
+     * max number of iceberg tables whose statistics of the latest snapshot are cached for the optimizer
+     */
+    @ConfField
+    public static long iceberg_statistic_cache_max_num_tables = 1000;
+
     /**
      * fe will call es api to get es index shard info every es_state_sync_interval_secs
      */
     @ConfField
     public static long es_state_sync_interval_second = 10;
 
+    /**
+     * The _mapping, _search_shards and shard doc count responses of an es index are cached for this many seconds
+     * and shared by the tables on the same index, es_state_sync_interval_second only refreshes the expired ones
+     */
+    @ConfField
+    public static long es_meta_cache_ttl_second = 30;
+
+    /**
+     * A shard of an es index with more docs than this is scanned by several sliced scrolls in parallel,
+     * each slice scans about this many docs. Only take effect on es 7.x and later. Set to 0 to disable it.
+     */
+    @ConfField(mutable = true)
+    public static long es_scan_docs_per_slice = 10000000L;
+
+    /**
+     * max number of sliced scrolls of an es shard
+     */
+    @ConfField(mutable = true)
+    public static int es_scan_max_slices_per_shard = 16;
+
+    /**
+     * number of buckets returned by a request of the composite aggregation pushed down to es
+     */
+    @ConfField(mutable = true)
+    public static int es_aggregation_page_size = 4096;
+
     /**
      * If set to true, StarRocks will check if the compiled and running versions of Java are compatible
      */
@@ -1544,6 +1792,25 @@ public class Config extends ConfigBase {
     @ConfField(mutable = true)
     public static boolean enable_collect_query_detail_info = false;
 
+    /**
+     * The max number of the query details kept for monitor, both the running and the finished details count.
+     */
+    @ConfField
+    public static int query_detail_queue_max_num = 200000;
+
+    /**
+     * The max memory of the query details kept for monitor, the oldest details are evicted first.
+     */
+    @ConfField(mutable = true)
+    public static long query_detail_queue_max_bytes = 256L * 1024 * 1024;
+
+    /**
+     * The ratio of the queries whose details are collected, in [0, 1]. The queries are sampled by query id,
+     * and the query latency metrics are computed from the sampled queries.
+     */
+    @ConfField(mutable = true)
+    public static double query_detail_sample_ratio = 1.0;
+
     /**
      * Min lag of routine load job to show in metrics
      * Only show the routine load job whose lag is larger than min_routine_load_lag_for_metrics
@@ -1551,6 +1818,13 @@ public class Config extends ConfigBase {
     @ConfField(mutable = true)
     public static long min_routine_load_lag_for_metrics = 10000;
 
+    /**
+     * The prometheus output of the metrics is reused by the scrapes in this time,
+     * so the metrics are collected once for the concurrent scrapes. 0 to collect the metrics for every scrape.
+     */
+    @ConfField(mutable = true)
+    public static long metrics_snapshot_cache_ttl_ms = 1000;
+
     /**
      * The heartbeat timeout of be/broker/fe.
      * the default is 5 seconds
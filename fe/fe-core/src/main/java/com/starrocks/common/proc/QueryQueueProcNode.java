@@ -0,0 +1,24 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.common.proc;
+
+import com.google.common.collect.ImmutableList;
+import com.starrocks.common.AnalysisException;
+import com.starrocks.qe.QueryQueueManager;
+
+/*
+ * show proc "/query_queue";
+ * the queries admitted and waiting in the query queue of this FE by resource group
+ */
+public class QueryQueueProcNode implements ProcNodeInterface {
+    public static final ImmutableList<String> TITLE_NAMES = new ImmutableList.Builder<String>()
+            .add("ResourceGroup").add("Running").add("Pending").add("MaxPendingTimeMs").build();
+
+    @Override
+    public ProcResult fetchResult() throws AnalysisException {
+        BaseProcResult result = new BaseProcResult();
+        result.setNames(TITLE_NAMES);
+        result.setRows(QueryQueueManager.getInstance().getQueueInfos());
+        return result;
+    }
+}
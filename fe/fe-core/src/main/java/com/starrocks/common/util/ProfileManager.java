@@ -24,9 +24,16 @@ package com.starrocks.common.util;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.starrocks.common.Config;
+import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
@@ -38,6 +45,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /*
  * if you want to visit the atrribute(such as queryID,defaultDb)
@@ -47,11 +57,17 @@ import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
  * why the element in the finished profile arary is not RuntimeProfile,
  * the purpose is let coordinator can destruct earlier(the fragment profile is in Coordinator)
  *
+ * The profiles are kept compressed and decompressed only when requested. The compressed profiles in memory are
+ * bounded by profile_max_memory_bytes, the oldest ones are spilled to profile_spill_dir if profile_spill_max_bytes
+ * is positive, otherwise discarded. The spilled profiles are bounded by profile_spill_max_bytes like a ring,
+ * the oldest spilled files are deleted.
+ * The profiles to spill and to delete are picked under the lock, and the files are written and deleted outside it,
+ * so that a slow disk does not block pushing and listing the profiles.
  */
 public class ProfileManager {
     private static final Logger LOG = LogManager.getLogger(ProfileManager.class);
     private static ProfileManager INSTANCE = null;
-    private static final int ARRAY_SIZE = 1000;
+    private static final String SPILL_FILE_SUFFIX = ".profile";
     public static final String QUERY_ID = "Query ID";
     public static final String START_TIME = "Start Time";
     public static final String END_TIME = "End Time";
@@ -70,18 +86,42 @@ public class ProfileManager {
             Arrays.asList(QUERY_ID, USER, DEFAULT_DB, SQL_STATEMENT, QUERY_TYPE,
                     START_TIME, END_TIME, TOTAL_TIME, QUERY_STATE));
 
-    private class ProfileElement {
+    private static class ProfileElement {
         public Map<String, String> infoStrings = Maps.newHashMap();
-        public String profileContent;
+        // the compressed profile content, null after it is written to spillFile
+        public volatile byte[] compressedContent;
+        // the file of the spilled profile content, set when the profile is picked to spill
+        public volatile File spillFile;
+        public long spillBytes;
+        // the spilled profile is deleted, protected by the monitor of the element together with the spill file
+        public boolean deleted = false;
+
+        public String getQueryId() {
+            return infoStrings.get(QUERY_ID);
+        }
+
+        public long getMemoryBytes() {
+            long bytes = compressedContent == null ? 0 : compressedContent.length;
+            for (String value : infoStrings.values()) {
+                bytes += value == null ? 0 : value.length();
+            }
+            return bytes;
+        }
     }
 
-    // only protect profileDeque; profileMap is concurrent, no need to protect
+    // only protect the deques; profileMap is concurrent, no need to protect
     private ReentrantReadWriteLock lock;
     private ReadLock readLock;
     private WriteLock writeLock;
 
+    // the profiles in memory and spilled, from old to new, the spilled ones are older than the ones in memory
     private Deque<ProfileElement> profileDeque;
+    private Deque<ProfileElement> spilledProfileDeque;
     private Map<String, ProfileElement> profileMap; // from QueryId to RuntimeProfile
+    private long memoryBytes = 0;
+    private long spillBytes = 0;
+    // distinguish the spill files of the same query id
+    private long spillSeq = 0;
 
     public static ProfileManager getInstance() {
         if (INSTANCE == null) {
@@ -90,31 +130,46 @@ public class ProfileManager {
         return INSTANCE;
     }
 
-    private ProfileManager() {
+    // for test
+    ProfileManager() {
         lock = new ReentrantReadWriteLock(true);
         readLock = lock.readLock();
         writeLock = lock.writeLock();
         profileDeque = new LinkedList<ProfileElement>();
+        spilledProfileDeque = new LinkedList<ProfileElement>();
         profileMap = new ConcurrentHashMap<String, ProfileElement>();
+        // the profiles spilled before restarting are not indexed any more
+        File[] staleFiles = new File(Config.profile_spill_dir).listFiles(
+                (dir, name) -> name.endsWith(SPILL_FILE_SUFFIX));
+        if (staleFiles != null) {
+            for (File file : staleFiles) {
+                FileUtils.deleteQuietly(file);
+            }
+        }
     }
 
-    public ProfileElement createElement(RuntimeProfile profile) {
+    private ProfileElement createElement(RuntimeProfile profile, String profileContent) {
         ProfileElement element = new ProfileElement();
         RuntimeProfile summaryProfile = profile.getChildList().get(0).first;
         for (String header : PROFILE_HEADERS) {
             element.infoStrings.put(header, summaryProfile.getInfoString(header));
         }
-        element.profileContent = profile.toString();
+        element.compressedContent = compress(profileContent);
         return element;
     }
 
-    public String pushProfile(RuntimeProfile profile) {
+    /**
+     * Push the profile of a finished query, return the compressed profile content, which can be shared by the
+     * callers but must not be modified.
+     */
+    public byte[] pushProfile(RuntimeProfile profile) {
         if (profile == null) {
-            return "";
+            return null;
         }
 
-        ProfileElement element = createElement(profile);
-        String queryId = element.infoStrings.get(ProfileManager.QUERY_ID);
+        String profileContent = profile.toString();
+        ProfileElement element = createElement(profile, profileContent);
+        String queryId = element.getQueryId();
         // check when push in, which can ensure every element in the list has QUERY_ID column,
         // so there is no need to check when remove element from list.
         if (Strings.isNullOrEmpty(queryId)) {
@@ -122,53 +177,180 @@ public class ProfileManager {
                     + "may be forget to insert 'QUERY_ID' column into infoStrings");
         }
 
+        List<ProfileElement> toSpill = Lists.newArrayList();
+        List<ProfileElement> toDelete = Lists.newArrayList();
+        byte[] compressedContent = element.compressedContent;
         profileMap.put(queryId, element);
         writeLock.lock();
         try {
-            if (profileDeque.size() >= ARRAY_SIZE) {
-                profileMap.remove(profileDeque.getFirst().infoStrings.get(QUERY_ID));
-                profileDeque.removeFirst();
-            }
             profileDeque.addLast(element);
+            memoryBytes += element.getMemoryBytes();
+            // keep the newest profile in memory at least
+            while (memoryBytes > Config.profile_max_memory_bytes && profileDeque.size() > 1) {
+                ProfileElement oldest = profileDeque.removeFirst();
+                memoryBytes -= oldest.getMemoryBytes();
+                if (pickToSpill(oldest)) {
+                    toSpill.add(oldest);
+                } else {
+                    profileMap.remove(oldest.getQueryId(), oldest);
+                }
+            }
+            while (spillBytes > Config.profile_spill_max_bytes && !spilledProfileDeque.isEmpty()) {
+                ProfileElement oldest = spilledProfileDeque.removeFirst();
+                spillBytes -= oldest.spillBytes;
+                profileMap.remove(oldest.getQueryId(), oldest);
+                toDelete.add(oldest);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+
+        for (ProfileElement spilled : toSpill) {
+            spill(spilled);
+        }
+        for (ProfileElement deleted : toDelete) {
+            deleteSpillFile(deleted);
+        }
+        return compressedContent;
+    }
+
+    // pick the profile to spill and account its spill bytes, return false if the profile should be discarded,
+    // must be called under the write lock
+    private boolean pickToSpill(ProfileElement element) {
+        if (Config.profile_spill_max_bytes <= 0 || element.compressedContent.length > Config.profile_spill_max_bytes) {
+            return false;
+        }
+        element.spillFile = new File(Config.profile_spill_dir,
+                element.getQueryId() + "_" + (spillSeq++) + SPILL_FILE_SUFFIX);
+        element.spillBytes = element.compressedContent.length;
+        spilledProfileDeque.addLast(element);
+        spillBytes += element.spillBytes;
+        return true;
+    }
+
+    // write the compressed content to the spill file, the content is kept in memory until the file is written,
+    // so the profile is always readable. The profile is discarded if it fails to write the file.
+    private void spill(ProfileElement element) {
+        synchronized (element) {
+            if (element.deleted) {
+                return;
+            }
+            File file = element.spillFile;
+            try {
+                File dir = file.getParentFile();
+                if (!dir.exists() && !dir.mkdirs()) {
+                    throw new IOException("failed to create dir " + dir);
+                }
+                Files.write(file.toPath(), element.compressedContent);
+                element.compressedContent = null;
+                return;
+            } catch (IOException e) {
+                LOG.warn("failed to spill profile of query {}", element.getQueryId(), e);
+                FileUtils.deleteQuietly(file);
+                element.deleted = true;
+            }
+        }
+        writeLock.lock();
+        try {
+            if (spilledProfileDeque.remove(element)) {
+                spillBytes -= element.spillBytes;
+            }
+            profileMap.remove(element.getQueryId(), element);
         } finally {
             writeLock.unlock();
         }
+    }
 
-        return element.profileContent;
+    private void deleteSpillFile(ProfileElement element) {
+        synchronized (element) {
+            element.deleted = true;
+            // the file is not written if the profile is deleted before it is spilled
+            if (element.spillFile.exists() && !element.spillFile.delete()) {
+                LOG.warn("failed to delete spilled profile {}", element.spillFile);
+            }
+        }
     }
 
     public List<List<String>> getAllQueries() {
         List<List<String>> result = Lists.newArrayList();
         readLock.lock();
         try {
-            Iterator reverse = profileDeque.descendingIterator();
-            while (reverse.hasNext()) {
-                ProfileElement element = (ProfileElement) reverse.next();
-                Map<String, String> infoStrings = element.infoStrings;
-
-                List<String> row = Lists.newArrayList();
-                for (String str : PROFILE_HEADERS) {
-                    row.add(infoStrings.get(str));
-                }
-                result.add(row);
-            }
+            addQueries(profileDeque.descendingIterator(), result);
+            addQueries(spilledProfileDeque.descendingIterator(), result);
         } finally {
             readLock.unlock();
         }
         return result;
     }
 
+    private void addQueries(Iterator<ProfileElement> reverse, List<List<String>> result) {
+        while (reverse.hasNext()) {
+            ProfileElement element = reverse.next();
+            Map<String, String> infoStrings = element.infoStrings;
+
+            List<String> row = Lists.newArrayList();
+            for (String str : PROFILE_HEADERS) {
+                row.add(infoStrings.get(str));
+            }
+            result.add(row);
+        }
+    }
+
     public String getProfile(String queryID) {
-        readLock.lock();
-        try {
-            ProfileElement element = profileMap.get(queryID);
-            if (element == null) {
+        ProfileElement element = profileMap.get(queryID);
+        if (element == null) {
+            return null;
+        }
+        // the content is cleared only after the spill file is written
+        byte[] compressedContent = element.compressedContent;
+        if (compressedContent == null) {
+            try {
+                compressedContent = Files.readAllBytes(element.spillFile.toPath());
+            } catch (IOException e) {
+                // the spilled profile may be deleted concurrently
+                LOG.warn("failed to read spilled profile of query {}", queryID, e);
                 return null;
             }
+        }
+        return decompress(compressedContent);
+    }
 
-            return element.profileContent;
+    public static byte[] compress(String content) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(content.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int len = deflater.deflate(buffer);
+                out.write(buffer, 0, len);
+            }
+            return out.toByteArray();
         } finally {
-            readLock.unlock();
+            deflater.end();
+        }
+    }
+
+    public static String decompress(byte[] compressedContent) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressedContent);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int len = inflater.inflate(buffer);
+                if (len == 0 && inflater.needsInput()) {
+                    break;
+                }
+                out.write(buffer, 0, len);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            LOG.warn("failed to decompress profile", e);
+            return null;
+        } finally {
+            inflater.end();
         }
     }
 }
@@ -24,7 +24,6 @@ package com.starrocks.common.util;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import com.starrocks.common.Pair;
 import com.starrocks.common.Reference;
 import com.starrocks.thrift.TCounter;
@@ -32,10 +31,10 @@ import com.starrocks.thrift.TRuntimeProfileNode;
 import com.starrocks.thrift.TRuntimeProfileTree;
 import com.starrocks.thrift.TUnit;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.tuple.Triple;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Formatter;
@@ -45,31 +44,93 @@ import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * It is accessed by two kinds of thread, one is to create this RuntimeProfile
  * , named 'query thread', the other is to call
  * {@link com.starrocks.common.proc.CurrentQueryInfoProvider}.
+ * <p>
+ * The counter names are interned to ids shared by all the profiles, and the counters of a profile are kept
+ * in arrays, so a wide query with thousands of fragment instances merges and updates its profiles by
+ * the ids and the array slots instead of hashing the names into maps of every instance.
  */
 public class RuntimeProfile {
     private static final Logger LOG = LogManager.getLogger(RuntimeProfile.class);
     private static final String ROOT_COUNTER = "";
-    private static final Set<String> NON_MERGE_COUNTER_NAMES =
-            Sets.newHashSet("DegreeOfParallelism", "RuntimeBloomFilterNum", "RuntimeInFilterNum", "PushdownPredicates",
-                    "MemoryLimit");
+    // the parent slot of the counters under the root, also returned when a counter is not found
+    private static final int ROOT_SLOT = -1;
+    // the parent slot of TotalTime, which is not under the root, so it's not printed, copied or merged
+    private static final int DETACHED_SLOT = -2;
+    private static final int INITIAL_COUNTER_CAPACITY = 8;
     private static final String MERGED_INFO_PREFIX_MIN = "__MIN_OF_";
     private static final String MERGED_INFO_PREFIX_MAX = "__MAX_OF_";
+    private static final int[] NON_MERGE_COUNTER_IDS = Stream.of("DegreeOfParallelism", "RuntimeBloomFilterNum",
+            "RuntimeInFilterNum", "PushdownPredicates", "MemoryLimit").mapToInt(CounterNames::intern).toArray();
+
+    /**
+     * The ids of the counter names. The names come from the fixed counters of the operators and their MIN/MAX
+     * counters, so there are only a few thousand of them.
+     */
+    private static final class CounterNames {
+        private static final Map<String, Integer> NAME_TO_ID = Maps.newConcurrentMap();
+        private static volatile String[] names = new String[1024];
+        private static volatile int size = 0;
+
+        static int intern(String name) {
+            Integer id = NAME_TO_ID.get(name);
+            if (id != null) {
+                return id;
+            }
+            synchronized (CounterNames.class) {
+                id = NAME_TO_ID.get(name);
+                if (id != null) {
+                    return id;
+                }
+                int newId = size;
+                if (newId == names.length) {
+                    names = Arrays.copyOf(names, newId * 2);
+                }
+                names[newId] = name;
+                size = newId + 1;
+                // publish the id after its name
+                NAME_TO_ID.put(name, newId);
+                return newId;
+            }
+        }
+
+        // return -1 if the name is not interned
+        static int lookup(String name) {
+            Integer id = NAME_TO_ID.get(name);
+            return id == null ? -1 : id;
+        }
+
+        static String name(int id) {
+            return names[id];
+        }
+
+        static int size() {
+            return size;
+        }
+    }
 
     private final Counter counterTotalTime;
 
     private final Map<String, String> infoStrings = Maps.newHashMap();
     private final List<String> infoStringsDisplayOrder = Lists.newArrayList();
 
+    // The counters are kept in slots in the order they are added, so a parent counter is always in a slot before
+    // its children. A removed counter leaves its slot empty and takes a new slot if it is added again.
+    // The counters are added and removed by one thread at a time, and the other threads read the slots
+    // published by numCounters. A profile has tens of counters, scanning the ids is cheaper than hashing names.
+    private volatile int[] counterIds = new int[INITIAL_COUNTER_CAPACITY];
+    private volatile int[] parentSlots = new int[INITIAL_COUNTER_CAPACITY];
+    private volatile Counter[] counters = new Counter[INITIAL_COUNTER_CAPACITY];
+    private volatile int numCounters = 0;
+
     // These will be hold by other thread.
-    private final Map<String, Pair<Counter, String>> counterMap = Maps.newConcurrentMap();
     private final Map<String, RuntimeProfile> childMap = Maps.newConcurrentMap();
 
-    private final Map<String, Set<String>> childCounterMap = Maps.newConcurrentMap();
     private final List<Pair<RuntimeProfile, Boolean>> childList = Lists.newArrayList();
 
     private String name;
@@ -83,7 +144,7 @@ public class RuntimeProfile {
     public RuntimeProfile() {
         this.counterTotalTime = new Counter(TUnit.TIME_NS, 0);
         this.localTimePercent = 0;
-        this.counterMap.put("TotalTime", Pair.create(counterTotalTime, ROOT_COUNTER));
+        addCounter(CounterNames.intern("TotalTime"), counterTotalTime, DETACHED_SLOT);
     }
 
     public Counter getCounterTotalTime() {
@@ -91,8 +152,17 @@ public class RuntimeProfile {
     }
 
     public Map<String, Counter> getCounterMap() {
-        return counterMap.entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().first));
+        int n = numCounters;
+        int[] ids = counterIds;
+        Counter[] slots = counters;
+        Map<String, Counter> counterMap = Maps.newHashMapWithExpectedSize(n);
+        for (int slot = 0; slot < n; slot++) {
+            Counter counter = slots[slot];
+            if (counter != null) {
+                counterMap.put(CounterNames.name(ids[slot]), counter);
+            }
+        }
+        return counterMap;
     }
 
     public List<Pair<RuntimeProfile, Boolean>> getChildList() {
@@ -113,59 +183,77 @@ public class RuntimeProfile {
     }
 
     public Counter addCounter(String name, TUnit type, String parentName) {
-        Pair<Counter, String> pair = this.counterMap.get(name);
-        if (pair != null) {
-            return pair.first;
-        } else {
-            Preconditions.checkState(parentName.equals(ROOT_COUNTER)
-                    || this.counterMap.containsKey(parentName));
-            Counter newCounter = new Counter(type, 0);
-            this.counterMap.put(name, Pair.create(newCounter, parentName));
+        int slot = findSlot(name);
+        if (slot != ROOT_SLOT) {
+            return counters[slot];
+        }
+        int parentSlot = ROOT_SLOT;
+        if (!parentName.equals(ROOT_COUNTER)) {
+            parentSlot = findSlot(parentName);
+            Preconditions.checkState(parentSlot != ROOT_SLOT);
+        }
+        return addCounter(CounterNames.intern(name), new Counter(type, 0), parentSlot);
+    }
 
-            if (!childCounterMap.containsKey(parentName)) {
-                childCounterMap.putIfAbsent(parentName, Sets.newConcurrentHashSet());
-            }
-            Set<String> childNames = childCounterMap.get(parentName);
-            childNames.add(name);
-            return newCounter;
+    // return the existing counter if there is one with the same id
+    private synchronized Counter addCounter(int id, Counter newCounter, int parentSlot) {
+        int slot = findSlot(id);
+        if (slot != ROOT_SLOT) {
+            return counters[slot];
         }
+        int n = numCounters;
+        if (n == counterIds.length) {
+            int capacity = n * 2;
+            counterIds = Arrays.copyOf(counterIds, capacity);
+            parentSlots = Arrays.copyOf(parentSlots, capacity);
+            counters = Arrays.copyOf(counters, capacity);
+        }
+        counterIds[n] = id;
+        parentSlots[n] = parentSlot;
+        counters[n] = newCounter;
+        numCounters = n + 1;
+        return newCounter;
     }
 
-    public void removeCounter(String name) {
-        if (!counterMap.containsKey(name)) {
-            return;
+    // return ROOT_SLOT if there is no such counter
+    private int findSlot(int id) {
+        int n = numCounters;
+        int[] ids = counterIds;
+        // the counter added again after being removed is in the last slot
+        for (int slot = n - 1; slot >= 0; slot--) {
+            if (ids[slot] == id) {
+                return counters[slot] == null ? ROOT_SLOT : slot;
+            }
         }
+        return ROOT_SLOT;
+    }
 
-        // Remove from its parent sub sets
-        Pair<Counter, String> pair = counterMap.get(name);
-        String parentName = pair.second;
-        if (childCounterMap.containsKey(parentName)) {
-            Set<String> childNames = childCounterMap.get(parentName);
-            childNames.remove(name);
+    private int findSlot(String name) {
+        int id = CounterNames.lookup(name);
+        return id < 0 ? ROOT_SLOT : findSlot(id);
+    }
+
+    public synchronized void removeCounter(String name) {
+        int slot = findSlot(name);
+        if (slot == ROOT_SLOT) {
+            return;
         }
 
-        // Remove child counter recursively
-        Queue<String> nameQueue = Lists.newLinkedList();
-        nameQueue.offer(name);
-        while (!nameQueue.isEmpty()) {
-            String topName = nameQueue.poll();
-            Set<String> childNames = childCounterMap.get(topName);
-            if (childNames != null) {
-                for (String childName : childNames) {
-                    nameQueue.offer(childName);
-                }
+        // Remove child counter recursively, the descendants are in the slots after the counter
+        int n = numCounters;
+        int[] parents = parentSlots;
+        Counter[] slots = counters;
+        slots[slot] = null;
+        for (int i = slot + 1; i < n; i++) {
+            if (slots[i] != null && parents[i] >= 0 && slots[parents[i]] == null) {
+                slots[i] = null;
             }
-            counterMap.remove(topName);
-            childCounterMap.remove(topName);
         }
     }
 
     public Counter getCounter(String name) {
-        Pair<Counter, String> pair = counterMap.get(name);
-        if (pair == null) {
-            return null;
-        }
-        return pair.first;
+        int slot = findSlot(name);
+        return slot == ROOT_SLOT ? null : counters[slot];
     }
 
     // Copy all the counters from src profile
@@ -174,26 +262,23 @@ public class RuntimeProfile {
             return;
         }
 
-        Queue<Pair<String, String>> nameQueue = Lists.newLinkedList();
-        nameQueue.offer(Pair.create(ROOT_COUNTER, ROOT_COUNTER));
-        while (!nameQueue.isEmpty()) {
-            Pair<String, String> topPair = nameQueue.poll();
-
-            String name = topPair.first;
-            String parentName = topPair.second;
-
-            if (!Objects.equals(ROOT_COUNTER, name)) {
-                Counter srcCounter = srcProfile.counterMap.get(name).first;
-                Counter newCounter = addCounter(name, srcCounter.getType(), parentName);
-                newCounter.setValue(srcCounter.getValue());
-            }
-
-            Set<String> childNames = srcProfile.childCounterMap.get(name);
-            if (childNames != null) {
-                for (String childName : childNames) {
-                    nameQueue.offer(Pair.create(childName, name));
-                }
+        // the parents are copied before their children, only the counters under the root are copied
+        int n = srcProfile.numCounters;
+        int[] ids = srcProfile.counterIds;
+        int[] parents = srcProfile.parentSlots;
+        Counter[] slots = srcProfile.counters;
+        boolean[] copied = new boolean[n];
+        for (int slot = 0; slot < n; slot++) {
+            Counter srcCounter = slots[slot];
+            int parentSlot = parents[slot];
+            copied[slot] = srcCounter != null
+                    && (parentSlot == ROOT_SLOT || (parentSlot >= 0 && copied[parentSlot]));
+            if (!copied[slot]) {
+                continue;
             }
+            String parentName = parentSlot == ROOT_SLOT ? ROOT_COUNTER : CounterNames.name(ids[parentSlot]);
+            Counter newCounter = addCounter(CounterNames.name(ids[slot]), srcCounter.getType(), parentName);
+            newCounter.setValue(srcCounter.getValue());
         }
     }
 
@@ -209,69 +294,27 @@ public class RuntimeProfile {
 
         // update this level's counters
         if (node.counters != null) {
-            // mapping from counterName to parentCounterName
-            Map<String, String> child2ParentMap = Maps.newHashMap();
-            if (node.child_counters_map != null) {
-                // update childCounters
-                for (Map.Entry<String, Set<String>> entry : node.child_counters_map.entrySet()) {
-                    String parentName = entry.getKey();
-                    for (String childName : entry.getValue()) {
-                        child2ParentMap.put(childName, parentName);
-                    }
-                }
-            }
-            // First processing counters by hierarchy
-            Map<String, TCounter> tCounterMap = node.counters.stream()
-                    .collect(Collectors.toMap(TCounter::getName, t -> t));
-            Queue<String> nameQueue = Lists.newLinkedList();
-            nameQueue.offer(ROOT_COUNTER);
-            while (!nameQueue.isEmpty()) {
-                String topName = nameQueue.poll();
-
-                if (!Objects.equals(ROOT_COUNTER, topName)) {
-                    Pair<Counter, String> pair = counterMap.get(topName);
-                    TCounter tcounter = tCounterMap.get(topName);
-                    String parentName = child2ParentMap.get(topName);
-                    if (pair == null && tcounter != null && parentName != null) {
-                        Counter counter =
-                                addCounter(topName, tcounter.type, parentName);
-                        counter.setValue(tcounter.value);
-                        tCounterMap.remove(topName);
-                    } else if (pair != null && tcounter != null) {
-                        if (pair.first.getType() != tcounter.type) {
-                            LOG.error("Cannot update counters with the same name but different types"
-                                    + " type=" + tcounter.type);
-                        } else {
-                            pair.first.setValue(tcounter.value);
-                        }
-                        tCounterMap.remove(topName);
-                    }
-                }
-
-                if (node.child_counters_map != null) {
-                    Set<String> childNames = node.child_counters_map.get(topName);
-                    if (childNames != null) {
-                        for (String childName : childNames) {
-                            nameQueue.offer(childName);
-                        }
+            // The counters of an instance are reported periodically, and they have been created by the previous
+            // reports except the first one, so update the existing counters in place, and only build the
+            // hierarchy of the new counters.
+            Map<String, TCounter> newCounterMap = null;
+            for (TCounter tcounter : node.counters) {
+                Counter counter = getCounter(tcounter.name);
+                if (counter == null) {
+                    if (newCounterMap == null) {
+                        newCounterMap = Maps.newHashMap();
                     }
-                }
-            }
-            // Second, processing the remaining counters, set ROOT_COUNTER as it's parent
-            for (TCounter tcounter : tCounterMap.values()) {
-                Pair<Counter, String> pair = counterMap.get(tcounter.name);
-                if (pair == null) {
-                    Counter counter = addCounter(tcounter.name, tcounter.type);
-                    counter.setValue(tcounter.value);
+                    newCounterMap.put(tcounter.name, tcounter);
+                } else if (counter.getType() != tcounter.type) {
+                    LOG.error("Cannot update counters with the same name but different types"
+                            + " type=" + tcounter.type);
                 } else {
-                    if (pair.first.getType() != tcounter.type) {
-                        LOG.error("Cannot update counters with the same name but different types"
-                                + " type=" + tcounter.type);
-                    } else {
-                        pair.first.setValue(tcounter.value);
-                    }
+                    counter.setValue(tcounter.value);
                 }
             }
+            if (newCounterMap != null) {
+                addNewCounters(node, newCounterMap);
+            }
         }
 
         if (node.info_strings_display_order != null) {
@@ -303,24 +346,68 @@ public class RuntimeProfile {
         }
     }
 
+    private void addNewCounters(TRuntimeProfileNode node, Map<String, TCounter> tCounterMap) {
+        // mapping from counterName to parentCounterName
+        Map<String, String> child2ParentMap = Maps.newHashMap();
+        if (node.child_counters_map != null) {
+            // update childCounters
+            for (Map.Entry<String, Set<String>> entry : node.child_counters_map.entrySet()) {
+                String parentName = entry.getKey();
+                for (String childName : entry.getValue()) {
+                    child2ParentMap.put(childName, parentName);
+                }
+            }
+        }
+        // First processing counters by hierarchy, so the parents are added before their children
+        Queue<String> nameQueue = Lists.newLinkedList();
+        nameQueue.offer(ROOT_COUNTER);
+        while (!nameQueue.isEmpty()) {
+            String topName = nameQueue.poll();
+
+            if (!Objects.equals(ROOT_COUNTER, topName)) {
+                TCounter tcounter = tCounterMap.get(topName);
+                String parentName = child2ParentMap.get(topName);
+                if (tcounter != null && parentName != null) {
+                    Counter counter = addCounter(topName, tcounter.type, parentName);
+                    counter.setValue(tcounter.value);
+                    tCounterMap.remove(topName);
+                }
+            }
+
+            if (node.child_counters_map != null) {
+                Set<String> childNames = node.child_counters_map.get(topName);
+                if (childNames != null) {
+                    for (String childName : childNames) {
+                        nameQueue.offer(childName);
+                    }
+                }
+            }
+        }
+        // Second, processing the remaining counters, set ROOT_COUNTER as it's parent
+        for (TCounter tcounter : tCounterMap.values()) {
+            Counter counter = addCounter(tcounter.name, tcounter.type);
+            counter.setValue(tcounter.value);
+        }
+    }
+
     // Print the profile:
     //  1. Profile Name
     //  2. Info Strings
     //  3. Counters
     //  4. Children
     public void prettyPrint(StringBuilder builder, String prefix) {
-        Pair<Counter, String> pair = this.counterMap.get("TotalTime");
-        Preconditions.checkState(pair != null);
+        Counter totalTime = getCounter("TotalTime");
+        Preconditions.checkState(totalTime != null);
         // 1. profile name
         builder.append(prefix).append(name).append(":");
         // total time
-        if (pair.first.getValue() != 0) {
+        if (totalTime.getValue() != 0) {
             try (Formatter fmt = new Formatter()) {
                 builder.append("(Active: ")
-                        .append(this.printCounter(pair.first.getValue(), pair.first.getType()));
-                if (DebugUtil.THOUSAND < pair.first.getValue()) {
+                        .append(this.printCounter(totalTime.getValue(), totalTime.getType()));
+                if (DebugUtil.THOUSAND < totalTime.getValue()) {
                     // TotalTime in nanosecond concated if it's larger than 1000ns
-                    builder.append("[").append(pair.first.getValue()).append("ns]");
+                    builder.append("[").append(totalTime.getValue()).append("ns]");
                 }
                 builder.append(", % non-child: ").append(fmt.format("%.2f", localTimePercent))
                         .append("%)");
@@ -335,7 +422,7 @@ public class RuntimeProfile {
         }
 
         // 3. counters
-        printChildCounters(prefix, ROOT_COUNTER, builder);
+        printChildCounters(prefix, ROOT_SLOT, builder);
 
         // 4. children
         for (int i = 0; i < childList.size(); i++) {
@@ -352,33 +439,42 @@ public class RuntimeProfile {
         return builder.toString();
     }
 
-    private void printChildCounters(String prefix, String counterName, StringBuilder builder) {
-        if (childCounterMap.get(counterName) == null) {
+    private void printChildCounters(String prefix, int parentSlot, StringBuilder builder) {
+        int n = numCounters;
+        int[] ids = counterIds;
+        int[] parents = parentSlots;
+        Counter[] slots = counters;
+        List<Integer> childSlots = Lists.newArrayList();
+        for (int slot = parentSlot + 1; slot < n; slot++) {
+            if (parents[slot] == parentSlot && slots[slot] != null) {
+                childSlots.add(slot);
+            }
+        }
+        if (childSlots.isEmpty()) {
             return;
         }
-        List<String> childNames = Lists.newArrayList(childCounterMap.get(counterName));
-        childNames.sort(String::compareTo);
+        childSlots.sort(Comparator.comparing(slot -> CounterNames.name(ids[slot])));
 
         // Keep MIN/MAX metrics head of other child counters
-        List<String> minMaxChildNames = Lists.newArrayListWithCapacity(2);
-        List<String> otherChildNames = Lists.newArrayListWithCapacity(childNames.size());
-        for (String childName : childNames) {
+        List<Integer> minMaxChildSlots = Lists.newArrayListWithCapacity(2);
+        List<Integer> otherChildSlots = Lists.newArrayListWithCapacity(childSlots.size());
+        for (int childSlot : childSlots) {
+            String childName = CounterNames.name(ids[childSlot]);
             if (childName.startsWith(MERGED_INFO_PREFIX_MIN) || childName.startsWith(MERGED_INFO_PREFIX_MAX)) {
-                minMaxChildNames.add(childName);
+                minMaxChildSlots.add(childSlot);
             } else {
-                otherChildNames.add(childName);
+                otherChildSlots.add(childSlot);
             }
         }
-        List<String> reorderedChildNames = Lists.newArrayListWithCapacity(childNames.size());
-        reorderedChildNames.addAll(minMaxChildNames);
-        reorderedChildNames.addAll(otherChildNames);
-
-        for (String childName : reorderedChildNames) {
-            Pair<Counter, String> pair = this.counterMap.get(childName);
-            Preconditions.checkState(pair != null);
-            builder.append(prefix).append("   - ").append(childName).append(": ")
-                    .append(printCounter(pair.first.getValue(), pair.first.getType())).append("\n");
-            this.printChildCounters(prefix + "  ", childName, builder);
+        List<Integer> reorderedChildSlots = Lists.newArrayListWithCapacity(childSlots.size());
+        reorderedChildSlots.addAll(minMaxChildSlots);
+        reorderedChildSlots.addAll(otherChildSlots);
+
+        for (int childSlot : reorderedChildSlots) {
+            Counter counter = slots[childSlot];
+            builder.append(prefix).append("   - ").append(CounterNames.name(ids[childSlot])).append(": ")
+                    .append(printCounter(counter.getValue(), counter.getType())).append("\n");
+            this.printChildCounters(prefix + "  ", childSlot, builder);
         }
     }
 
@@ -548,143 +644,157 @@ public class RuntimeProfile {
         RuntimeProfile profile0 = profiles.get(0);
 
         // Find all counters, although these profiles are expected to be isomorphic,
-        // some counters are only attached to one of them
-        List<Map<String, Pair<TUnit, String>>> allLevelCounters = Lists.newArrayList();
+        // some counters are only attached to one of them.
+        // The counters are listed with the parents before the children, indexed by their ids
+        int[] indexOfIds = new int[CounterNames.size()];
+        MergedCounters merged = new MergedCounters();
+        boolean[] excluded = new boolean[INITIAL_COUNTER_CAPACITY];
         for (RuntimeProfile profile : profiles) {
-            // Level order traverse starts with root
-            Queue<String> nameQueue = Lists.newLinkedList();
-            nameQueue.offer(ROOT_COUNTER);
-            int levelIdx = -1;
-            while (!nameQueue.isEmpty()) {
-                levelIdx++;
-                List<String> currentNames = Lists.newArrayList(nameQueue);
-                nameQueue.clear();
-                for (String name : currentNames) {
-                    if (NON_MERGE_COUNTER_NAMES.contains(name)) {
-                        continue;
-                    }
-
-                    Set<String> childNames = profile.childCounterMap.get(name);
-                    if (childNames != null) {
-                        for (String childName : childNames) {
-                            nameQueue.offer(childName);
-                        }
-                    }
-
-                    if (Objects.equals(ROOT_COUNTER, name)) {
-                        continue;
-                    }
-                    Pair<Counter, String> pair = profile.counterMap.get(name);
-                    Preconditions.checkNotNull(pair);
-                    Counter counter = pair.first;
-                    String parentName = pair.second;
-
-                    while (allLevelCounters.size() <= levelIdx) {
-                        allLevelCounters.add(Maps.newHashMap());
-                    }
-
-                    Map<String, Pair<TUnit, String>> levelCounters = allLevelCounters.get(levelIdx);
-                    if (!levelCounters.containsKey(name)) {
-                        levelCounters.put(name, Pair.create(counter.getType(), parentName));
-                        continue;
-                    }
-                    TUnit existType = levelCounters.get(name).first;
-                    if (!existType.equals(counter.getType())) {
-                        LOG.warn(
-                                "find non-isomorphic counter, profileName={}, counterName={}, existType={}, anotherType={}",
-                                profile0.name, name, existType.name(), counter.getType().name());
-                        return;
-                    }
+            int n = profile.numCounters;
+            int[] ids = profile.counterIds;
+            int[] parents = profile.parentSlots;
+            Counter[] slots = profile.counters;
+            if (excluded.length < n) {
+                excluded = new boolean[n];
+            }
+            for (int slot = 0; slot < n; slot++) {
+                Counter counter = slots[slot];
+                int id = ids[slot];
+                int parentSlot = parents[slot];
+                // the non-merge counters and their descendants are not merged, neither is TotalTime
+                excluded[slot] = counter == null || isNonMergeCounter(id) || parentSlot == DETACHED_SLOT
+                        || (parentSlot >= 0 && excluded[parentSlot]);
+                if (excluded[slot]) {
+                    continue;
+                }
+                if (id >= indexOfIds.length) {
+                    indexOfIds = Arrays.copyOf(indexOfIds, CounterNames.size());
+                }
+                int index = indexOfIds[id] - 1;
+                if (index < 0) {
+                    indexOfIds[id] = merged.add(id, counter.getType(),
+                            parentSlot == ROOT_SLOT ? ROOT_SLOT : ids[parentSlot]) + 1;
+                } else if (merged.types[index] != counter.getType()) {
+                    LOG.warn("find non-isomorphic counter, profileName={}, counterName={}, existType={}, " +
+                                    "anotherType={}", profile0.name, CounterNames.name(id),
+                            merged.types[index].name(), counter.getType().name());
+                    return;
                 }
             }
         }
 
-        List<Triple<TUnit, String, String>> levelOrderedCounters = Lists.newArrayList();
-        for (Map<String, Pair<TUnit, String>> levelCounters : allLevelCounters) {
-            for (Map.Entry<String, Pair<TUnit, String>> entry : levelCounters.entrySet()) {
-                String name = entry.getKey();
-                TUnit type = entry.getValue().first;
-                String parentName = entry.getValue().second;
-                levelOrderedCounters.add(Triple.of(type, name, parentName));
+        // The ids of the extra info (min value and max value) of the counters, the extra info created by be
+        // are not merged as counters
+        int numMerged = merged.size;
+        int[] minIds = new int[numMerged];
+        int[] maxIds = new int[numMerged];
+        for (int index = 0; index < numMerged; index++) {
+            String name = CounterNames.name(merged.ids[index]);
+            if (name.startsWith(MERGED_INFO_PREFIX_MIN) || name.startsWith(MERGED_INFO_PREFIX_MAX)) {
+                minIds[index] = ROOT_SLOT;
+                maxIds[index] = ROOT_SLOT;
+            } else {
+                minIds[index] = CounterNames.intern(MERGED_INFO_PREFIX_MIN + name);
+                maxIds[index] = CounterNames.intern(MERGED_INFO_PREFIX_MAX + name);
             }
         }
-
-        for (Triple<TUnit, String, String> triple : levelOrderedCounters) {
-            TUnit type = triple.getLeft();
-            String name = triple.getMiddle();
-            String parentName = triple.getRight();
-
-            // We don't need to calculate sum or average of counter's extra info (min value and max value) created by be
-            if (name.startsWith(MERGED_INFO_PREFIX_MIN) || name.startsWith(MERGED_INFO_PREFIX_MAX)) {
-                continue;
+        int numIds = CounterNames.size();
+        indexOfIds = Arrays.copyOf(indexOfIds, numIds);
+        int[] indexOfMinIds = new int[numIds];
+        int[] indexOfMaxIds = new int[numIds];
+        for (int index = 0; index < numMerged; index++) {
+            if (minIds[index] != ROOT_SLOT) {
+                indexOfMinIds[minIds[index]] = index + 1;
+                indexOfMaxIds[maxIds[index]] = index + 1;
             }
+        }
 
-            List<Counter> counters = Lists.newArrayList();
-            long minValue = Long.MAX_VALUE;
-            long maxValue = Long.MIN_VALUE;
-            boolean alreadyMerged = false;
-            for (RuntimeProfile profile : profiles) {
-                Counter counter = profile.getCounter(name);
-
-                // Allow some counters which only attach to one of the isomorphic profiles
-                // E.g. A bunch of ExchangeSinkOperators may share one SinkBuffer, so the metrics
-                // of SinkBuffer only attach to the first ExchangeSinkOperator's profile
-                if (counter == null) {
+        // Accumulate the counters of all the profiles in one pass over their slots
+        long[] sums = new long[numMerged];
+        int[] counts = new int[numMerged];
+        long[] minValues = new long[numMerged];
+        long[] maxValues = new long[numMerged];
+        long[] mergedMinValues = new long[numMerged];
+        long[] mergedMaxValues = new long[numMerged];
+        boolean[] alreadyMerged = new boolean[numMerged];
+        Arrays.fill(minValues, Long.MAX_VALUE);
+        Arrays.fill(maxValues, Long.MIN_VALUE);
+        Arrays.fill(mergedMinValues, Long.MAX_VALUE);
+        Arrays.fill(mergedMaxValues, Long.MIN_VALUE);
+        for (RuntimeProfile profile : profiles) {
+            int n = profile.numCounters;
+            int[] ids = profile.counterIds;
+            Counter[] slots = profile.counters;
+            for (int slot = 0; slot < n; slot++) {
+                Counter counter = slots[slot];
+                int id = ids[slot];
+                // the ids interned after the merge starts are not merged
+                if (counter == null || id >= numIds) {
                     continue;
                 }
-                if (!type.equals(counter.getType())) {
-                    LOG.warn(
-                            "find non-isomorphic counter, profileName={}, counterName={}, existType={}, anotherType={}",
-                            profile0.name, name, type.name(), counter.getType().name());
-                    return;
-                }
-
-                Counter minCounter = profile.getCounter(MERGED_INFO_PREFIX_MIN + name);
-                if (minCounter != null) {
-                    alreadyMerged = true;
-                    if (minCounter.getValue() < minValue) {
-                        minValue = minCounter.getValue();
+                long value = counter.getValue();
+                int index = indexOfIds[id] - 1;
+                if (index >= 0 && minIds[index] != ROOT_SLOT) {
+                    if (merged.types[index] != counter.getType()) {
+                        LOG.warn("find non-isomorphic counter, profileName={}, counterName={}, existType={}, " +
+                                        "anotherType={}", profile0.name, CounterNames.name(id),
+                                merged.types[index].name(), counter.getType().name());
+                        return;
                     }
+                    sums[index] += value;
+                    counts[index]++;
+                    minValues[index] = Math.min(minValues[index], value);
+                    maxValues[index] = Math.max(maxValues[index], value);
                 }
-                Counter maxCounter = profile.getCounter(MERGED_INFO_PREFIX_MAX + name);
-                if (maxCounter != null) {
-                    alreadyMerged = true;
-                    if (maxCounter.getValue() > maxValue) {
-                        maxValue = maxCounter.getValue();
-                    }
+                index = indexOfMinIds[id] - 1;
+                if (index >= 0) {
+                    alreadyMerged[index] = true;
+                    mergedMinValues[index] = Math.min(mergedMinValues[index], value);
+                }
+                index = indexOfMaxIds[id] - 1;
+                if (index >= 0) {
+                    alreadyMerged[index] = true;
+                    mergedMaxValues[index] = Math.max(mergedMaxValues[index], value);
                 }
-                counters.add(counter);
             }
-            Counter.MergedInfo mergedInfo = Counter.mergeIsomorphicCounters(type, counters);
-            final long mergedValue = mergedInfo.mergedValue;
-            if (!alreadyMerged) {
-                minValue = mergedInfo.minValue;
-                maxValue = mergedInfo.maxValue;
+        }
+
+        for (int index = 0; index < numMerged; index++) {
+            // We don't need to calculate sum or average of counter's extra info (min value and max value) created by be
+            if (minIds[index] == ROOT_SLOT || counts[index] == 0) {
+                continue;
             }
+            int id = merged.ids[index];
+            TUnit type = merged.types[index];
+            long mergedValue = sums[index];
+            if (Counter.isAverageType(type)) {
+                mergedValue /= counts[index];
+            }
+            long minValue = alreadyMerged[index] ? mergedMinValues[index] : minValues[index];
+            long maxValue = alreadyMerged[index] ? mergedMaxValues[index] : maxValues[index];
 
-            Counter counter0 = profile0.getCounter(name);
+            int slot0 = profile0.findSlot(id);
             // As stated before, some counters may only attach to one of the isomorphic profiles
             // and the first profile may not have this counter, so we create a counter here
-            if (counter0 == null) {
-                if (!Objects.equals(ROOT_COUNTER, parentName) && profile0.getCounter(parentName) != null) {
-                    counter0 = profile0.addCounter(name, type, parentName);
-                } else {
-                    if (!Objects.equals(ROOT_COUNTER, parentName)) {
-                        LOG.warn("missing parent counter, profileName={}, counterName={}, parentCounterName={}",
-                                profile0.name, name, parentName);
-                    }
-                    counter0 = profile0.addCounter(name, type);
+            if (slot0 == ROOT_SLOT) {
+                int parentId = merged.parentIds[index];
+                int parentSlot = parentId == ROOT_SLOT ? ROOT_SLOT : profile0.findSlot(parentId);
+                if (parentId != ROOT_SLOT && parentSlot == ROOT_SLOT) {
+                    LOG.warn("missing parent counter, profileName={}, counterName={}, parentCounterName={}",
+                            profile0.name, CounterNames.name(id), CounterNames.name(parentId));
                 }
+                profile0.addCounter(id, new Counter(type, 0), parentSlot);
+                slot0 = profile0.findSlot(id);
             }
-            counter0.setValue(mergedValue);
+            profile0.counters[slot0].setValue(mergedValue);
 
             boolean updateMinMax = false;
-            if (alreadyMerged) {
+            if (alreadyMerged[index]) {
                 updateMinMax = true;
             } else {
                 // If the values vary greatly, we need to save extra info (min value and max value) of this counter
                 double diff = maxValue - minValue;
-                if (Counter.isAverageType(counter0.getType())) {
+                if (Counter.isAverageType(type)) {
                     if (diff > 5000000L && diff > mergedValue / 5.0) {
                         updateMinMax = true;
                     }
@@ -694,16 +804,14 @@ public class RuntimeProfile {
                 }
             }
             if (updateMinMax) {
-                Counter minCounter = profile0.addCounter(MERGED_INFO_PREFIX_MIN + name, type, name);
-                Counter maxCounter = profile0.addCounter(MERGED_INFO_PREFIX_MAX + name, type, name);
-                minCounter.setValue(minValue);
-                maxCounter.setValue(maxValue);
+                profile0.addCounter(minIds[index], new Counter(type, 0), slot0).setValue(minValue);
+                profile0.addCounter(maxIds[index], new Counter(type, 0), slot0).setValue(maxValue);
             }
         }
 
         // merge children
         for (int i = 0; i < profile0.childList.size(); i++) {
-            List<RuntimeProfile> subProfiles = Lists.newArrayList();
+            List<RuntimeProfile> subProfiles = Lists.newArrayListWithCapacity(profiles.size());
             RuntimeProfile child0 = profile0.childList.get(i).first;
             subProfiles.add(child0);
             for (int j = 1; j < profiles.size(); j++) {
@@ -724,17 +832,56 @@ public class RuntimeProfile {
         }
     }
 
+    private static boolean isNonMergeCounter(int id) {
+        for (int nonMergeId : NON_MERGE_COUNTER_IDS) {
+            if (nonMergeId == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The counters found by mergeIsomorphicProfiles, in the order of the parents before the children
+    private static final class MergedCounters {
+        private int[] ids = new int[INITIAL_COUNTER_CAPACITY];
+        private TUnit[] types = new TUnit[INITIAL_COUNTER_CAPACITY];
+        // the id of the parent counter, ROOT_SLOT for the root
+        private int[] parentIds = new int[INITIAL_COUNTER_CAPACITY];
+        private int size = 0;
+
+        // return the index of the counter
+        int add(int id, TUnit type, int parentId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+                parentIds = Arrays.copyOf(parentIds, size * 2);
+            }
+            ids[size] = id;
+            types[size] = type;
+            parentIds[size] = parentId;
+            return size++;
+        }
+    }
+
     public static void removeRedundantMinMaxMetrics(RuntimeProfile profile) {
-        for (String name : profile.counterMap.keySet()) {
-            Counter minCounter = profile.getCounter(MERGED_INFO_PREFIX_MIN + name);
-            Counter maxCounter = profile.getCounter(MERGED_INFO_PREFIX_MAX + name);
+        int n = profile.numCounters;
+        int[] ids = profile.counterIds;
+        for (int slot = 0; slot < n; slot++) {
+            if (profile.counters[slot] == null) {
+                continue;
+            }
+            String name = CounterNames.name(ids[slot]);
+            String minName = MERGED_INFO_PREFIX_MIN + name;
+            String maxName = MERGED_INFO_PREFIX_MAX + name;
+            Counter minCounter = profile.getCounter(minName);
+            Counter maxCounter = profile.getCounter(maxName);
             if (minCounter == null || maxCounter == null) {
                 continue;
             }
             // Remove MIN/MAX metrics if it's value is identical
             if (Objects.equals(minCounter.getValue(), maxCounter.getValue())) {
-                profile.removeCounter(MERGED_INFO_PREFIX_MIN + name);
-                profile.removeCounter(MERGED_INFO_PREFIX_MAX + name);
+                profile.removeCounter(minName);
+                profile.removeCounter(maxName);
             }
         }
 
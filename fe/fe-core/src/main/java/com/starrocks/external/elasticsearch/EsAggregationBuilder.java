@@ -0,0 +1,140 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.external.elasticsearch;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.starrocks.common.io.FastByteArrayOutputStream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build the composite aggregation of a group by query pushed down to ES, like:
+ * <pre>
+ * {"groupby": {
+ *     "composite": {"size": 1024, "sources": [{"k1": {"terms": {"field": "k1", "missing_bucket": true}}}]},
+ *     "aggregations": {"__agg_2": {"max": {"field": "v1"}}}}}
+ * </pre>
+ * Every bucket is returned as a row, the sources are the group by columns and the sub aggregations are the
+ * aggregate columns, a column named {@link #DOC_COUNT} is the doc count of the bucket.
+ * ES aggregates every shard separately, so the rows are the partial aggregation results of a shard.
+ */
+public class EsAggregationBuilder {
+
+    public static final String COMPOSITE_NAME = "groupby";
+    public static final String DOC_COUNT = "_doc_count";
+
+    // keep the same as the time zone used by BE to convert the ES dates
+    private static final String TIME_ZONE = "+08:00";
+
+    private final List<Source> sources = new ArrayList<>();
+    private final List<Metric> metrics = new ArrayList<>();
+
+    private static class Source {
+        private final String name;
+        private final String field;
+        // date_histogram interval, null for terms
+        private final String interval;
+
+        Source(String name, String field, String interval) {
+            this.name = name;
+            this.field = field;
+            this.interval = interval;
+        }
+    }
+
+    private static class Metric {
+        private final String name;
+        private final String function;
+        private final String field;
+
+        Metric(String name, String function, String field) {
+            this.name = name;
+            this.function = function;
+            this.field = field;
+        }
+    }
+
+    public EsAggregationBuilder addTerms(String name, String field) {
+        sources.add(new Source(name, field, null));
+        return this;
+    }
+
+    /**
+     * @param interval calendar interval, eg: 1d, 1M
+     */
+    public EsAggregationBuilder addDateHistogram(String name, String field, String interval) {
+        sources.add(new Source(name, field, interval));
+        return this;
+    }
+
+    /**
+     * @param function ES metric aggregation: value_count, sum, min or max
+     */
+    public EsAggregationBuilder addMetric(String name, String function, String field) {
+        metrics.add(new Metric(name, function, field));
+        return this;
+    }
+
+    /**
+     * @param pageSize          number of buckets returned by a request
+     * @param calendarInterval  whether to use calendar_interval or the interval deprecated since 7.2
+     */
+    public String toJson(int pageSize, boolean calendarInterval) throws StarRocksESException {
+        FastByteArrayOutputStream out = new FastByteArrayOutputStream(256);
+        JsonFactory factory = new JsonFactory();
+        try (JsonGenerator json = factory.createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeObjectFieldStart(COMPOSITE_NAME);
+
+            json.writeObjectFieldStart("composite");
+            json.writeNumberField("size", pageSize);
+            json.writeArrayFieldStart("sources");
+            for (Source source : sources) {
+                json.writeStartObject();
+                json.writeObjectFieldStart(source.name);
+                if (source.interval == null) {
+                    json.writeObjectFieldStart("terms");
+                } else {
+                    json.writeObjectFieldStart("date_histogram");
+                    json.writeStringField(calendarInterval ? "calendar_interval" : "interval", source.interval);
+                    json.writeStringField("time_zone", TIME_ZONE);
+                }
+                json.writeStringField("field", source.field);
+                // null is a group too
+                json.writeBooleanField("missing_bucket", true);
+                json.writeEndObject();
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+
+            if (!metrics.isEmpty()) {
+                json.writeObjectFieldStart("aggregations");
+                for (Metric metric : metrics) {
+                    json.writeObjectFieldStart(metric.name);
+                    json.writeObjectFieldStart(metric.function);
+                    json.writeStringField("field", metric.field);
+                    json.writeEndObject();
+                    json.writeEndObject();
+                }
+                json.writeEndObject();
+            }
+
+            json.writeEndObject();
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new StarRocksESException(e.getMessage());
+        }
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJson(0, true);
+    }
+}
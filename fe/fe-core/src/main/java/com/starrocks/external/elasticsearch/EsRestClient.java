@@ -21,6 +21,9 @@
 
 package com.starrocks.external.elasticsearch;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.starrocks.common.Config;
 import okhttp3.Credentials;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -40,6 +43,7 @@ import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import javax.net.ssl.HostnameVerifier;
@@ -66,8 +70,15 @@ public class EsRestClient {
 
     private static OkHttpClient sslNetworkClient;
 
+    // cluster, user and path -> response of the index meta requests, shared by the tables on the same index
+    private static final Cache<String, String> META_CACHE = Caffeine.newBuilder()
+            .expireAfterWrite(Config.es_meta_cache_ttl_second, TimeUnit.SECONDS)
+            .maximumSize(10000)
+            .build();
+
     private final Request.Builder builder;
     private final String[] nodes;
+    private final String cacheKeyPrefix;
     private String currentNode;
     private int currentNodeIndex = 0;
 
@@ -86,6 +97,7 @@ public class EsRestClient {
                     Credentials.basic(authUser, authPassword));
         }
         this.currentNode = nodes[currentNodeIndex];
+        this.cacheKeyPrefix = String.join(",", nodes) + "|" + Strings.trimToNull(authUser) + "|";
     }
 
     private void selectNextNode() {
@@ -136,7 +148,7 @@ public class EsRestClient {
      */
     public String getMapping(String indexName) throws StarRocksESException {
         String path = indexName + "/_mapping";
-        String indexMapping = execute(path);
+        String indexMapping = executeCached(path);
         if (indexMapping == null) {
             throw new StarRocksESException("index[" + indexName + "] not found");
         }
@@ -152,13 +164,57 @@ public class EsRestClient {
      */
     public EsShardPartitions searchShards(String indexName) throws StarRocksESException {
         String path = indexName + "/_search_shards";
-        String searchShards = execute(path);
+        String searchShards = executeCached(path);
         if (searchShards == null) {
             throw new StarRocksESException("request index [" + indexName + "] search_shards failure");
         }
         return EsShardPartitions.findShardPartitions(indexName, searchShards);
     }
 
+    /**
+     * Get the doc count of the primary shards
+     *
+     * @param indexName
+     * @return index name and shard id -> doc count, the key is built by {@link #shardKey(String, int)}
+     * @throws StarRocksESException
+     */
+    public Map<String, Long> getShardDocCounts(String indexName) throws StarRocksESException {
+        String path = "_cat/shards/" + indexName + "?format=json&h=index,shard,prirep,docs";
+        String response = executeCached(path);
+        if (response == null) {
+            throw new StarRocksESException("request index [" + indexName + "] shard doc count failure");
+        }
+        List<Map<String, String>> shards = parseJson(response, List.class);
+        Map<String, Long> docCounts = new HashMap<>();
+        for (Map<String, String> shard : shards) {
+            // docs is null if the shard is not assigned
+            if ("p".equals(shard.get("prirep")) && shard.get("docs") != null) {
+                docCounts.put(shardKey(shard.get("index"), Integer.parseInt(shard.get("shard"))),
+                        Long.parseLong(shard.get("docs")));
+            }
+        }
+        return docCounts;
+    }
+
+    public static String shardKey(String indexName, int shardId) {
+        return indexName + "#" + shardId;
+    }
+
+    /**
+     * execute request for the index meta, the successful response is cached for es_meta_cache_ttl_second
+     */
+    private String executeCached(String path) throws StarRocksESException {
+        String key = cacheKeyPrefix + path;
+        String response = META_CACHE.getIfPresent(key);
+        if (response == null) {
+            response = execute(path);
+            if (response != null) {
+                META_CACHE.put(key, response);
+            }
+        }
+        return response;
+    }
+
     /**
      * execute request for specific path, it will try again nodes.length times if it fails
      *
@@ -220,15 +276,18 @@ public class EsRestClient {
 
     @SuppressWarnings("unchecked")
     private <T> T parseContent(String response, String key) {
-        Map<String, Object> map = Collections.emptyMap();
+        Map<String, Object> map = parseJson(response, Map.class);
+        return (T) (key != null ? map.get(key) : map);
+    }
+
+    private <T> T parseJson(String response, Class<T> valueType) {
         try {
             JsonParser jsonParser = mapper.getJsonFactory().createJsonParser(response);
-            map = mapper.readValue(jsonParser, Map.class);
+            return mapper.readValue(jsonParser, valueType);
         } catch (IOException ex) {
             LOG.error("parse es response failure: [{}]", response);
             throw new StarRocksESException(ex.getMessage());
         }
-        return (T) (key != null ? map.get(key) : map);
     }
 
     private synchronized OkHttpClient getOrCreateSSLClient() {
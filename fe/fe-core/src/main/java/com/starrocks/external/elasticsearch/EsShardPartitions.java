@@ -42,6 +42,8 @@ public class EsShardPartitions {
     private final String indexName;
     // shardid -> host1, host2, host3
     private Map<Integer, List<EsShardRouting>> shardRoutings;
+    // shardid -> number of sliced scrolls to scan the shard, absent means 1
+    private Map<Integer, Integer> shardSliceNums;
     private SingleRangePartitionDesc partitionDesc;
     private PartitionKey partitionKey;
     private long partitionId = -1;
@@ -49,6 +51,7 @@ public class EsShardPartitions {
     public EsShardPartitions(String indexName) {
         this.indexName = indexName;
         this.shardRoutings = Maps.newHashMap();
+        this.shardSliceNums = Maps.newHashMap();
         this.partitionDesc = null;
         this.partitionKey = null;
     }
@@ -112,6 +115,36 @@ public class EsShardPartitions {
         }
     }
 
+    /**
+     * Split the shards with many docs into several slices, each slice has about docsPerSlice docs
+     *
+     * @param shardDocCounts doc count of the shards, returned by {@link EsRestClient#getShardDocCounts(String)}
+     */
+    public void computeSliceNums(Map<String, Long> shardDocCounts, long docsPerSlice, int maxSlices) {
+        shardSliceNums.clear();
+        if (docsPerSlice <= 0 || maxSlices <= 1) {
+            return;
+        }
+        for (Map.Entry<Integer, List<EsShardRouting>> entry : shardRoutings.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            EsShardRouting routing = entry.getValue().get(0);
+            Long docCount = shardDocCounts.get(EsRestClient.shardKey(routing.getIndexName(), routing.getShardId()));
+            if (docCount == null) {
+                continue;
+            }
+            long sliceNum = Math.min(maxSlices, (docCount + docsPerSlice - 1) / docsPerSlice);
+            if (sliceNum > 1) {
+                shardSliceNums.put(entry.getKey(), (int) sliceNum);
+            }
+        }
+    }
+
+    public int getSliceNum(int shardId) {
+        return shardSliceNums.getOrDefault(shardId, 1);
+    }
+
     public TNetworkAddress randomAddress(Map<String, EsNodeInfo> nodesInfo) {
         // return a random value between 0 and 32767 : [0, 32767)
         int seed = ThreadLocalRandom.current().nextInt(Short.MAX_VALUE) % nodesInfo.size();
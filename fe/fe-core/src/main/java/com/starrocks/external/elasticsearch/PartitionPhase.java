@@ -18,7 +18,11 @@
 package com.starrocks.external.elasticsearch;
 
 import com.starrocks.catalog.EsTable;
+import com.starrocks.common.Config;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,9 +31,12 @@ import java.util.Map;
  */
 public class PartitionPhase implements SearchPhase {
 
+    private static final Logger LOG = LogManager.getLogger(PartitionPhase.class);
+
     private EsRestClient client;
     private EsShardPartitions shardPartitions;
     private Map<String, EsNodeInfo> nodesInfo;
+    private Map<String, Long> shardDocCounts = Collections.emptyMap();
 
     public PartitionPhase(EsRestClient client) {
         this.client = client;
@@ -38,7 +45,17 @@ public class PartitionPhase implements SearchPhase {
     @Override
     public void execute(SearchContext context) throws StarRocksESException {
         shardPartitions = client.searchShards(context.sourceIndex());
-        nodesInfo = client.getHttpNodes();
+        shardDocCounts = Collections.emptyMap();
+        if (Config.es_scan_docs_per_slice > 0 && context.version() != null
+                && context.version().onOrAfter(EsMajorVersion.V_7_X)) {
+            // es before 7.x may route the slices of a preferred shard to other shards, do not slice the shards
+            try {
+                shardDocCounts = client.getShardDocCounts(context.sourceIndex());
+            } catch (Exception e) {
+                LOG.warn("fetch index [{}] shard doc count failure, scan the shards without slice",
+                        context.sourceIndex(), e);
+            }
+        }
         if (!context.wanOnly()) {
             nodesInfo = client.getHttpNodes();
         } else {
@@ -52,6 +69,8 @@ public class PartitionPhase implements SearchPhase {
 
     @Override
     public void postProcess(SearchContext context) throws StarRocksESException {
+        shardPartitions.computeSliceNums(shardDocCounts, Config.es_scan_docs_per_slice,
+                Config.es_scan_max_slices_per_shard);
         context.partitions(shardPartitions);
         if (EsTable.TRANSPORT_HTTP.equals(context.esTable().getTransport())) {
             context.partitions().addHttpAddress(nodesInfo);
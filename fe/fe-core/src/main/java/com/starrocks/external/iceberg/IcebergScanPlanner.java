@@ -0,0 +1,161 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.external.iceberg;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.starrocks.common.Config;
+import com.starrocks.common.Pair;
+import com.starrocks.common.ThreadPoolManager;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.ManifestFile;
+import org.apache.iceberg.ManifestFiles;
+import org.apache.iceberg.ManifestReader;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.expressions.Evaluator;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.expressions.InclusiveMetricsEvaluator;
+import org.apache.iceberg.expressions.ManifestEvaluator;
+import org.apache.iceberg.expressions.Projections;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Plan the data files to scan of an iceberg snapshot from its manifests.
+ * Manifests are pruned by their partition summaries, the remaining ones are read in parallel on a
+ * bounded pool. The parsed data files of each manifest are cached by the manifest path. Manifest
+ * files are immutable and a new snapshot reuses most manifests of its parent, so planning an
+ * unchanged snapshot reads no manifest and planning a new snapshot only reads its new manifests.
+ * Statistics calculation and scan range generation share the cache, the manifests of a query are
+ * read only once.
+ * Like TableScan.planFiles(), the delete manifests are not read.
+ */
+public class IcebergScanPlanner {
+    private static final Logger LOG = LogManager.getLogger(IcebergScanPlanner.class);
+
+    private static final int MANIFEST_READ_QUEUE_SIZE = 4096;
+
+    private static final Cache<String, List<DataFile>> MANIFEST_CACHE = Caffeine.newBuilder()
+            .maximumWeight(Config.iceberg_manifest_cache_max_num_files)
+            .weigher((Weigher<String, List<DataFile>>) (key, value) -> Math.max(1, value.size()))
+            .build();
+
+    private static final ExecutorService MANIFEST_READ_POOL = ThreadPoolManager.newDaemonFixedThreadPool(
+            Config.iceberg_manifest_read_num_threads, MANIFEST_READ_QUEUE_SIZE, "iceberg-manifest-reader", true);
+
+    /**
+     * Returns the data files of the snapshot which may contain rows matching the predicates.
+     */
+    public static List<DataFile> planDataFiles(Table table, Snapshot snapshot, List<Expression> icebergPredicates) {
+        Expression filter = icebergPredicates.stream().reduce(Expressions.alwaysTrue(), Expressions::and);
+        Map<Integer, PartitionSpec> specs = table.specs();
+
+        List<Future<List<DataFile>>> futures = new ArrayList<>();
+        int numManifests = 0;
+        for (ManifestFile manifest : snapshot.dataManifests()) {
+            numManifests++;
+            PartitionSpec spec = specs.get(manifest.partitionSpecId());
+            if (!ManifestEvaluator.forRowFilter(filter, spec, true).eval(manifest)) {
+                continue;
+            }
+            Expression partitionFilter = Projections.inclusive(spec, true).project(filter);
+            futures.add(MANIFEST_READ_POOL.submit(() -> {
+                // the evaluators are not documented to be thread safe, so each task binds its own
+                Evaluator partitionEvaluator = new Evaluator(spec.partitionType(), partitionFilter, true);
+                InclusiveMetricsEvaluator metricsEvaluator =
+                        new InclusiveMetricsEvaluator(table.schema(), filter, true);
+                List<DataFile> dataFiles = MANIFEST_CACHE.get(manifest.path(), path -> readManifest(table, manifest));
+                List<DataFile> matchedFiles = new ArrayList<>();
+                for (DataFile dataFile : dataFiles) {
+                    if (partitionEvaluator.eval(dataFile.partition()) && metricsEvaluator.eval(dataFile)) {
+                        matchedFiles.add(dataFile);
+                    }
+                }
+                return matchedFiles;
+            }));
+        }
+
+        List<DataFile> result = new ArrayList<>();
+        try {
+            for (Future<List<DataFile>> future : futures) {
+                result.addAll(future.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new StarRocksIcebergException(String.format("failed to read manifests of table %s snapshot %d",
+                    table.name(), snapshot.snapshotId()), e);
+        }
+        LOG.debug("planned {} data files from {}/{} manifests of table {} snapshot {}",
+                result.size(), futures.size(), numManifests, table.name(), snapshot.snapshotId());
+        return result;
+    }
+
+    /**
+     * Drop the cached manifests under the location of the table.
+     */
+    public static void invalidate(Table table) {
+        String location = table.location();
+        MANIFEST_CACHE.asMap().keySet().removeIf(path -> path.startsWith(location));
+    }
+
+    private static List<DataFile> readManifest(Table table, ManifestFile manifest) {
+        ImmutableList.Builder<DataFile> builder = ImmutableList.builder();
+        try (ManifestReader<DataFile> reader = ManifestFiles.read(manifest, table.io(), table.specs())) {
+            for (DataFile dataFile : reader) {
+                // the reader may reuse the file object
+                builder.add(dataFile.copy());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Split a data file into (offset, length) ranges of about splitSize bytes, following the split offsets,
+     * eg: the row group offsets of parquet, if the file has them. It is the same as FileScanTask.split().
+     */
+    public static List<Pair<Long, Long>> splitFile(DataFile dataFile, long splitSize) {
+        List<Pair<Long, Long>> splits = new ArrayList<>();
+        long fileLength = dataFile.fileSizeInBytes();
+        List<Long> offsets = dataFile.splitOffsets();
+        if (offsets != null && !offsets.isEmpty()) {
+            int index = 0;
+            while (index < offsets.size()) {
+                long start = offsets.get(index);
+                long length = splitLength(offsets, index, fileLength);
+                index++;
+                // always take at least one split offset, then merge the following ones up to split size
+                while (index < offsets.size() && length + splitLength(offsets, index, fileLength) <= splitSize) {
+                    length += splitLength(offsets, index, fileLength);
+                    index++;
+                }
+                splits.add(Pair.create(start, length));
+            }
+        } else {
+            for (long start = 0; start < fileLength; start += splitSize) {
+                splits.add(Pair.create(start, Math.min(splitSize, fileLength - start)));
+            }
+        }
+        return splits;
+    }
+
+    private static long splitLength(List<Long> offsets, int index, long fileLength) {
+        long end = index + 1 < offsets.size() ? offsets.get(index + 1) : fileLength;
+        return end - offsets.get(index);
+    }
+}
@@ -13,6 +13,7 @@ import org.apache.iceberg.types.Types;
 import java.nio.ByteBuffer;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -76,6 +77,64 @@ public class IcebergFileStats {
         }
     }
 
+    private IcebergFileStats(IcebergFileStats other) {
+        this.idToTypeMapping = other.idToTypeMapping;
+        this.nonPartitionPrimitiveColumns = other.nonPartitionPrimitiveColumns;
+        this.values = other.values;
+        this.recordCount = other.recordCount;
+        this.fileCount = other.fileCount;
+        this.size = other.size;
+        this.minValues = other.minValues != null ? new HashMap<>(other.minValues) : null;
+        this.maxValues = other.maxValues != null ? new HashMap<>(other.maxValues) : null;
+        this.nullCounts = other.nullCounts != null ? new HashMap<>(other.nullCounts) : null;
+        this.columnSizes = other.columnSizes != null ? new HashMap<>(other.columnSizes) : null;
+        this.corruptedStats = other.corruptedStats != null ? new HashSet<>(other.corruptedStats) : null;
+        this.hasValidColumnMetrics = other.hasValidColumnMetrics;
+    }
+
+    public IcebergFileStats copy() {
+        return new IcebergFileStats(this);
+    }
+
+    /**
+     * Merge the statistics of another collection of files, eg: the statistics of another partition.
+     */
+    public void merge(IcebergFileStats other) {
+        recordCount += other.recordCount;
+        fileCount += other.fileCount;
+        size += other.size;
+        if (!hasValidColumnMetrics) {
+            return;
+        }
+        if (!other.hasValidColumnMetrics) {
+            hasValidColumnMetrics = false;
+            return;
+        }
+        corruptedStats.addAll(other.corruptedStats);
+        mergeBounds(minValues, other.minValues, i -> (i > 0));
+        mergeBounds(maxValues, other.maxValues, i -> (i < 0));
+        for (Integer id : corruptedStats) {
+            minValues.remove(id);
+            maxValues.remove(id);
+        }
+        other.nullCounts.forEach((key, counts) -> nullCounts.merge(key, counts, Long::sum));
+        if (columnSizes != null && other.columnSizes != null) {
+            other.columnSizes.forEach((key, columnSize) -> columnSizes.merge(key, columnSize, Long::sum));
+        }
+    }
+
+    private void mergeBounds(Map<Integer, Object> current, Map<Integer, Object> other, Predicate<Integer> predicate) {
+        for (Map.Entry<Integer, Object> entry : other.entrySet()) {
+            Object oldValue = current.putIfAbsent(entry.getKey(), entry.getValue());
+            if (oldValue != null) {
+                Comparator<Object> comparator = Comparators.forType(idToTypeMapping.get(entry.getKey()));
+                if (predicate.test(comparator.compare(oldValue, entry.getValue()))) {
+                    current.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
     public Map<Integer, Type.PrimitiveType> getIdToTypeMapping() {
         return idToTypeMapping;
     }
@@ -0,0 +1,380 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.external.iceberg.cost;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.starrocks.common.Config;
+import com.starrocks.external.iceberg.IcebergScanPlanner;
+import com.starrocks.external.iceberg.IcebergUtil;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.PartitionField;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.exceptions.ValidationException;
+import org.apache.iceberg.expressions.Binder;
+import org.apache.iceberg.expressions.Evaluator;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.expressions.Projections;
+import org.apache.iceberg.types.Comparators;
+import org.apache.iceberg.types.Type;
+import org.apache.iceberg.types.Types;
+import org.apache.iceberg.util.StructLikeWrapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Statistics of iceberg tables precomputed per snapshot for the cost model.
+ * The statistics of a snapshot are kept as one summary per partition. When a new snapshot of a cached
+ * table appears, its statistics are built incrementally from the files added and deleted by the new
+ * snapshots: added files are merged into the summary of their partition, and only the partitions
+ * touched by deleted files are recomputed, since min/max can not be subtracted. The statistics for a
+ * query are the merge of the summaries of the partitions matching its predicates, if its predicates
+ * are only on identity partition columns. Otherwise the files are pruned by their column metrics like
+ * the scan, and the statistics are merged from the matching files, whose manifests are cached.
+ */
+public class IcebergStatisticStore {
+    private static final Logger LOG = LogManager.getLogger(IcebergStatisticStore.class);
+
+    // build the statistics from scratch if there are more new snapshots than this since the cached one
+    private static final int MAX_INCREMENTAL_SNAPSHOTS = 20;
+
+    // table location -> statistics of the latest snapshot used by queries
+    private static final Cache<String, SnapshotStatistics> CACHE = Caffeine.newBuilder()
+            .maximumSize(Config.iceberg_statistic_cache_max_num_tables)
+            .build();
+
+    /**
+     * Returns the statistics of the data files in the partitions matching the predicates,
+     * or null if there is no data file.
+     */
+    public static IcebergFileStats getFileStats(Table table, Snapshot snapshot, List<Expression> icebergPredicates) {
+        if (!isOnIdentityPartitions(table, icebergPredicates)) {
+            SnapshotStatistics statistics = new SnapshotStatistics(table, snapshot, new HashMap<>());
+            for (DataFile dataFile : IcebergScanPlanner.planDataFiles(table, snapshot, icebergPredicates)) {
+                statistics.addDataFile(dataFile, null);
+            }
+            return statistics.getFileStats(Collections.emptyList());
+        }
+        // the statistics are built outside the cache, reading the manifests must not block the other tables.
+        // when queries on different snapshots race, the statistics of the later snapshot are kept
+        SnapshotStatistics cached = CACHE.getIfPresent(table.location());
+        SnapshotStatistics statistics = getSnapshotStatistics(table, snapshot, cached);
+        if (statistics != cached) {
+            CACHE.asMap().merge(table.location(), statistics,
+                    (old, built) -> old.timestampMillis > built.timestampMillis ? old : built);
+        }
+        return statistics.getFileStats(icebergPredicates);
+    }
+
+    // whether the predicates only reference columns which are identity partitions in all the specs,
+    // so the partition summaries are pruned as accurately as the files
+    private static boolean isOnIdentityPartitions(Table table, List<Expression> icebergPredicates) {
+        if (icebergPredicates.isEmpty()) {
+            return true;
+        }
+        Set<Integer> referencedIds;
+        try {
+            referencedIds = Binder.boundReferences(table.schema().asStruct(), icebergPredicates, true);
+        } catch (ValidationException e) {
+            LOG.debug("failed to bind the predicates of table {}", table.name(), e);
+            return false;
+        }
+        for (PartitionSpec partitionSpec : table.specs().values()) {
+            Set<Integer> identityPartitionIds = IcebergUtil.getIdentityPartitions(partitionSpec).keySet().stream()
+                    .map(PartitionField::sourceId)
+                    .collect(toSet());
+            if (!identityPartitionIds.containsAll(referencedIds)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void invalidate(Table table) {
+        CACHE.invalidate(table.location());
+        IcebergScanPlanner.invalidate(table);
+    }
+
+    private static SnapshotStatistics getSnapshotStatistics(Table table, Snapshot snapshot,
+                                                            SnapshotStatistics cached) {
+        if (cached != null && cached.snapshotId == snapshot.snapshotId() && cached.isCompatible(table)) {
+            return cached;
+        }
+        if (cached != null && cached.isCompatible(table)) {
+            List<Snapshot> newSnapshots = new ArrayList<>();
+            Snapshot current = snapshot;
+            while (current != null && current.snapshotId() != cached.snapshotId &&
+                    newSnapshots.size() < MAX_INCREMENTAL_SNAPSHOTS) {
+                newSnapshots.add(current);
+                current = current.parentId() == null ? null : table.snapshot(current.parentId());
+            }
+            if (current != null && current.snapshotId() == cached.snapshotId) {
+                Collections.reverse(newSnapshots);
+                LOG.debug("update statistics of table {} from snapshot {} to {}",
+                        table.name(), cached.snapshotId, snapshot.snapshotId());
+                return cached.update(table, newSnapshots);
+            }
+        }
+        LOG.debug("build statistics of table {} snapshot {}", table.name(), snapshot.snapshotId());
+        return SnapshotStatistics.build(table, snapshot);
+    }
+
+    private static class SnapshotStatistics {
+        private final long snapshotId;
+        private final long timestampMillis;
+        private final Types.StructType schema;
+        private final PartitionSpec spec;
+        private final Map<Integer, PartitionSpec> specs;
+        private final Map<Integer, Type.PrimitiveType> idToTypeMapping;
+        private final List<Types.NestedField> nonPartitionPrimitiveColumns;
+        // spec id -> partition -> statistics of the data files in the partition
+        private final Map<Integer, Map<StructLikeWrapper, IcebergFileStats>> partitionStats;
+
+        private SnapshotStatistics(Table table, Snapshot snapshot,
+                                   Map<Integer, Map<StructLikeWrapper, IcebergFileStats>> partitionStats) {
+            this.snapshotId = snapshot.snapshotId();
+            this.timestampMillis = snapshot.timestampMillis();
+            this.schema = table.schema().asStruct();
+            this.spec = table.spec();
+            this.specs = table.specs();
+            List<Types.NestedField> columns = table.schema().columns();
+            this.idToTypeMapping = columns.stream()
+                    .filter(column -> column.type().isPrimitiveType())
+                    .collect(Collectors.toMap(Types.NestedField::fieldId, column -> column.type().asPrimitiveType()));
+            Set<Integer> identityPartitionIds = IcebergUtil.getIdentityPartitions(spec).keySet().stream()
+                    .map(PartitionField::sourceId)
+                    .collect(toSet());
+            this.nonPartitionPrimitiveColumns = columns.stream()
+                    .filter(column -> !identityPartitionIds.contains(column.fieldId()) &&
+                            column.type().isPrimitiveType())
+                    .collect(toImmutableList());
+            this.partitionStats = partitionStats;
+        }
+
+        private static SnapshotStatistics build(Table table, Snapshot snapshot) {
+            SnapshotStatistics statistics = new SnapshotStatistics(table, snapshot, new HashMap<>());
+            for (DataFile dataFile : IcebergScanPlanner.planDataFiles(table, snapshot, Collections.emptyList())) {
+                statistics.addDataFile(dataFile, null);
+            }
+            return statistics;
+        }
+
+        private boolean isCompatible(Table table) {
+            return schema.equals(table.schema().asStruct()) && spec.specId() == table.spec().specId() &&
+                    specs.keySet().equals(table.specs().keySet());
+        }
+
+        private SnapshotStatistics update(Table table, List<Snapshot> newSnapshots) {
+            Map<Integer, Map<StructLikeWrapper, IcebergFileStats>> newPartitionStats = new HashMap<>();
+            partitionStats.forEach((specId, stats) -> newPartitionStats.put(specId, new HashMap<>(stats)));
+            Snapshot lastSnapshot = newSnapshots.get(newSnapshots.size() - 1);
+            SnapshotStatistics statistics = new SnapshotStatistics(table, lastSnapshot, newPartitionStats);
+
+            // the summaries shared with this snapshot are copied before being changed
+            Set<PartitionKey> copiedPartitions = new HashSet<>();
+            Set<PartitionKey> recomputedPartitions = new HashSet<>();
+            for (Snapshot snapshot : newSnapshots) {
+                for (DataFile dataFile : snapshot.deletedFiles()) {
+                    PartitionKey key = statistics.partitionKey(dataFile);
+                    Map<StructLikeWrapper, IcebergFileStats> stats = newPartitionStats.get(key.specId);
+                    if (recomputedPartitions.add(key) && stats != null) {
+                        stats.remove(key.partition);
+                    }
+                }
+                for (DataFile dataFile : snapshot.addedFiles()) {
+                    PartitionKey key = statistics.partitionKey(dataFile);
+                    if (!recomputedPartitions.contains(key)) {
+                        statistics.addDataFile(dataFile, copiedPartitions);
+                    }
+                }
+            }
+
+            if (!recomputedPartitions.isEmpty()) {
+                for (DataFile dataFile : IcebergScanPlanner.planDataFiles(table, lastSnapshot,
+                        Collections.emptyList())) {
+                    if (recomputedPartitions.contains(statistics.partitionKey(dataFile))) {
+                        statistics.addDataFile(dataFile, copiedPartitions);
+                    }
+                }
+            }
+            return statistics;
+        }
+
+        private PartitionKey partitionKey(DataFile dataFile) {
+            PartitionSpec fileSpec = specs.get(dataFile.specId());
+            StructLikeWrapper partition = StructLikeWrapper.forType(fileSpec.partitionType()).set(dataFile.partition());
+            return new PartitionKey(dataFile.specId(), partition);
+        }
+
+        // copiedPartitions is null if the summaries are not shared with other snapshots
+        private void addDataFile(DataFile dataFile, Set<PartitionKey> copiedPartitions) {
+            PartitionKey key = partitionKey(dataFile);
+            Map<StructLikeWrapper, IcebergFileStats> stats =
+                    partitionStats.computeIfAbsent(key.specId, specId -> new HashMap<>());
+            IcebergFileStats icebergFileStats = stats.get(key.partition);
+            if (icebergFileStats == null) {
+                stats.put(key.partition, new IcebergFileStats(
+                        idToTypeMapping,
+                        nonPartitionPrimitiveColumns,
+                        dataFile.partition(),
+                        dataFile.recordCount(),
+                        dataFile.fileSizeInBytes(),
+                        IcebergFileStats.toMap(idToTypeMapping, dataFile.lowerBounds()),
+                        IcebergFileStats.toMap(idToTypeMapping, dataFile.upperBounds()),
+                        dataFile.nullValueCounts(),
+                        dataFile.columnSizes()));
+                if (copiedPartitions != null) {
+                    copiedPartitions.add(key);
+                }
+                return;
+            }
+
+            if (copiedPartitions != null && copiedPartitions.add(key)) {
+                icebergFileStats = icebergFileStats.copy();
+                stats.put(key.partition, icebergFileStats);
+            }
+            List<PartitionField> partitionFields = spec.fields();
+            icebergFileStats.incrementFileCount();
+            icebergFileStats.incrementRecordCount(dataFile.recordCount());
+            icebergFileStats.incrementSize(dataFile.fileSizeInBytes());
+            updateSummaryMin(icebergFileStats, partitionFields, IcebergFileStats.toMap(idToTypeMapping,
+                    dataFile.lowerBounds()), dataFile.nullValueCounts(), dataFile.recordCount());
+            updateSummaryMax(icebergFileStats, partitionFields, IcebergFileStats.toMap(idToTypeMapping,
+                    dataFile.upperBounds()), dataFile.nullValueCounts(), dataFile.recordCount());
+            icebergFileStats.updateNullCount(dataFile.nullValueCounts());
+            updateColumnSizes(icebergFileStats, dataFile.columnSizes());
+        }
+
+        private IcebergFileStats getFileStats(List<Expression> icebergPredicates) {
+            Expression filter = icebergPredicates.stream().reduce(Expressions.alwaysTrue(), Expressions::and);
+            IcebergFileStats result = null;
+            for (Map.Entry<Integer, Map<StructLikeWrapper, IcebergFileStats>> entry : partitionStats.entrySet()) {
+                PartitionSpec partitionSpec = specs.get(entry.getKey());
+                Evaluator evaluator = new Evaluator(partitionSpec.partitionType(),
+                        Projections.inclusive(partitionSpec, true).project(filter), true);
+                for (Map.Entry<StructLikeWrapper, IcebergFileStats> partition : entry.getValue().entrySet()) {
+                    if (!evaluator.eval(partition.getKey().get())) {
+                        continue;
+                    }
+                    if (result == null) {
+                        result = partition.getValue().copy();
+                    } else {
+                        result.merge(partition.getValue());
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class PartitionKey {
+        private final int specId;
+        private final StructLikeWrapper partition;
+
+        private PartitionKey(int specId, StructLikeWrapper partition) {
+            this.specId = specId;
+            this.partition = partition;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PartitionKey that = (PartitionKey) o;
+            return specId == that.specId && partition.equals(that.partition);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * specId + partition.hashCode();
+        }
+    }
+
+    private static void updateColumnSizes(IcebergFileStats icebergFileStats, Map<Integer, Long> addedColumnSizes) {
+        Map<Integer, Long> columnSizes = icebergFileStats.getColumnSizes();
+        if (!icebergFileStats.hasValidColumnMetrics() || columnSizes == null || addedColumnSizes == null) {
+            return;
+        }
+        for (Types.NestedField column : icebergFileStats.getNonPartitionPrimitiveColumns()) {
+            int id = column.fieldId();
+
+            Long addedSize = addedColumnSizes.get(id);
+            if (addedSize != null) {
+                columnSizes.put(id, addedSize + columnSizes.getOrDefault(id, 0L));
+            }
+        }
+    }
+
+    private static void updateSummaryMin(IcebergFileStats icebergFileStats,
+                                         List<PartitionField> partitionFields,
+                                         Map<Integer, Object> lowerBounds,
+                                         Map<Integer, Long> nullCounts,
+                                         long recordCount) {
+        icebergFileStats.updateStats(icebergFileStats.getMinValues(), lowerBounds, nullCounts, recordCount,
+                i -> (i > 0));
+        updatePartitionedStats(icebergFileStats, partitionFields, icebergFileStats.getMinValues(), lowerBounds,
+                i -> (i > 0));
+    }
+
+    private static void updateSummaryMax(IcebergFileStats icebergFileStats,
+                                         List<PartitionField> partitionFields,
+                                         Map<Integer, Object> upperBounds,
+                                         Map<Integer, Long> nullCounts,
+                                         long recordCount) {
+        icebergFileStats.updateStats(icebergFileStats.getMaxValues(), upperBounds, nullCounts, recordCount,
+                i -> (i < 0));
+        updatePartitionedStats(icebergFileStats, partitionFields, icebergFileStats.getMaxValues(), upperBounds,
+                i -> (i < 0));
+    }
+
+    private static void updatePartitionedStats(
+            IcebergFileStats icebergFileStats,
+            List<PartitionField> partitionFields,
+            Map<Integer, Object> current,
+            Map<Integer, Object> newStats,
+            Predicate<Integer> predicate) {
+        if (!icebergFileStats.hasValidColumnMetrics() || newStats == null) {
+            return;
+        }
+        for (PartitionField field : partitionFields) {
+            int id = field.sourceId();
+            if (icebergFileStats.getCorruptedStats().contains(id)) {
+                continue;
+            }
+
+            Object newValue = newStats.get(id);
+            if (newValue == null) {
+                continue;
+            }
+
+            Object oldValue = current.putIfAbsent(id, newValue);
+            if (oldValue != null) {
+                Comparator<Object> comparator = Comparators.forType(icebergFileStats.getIdToTypeMapping().get(id));
+                if (predicate.test(comparator.compare(oldValue, newValue))) {
+                    current.put(id, newValue);
+                }
+            }
+        }
+    }
+}
@@ -102,13 +102,19 @@ public abstract class BaseAction implements IAction {
     public abstract void execute(BaseRequest request, BaseResponse response) throws DdlException;
 
     protected void writeResponse(BaseRequest request, BaseResponse response, HttpResponseStatus status) {
+        writeResponse(request, response, status, response.getContent().toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // write the content as it is, instead of the content of the response
+    protected void writeResponse(BaseRequest request, BaseResponse response, HttpResponseStatus status,
+                                 byte[] content) {
         // if (HttpHeaders.is100ContinueExpected(request.getRequest())) {
         // ctx.write(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
         // HttpResponseStatus.CONTINUE));
         // }
 
         FullHttpResponse responseObj = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
-                Unpooled.wrappedBuffer(response.getContent().toString().getBytes(StandardCharsets.UTF_8)));
+                Unpooled.wrappedBuffer(content));
         Preconditions.checkNotNull(responseObj);
         HttpMethod method = request.getRequest().method();
 
@@ -83,6 +83,7 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpServerCodec;
@@ -206,16 +207,16 @@ public class HttpServer {
 
         @Override
         protected void decode(ChannelHandlerContext ctx, HttpRequest msg, List<Object> out) throws Exception {
-            if (msg.uri().startsWith(MetricsAction.API_PATH)) {
-                // only `/metrics` api got compressed right now
-                compressResponse = true;
-            }
+            // only `/metrics` api got compressed right now,
+            // decided per request because the other requests may follow on a keep-alive connection
+            compressResponse = msg.uri().startsWith(MetricsAction.API_PATH);
             super.decode(ctx, msg, out);
         }
 
         @Override
         protected Result beginEncode(HttpResponse headers, String acceptEncoding) throws Exception {
-            if (!compressResponse) {
+            // the content is already compressed if the Content-Encoding is set
+            if (!compressResponse || headers.headers().contains(HttpHeaderNames.CONTENT_ENCODING)) {
                 return null;
             }
             return super.beginEncode(headers, acceptEncoding);
@@ -22,6 +22,7 @@
 package com.starrocks.http.rest;
 
 import com.google.common.base.Strings;
+import com.starrocks.common.Config;
 import com.starrocks.common.DdlException;
 import com.starrocks.http.ActionController;
 import com.starrocks.http.BaseRequest;
@@ -31,6 +32,7 @@ import com.starrocks.mysql.privilege.PrivPredicate;
 import com.starrocks.qe.ConnectContext;
 import com.starrocks.server.GlobalStateMgr;
 import com.starrocks.system.Backend;
+import com.starrocks.system.StreamLoadBackendSelector;
 import com.starrocks.thrift.TNetworkAddress;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
@@ -75,15 +77,21 @@ public class LoadAction extends RestBaseAction {
         // check auth
         checkTblAuth(ConnectContext.get().getCurrentUserIdentity(), dbName, tableName, PrivPredicate.LOAD);
 
-        // Choose a backend sequentially.
-        List<Long> backendIds = GlobalStateMgr.getCurrentSystemInfo().seqChooseBackendIds(1, true, false);
-        if (backendIds == null) {
-            throw new DdlException("No backend alive.");
-        }
-
-        Backend backend = GlobalStateMgr.getCurrentSystemInfo().getBackend(backendIds.get(0));
-        if (backend == null) {
-            throw new DdlException("No backend alive.");
+        Backend backend;
+        if (Config.enable_load_aware_stream_load_redirect) {
+            // Choose the least loaded backend.
+            backend = StreamLoadBackendSelector.getInstance().chooseBackend(dbName, tableName);
+        } else {
+            // Choose a backend sequentially.
+            List<Long> backendIds = GlobalStateMgr.getCurrentSystemInfo().seqChooseBackendIds(1, true, false);
+            if (backendIds == null) {
+                throw new DdlException("No backend alive.");
+            }
+
+            backend = GlobalStateMgr.getCurrentSystemInfo().getBackend(backendIds.get(0));
+            if (backend == null) {
+                throw new DdlException("No backend alive.");
+            }
         }
 
         TNetworkAddress redirectAddr = new TNetworkAddress(backend.getHost(), backend.getHttpPort());
@@ -31,16 +31,26 @@ import com.starrocks.http.IllegalArgException;
 import com.starrocks.metric.JsonMetricVisitor;
 import com.starrocks.metric.MetricRepo;
 import com.starrocks.metric.MetricVisitor;
-import com.starrocks.metric.PrometheusMetricVisitor;
+import com.starrocks.metric.MetricsSnapshot;
 import com.starrocks.metric.SimpleCoreMetricVisitor;
 import com.starrocks.mysql.privilege.PrivPredicate;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
+
 //fehost:port/metrics
 //fehost:port/metrics?type=core
 //fehost:port/metrics?type=json
+//fehost:port/metrics?type=openmetrics
+// The prometheus output is gzip compressed if the Accept-Encoding header allows it.
+// The OpenMetrics format is only used if it's asked by the type parameter, not by the Accept header,
+// because the Prometheus scraper accepts it by default and its counters are renamed to "<name>_total".
 public class MetricsAction extends RestBaseAction {
 
     private static final Logger LOG = LogManager.getLogger(MetricsAction.class);
@@ -51,6 +61,9 @@ public class MetricsAction extends RestBaseAction {
     protected static final String WITH_TABLE_METRICS_MINIFIED = "minified";
     protected static final String WITH_TABLE_METRICS_ALL = "all";
     public static final String API_PATH = "/metrics";
+    private static final String TYPE_OPEN_METRICS = "openmetrics";
+    private static final String OPEN_METRICS_CONTENT_TYPE =
+            "application/openmetrics-text; version=1.0.0; charset=utf-8";
 
     public MetricsAction(ActionController controller) {
         super(controller);
@@ -68,8 +81,6 @@ public class MetricsAction extends RestBaseAction {
             visitor = new SimpleCoreMetricVisitor("starrocks_fe");
         } else if (!Strings.isNullOrEmpty(type) && type.equalsIgnoreCase("json")) {
             visitor = new JsonMetricVisitor("starrocks_fe");
-        } else {
-            visitor = new PrometheusMetricVisitor("starrocks_fe");
         }
         boolean collectTableMetrics = false;
         boolean minifyTableMetrics = true;
@@ -89,8 +100,29 @@ public class MetricsAction extends RestBaseAction {
                 LOG.warn("`Admin_priv` is needed to view the table-level metrics.");
             }
         }
-        response.setContentType("text/plain");
-        response.getContent().append(MetricRepo.getMetric(visitor, collectTableMetrics, minifyTableMetrics));
-        sendResult(request, response);
+        if (visitor != null) {
+            response.setContentType("text/plain");
+            response.getContent().append(MetricRepo.getMetric(visitor, collectTableMetrics, minifyTableMetrics));
+            sendResult(request, response);
+            return;
+        }
+
+        // prometheus
+        HttpHeaders headers = request.getRequest().headers();
+        boolean openMetrics = TYPE_OPEN_METRICS.equalsIgnoreCase(type);
+        MetricsSnapshot snapshot = MetricRepo.getPrometheusSnapshot("starrocks_fe", openMetrics,
+                collectTableMetrics, minifyTableMetrics);
+        response.setContentType(openMetrics ? OPEN_METRICS_CONTENT_TYPE : "text/plain");
+        byte[] content = snapshot.getContent();
+        String acceptEncoding = headers.get(HttpHeaderNames.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains(HttpHeaderValues.GZIP.toString())) {
+            try {
+                content = snapshot.getGzipContent();
+                response.updateHeader(HttpHeaderNames.CONTENT_ENCODING.toString(), HttpHeaderValues.GZIP.toString());
+            } catch (IOException e) {
+                LOG.warn("failed to compress the metrics", e);
+            }
+        }
+        writeResponse(request, response, HttpResponseStatus.OK, content);
     }
 }
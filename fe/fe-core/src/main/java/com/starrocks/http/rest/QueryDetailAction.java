@@ -22,6 +22,8 @@
 package com.starrocks.http.rest;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.starrocks.http.ActionController;
 import com.starrocks.http.BaseRequest;
 import com.starrocks.http.BaseResponse;
@@ -54,7 +56,17 @@ public class QueryDetailAction extends RestBaseAction {
         long eventTime = Long.parseLong(eventTimeStr.trim());
         List<QueryDetail> queryDetails = QueryDetailQueue.getQueryDetailsAfterTime(eventTime);
         Gson gson = new Gson();
-        String jsonString = gson.toJson(queryDetails);
+        JsonArray jsonArray = new JsonArray();
+        for (QueryDetail queryDetail : queryDetails) {
+            JsonElement json = gson.toJsonTree(queryDetail);
+            // the profile is kept compressed in the query detail
+            String profile = queryDetail.getProfile();
+            if (profile != null) {
+                json.getAsJsonObject().addProperty("profile", profile);
+            }
+            jsonArray.add(json);
+        }
+        String jsonString = gson.toJson(jsonArray);
         response.getContent().append(jsonString);
         sendResult(request, response);
     }
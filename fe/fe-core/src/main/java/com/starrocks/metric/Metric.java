@@ -52,6 +52,10 @@ public abstract class Metric<T> {
     protected MetricUnit unit;
     protected List<MetricLabel> labels = Lists.newArrayList();
     protected String description;
+    // the labels formatted as {key="value", ...}, only rebuilt when the labels change
+    private volatile String labelsText = null;
+    // the labels formatted as {key="value",...}, OpenMetrics doesn't allow the whitespace between the labels
+    private volatile String openMetricsLabelsText = null;
 
     public Metric(String name, MetricType type, MetricUnit unit, String description) {
         this.name = name;
@@ -81,6 +85,8 @@ public abstract class Metric<T> {
             return this;
         }
         labels.add(label);
+        labelsText = null;
+        openMetricsLabelsText = null;
         return this;
     }
 
@@ -88,5 +94,40 @@ public abstract class Metric<T> {
         return labels;
     }
 
+    public String getLabelsText() {
+        String text = labelsText;
+        if (text == null) {
+            text = buildLabelsText(", ");
+            labelsText = text;
+        }
+        return text;
+    }
+
+    public String getLabelsText(boolean openMetrics) {
+        if (!openMetrics) {
+            return getLabelsText();
+        }
+        String text = openMetricsLabelsText;
+        if (text == null) {
+            text = buildLabelsText(",");
+            openMetricsLabelsText = text;
+        }
+        return text;
+    }
+
+    private String buildLabelsText(String separator) {
+        if (labels.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < labels.size(); i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            sb.append(labels.get(i).getKey()).append("=\"").append(labels.get(i).getValue()).append("\"");
+        }
+        return sb.append("}").toString();
+    }
+
     public abstract T getValue();
 }
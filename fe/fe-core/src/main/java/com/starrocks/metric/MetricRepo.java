@@ -48,9 +48,12 @@ import com.starrocks.monitor.jvm.JvmService;
 import com.starrocks.monitor.jvm.JvmStats;
 import com.starrocks.proto.PKafkaOffsetProxyRequest;
 import com.starrocks.proto.PKafkaOffsetProxyResult;
+import com.starrocks.qe.QueryQueueManager;
+import com.starrocks.qe.ResultReceiver;
 import com.starrocks.server.GlobalStateMgr;
 import com.starrocks.service.ExecuteEnv;
 import com.starrocks.system.Backend;
+import com.starrocks.system.StreamLoadBackendSelector;
 import com.starrocks.system.SystemInfoService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -59,6 +62,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -70,10 +74,13 @@ public final class MetricRepo {
     private static final StarRocksMetricRegistry STARROCKS_METRIC_REGISTER = new StarRocksMetricRegistry();
 
     public static volatile boolean isInit = false;
+    // the options of the scrape -> the latest output
+    private static final Map<String, MetricsSnapshot> METRICS_SNAPSHOTS = new ConcurrentHashMap<>();
     public static final SystemMetrics SYSTEM_METRICS = new SystemMetrics();
 
     public static final String TABLET_NUM = "tablet_num";
     public static final String TABLET_MAX_COMPACTION_SCORE = "tablet_max_compaction_score";
+    public static final String STREAM_LOAD_REDIRECT = "stream_load_redirect";
 
     public static LongCounterMetric COUNTER_REQUEST_ALL;
     public static LongCounterMetric COUNTER_QUERY_ALL;
@@ -81,6 +88,7 @@ public final class MetricRepo {
     public static LongCounterMetric COUNTER_QUERY_TIMEOUT;
     public static LongCounterMetric COUNTER_QUERY_SUCCESS;
     public static LongCounterMetric COUNTER_SLOW_QUERY;
+    public static LongCounterMetric COUNTER_QUERY_QUEUE_TIMEOUT;
     public static LongCounterMetric COUNTER_LOAD_ADD;
     public static LongCounterMetric COUNTER_LOAD_FINISHED;
     public static LongCounterMetric COUNTER_EDIT_LOG_WRITE;
@@ -96,12 +104,20 @@ public final class MetricRepo {
     public static LongCounterMetric COUNTER_ROUTINE_LOAD_RECEIVED_BYTES;
     public static LongCounterMetric COUNTER_ROUTINE_LOAD_ERROR_ROWS;
     public static LongCounterMetric COUNTER_ROUTINE_LOAD_PAUSED;
+    public static LongCounterMetric COUNTER_AUDIT_EVENT_SAMPLED_OUT;
+    public static LongCounterMetric COUNTER_AUDIT_EVENT_DROPPED;
+    public static LongCounterMetric COUNTER_AUDIT_TABLE_LOADED_ROWS;
+    public static LongCounterMetric COUNTER_AUDIT_TABLE_FAILED_ROWS;
 
     public static Histogram HISTO_QUERY_LATENCY;
+    public static Histogram HISTO_QUERY_QUEUE_WAIT_TIME;
+    public static Histogram HISTO_QUERY_RESULT_FETCH_TIME;
+    public static Histogram HISTO_QUERY_RESULT_SEND_TIME;
     public static Histogram HISTO_EDIT_LOG_WRITE_LATENCY;
     public static Histogram HISTO_JOURNAL_WRITE_LATENCY;
     public static Histogram HISTO_JOURNAL_WRITE_BATCH;
     public static Histogram HISTO_JOURNAL_WRITE_BYTES;
+    public static Histogram HISTO_AUDIT_ENQUEUE_LATENCY;
 
     // following metrics will be updated by metric calculator
     public static GaugeMetricImpl<Double> GAUGE_QUERY_PER_SECOND;
@@ -229,6 +245,42 @@ public final class MetricRepo {
         };
         STARROCKS_METRIC_REGISTER.addMetric(scheduledTabletNum);
 
+        // query queue
+        GaugeMetric<Integer> queryQueuePending = new GaugeMetric<Integer>(
+                "query_queue_pending", MetricUnit.REQUESTS, "number of queries waiting in query queue") {
+            @Override
+            public Integer getValue() {
+                return QueryQueueManager.getInstance().getPendingQueryNum();
+            }
+        };
+        STARROCKS_METRIC_REGISTER.addMetric(queryQueuePending);
+        GaugeMetric<Integer> queryQueueRunning = new GaugeMetric<Integer>(
+                "query_queue_running", MetricUnit.REQUESTS, "number of running queries admitted by query queue") {
+            @Override
+            public Integer getValue() {
+                return QueryQueueManager.getInstance().getRunningQueryNum();
+            }
+        };
+        STARROCKS_METRIC_REGISTER.addMetric(queryQueueRunning);
+
+        GaugeMetric<Long> resultPrefetchBytes = new GaugeMetric<Long>(
+                "result_prefetch_bytes", MetricUnit.BYTES, "bytes of the result batches prefetched from BE") {
+            @Override
+            public Long getValue() {
+                return ResultReceiver.getPrefetchedBytes();
+            }
+        };
+        STARROCKS_METRIC_REGISTER.addMetric(resultPrefetchBytes);
+
+        GaugeMetric<Long> auditEventQueueSize = new GaugeMetric<Long>(
+                "audit_event_queue_size", MetricUnit.NOUNIT, "audit events waiting to be processed") {
+            @Override
+            public Long getValue() {
+                return (long) GlobalStateMgr.getCurrentAuditEventProcessor().getQueueSize();
+            }
+        };
+        STARROCKS_METRIC_REGISTER.addMetric(auditEventQueueSize);
+
         // routine load jobs
         RoutineLoadManager routineLoadManger = GlobalStateMgr.getCurrentState().getRoutineLoadManager();
         for (RoutineLoadJob.JobState state : RoutineLoadJob.JobState.values()) {
@@ -325,6 +377,9 @@ public final class MetricRepo {
         STARROCKS_METRIC_REGISTER.addMetric(COUNTER_QUERY_SUCCESS);
         COUNTER_SLOW_QUERY = new LongCounterMetric("slow_query", MetricUnit.REQUESTS, "total slow query");
         STARROCKS_METRIC_REGISTER.addMetric(COUNTER_SLOW_QUERY);
+        COUNTER_QUERY_QUEUE_TIMEOUT = new LongCounterMetric("query_queue_timeout", MetricUnit.REQUESTS,
+                "total queries which are not admitted by query queue in time");
+        STARROCKS_METRIC_REGISTER.addMetric(COUNTER_QUERY_QUEUE_TIMEOUT);
         COUNTER_LOAD_ADD = new LongCounterMetric("load_add", MetricUnit.REQUESTS, "total load submit");
         STARROCKS_METRIC_REGISTER.addMetric(COUNTER_LOAD_ADD);
         COUNTER_ROUTINE_LOAD_PAUSED =
@@ -368,8 +423,25 @@ public final class MetricRepo {
                 "total error rows of routine load");
         STARROCKS_METRIC_REGISTER.addMetric(COUNTER_ROUTINE_LOAD_ERROR_ROWS);
 
+        COUNTER_AUDIT_EVENT_SAMPLED_OUT = new LongCounterMetric("audit_event_sampled_out", MetricUnit.REQUESTS,
+                "audit events not kept because the audit queue is busy");
+        STARROCKS_METRIC_REGISTER.addMetric(COUNTER_AUDIT_EVENT_SAMPLED_OUT);
+        COUNTER_AUDIT_EVENT_DROPPED = new LongCounterMetric("audit_event_dropped", MetricUnit.REQUESTS,
+                "audit events dropped because the audit queue is full");
+        STARROCKS_METRIC_REGISTER.addMetric(COUNTER_AUDIT_EVENT_DROPPED);
+        COUNTER_AUDIT_TABLE_LOADED_ROWS = new LongCounterMetric("audit_table_loaded_rows", MetricUnit.ROWS,
+                "audit events loaded into the audit table");
+        STARROCKS_METRIC_REGISTER.addMetric(COUNTER_AUDIT_TABLE_LOADED_ROWS);
+        COUNTER_AUDIT_TABLE_FAILED_ROWS = new LongCounterMetric("audit_table_failed_rows", MetricUnit.ROWS,
+                "audit events failed to load into the audit table");
+        STARROCKS_METRIC_REGISTER.addMetric(COUNTER_AUDIT_TABLE_FAILED_ROWS);
+
         // 3. histogram
         HISTO_QUERY_LATENCY = METRIC_REGISTER.histogram(MetricRegistry.name("query", "latency", "ms"));
+        HISTO_QUERY_QUEUE_WAIT_TIME = METRIC_REGISTER.histogram(MetricRegistry.name("query", "queue", "wait", "ms"));
+        HISTO_QUERY_RESULT_FETCH_TIME =
+                METRIC_REGISTER.histogram(MetricRegistry.name("query", "result", "fetch", "wait", "ms"));
+        HISTO_QUERY_RESULT_SEND_TIME = METRIC_REGISTER.histogram(MetricRegistry.name("query", "result", "send", "ms"));
         HISTO_EDIT_LOG_WRITE_LATENCY =
                 METRIC_REGISTER.histogram(MetricRegistry.name("editlog", "write", "latency", "ms"));
         HISTO_JOURNAL_WRITE_LATENCY =
@@ -378,6 +450,8 @@ public final class MetricRepo {
                 METRIC_REGISTER.histogram(MetricRegistry.name("journal", "write", "batch"));
         HISTO_JOURNAL_WRITE_BYTES =
                 METRIC_REGISTER.histogram(MetricRegistry.name("journal", "write", "bytes"));
+        HISTO_AUDIT_ENQUEUE_LATENCY =
+                METRIC_REGISTER.histogram(MetricRegistry.name("audit", "enqueue", "latency", "us"));
 
         // init system metrics
         initSystemMetrics();
@@ -443,6 +517,7 @@ public final class MetricRepo {
         // remove all previous 'tablet' metric
         STARROCKS_METRIC_REGISTER.removeMetrics(TABLET_NUM);
         STARROCKS_METRIC_REGISTER.removeMetrics(TABLET_MAX_COMPACTION_SCORE);
+        STARROCKS_METRIC_REGISTER.removeMetrics(STREAM_LOAD_REDIRECT);
 
         SystemInfoService infoService = GlobalStateMgr.getCurrentSystemInfo();
         TabletInvertedIndex invertedIndex = GlobalStateMgr.getCurrentInvertedIndex();
@@ -482,6 +557,17 @@ public final class MetricRepo {
             tabletMaxCompactionScore.addLabel(new MetricLabel("backend", be.getHost() + ":" + be.getHeartbeatPort()));
             STARROCKS_METRIC_REGISTER.addMetric(tabletMaxCompactionScore);
 
+            // stream loads redirected to each backends by this FE
+            GaugeMetric<Long> streamLoadRedirect = (GaugeMetric<Long>) new GaugeMetric<Long>(
+                    STREAM_LOAD_REDIRECT, MetricUnit.REQUESTS, "stream loads redirected to the backend") {
+                @Override
+                public Long getValue() {
+                    return StreamLoadBackendSelector.getInstance().getTotalRedirects(beId);
+                }
+            };
+            streamLoadRedirect.addLabel(new MetricLabel("backend", be.getHost() + ":" + be.getHeartbeatPort()));
+            STARROCKS_METRIC_REGISTER.addMetric(streamLoadRedirect);
+
         } // end for backends
     }
 
@@ -526,6 +612,31 @@ public final class MetricRepo {
         return visitor.build();
     }
 
+    // The prometheus or OpenMetrics output shared by the scrapes in metrics_snapshot_cache_ttl_ms.
+    // Only the first scrape after the snapshot expires collects the metrics, the concurrent ones wait for it.
+    public static MetricsSnapshot getPrometheusSnapshot(String prefix, boolean openMetrics,
+                                                        boolean collectTableMetrics, boolean minifyTableMetrics) {
+        String key = prefix + "/" + openMetrics + "/" + collectTableMetrics + "/" + minifyTableMetrics;
+        long ttlMs = Config.metrics_snapshot_cache_ttl_ms;
+        MetricsSnapshot snapshot = METRICS_SNAPSHOTS.get(key);
+        if (snapshot != null && !snapshot.isExpired(System.currentTimeMillis(), ttlMs)) {
+            return snapshot;
+        }
+        synchronized (MetricRepo.class) {
+            snapshot = METRICS_SNAPSHOTS.get(key);
+            if (snapshot != null && !snapshot.isExpired(System.currentTimeMillis(), ttlMs)) {
+                return snapshot;
+            }
+            String content = getMetric(new PrometheusMetricVisitor(prefix, openMetrics), collectTableMetrics,
+                    minifyTableMetrics);
+            snapshot = new MetricsSnapshot(content, System.currentTimeMillis());
+            if (isInit && ttlMs > 0) {
+                METRICS_SNAPSHOTS.put(key, snapshot);
+            }
+            return snapshot;
+        }
+    }
+
     // update some metrics to make a ready to be visited
     private static void updateMetrics() {
         SYSTEM_METRICS.update();
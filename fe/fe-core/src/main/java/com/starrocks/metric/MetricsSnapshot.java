@@ -0,0 +1,53 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.metric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * The output of the metrics at a moment, shared by the scrapes in metrics_snapshot_cache_ttl_ms,
+ * so the metrics are collected once for the concurrent scrapes, and the output is compressed once.
+ */
+public class MetricsSnapshot {
+    private final byte[] content;
+    private final long createTimeMs;
+    private volatile byte[] gzipContent = null;
+
+    public MetricsSnapshot(String content, long createTimeMs) {
+        this.content = content.getBytes(StandardCharsets.UTF_8);
+        this.createTimeMs = createTimeMs;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public long getCreateTimeMs() {
+        return createTimeMs;
+    }
+
+    public boolean isExpired(long nowMs, long ttlMs) {
+        return nowMs - createTimeMs >= ttlMs;
+    }
+
+    public byte[] getGzipContent() throws IOException {
+        byte[] compressed = gzipContent;
+        if (compressed == null) {
+            synchronized (this) {
+                compressed = gzipContent;
+                if (compressed == null) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+                    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                        gzip.write(content);
+                    }
+                    compressed = out.toByteArray();
+                    gzipContent = compressed;
+                }
+            }
+        }
+        return compressed;
+    }
+}
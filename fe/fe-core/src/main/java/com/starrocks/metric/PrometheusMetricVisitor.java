@@ -23,7 +23,6 @@ package com.starrocks.metric;
 
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Snapshot;
-import com.google.common.base.Joiner;
 import com.starrocks.monitor.jvm.JvmStats;
 import com.starrocks.monitor.jvm.JvmStats.BufferPool;
 import com.starrocks.monitor.jvm.JvmStats.GarbageCollector;
@@ -33,15 +32,16 @@ import com.starrocks.server.GlobalStateMgr;
 
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /*
  * Like this:
  * # HELP starrocks_fe_job_load_broker_cost_ms starrocks_fe_job_load_broker_cost_ms
  * # TYPE starrocks_fe_job_load_broker_cost_ms gauge
  * starrocks_fe_job{job="load", type="mini", state="pending"} 0
+ *
+ * In the OpenMetrics format, the samples of the counters end with "_total", the labels are separated by ","
+ * without whitespace, and the output ends with "# EOF".
  */
 public class PrometheusMetricVisitor extends MetricVisitor {
     // jvm
@@ -57,19 +57,31 @@ public class PrometheusMetricVisitor extends MetricVisitor {
     private static final String HELP = "# HELP ";
     private static final String TYPE = "# TYPE ";
 
+    private static final String COUNTER_SUFFIX = "_total";
+    private static final String EOF = "# EOF\n";
+
     private StringBuilder sb;
+    private final String labelSeparator;
     private Set<String> metricNames = new HashSet();
+    // output in the OpenMetrics text format instead of the Prometheus text format
+    private final boolean openMetrics;
 
     public PrometheusMetricVisitor(String prefix) {
+        this(prefix, false);
+    }
+
+    public PrometheusMetricVisitor(String prefix, boolean openMetrics) {
         super(prefix);
         sb = new StringBuilder();
+        this.openMetrics = openMetrics;
+        this.labelSeparator = openMetrics ? "," : ", ";
     }
 
     @Override
     public void visitJvm(JvmStats jvmStats) {
         // heap
-        sb.append(Joiner.on(" ").join(HELP, JVM_HEAP_SIZE_BYTES, "jvm heap stat\n"));
-        sb.append(Joiner.on(" ").join(TYPE, JVM_HEAP_SIZE_BYTES, "gauge\n"));
+        appendHelp(JVM_HEAP_SIZE_BYTES, "jvm heap stat");
+        appendType(JVM_HEAP_SIZE_BYTES, "gauge");
         sb.append(JVM_HEAP_SIZE_BYTES).append("{type=\"max\"} ").append(jvmStats.getMem().getHeapMax().getBytes())
                 .append("\n");
         sb.append(JVM_HEAP_SIZE_BYTES).append("{type=\"committed\"} ")
@@ -77,8 +89,8 @@ public class PrometheusMetricVisitor extends MetricVisitor {
         sb.append(JVM_HEAP_SIZE_BYTES).append("{type=\"used\"} ").append(jvmStats.getMem().getHeapUsed().getBytes())
                 .append("\n");
         // non heap
-        sb.append(Joiner.on(" ").join(HELP, JVM_NON_HEAP_SIZE_BYTES, "jvm non heap stat\n"));
-        sb.append(Joiner.on(" ").join(TYPE, JVM_NON_HEAP_SIZE_BYTES, "gauge\n"));
+        appendHelp(JVM_NON_HEAP_SIZE_BYTES, "jvm non heap stat");
+        appendType(JVM_NON_HEAP_SIZE_BYTES, "gauge");
         sb.append(JVM_NON_HEAP_SIZE_BYTES).append("{type=\"committed\"} ")
                 .append(jvmStats.getMem().getNonHeapCommitted().getBytes()).append("\n");
         sb.append(JVM_NON_HEAP_SIZE_BYTES).append("{type=\"used\"} ")
@@ -89,8 +101,8 @@ public class PrometheusMetricVisitor extends MetricVisitor {
         while (memIter.hasNext()) {
             MemoryPool memPool = memIter.next();
             if (memPool.getName().equalsIgnoreCase("young")) {
-                sb.append(Joiner.on(" ").join(HELP, JVM_YOUNG_SIZE_BYTES, "jvm young mem pool stat\n"));
-                sb.append(Joiner.on(" ").join(TYPE, JVM_YOUNG_SIZE_BYTES, "gauge\n"));
+                appendHelp(JVM_YOUNG_SIZE_BYTES, "jvm young mem pool stat");
+                appendType(JVM_YOUNG_SIZE_BYTES, "gauge");
                 sb.append(JVM_YOUNG_SIZE_BYTES).append("{type=\"used\"} ").append(memPool.getUsed().getBytes())
                         .append("\n");
                 sb.append(JVM_YOUNG_SIZE_BYTES).append("{type=\"peak_used\"} ").append(memPool.getPeakUsed().getBytes())
@@ -98,8 +110,8 @@ public class PrometheusMetricVisitor extends MetricVisitor {
                 sb.append(JVM_YOUNG_SIZE_BYTES).append("{type=\"max\"} ").append(memPool.getMax().getBytes())
                         .append("\n");
             } else if (memPool.getName().equalsIgnoreCase("old")) {
-                sb.append(Joiner.on(" ").join(HELP, JVM_OLD_SIZE_BYTES, "jvm old mem pool stat\n"));
-                sb.append(Joiner.on(" ").join(TYPE, JVM_OLD_SIZE_BYTES, "gauge\n"));
+                appendHelp(JVM_OLD_SIZE_BYTES, "jvm old mem pool stat");
+                appendType(JVM_OLD_SIZE_BYTES, "gauge");
                 sb.append(JVM_OLD_SIZE_BYTES).append("{type=\"used\"} ").append(memPool.getUsed().getBytes())
                         .append("\n");
                 sb.append(JVM_OLD_SIZE_BYTES).append("{type=\"peak_used\"} ").append(memPool.getPeakUsed().getBytes())
@@ -114,9 +126,8 @@ public class PrometheusMetricVisitor extends MetricVisitor {
         while (poolIter.hasNext()) {
             BufferPool pool = poolIter.next();
             if (pool.getName().equalsIgnoreCase("direct")) {
-                sb.append(Joiner.on(" ").join(HELP, JVM_DIRECT_BUFFER_POOL_SIZE_BYTES,
-                        "jvm direct buffer pool stat\n"));
-                sb.append(Joiner.on(" ").join(TYPE, JVM_DIRECT_BUFFER_POOL_SIZE_BYTES, "gauge\n"));
+                appendHelp(JVM_DIRECT_BUFFER_POOL_SIZE_BYTES, "jvm direct buffer pool stat");
+                appendType(JVM_DIRECT_BUFFER_POOL_SIZE_BYTES, "gauge");
                 sb.append(JVM_DIRECT_BUFFER_POOL_SIZE_BYTES).append("{type=\"count\"} ").append(pool.getCount())
                         .append("\n");
                 sb.append(JVM_DIRECT_BUFFER_POOL_SIZE_BYTES).append("{type=\"used\"} ")
@@ -131,14 +142,14 @@ public class PrometheusMetricVisitor extends MetricVisitor {
         while (gcIter.hasNext()) {
             GarbageCollector gc = gcIter.next();
             if (gc.getName().equalsIgnoreCase("young")) {
-                sb.append(Joiner.on(" ").join(HELP, JVM_YOUNG_GC, "jvm young gc stat\n"));
-                sb.append(Joiner.on(" ").join(TYPE, JVM_YOUNG_GC, "gauge\n"));
+                appendHelp(JVM_YOUNG_GC, "jvm young gc stat");
+                appendType(JVM_YOUNG_GC, "gauge");
                 sb.append(JVM_YOUNG_GC).append("{type=\"count\"} ").append(gc.getCollectionCount()).append("\n");
                 sb.append(JVM_YOUNG_GC).append("{type=\"time\"} ").append(gc.getCollectionTime().getMillis())
                         .append("\n");
             } else if (gc.getName().equalsIgnoreCase("old")) {
-                sb.append(Joiner.on(" ").join(HELP, JVM_OLD_GC, "jvm old gc stat\n"));
-                sb.append(Joiner.on(" ").join(TYPE, JVM_OLD_GC, "gauge\n"));
+                appendHelp(JVM_OLD_GC, "jvm old gc stat");
+                appendType(JVM_OLD_GC, "gauge");
                 sb.append(JVM_OLD_GC).append("{type=\"count\"} ").append(gc.getCollectionCount()).append("\n");
                 sb.append(JVM_OLD_GC).append("{type=\"time\"} ").append(gc.getCollectionTime().getMillis())
                         .append("\n");
@@ -147,8 +158,8 @@ public class PrometheusMetricVisitor extends MetricVisitor {
 
         // threads
         Threads threads = jvmStats.getThreads();
-        sb.append(Joiner.on(" ").join(HELP, JVM_THREAD, "jvm thread stat\n"));
-        sb.append(Joiner.on(" ").join(TYPE, JVM_THREAD, "gauge\n"));
+        appendHelp(JVM_THREAD, "jvm thread stat");
+        appendType(JVM_THREAD, "gauge");
         sb.append(JVM_THREAD).append("{type=\"count\"} ").append(threads.getCount()).append("\n");
         sb.append(JVM_THREAD).append("{type=\"peak_count\"} ").append(threads.getPeakCount()).append("\n");
         return;
@@ -157,31 +168,43 @@ public class PrometheusMetricVisitor extends MetricVisitor {
     @Override
     public void visit(@SuppressWarnings("rawtypes") Metric metric) {
         // title
-        final String fullName = prefix + "_" + metric.getName();
-        // SR-57 : Fix prometheus parse error : 'second HELP line for metric name ..'
-        if (!metricNames.contains(fullName)) {
-            sb.append(HELP).append(fullName).append(" ").append(metric.getDescription()).append("\n");
-            sb.append(TYPE).append(fullName).append(" ").append(metric.getType().name().toLowerCase()).append("\n");
-            metricNames.add(fullName);
+        String fullName = prefix + "_" + metric.getName();
+        if (openMetrics && metric.getType() == Metric.MetricType.COUNTER) {
+            // the samples of an OpenMetrics counter are named <family>_total
+            if (fullName.endsWith(COUNTER_SUFFIX)) {
+                fullName = fullName.substring(0, fullName.length() - COUNTER_SUFFIX.length());
+            }
+            appendTitle(fullName, metric);
+            sb.append(fullName).append(COUNTER_SUFFIX);
+        } else {
+            appendTitle(fullName, metric);
+            sb.append(fullName);
         }
-        sb.append(fullName);
 
         // name
-        @SuppressWarnings("unchecked")
-        List<MetricLabel> labels = metric.getLabels();
-        if (!labels.isEmpty()) {
-            sb.append("{");
-            List<String> labelStrs = labels.stream().map(l -> l.getKey() + "=\"" + l.getValue()
-                    + "\"").collect(Collectors.toList());
-            sb.append(Joiner.on(", ").join(labelStrs));
-            sb.append("}");
-        }
+        sb.append(metric.getLabelsText(openMetrics));
 
         // value
         sb.append(" ").append(metric.getValue().toString()).append("\n");
         return;
     }
 
+    private void appendTitle(String fullName, Metric metric) {
+        // SR-57 : Fix prometheus parse error : 'second HELP line for metric name ..'
+        if (metricNames.add(fullName)) {
+            sb.append(HELP).append(fullName).append(" ").append(metric.getDescription()).append("\n");
+            sb.append(TYPE).append(fullName).append(" ").append(metric.getType().name().toLowerCase()).append("\n");
+        }
+    }
+
+    private void appendHelp(String name, String help) {
+        sb.append(HELP).append(name).append(" ").append(help).append("\n");
+    }
+
+    private void appendType(String name, String type) {
+        sb.append(TYPE).append(name).append(" ").append(type).append("\n");
+    }
+
     @Override
     public void visitHistogram(String name, Histogram histogram) {
         final String fullName = prefix + "_" + name.replaceAll("\\.", "_");
@@ -202,19 +225,17 @@ public class PrometheusMetricVisitor extends MetricVisitor {
     @Override
     public void getNodeInfo() {
         final String NODE_INFO = "node_info";
-        sb.append(Joiner.on(" ").join(TYPE, NODE_INFO, "gauge\n"));
-        sb.append(NODE_INFO).append("{type=\"fe_node_num\", state=\"total\"} ")
-                .append(GlobalStateMgr.getCurrentState().getFrontends(null).size()).append("\n");
-        sb.append(NODE_INFO).append("{type=\"be_node_num\", state=\"total\"} ")
-                .append(GlobalStateMgr.getCurrentSystemInfo().getTotalBackendNumber()).append("\n");
-        sb.append(NODE_INFO).append("{type=\"be_node_num\", state=\"alive\"} ")
-                .append(GlobalStateMgr.getCurrentSystemInfo().getAliveBackendNumber()).append("\n");
-        sb.append(NODE_INFO).append("{type=\"be_node_num\", state=\"decommissioned\"} ")
-                .append(GlobalStateMgr.getCurrentSystemInfo().getDecommissionedBackendIds().size()).append("\n");
-        sb.append(NODE_INFO).append("{type=\"broker_node_num\", state=\"dead\"} ").append(
-                        GlobalStateMgr.getCurrentState().getBrokerMgr().getAllBrokers().stream().filter(b -> !b.isAlive)
-                                .count())
-                .append("\n");
+        appendType(NODE_INFO, "gauge");
+        appendNodeInfo(NODE_INFO, "fe_node_num", "total", GlobalStateMgr.getCurrentState().getFrontends(null).size());
+        appendNodeInfo(NODE_INFO, "be_node_num", "total",
+                GlobalStateMgr.getCurrentSystemInfo().getTotalBackendNumber());
+        appendNodeInfo(NODE_INFO, "be_node_num", "alive",
+                GlobalStateMgr.getCurrentSystemInfo().getAliveBackendNumber());
+        appendNodeInfo(NODE_INFO, "be_node_num", "decommissioned",
+                GlobalStateMgr.getCurrentSystemInfo().getDecommissionedBackendIds().size());
+        appendNodeInfo(NODE_INFO, "broker_node_num", "dead",
+                GlobalStateMgr.getCurrentState().getBrokerMgr().getAllBrokers().stream().filter(b -> !b.isAlive)
+                        .count());
 
         // only master FE has this metrics, to help the Grafana knows who is the leader
         if (GlobalStateMgr.getCurrentState().isLeader()) {
@@ -223,8 +244,16 @@ public class PrometheusMetricVisitor extends MetricVisitor {
         return;
     }
 
+    private void appendNodeInfo(String name, String type, String state, long value) {
+        sb.append(name).append("{type=\"").append(type).append("\"").append(labelSeparator)
+                .append("state=\"").append(state).append("\"} ").append(value).append("\n");
+    }
+
     @Override
     public String build() {
+        if (openMetrics) {
+            sb.append(EOF);
+        }
         return sb.toString();
     }
 }
@@ -23,6 +23,13 @@ public final class TableMetricsEntity {
     public static final String TABLE_LOAD_FINISHED = "table_load_finished";
     private static final String TABLE_LOAD_FINISHED_COMMENT = "total loaded times of this table";
 
+    public static final String MV_REFRESH_PENDING_TIME = "mv_refresh_pending_time";
+    private static final String MV_REFRESH_PENDING_TIME_COMMENT = "total pending time of the refreshes of a mv";
+    public static final String MV_REFRESH_RUNNING_TIME = "mv_refresh_running_time";
+    private static final String MV_REFRESH_RUNNING_TIME_COMMENT = "total running time of the refreshes of a mv";
+    public static final String MV_REFRESH_FINISHED = "mv_refresh_finished";
+    private static final String MV_REFRESH_FINISHED_COMMENT = "total finished refreshes of a mv";
+
     private List<Metric> metrics;
 
     public LongCounterMetric counterScanBytesTotal;
@@ -49,6 +56,11 @@ public final class TableMetricsEntity {
     public LongCounterMetric counterSparkLoadRowsTotal;
     public LongCounterMetric counterSparkLoadFinishedTotal;
 
+    public LongCounterMetric counterMvRefreshPendingTimeMsTotal;
+    public LongCounterMetric counterMvRefreshRunningTimeMsTotal;
+    public LongCounterMetric counterMvRefreshSuccessTotal;
+    public LongCounterMetric counterMvRefreshFailedTotal;
+
     public TableMetricsEntity() {
         initTableMetrics();
     }
@@ -134,6 +146,22 @@ public final class TableMetricsEntity {
                 new LongCounterMetric(TABLE_LOAD_FINISHED, MetricUnit.REQUESTS, TABLE_LOAD_FINISHED_COMMENT);
         counterInsertLoadFinishedTotal.addLabel(new MetricLabel("type", "insert_into"));
         metrics.add(counterInsertLoadFinishedTotal);
+
+        // materialized view refresh metrics
+        counterMvRefreshPendingTimeMsTotal = new LongCounterMetric(MV_REFRESH_PENDING_TIME, MetricUnit.MILLISECONDS,
+                MV_REFRESH_PENDING_TIME_COMMENT);
+        metrics.add(counterMvRefreshPendingTimeMsTotal);
+        counterMvRefreshRunningTimeMsTotal = new LongCounterMetric(MV_REFRESH_RUNNING_TIME, MetricUnit.MILLISECONDS,
+                MV_REFRESH_RUNNING_TIME_COMMENT);
+        metrics.add(counterMvRefreshRunningTimeMsTotal);
+        counterMvRefreshSuccessTotal =
+                new LongCounterMetric(MV_REFRESH_FINISHED, MetricUnit.REQUESTS, MV_REFRESH_FINISHED_COMMENT);
+        counterMvRefreshSuccessTotal.addLabel(new MetricLabel("state", "success"));
+        metrics.add(counterMvRefreshSuccessTotal);
+        counterMvRefreshFailedTotal =
+                new LongCounterMetric(MV_REFRESH_FINISHED, MetricUnit.REQUESTS, MV_REFRESH_FINISHED_COMMENT);
+        counterMvRefreshFailedTotal.addLabel(new MetricLabel("state", "failed"));
+        metrics.add(counterMvRefreshFailedTotal);
     }
 }
 
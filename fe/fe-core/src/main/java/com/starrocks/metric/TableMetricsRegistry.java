@@ -2,11 +2,11 @@
 
 package com.starrocks.metric;
 
-import com.google.common.collect.Maps;
 import com.starrocks.common.ThreadPoolManager;
 
 import java.util.Map;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -17,7 +17,8 @@ public final class TableMetricsRegistry {
     private static final TableMetricsRegistry instance = new TableMetricsRegistry();
 
     private TableMetricsRegistry() {
-        idToTableMetrics = Maps.newHashMap();
+        // looked up by every scan and load, so it's not guarded by a lock
+        idToTableMetrics = new ConcurrentHashMap<>();
         // clear all metrics everyday
         timer = ThreadPoolManager.newDaemonScheduledThreadPool(1, "Table-Metrics-Cleaner", true);
         timer.scheduleAtFixedRate(new MetricsCleaner(), 0, 1L, TimeUnit.DAYS);
@@ -27,16 +28,18 @@ public final class TableMetricsRegistry {
         return instance;
     }
 
-    public synchronized TableMetricsEntity getMetricsEntity(long tableId) {
+    public TableMetricsEntity getMetricsEntity(long tableId) {
+        TableMetricsEntity entity = idToTableMetrics.get(tableId);
+        if (entity != null) {
+            return entity;
+        }
         return idToTableMetrics.computeIfAbsent(tableId, k -> new TableMetricsEntity());
     }
 
     private class MetricsCleaner extends TimerTask {
         @Override
         public void run() {
-            synchronized (TableMetricsRegistry.this) {
-                idToTableMetrics.clear();
-            }
+            idToTableMetrics.clear();
         }
     }
 }
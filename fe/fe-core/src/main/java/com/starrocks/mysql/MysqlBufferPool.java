@@ -0,0 +1,89 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.mysql;
+
+import com.google.common.base.Preconditions;
+import com.starrocks.common.Config;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of the direct buffers used by MysqlChannel to send packets.
+ *
+ * A channel borrows its send buffer when it starts to send the response of a command and returns it after the
+ * response is flushed, so the idle connections don't hold any direct memory, and the buffers are reused among
+ * the connections instead of being allocated for each of them.
+ * The buffers are grouped by the power of two capacities, and at most mysql_send_buffer_pool_max_bytes bytes
+ * are kept in the pool, the buffers returned beyond it are left to GC.
+ */
+public class MysqlBufferPool {
+    static final int MIN_BUFFER_SIZE = 256 * 1024;
+    static final int MAX_BUFFER_SIZE = 2 * 1024 * 1024;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    private static final int MAX_SHIFT = Integer.numberOfTrailingZeros(MAX_BUFFER_SIZE);
+
+    @SuppressWarnings("unchecked")
+    private static final ConcurrentLinkedQueue<ByteBuffer>[] FREE_BUFFERS =
+            new ConcurrentLinkedQueue[MAX_SHIFT - MIN_SHIFT + 1];
+    private static final AtomicLong POOLED_BYTES = new AtomicLong(0);
+
+    static {
+        for (int i = 0; i < FREE_BUFFERS.length; i++) {
+            FREE_BUFFERS[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    private MysqlBufferPool() {
+    }
+
+    // the capacity of the buffer which can hold the size, in [MIN_BUFFER_SIZE, MAX_BUFFER_SIZE]
+    static int bufferCapacity(int size) {
+        if (size <= MIN_BUFFER_SIZE) {
+            return MIN_BUFFER_SIZE;
+        }
+        if (size >= MAX_BUFFER_SIZE) {
+            return MAX_BUFFER_SIZE;
+        }
+        return Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private static int slot(int capacity) {
+        return Integer.numberOfTrailingZeros(capacity) - MIN_SHIFT;
+    }
+
+    /**
+     * Borrow a cleared direct buffer whose capacity is the power of two not less than size, the capacity is limited
+     * to [MIN_BUFFER_SIZE, MAX_BUFFER_SIZE].
+     */
+    public static ByteBuffer borrow(int size) {
+        int capacity = bufferCapacity(size);
+        ByteBuffer buffer = FREE_BUFFERS[slot(capacity)].poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        POOLED_BYTES.addAndGet(-capacity);
+        return buffer;
+    }
+
+    /**
+     * Give back the buffer borrowed from this pool, the caller must not use it anymore.
+     */
+    public static void giveBack(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        Preconditions.checkArgument(buffer.isDirect() && capacity == bufferCapacity(capacity),
+                "buffer is not borrowed from the pool");
+        if (POOLED_BYTES.addAndGet(capacity) > Config.mysql_send_buffer_pool_max_bytes) {
+            POOLED_BYTES.addAndGet(-capacity);
+            return;
+        }
+        buffer.clear();
+        FREE_BUFFERS[slot(capacity)].offer(buffer);
+    }
+
+    public static long getPooledBytes() {
+        return POOLED_BYTES.get();
+    }
+}
@@ -81,6 +81,9 @@ public class MysqlCapability {
             | Flag.CLIENT_CONNECT_WITH_DB.getFlagBit() | Flag.CLIENT_SECURE_CONNECTION.getFlagBit()
             | Flag.CLIENT_PLUGIN_AUTH.getFlagBit() | Flag.CLIENT_LONG_FLAG.getFlagBit();
     public static final MysqlCapability DEFAULT_CAPABILITY = new MysqlCapability(DEFAULT_FLAGS);
+    // advertised in the handshake if enable_mysql_compression is true
+    public static final MysqlCapability COMPRESS_CAPABILITY =
+            new MysqlCapability(DEFAULT_FLAGS | Flag.CLIENT_COMPRESS.getFlagBit());
 
     private int flags;
 
@@ -142,6 +145,10 @@ public class MysqlCapability {
         return (flags & Flag.CLIENT_SECURE_CONNECTION.getFlagBit()) != 0;
     }
 
+    public boolean isCompress() {
+        return (flags & Flag.CLIENT_COMPRESS.getFlagBit()) != 0;
+    }
+
     public boolean isSessionTrack() {
         return (flags & Flag.CLIENT_SESSION_TRACK.getFlagBit()) != 0;
     }
@@ -21,6 +21,7 @@
 
 package com.starrocks.mysql;
 
+import com.starrocks.common.Config;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -28,11 +29,23 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * This class used to read/write MySQL logical packet.
  * MySQL protocol will split one logical packet more than 16MB to many packets.
  * http://dev.mysql.com/doc/internals/en/sending-more-than-16mbyte.html
+ *
+ * If the client negotiates CLIENT_COMPRESS, the packets are wrapped in the compressed packets after the handshake.
+ * The buffered packets are compressed together when they are flushed, and the ones smaller than
+ * mysql_compression_min_packet_bytes or not compressible are sent as they are.
+ * https://dev.mysql.com/doc/internals/en/compressed-packet-header.html
+ *
+ * The send buffer is a direct buffer borrowed from MysqlBufferPool, it's given back by releaseSendBuffer after the
+ * response of a command is sent. The packet which doesn't fit in the send buffer is sent together with the buffered
+ * bytes by one gathering write, instead of being copied.
  */
 public class MysqlChannel {
     // max length which one MySQL physical can hold, if one logical packet is bigger than this,
@@ -41,6 +54,10 @@ public class MysqlChannel {
     // MySQL packet header length
     protected static final int PACKET_HEADER_LEN = 4;
     protected static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    // the buffer for the large packets received is kept for the next ones if it's not larger than this
+    protected static final int MAX_RETAINED_READ_BUFFER_SIZE = 1024 * 1024;
+    // compressed packet header length, 3 bytes compressed length, 1 byte sequence id and 3 bytes uncompressed length
+    protected static final int COMPRESSED_PACKET_HEADER_LEN = 7;
     // logger for this class
     protected static final Logger LOG = LogManager.getLogger(MysqlChannel.class);
     // next sequence id to receive or send
@@ -51,12 +68,33 @@ public class MysqlChannel {
     protected ByteBuffer headerByteBuffer = ByteBuffer.allocate(PACKET_HEADER_LEN);
     // default packet byte buffer for most packet
     protected ByteBuffer defaultBuffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+    // packet byte buffer for the packets larger than defaultBuffer
+    protected ByteBuffer largeBuffer;
     protected ByteBuffer sendBuffer;
+    // the buffered bytes and the packet to send by one gathering write, avoiding new this many time.
+    private final ByteBuffer[] gatherBuffers = new ByteBuffer[2];
     // for log and show
     protected String remoteHostPortString;
     protected String remoteIp;
     protected boolean isSend;
 
+    // whether the client asks for compression in the handshake, the compression starts after the handshake
+    private boolean compressionNegotiated = false;
+    private boolean compressionEnabled = false;
+    // next sequence id of the compressed packet to receive or send
+    private int compressedSequenceId;
+    private Deflater deflater;
+    private Inflater inflater;
+    private ByteBuffer compressedHeaderBuffer;
+    // the compressed packet received, and the logical packets decompressed from it not read yet
+    private ByteBuffer compressedInBuffer;
+    private ByteBuffer decompressedBuffer;
+    private ByteBuffer inflateBuffer;
+    // the compressed packet to send, including its header
+    private byte[] compressedOutBuffer;
+    // the bytes to compress if they are not in a heap buffer
+    private byte[] deflateInput;
+
     protected MysqlChannel() {
         this.sequenceId = 0;
         this.isSend = false;
@@ -91,6 +129,45 @@ public class MysqlChannel {
 
     public void setSequenceId(int sequenceId) {
         this.sequenceId = sequenceId;
+        // the sequence id of the compressed packets is reset at the beginning of each command as well
+        this.compressedSequenceId = sequenceId;
+    }
+
+    public void setCompressionNegotiated(boolean compressionNegotiated) {
+        this.compressionNegotiated = compressionNegotiated;
+    }
+
+    /**
+     * Start to send and receive the compressed packets if the client negotiated it, it's called after the OK packet
+     * of the handshake is sent.
+     */
+    public void startCompressionIfNegotiated() {
+        if (!compressionNegotiated || compressionEnabled) {
+            return;
+        }
+        deflater = new Deflater(Deflater.BEST_SPEED);
+        inflater = new Inflater();
+        compressedHeaderBuffer = ByteBuffer.allocate(COMPRESSED_PACKET_HEADER_LEN);
+        compressedInBuffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+        inflateBuffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+        decompressedBuffer = ByteBuffer.allocate(0);
+        compressedOutBuffer = new byte[COMPRESSED_PACKET_HEADER_LEN + DEFAULT_BUFFER_SIZE];
+        compressionEnabled = true;
+    }
+
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    // release the native memory of the compression
+    protected void endCompression() {
+        if (deflater != null) {
+            deflater.end();
+        }
+        if (inflater != null) {
+            inflater.end();
+        }
+        compressionEnabled = false;
     }
 
     public String getRemoteIp() {
@@ -121,6 +198,7 @@ public class MysqlChannel {
         } catch (IOException e) {
             LOG.warn("Close channel exception, ignore.");
         }
+        endCompression();
     }
 
     protected int readAll(ByteBuffer dstBuf) throws IOException {
@@ -136,6 +214,93 @@ public class MysqlChannel {
         return readLen;
     }
 
+    // read the bytes of the logical packets, they are decompressed from the compressed packets if compression is on
+    private int readPacketBytes(ByteBuffer dstBuf) throws IOException {
+        if (!compressionEnabled) {
+            return readAll(dstBuf);
+        }
+        int readLen = 0;
+        while (dstBuf.remaining() != 0) {
+            if (!decompressedBuffer.hasRemaining() && !readCompressedPacket()) {
+                return readLen;
+            }
+            int len = Math.min(dstBuf.remaining(), decompressedBuffer.remaining());
+            int oldLimit = decompressedBuffer.limit();
+            decompressedBuffer.limit(decompressedBuffer.position() + len);
+            dstBuf.put(decompressedBuffer);
+            decompressedBuffer.limit(oldLimit);
+            readLen += len;
+        }
+        return readLen;
+    }
+
+    // false for channel is closed.
+    private boolean readCompressedPacket() throws IOException {
+        compressedHeaderBuffer.clear();
+        if (readAll(compressedHeaderBuffer) != COMPRESSED_PACKET_HEADER_LEN) {
+            LOG.info("Receive compressed packet header failed, remote {} may close the channel.",
+                    remoteHostPortString);
+            return false;
+        }
+        byte[] header = compressedHeaderBuffer.array();
+        int compressedLen = readInt3(header, 0);
+        compressedSequenceId = ((header[3] & 0xFF) + 1) & 0xFF;
+        int uncompressedLen = readInt3(header, 4);
+
+        if (compressedInBuffer.capacity() < compressedLen) {
+            compressedInBuffer = ByteBuffer.allocate(compressedLen);
+        }
+        compressedInBuffer.clear();
+        compressedInBuffer.limit(compressedLen);
+        if (readAll(compressedInBuffer) != compressedLen) {
+            LOG.warn("Length of received compressed packet content is not equal with length in head.({})",
+                    compressedLen);
+            return false;
+        }
+        compressedInBuffer.flip();
+        if (uncompressedLen == 0) {
+            // not compressed
+            decompressedBuffer = compressedInBuffer;
+            return true;
+        }
+
+        if (inflateBuffer.capacity() < uncompressedLen) {
+            inflateBuffer = ByteBuffer.allocate(uncompressedLen);
+        }
+        inflater.reset();
+        inflater.setInput(compressedInBuffer.array(), 0, compressedLen);
+        try {
+            int inflatedLen = 0;
+            while (inflatedLen < uncompressedLen && !inflater.finished()) {
+                int len = inflater.inflate(inflateBuffer.array(), inflatedLen, uncompressedLen - inflatedLen);
+                if (len == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflatedLen += len;
+            }
+            if (inflatedLen != uncompressedLen) {
+                throw new IOException("Bad compressed packet, uncompressed length " + inflatedLen
+                        + " is not equal with length in head " + uncompressedLen);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bad compressed packet.", e);
+        }
+        inflateBuffer.clear();
+        inflateBuffer.limit(uncompressedLen);
+        decompressedBuffer = inflateBuffer;
+        return true;
+    }
+
+    private static int readInt3(byte[] buf, int offset) {
+        return (buf[offset] & 0xFF) | ((buf[offset + 1] & 0xFF) << 8) | ((buf[offset + 2] & 0xFF) << 16);
+    }
+
+    private static void writeInt3(byte[] buf, int offset, int value) {
+        buf[offset] = (byte) value;
+        buf[offset + 1] = (byte) (value >> 8);
+        buf[offset + 2] = (byte) (value >> 16);
+    }
+
     // read one logical mysql protocol packet
     // null for channel is closed.
     // NOTE: all of the following code is assumed that the channel is in block mode.
@@ -146,7 +311,7 @@ public class MysqlChannel {
 
         while (true) {
             headerByteBuffer.clear();
-            readLen = readAll(headerByteBuffer);
+            readLen = readPacketBytes(headerByteBuffer);
             if (readLen != PACKET_HEADER_LEN) {
                 // remote has close this channel
                 LOG.info("Receive packet header failed, remote {} may close the channel.", remoteHostPortString);
@@ -159,22 +324,19 @@ public class MysqlChannel {
             int packetLen = packetLen();
             if ((result.capacity() - result.position()) < packetLen) {
                 // byte buffer is not enough, new one packet
-                ByteBuffer tmp;
                 if (packetLen < MAX_PHYSICAL_PACKET_LENGTH) {
                     // last packet, enough to this packet is OK.
-                    tmp = ByteBuffer.allocate(packetLen + result.position());
+                    result = growReadBuffer(result, packetLen + result.position());
                 } else {
                     // already have packet, to allocate two packet.
-                    tmp = ByteBuffer.allocate(2 * packetLen + result.position());
+                    result = growReadBuffer(result, 2 * packetLen + result.position());
                 }
-                tmp.put(result.array(), 0, result.position());
-                result = tmp;
             }
 
             // read one physical packet
             // before read, set limit to make read only one packet
             result.limit(result.position() + packetLen);
-            readLen = readAll(result);
+            readLen = readPacketBytes(result);
             if (readLen != packetLen) {
                 LOG.warn("Length of received packet content(" + readLen
                         + ") is not equal with length in head.(" + packetLen + ")");
@@ -189,6 +351,23 @@ public class MysqlChannel {
         return result;
     }
 
+    // copy the received bytes to a buffer not less than minCapacity, it's reused by the next large packets
+    // if it's not too large
+    private ByteBuffer growReadBuffer(ByteBuffer result, int minCapacity) {
+        ByteBuffer tmp;
+        if (largeBuffer != null && largeBuffer.capacity() >= minCapacity) {
+            tmp = largeBuffer;
+            tmp.clear();
+        } else if (minCapacity <= MAX_RETAINED_READ_BUFFER_SIZE) {
+            tmp = ByteBuffer.allocate(Integer.highestOneBit(minCapacity - 1) << 1);
+            largeBuffer = tmp;
+        } else {
+            tmp = ByteBuffer.allocate(minCapacity);
+        }
+        tmp.put(result.array(), 0, result.position());
+        return tmp;
+    }
+
     protected void realNetSend(ByteBuffer buffer) throws IOException {
         long bufLen = buffer.remaining();
         long writeLen = channel.write(buffer);
@@ -196,10 +375,90 @@ public class MysqlChannel {
             throw new IOException("Write mysql packet failed.[write=" + writeLen
                     + ", needToWrite=" + bufLen + "]");
         }
-        channel.write(buffer);
         isSend = true;
     }
 
+    protected void realNetSend(ByteBuffer[] buffers) throws IOException {
+        long bufLen = 0;
+        for (ByteBuffer buffer : buffers) {
+            bufLen += buffer.remaining();
+        }
+        long writeLen = 0;
+        while (writeLen < bufLen) {
+            long ret = channel.write(buffers, 0, buffers.length);
+            if (ret <= 0) {
+                throw new IOException("Write mysql packet failed.[write=" + writeLen
+                        + ", needToWrite=" + bufLen + "]");
+            }
+            writeLen += ret;
+        }
+        isSend = true;
+    }
+
+    // send the bytes of the logical packets, they are compressed if compression is on
+    private void netSend(ByteBuffer buffer) throws IOException {
+        if (!compressionEnabled) {
+            realNetSend(buffer);
+            return;
+        }
+        // the bytes larger than the send buffer are split into several compressed packets, so that they are
+        // compressed into the reused output buffer instead of a temporary one as large as them
+        int maxLen = Math.min(MAX_PHYSICAL_PACKET_LENGTH,
+                sendBuffer == null ? DEFAULT_BUFFER_SIZE : sendBuffer.capacity());
+        while (buffer.hasRemaining()) {
+            sendCompressedPacket(buffer, Math.min(buffer.remaining(), maxLen));
+        }
+    }
+
+    private void sendCompressedPacket(ByteBuffer buffer, int len) throws IOException {
+        byte[] input;
+        int inputOffset;
+        if (buffer.hasArray()) {
+            input = buffer.array();
+            inputOffset = buffer.arrayOffset() + buffer.position();
+        } else {
+            if (deflateInput == null || deflateInput.length < len) {
+                deflateInput = new byte[Math.max(len, DEFAULT_BUFFER_SIZE)];
+            }
+            buffer.duplicate().get(deflateInput, 0, len);
+            input = deflateInput;
+            inputOffset = 0;
+        }
+        // len is bounded by the send buffer, so the output buffer is at most as large as it
+        if (compressedOutBuffer.length < COMPRESSED_PACKET_HEADER_LEN + len) {
+            compressedOutBuffer = new byte[COMPRESSED_PACKET_HEADER_LEN + len];
+        }
+        byte[] output = compressedOutBuffer;
+
+        int compressedLen = 0;
+        boolean compressed = false;
+        if (len >= Config.mysql_compression_min_packet_bytes) {
+            deflater.reset();
+            deflater.setInput(input, inputOffset, len);
+            deflater.finish();
+            // give up if the compressed packet is not smaller
+            while (!deflater.finished() && compressedLen < len) {
+                compressedLen += deflater.deflate(output, COMPRESSED_PACKET_HEADER_LEN + compressedLen,
+                        len - compressedLen);
+            }
+            compressed = deflater.finished() && compressedLen < len;
+        }
+        if (compressed) {
+            writeInt3(output, 0, compressedLen);
+            writeInt3(output, 4, len);
+        } else {
+            System.arraycopy(input, inputOffset, output, COMPRESSED_PACKET_HEADER_LEN, len);
+            compressedLen = len;
+            writeInt3(output, 0, len);
+            writeInt3(output, 4, 0);
+        }
+        output[3] = (byte) compressedSequenceId;
+        compressedSequenceId = (compressedSequenceId + 1) & 0xFF;
+
+        realNetSend(ByteBuffer.wrap(output, 0, COMPRESSED_PACKET_HEADER_LEN + compressedLen));
+        buffer.position(buffer.position() + len);
+    }
+
     public void flush() throws IOException {
         if (null == sendBuffer || sendBuffer.position() == 0) {
             // Nothing to send
@@ -208,7 +467,7 @@ public class MysqlChannel {
 
         sendBuffer.flip();
         try {
-            realNetSend(sendBuffer);
+            netSend(sendBuffer);
         } finally {
             sendBuffer.clear();
         }
@@ -221,10 +480,24 @@ public class MysqlChannel {
             // The buffer size shouldn't too large or shouldn't too small
             bufferSize = Math.min(bufferSize, 2 * 1024 * 1024);
             bufferSize = Math.max(bufferSize, 256 * 1024);
-            this.sendBuffer = ByteBuffer.allocate(bufferSize);
+            this.sendBuffer = MysqlBufferPool.borrow(bufferSize);
         }
     }
 
+    /**
+     * Give back the send buffer to the pool after the response of a command is sent, the next command borrows
+     * one again. It must be called by the thread sending the packets rather than in close(), which may be called
+     * by another thread to kill the connection.
+     */
+    public void releaseSendBuffer() {
+        if (sendBuffer == null) {
+            return;
+        }
+        ByteBuffer buffer = sendBuffer;
+        sendBuffer = null;
+        MysqlBufferPool.giveBack(buffer);
+    }
+
     public boolean isSendBufferNull() {
         return this.sendBuffer == null;
     }
@@ -244,14 +517,29 @@ public class MysqlChannel {
     }
 
     private void writeBuffer(ByteBuffer buffer) throws IOException {
-        // If too long for buffer, send buffered data.
-        if (sendBuffer.remaining() < buffer.remaining()) {
-            // Flush data in buffer.
-            flush();
+        if (sendBuffer.remaining() >= buffer.remaining()) {
+            sendBuffer.put(buffer);
+            return;
         }
+        if (!compressionEnabled) {
+            // If too long for buffer, send buffered data and this buffer together.
+            sendBuffer.flip();
+            gatherBuffers[0] = sendBuffer;
+            gatherBuffers[1] = buffer;
+            try {
+                realNetSend(gatherBuffers);
+            } finally {
+                sendBuffer.clear();
+                gatherBuffers[0] = null;
+                gatherBuffers[1] = null;
+            }
+            return;
+        }
+        // Flush data in buffer.
+        flush();
         // Send this buffer if large enough
         if (buffer.remaining() > sendBuffer.remaining()) {
-            realNetSend(buffer);
+            netSend(buffer);
             return;
         }
         // Put it to
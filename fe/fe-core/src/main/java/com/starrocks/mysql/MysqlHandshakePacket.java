@@ -70,7 +70,8 @@ public class MysqlHandshakePacket extends MysqlPacket {
 
     @Override
     public void writeTo(MysqlSerializer serializer) {
-        MysqlCapability capability = CAPABILITY;
+        MysqlCapability capability = Config.enable_mysql_compression ?
+                MysqlCapability.COMPRESS_CAPABILITY : CAPABILITY;
 
         serializer.writeInt1(PROTOCOL_VERSION);
         serializer.writeNulTerminateString(SERVER_VERSION);
@@ -174,6 +174,9 @@ public class MysqlProto {
             authPacket.setAuthResponse(readEofString(authSwitchResponse));
         }
 
+        // the compression starts after the OK packet of the handshake is sent
+        channel.setCompressionNegotiated(Config.enable_mysql_compression && authPacket.getCapability().isCompress());
+
         // change the capability of serializer
         context.setCapability(context.getServerCapability());
         serializer.setCapability(context.getCapability());
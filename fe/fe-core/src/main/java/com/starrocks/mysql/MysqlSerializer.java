@@ -25,30 +25,38 @@ import com.google.common.base.Strings;
 import com.starrocks.catalog.Column;
 import com.starrocks.catalog.Type;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 // used for serialize memory data to byte stream of MySQL protocol
+// The bytes are written to a reused array, toByteBuffer wraps it without copy, so the buffer returned is only valid
+// until the serializer is written or reset again.
 public class MysqlSerializer {
-    private ByteArrayOutputStream out;
+    private static final int DEFAULT_BUFFER_SIZE = 128;
+    // the array larger than this is not kept for the next packets after reset
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private byte[] buf;
+    private int count;
     private MysqlCapability capability;
 
-    private MysqlSerializer(ByteArrayOutputStream out) {
-        this(out, MysqlCapability.DEFAULT_CAPABILITY);
+    private MysqlSerializer() {
+        this(MysqlCapability.DEFAULT_CAPABILITY);
     }
 
-    private MysqlSerializer(ByteArrayOutputStream out, MysqlCapability capability) {
-        this.out = out;
+    private MysqlSerializer(MysqlCapability capability) {
+        this.buf = new byte[DEFAULT_BUFFER_SIZE];
+        this.count = 0;
         this.capability = capability;
     }
 
     public static MysqlSerializer newInstance() {
-        return new MysqlSerializer(new ByteArrayOutputStream());
+        return new MysqlSerializer();
     }
 
     public static MysqlSerializer newInstance(MysqlCapability capability) {
-        return new MysqlSerializer(new ByteArrayOutputStream(), capability);
+        return new MysqlSerializer(capability);
     }
 
     // used after success handshake
@@ -60,8 +68,15 @@ public class MysqlSerializer {
         return capability;
     }
 
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(minCapacity, buf.length << 1));
+        }
+    }
+
     public void writeByte(byte value) {
-        out.write(value);
+        ensureCapacity(count + 1);
+        buf[count++] = value;
     }
 
     public void writeNull() {
@@ -69,19 +84,24 @@ public class MysqlSerializer {
     }
 
     public void writeBytes(byte[] value, int offset, int length) {
-        out.write(value, offset, length);
+        ensureCapacity(count + length);
+        System.arraycopy(value, offset, buf, count, length);
+        count += length;
     }
 
     public void reset() {
-        out.reset();
+        count = 0;
+        if (buf.length > MAX_RETAINED_BUFFER_SIZE) {
+            buf = new byte[DEFAULT_BUFFER_SIZE];
+        }
     }
 
     public byte[] toArray() {
-        return out.toByteArray();
+        return Arrays.copyOf(buf, count);
     }
 
     public ByteBuffer toByteBuffer() {
-        return ByteBuffer.wrap(out.toByteArray());
+        return ByteBuffer.wrap(buf, 0, count);
     }
 
     public void writeBytes(byte[] value) {
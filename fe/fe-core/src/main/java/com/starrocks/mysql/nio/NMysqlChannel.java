@@ -88,6 +88,27 @@ public class NMysqlChannel extends MysqlChannel {
         isSend = true;
     }
 
+    /**
+     * write packets by one gathering write until no data is remained, unless block.
+     *
+     * @param buffers
+     * @throws IOException
+     */
+    @Override
+    protected void realNetSend(ByteBuffer[] buffers) throws IOException {
+        long bufLen = 0;
+        for (ByteBuffer buffer : buffers) {
+            bufLen += buffer.remaining();
+        }
+        long writeLen = Channels.writeBlocking(conn.getSinkChannel(), buffers, 0, buffers.length);
+        if (bufLen != writeLen) {
+            throw new IOException("Write mysql packet failed.[write=" + writeLen
+                    + ", needToWrite=" + bufLen + "]");
+        }
+        Channels.flushBlocking(conn.getSinkChannel());
+        isSend = true;
+    }
+
     @Override
     public void close() {
         try {
@@ -95,6 +116,7 @@ public class NMysqlChannel extends MysqlChannel {
         } catch (IOException e) {
             LOG.warn("Close channel exception, ignore.");
         }
+        endCompression();
     }
 
     public void startAcceptQuery(NConnectContext nConnectContext, ConnectProcessor connectProcessor) {
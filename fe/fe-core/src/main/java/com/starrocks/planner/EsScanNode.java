@@ -30,7 +30,10 @@ import com.starrocks.analysis.Analyzer;
 import com.starrocks.analysis.SlotDescriptor;
 import com.starrocks.analysis.TupleDescriptor;
 import com.starrocks.catalog.EsTable;
+import com.starrocks.common.Config;
 import com.starrocks.common.UserException;
+import com.starrocks.external.elasticsearch.EsAggregationBuilder;
+import com.starrocks.external.elasticsearch.EsMajorVersion;
 import com.starrocks.external.elasticsearch.EsShardPartitions;
 import com.starrocks.external.elasticsearch.EsShardRouting;
 import com.starrocks.external.elasticsearch.QueryBuilders;
@@ -65,6 +68,8 @@ public class EsScanNode extends ScanNode {
     private List<Backend> backendList;
     private List<TScanRangeLocations> shardScanRanges = Lists.newArrayList();
     private EsTable table;
+    // the group by aggregation pushed down to ES, null if not pushed down
+    private EsAggregationBuilder aggregation;
 
     public EsScanNode(PlanNodeId id, TupleDescriptor desc, String planNodeName) {
         super(id, desc, planNodeName);
@@ -88,6 +93,10 @@ public class EsScanNode extends ScanNode {
         return shardScanRanges;
     }
 
+    public void setAggregation(EsAggregationBuilder aggregation) {
+        this.aggregation = aggregation;
+    }
+
     public void setShardScanRanges(List<TScanRangeLocations> shardScanRanges) {
         this.shardScanRanges = shardScanRanges;
     }
@@ -141,6 +150,11 @@ public class EsScanNode extends ScanNode {
             esScanNode.setDocvalue_context(table.docValueContext());
             properties.put(EsTable.DOC_VALUES_MODE, String.valueOf(useDocValueScan(desc, table.docValueContext())));
         }
+        if (aggregation != null) {
+            EsMajorVersion version = table.remoteVersion();
+            boolean calendarInterval = version != null && version.onOrAfter(EsMajorVersion.V_8_X);
+            properties.put(EsTable.AGGREGATION, aggregation.toJson(Config.es_aggregation_page_size, calendarInterval));
+        }
         if (table.isKeywordSniffEnable() && table.fieldsContext().size() > 0) {
             esScanNode.setFields_context(table.fieldsContext());
         }
@@ -166,7 +180,8 @@ public class EsScanNode extends ScanNode {
         int beIndex = random.nextInt(size);
         List<TScanRangeLocations> result = Lists.newArrayList();
         for (EsShardPartitions indexState : selectedIndex) {
-            for (List<EsShardRouting> shardRouting : indexState.getShardRoutings().values()) {
+            for (Map.Entry<Integer, List<EsShardRouting>> entry : indexState.getShardRoutings().entrySet()) {
+                List<EsShardRouting> shardRouting = entry.getValue();
                 // get backends
                 Set<Backend> colocatedBes = Sets.newHashSet();
                 int numBe = Math.min(3, size);
@@ -181,40 +196,51 @@ public class EsScanNode extends ScanNode {
                     colocatedBes.addAll(backendMap.get(address.getHostname()));
                 }
                 boolean usingRandomBackend = colocatedBes.size() == 0;
-                List<Backend> candidateBeList = Lists.newArrayList();
-                if (usingRandomBackend) {
-                    for (int i = 0; i < numBe; ++i) {
-                        candidateBeList.add(backendList.get(beIndex++ % size));
+
+                // a big shard is scanned by several sliced scrolls in parallel,
+                // a scan with limit reads few docs and is not sliced,
+                // an aggregation must see all the docs of a shard and is not sliced
+                int sliceNum = hasLimit() || aggregation != null ? 1 : indexState.getSliceNum(entry.getKey());
+                for (int sliceId = 0; sliceId < sliceNum; sliceId++) {
+                    List<Backend> candidateBeList = Lists.newArrayList();
+                    if (usingRandomBackend) {
+                        for (int i = 0; i < numBe; ++i) {
+                            candidateBeList.add(backendList.get(beIndex++ % size));
+                        }
+                    } else {
+                        candidateBeList.addAll(colocatedBes);
+                        Collections.shuffle(candidateBeList);
                     }
-                } else {
-                    candidateBeList.addAll(colocatedBes);
-                    Collections.shuffle(candidateBeList);
-                }
 
-                // Locations
-                TScanRangeLocations locations = new TScanRangeLocations();
-                for (int i = 0; i < numBe && i < candidateBeList.size(); ++i) {
-                    TScanRangeLocation location = new TScanRangeLocation();
-                    Backend be = candidateBeList.get(i);
-                    location.setBackend_id(be.getId());
-                    location.setServer(new TNetworkAddress(be.getHost(), be.getBePort()));
-                    locations.addToLocations(location);
-                }
+                    // Locations
+                    TScanRangeLocations locations = new TScanRangeLocations();
+                    for (int i = 0; i < numBe && i < candidateBeList.size(); ++i) {
+                        TScanRangeLocation location = new TScanRangeLocation();
+                        Backend be = candidateBeList.get(i);
+                        location.setBackend_id(be.getId());
+                        location.setServer(new TNetworkAddress(be.getHost(), be.getBePort()));
+                        locations.addToLocations(location);
+                    }
 
-                // Generate on es scan range
-                TEsScanRange esScanRange = new TEsScanRange();
-                esScanRange.setEs_hosts(shardAllocations);
-                esScanRange.setIndex(shardRouting.get(0).getIndexName());
-                if (table.getMappingType() != null) {
-                    esScanRange.setType(table.getMappingType());
+                    // Generate on es scan range
+                    TEsScanRange esScanRange = new TEsScanRange();
+                    esScanRange.setEs_hosts(shardAllocations);
+                    esScanRange.setIndex(shardRouting.get(0).getIndexName());
+                    if (table.getMappingType() != null) {
+                        esScanRange.setType(table.getMappingType());
+                    }
+                    esScanRange.setShard_id(shardRouting.get(0).getShardId());
+                    if (sliceNum > 1) {
+                        esScanRange.setSlice_id(sliceId);
+                        esScanRange.setSlice_max(sliceNum);
+                    }
+                    // Scan range
+                    TScanRange scanRange = new TScanRange();
+                    scanRange.setEs_scan_range(esScanRange);
+                    locations.setScan_range(scanRange);
+                    // result
+                    result.add(locations);
                 }
-                esScanRange.setShard_id(shardRouting.get(0).getShardId());
-                // Scan range
-                TScanRange scanRange = new TScanRange();
-                scanRange.setEs_scan_range(esScanRange);
-                locations.setScan_range(scanRange);
-                // result
-                result.add(locations);
             }
 
         }
@@ -260,6 +286,9 @@ public class EsScanNode extends ScanNode {
                     .append(queryBuilder.toString())
                     .append("\n");
         }
+        if (aggregation != null) {
+            output.append(prefix).append("ES_AGGREGATION: ").append(aggregation).append("\n");
+        }
         String indexName = table.getIndexName();
         String typeName = table.getMappingType();
         if (typeName == null) {
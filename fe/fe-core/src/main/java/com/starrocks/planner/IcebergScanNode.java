@@ -13,9 +13,11 @@ import com.starrocks.analysis.Expr;
 import com.starrocks.analysis.TupleDescriptor;
 import com.starrocks.catalog.IcebergTable;
 import com.starrocks.common.AnalysisException;
+import com.starrocks.common.Pair;
 import com.starrocks.common.UserException;
 import com.starrocks.external.PredicateUtils;
 import com.starrocks.external.iceberg.ExpressionConverter;
+import com.starrocks.external.iceberg.IcebergScanPlanner;
 import com.starrocks.external.iceberg.IcebergUtil;
 import com.starrocks.server.GlobalStateMgr;
 import com.starrocks.system.ComputeNode;
@@ -28,13 +30,13 @@ import com.starrocks.thrift.TPlanNodeType;
 import com.starrocks.thrift.TScanRange;
 import com.starrocks.thrift.TScanRangeLocation;
 import com.starrocks.thrift.TScanRangeLocations;
-import org.apache.iceberg.CombinedScanTask;
 import org.apache.iceberg.DataFile;
-import org.apache.iceberg.FileScanTask;
 import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.TableProperties;
 import org.apache.iceberg.exceptions.ValidationException;
 import org.apache.iceberg.expressions.Binder;
 import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.util.PropertyUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -155,22 +157,22 @@ public class IcebergScanNode extends ScanNode {
             return;
         }
         preProcessConjuncts();
-        for (CombinedScanTask combinedScanTask : IcebergUtil.getTableScan(
-                srIcebergTable.getIcebergTable(), snapshot.get(),
-                icebergPredicates).planTasks()) {
-            for (FileScanTask task : combinedScanTask.files()) {
-                DataFile file = task.file();
-                LOG.debug("Scan with file " + file.path() + ", file record count " + file.recordCount());
-                if (file.fileSizeInBytes() == 0) {
-                    continue;
-                }
+        org.apache.iceberg.Table icebergTable = srIcebergTable.getIcebergTable();
+        long splitSize = PropertyUtil.propertyAsLong(icebergTable.properties(),
+                TableProperties.SPLIT_SIZE, TableProperties.SPLIT_SIZE_DEFAULT);
+        for (DataFile file : IcebergScanPlanner.planDataFiles(icebergTable, snapshot.get(), icebergPredicates)) {
+            LOG.debug("Scan with file " + file.path() + ", file record count " + file.recordCount());
+            if (file.fileSizeInBytes() == 0) {
+                continue;
+            }
 
+            for (Pair<Long, Long> split : IcebergScanPlanner.splitFile(file, splitSize)) {
                 TScanRangeLocations scanRangeLocations = new TScanRangeLocations();
 
                 THdfsScanRange hdfsScanRange = new THdfsScanRange();
                 hdfsScanRange.setFull_path(file.path().toString());
-                hdfsScanRange.setOffset(task.start());
-                hdfsScanRange.setLength(task.length());
+                hdfsScanRange.setOffset(split.first);
+                hdfsScanRange.setLength(split.second);
                 // For iceberg table we do not need partition id
                 hdfsScanRange.setPartition_id(-1);
                 hdfsScanRange.setFile_length(file.fileSizeInBytes());
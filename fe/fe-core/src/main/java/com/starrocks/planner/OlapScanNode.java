@@ -46,6 +46,8 @@ import com.starrocks.catalog.PartitionType;
 import com.starrocks.catalog.RangePartitionInfo;
 import com.starrocks.catalog.Replica;
 import com.starrocks.catalog.Tablet;
+import com.starrocks.catalog.TabletInvertedIndex;
+import com.starrocks.catalog.TabletMeta;
 import com.starrocks.lake.LakeTablet;
 import com.starrocks.common.AnalysisException;
 import com.starrocks.common.Config;
@@ -157,6 +159,23 @@ public class OlapScanNode extends ScanNode {
         return selectedPartitionVersions;
     }
 
+    /**
+     * Only read the rowsets loaded from the start version of the partition, used to read the rows loaded
+     * after a version, eg: the incremental refresh of materialized view.
+     * @param partitionStartVersions partition id -> start version
+     */
+    public void setPartitionStartVersions(Map<Long, Long> partitionStartVersions) {
+        TabletInvertedIndex invertedIndex = GlobalStateMgr.getCurrentInvertedIndex();
+        for (TScanRangeLocations locations : result) {
+            TInternalScanRange internalRange = locations.getScan_range().getInternal_scan_range();
+            TabletMeta tabletMeta = invertedIndex.getTabletMeta(internalRange.getTablet_id());
+            Long startVersion = tabletMeta == null ? null : partitionStartVersions.get(tabletMeta.getPartitionId());
+            if (startVersion != null && startVersion > 0) {
+                internalRange.setStart_version(startVersion);
+            }
+        }
+    }
+
     // The dict id int column ids to dict string column ids
     private Map<Integer, Integer> dictStringIdToIntIds = Maps.newHashMap();
 
@@ -17,6 +17,8 @@
 
 package com.starrocks.plugin;
 
+import java.util.List;
+
 /**
  * Audit plugin interface describe.
  */
@@ -32,4 +34,14 @@ public interface AuditPlugin {
      * Because it will be called after each query. So it must be efficient.
      */
     public void exec(AuditEvent event);
+
+    /**
+     * process a batch of the events passing eventFilter, in the order they happened.
+     * The plugins able to handle the events in batch, e.g. to load them at once, should override it.
+     */
+    public default void execBatch(List<AuditEvent> events) {
+        for (AuditEvent event : events) {
+            exec(event);
+        }
+    }
 }
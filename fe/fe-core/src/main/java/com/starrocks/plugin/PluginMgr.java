@@ -35,6 +35,7 @@ import com.starrocks.common.util.PrintableMap;
 import com.starrocks.plugin.PluginInfo.PluginType;
 import com.starrocks.plugin.PluginLoader.PluginStatus;
 import com.starrocks.qe.AuditLogBuilder;
+import com.starrocks.qe.AuditTableSink;
 import com.starrocks.server.GlobalStateMgr;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -108,6 +109,12 @@ public class PluginMgr implements Writable {
             LOG.warn("failed to register audit log builder");
         }
 
+        // AuditTable
+        AuditTableSink auditTableSink = new AuditTableSink();
+        if (!registerBuiltinPlugin(auditTableSink.getPluginInfo(), auditTableSink)) {
+            LOG.warn("failed to register audit table sink");
+        }
+
         // other builtin plugins
     }
 
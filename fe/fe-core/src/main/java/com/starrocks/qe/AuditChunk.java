@@ -0,0 +1,177 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.qe;
+
+import com.google.common.collect.Lists;
+import com.starrocks.common.Pair;
+import com.starrocks.plugin.AuditEvent;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * The columns of a batch of audit events to load into the audit table. Only the audited values are kept, in the
+ * order of the columns of the audit table, see AuditTableSink.buildCreateTableSql.
+ */
+class AuditChunk {
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final String[] queryIds;
+    private final long[] timestamps;
+    private final String[] clientIps;
+    private final String[] users;
+    private final String[] resourceGroups;
+    private final String[] dbs;
+    private final String[] states;
+    private final String[] errorCodes;
+    private final long[] queryTimes;
+    private final long[] scanBytes;
+    private final long[] scanRows;
+    private final long[] returnRows;
+    private final long[] cpuCostNs;
+    private final long[] memCostBytes;
+    private final long[] stmtIds;
+    private final boolean[] isQueries;
+    private final String[] feIps;
+    private final String[] stmts;
+    private final String[] digests;
+    private int numRows = 0;
+    private final long createTimeMs;
+
+    AuditChunk(int capacity) {
+        queryIds = new String[capacity];
+        timestamps = new long[capacity];
+        clientIps = new String[capacity];
+        users = new String[capacity];
+        resourceGroups = new String[capacity];
+        dbs = new String[capacity];
+        states = new String[capacity];
+        errorCodes = new String[capacity];
+        queryTimes = new long[capacity];
+        scanBytes = new long[capacity];
+        scanRows = new long[capacity];
+        returnRows = new long[capacity];
+        cpuCostNs = new long[capacity];
+        memCostBytes = new long[capacity];
+        stmtIds = new long[capacity];
+        isQueries = new boolean[capacity];
+        feIps = new String[capacity];
+        stmts = new String[capacity];
+        digests = new String[capacity];
+        createTimeMs = System.currentTimeMillis();
+    }
+
+    boolean isFull() {
+        return numRows == timestamps.length;
+    }
+
+    boolean isEmpty() {
+        return numRows == 0;
+    }
+
+    int getNumRows() {
+        return numRows;
+    }
+
+    long getCreateTimeMs() {
+        return createTimeMs;
+    }
+
+    void append(AuditEvent event, int maxStmtLength) {
+        int row = numRows++;
+        queryIds[row] = event.queryId;
+        timestamps[row] = event.timestamp;
+        clientIps[row] = event.clientIp;
+        users[row] = event.user;
+        resourceGroups[row] = event.resourceGroup;
+        dbs[row] = event.db;
+        states[row] = event.state;
+        errorCodes[row] = event.errorCode;
+        queryTimes[row] = event.queryTime;
+        scanBytes[row] = event.scanBytes;
+        scanRows[row] = event.scanRows;
+        returnRows[row] = event.returnRows;
+        cpuCostNs[row] = event.cpuCostNs;
+        memCostBytes[row] = event.memCostBytes;
+        stmtIds[row] = event.stmtId;
+        isQueries[row] = event.isQuery;
+        feIps[row] = event.feIp;
+        String stmt = event.stmt == null ? "" : event.stmt;
+        stmts[row] = stmt.length() > maxStmtLength ? stmt.substring(0, maxStmtLength) : stmt;
+        digests[row] = event.digest;
+    }
+
+    /**
+     * The INSERT statements loading all the rows into the table, with the number of rows of each one.
+     * A statement is not longer than maxSqlLength, unless it has only one row.
+     */
+    List<Pair<String, Integer>> toInsertSqls(String tableName, int maxSqlLength) {
+        List<Pair<String, Integer>> sqls = Lists.newArrayList();
+        String prefix = "INSERT INTO " + tableName + " VALUES ";
+        StringBuilder sb = new StringBuilder(Math.min(maxSqlLength, prefix.length() + numRows * 256));
+        StringBuilder rowSb = new StringBuilder(256);
+        int sqlRows = 0;
+        for (int row = 0; row < numRows; row++) {
+            rowSb.setLength(0);
+            appendRow(rowSb, row);
+            if (sqlRows > 0 && sb.length() + 2 + rowSb.length() > maxSqlLength) {
+                sqls.add(Pair.create(sb.toString(), sqlRows));
+                sqlRows = 0;
+            }
+            if (sqlRows == 0) {
+                sb.setLength(0);
+                sb.append(prefix);
+            } else {
+                sb.append(", ");
+            }
+            sb.append(rowSb);
+            sqlRows++;
+        }
+        if (sqlRows > 0) {
+            sqls.add(Pair.create(sb.toString(), sqlRows));
+        }
+        return sqls;
+    }
+
+    private void appendRow(StringBuilder sb, int row) {
+        sb.append('(');
+        appendString(sb, queryIds[row]).append(", ");
+        appendString(sb, LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamps[row]), ZoneId.systemDefault())
+                .format(DATETIME_FORMATTER)).append(", ");
+        appendString(sb, clientIps[row]).append(", ");
+        appendString(sb, users[row]).append(", ");
+        appendString(sb, resourceGroups[row]).append(", ");
+        appendString(sb, dbs[row]).append(", ");
+        appendString(sb, states[row]).append(", ");
+        appendString(sb, errorCodes[row]).append(", ");
+        sb.append(queryTimes[row]).append(", ");
+        sb.append(scanBytes[row]).append(", ");
+        sb.append(scanRows[row]).append(", ");
+        sb.append(returnRows[row]).append(", ");
+        sb.append(cpuCostNs[row]).append(", ");
+        sb.append(memCostBytes[row]).append(", ");
+        sb.append(stmtIds[row]).append(", ");
+        sb.append(isQueries[row] ? 1 : 0).append(", ");
+        appendString(sb, feIps[row]).append(", ");
+        appendString(sb, stmts[row]).append(", ");
+        appendString(sb, digests[row]);
+        sb.append(')');
+    }
+
+    private static StringBuilder appendString(StringBuilder sb, String value) {
+        sb.append('\'');
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\'' || c == '\\') {
+                    sb.append('\\');
+                }
+                sb.append(c);
+            }
+        }
+        return sb.append('\'');
+    }
+}
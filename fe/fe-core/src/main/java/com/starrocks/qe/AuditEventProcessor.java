@@ -17,7 +17,10 @@
 
 package com.starrocks.qe;
 
-import com.google.common.collect.Queues;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.starrocks.common.Config;
+import com.starrocks.metric.MetricRepo;
 import com.starrocks.plugin.AuditEvent;
 import com.starrocks.plugin.AuditPlugin;
 import com.starrocks.plugin.Plugin;
@@ -27,12 +30,19 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Class for processing all audit events.
  * It will receive audit events and handle them to all AUDIT type plugins.
+ *
+ * The events are handed to the plugins in batches of at most audit_event_batch_size events.
+ * Enqueueing never blocks the query. When the queue is fuller than audit_event_sample_watermark, the events are
+ * sampled with a probability falling from 1 to 0 as the queue fills up, while the failed and slow queries are
+ * always kept. The events are dropped only if the queue is full.
  */
 public class AuditEventProcessor {
     private static final Logger LOG = LogManager.getLogger(AuditEventProcessor.class);
@@ -43,13 +53,16 @@ public class AuditEventProcessor {
     private List<Plugin> auditPlugins;
     private long lastUpdateTime = 0;
 
-    private BlockingQueue<AuditEvent> eventQueue = Queues.newLinkedBlockingDeque(10000);
+    private final int queueCapacity;
+    private final BlockingQueue<AuditEvent> eventQueue;
     private Thread workerThread;
 
     private volatile boolean isStopped = false;
 
     public AuditEventProcessor(PluginMgr pluginMgr) {
         this.pluginMgr = pluginMgr;
+        this.queueCapacity = Math.max(1, Config.audit_event_queue_size);
+        this.eventQueue = new ArrayBlockingQueue<>(queueCapacity);
     }
 
     public void start() {
@@ -70,17 +83,46 @@ public class AuditEventProcessor {
     }
 
     public void handleAuditEvent(AuditEvent auditEvent) {
-        try {
-            eventQueue.put(auditEvent);
-        } catch (InterruptedException e) {
-            LOG.debug("encounter exception when handle audit event, ignore", e);
+        long startNs = System.nanoTime();
+        if (!shouldKeep(auditEvent, eventQueue.size())) {
+            if (MetricRepo.isInit) {
+                MetricRepo.COUNTER_AUDIT_EVENT_SAMPLED_OUT.increase(1L);
+            }
+            return;
+        }
+        boolean added = eventQueue.offer(auditEvent);
+        if (MetricRepo.isInit) {
+            if (!added) {
+                MetricRepo.COUNTER_AUDIT_EVENT_DROPPED.increase(1L);
+            }
+            MetricRepo.HISTO_AUDIT_ENQUEUE_LATENCY.update(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNs));
         }
     }
 
+    @VisibleForTesting
+    boolean shouldKeep(AuditEvent auditEvent, int queueSize) {
+        int watermark = (int) (queueCapacity * Config.audit_event_sample_watermark);
+        if (queueSize <= watermark || watermark >= queueCapacity) {
+            return true;
+        }
+        // the failed and slow queries are what the audit is for
+        if (auditEvent.queryTime >= Config.qe_slow_log_ms ||
+                QueryState.MysqlStateType.ERR.name().equals(auditEvent.state)) {
+            return true;
+        }
+        double keepRatio = (double) (queueCapacity - queueSize) / (queueCapacity - watermark);
+        return ThreadLocalRandom.current().nextDouble() < keepRatio;
+    }
+
+    public int getQueueSize() {
+        return eventQueue.size();
+    }
+
     public class Worker implements Runnable {
         @Override
         public void run() {
             AuditEvent auditEvent;
+            List<AuditEvent> batch = Lists.newArrayList();
             while (!isStopped) {
                 // update audit plugin list every UPDATE_PLUGIN_INTERVAL_MS.
                 // because some of plugins may be installed or uninstalled at runtime.
@@ -100,14 +142,25 @@ public class AuditEventProcessor {
                     continue;
                 }
 
-                try {
-                    for (Plugin plugin : auditPlugins) {
-                        if (((AuditPlugin) plugin).eventFilter(auditEvent.type)) {
-                            ((AuditPlugin) plugin).exec(auditEvent);
+                batch.clear();
+                batch.add(auditEvent);
+                eventQueue.drainTo(batch, Math.max(0, Config.audit_event_batch_size - 1));
+
+                for (Plugin plugin : auditPlugins) {
+                    AuditPlugin auditPlugin = (AuditPlugin) plugin;
+                    try {
+                        List<AuditEvent> events = Lists.newArrayListWithCapacity(batch.size());
+                        for (AuditEvent event : batch) {
+                            if (auditPlugin.eventFilter(event.type)) {
+                                events.add(event);
+                            }
+                        }
+                        if (!events.isEmpty()) {
+                            auditPlugin.execBatch(events);
                         }
+                    } catch (Exception e) {
+                        LOG.debug("encounter exception when processing audit event.", e);
                     }
-                } catch (Exception e) {
-                    LOG.debug("encounter exception when processing audit event.", e);
                 }
             }
         }
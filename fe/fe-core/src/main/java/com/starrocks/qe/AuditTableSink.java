@@ -0,0 +1,263 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.qe;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Queues;
+import com.starrocks.analysis.StatementBase;
+import com.starrocks.catalog.Database;
+import com.starrocks.common.Config;
+import com.starrocks.common.DdlException;
+import com.starrocks.common.Pair;
+import com.starrocks.common.util.DigitalVersion;
+import com.starrocks.metric.MetricRepo;
+import com.starrocks.plugin.AuditEvent;
+import com.starrocks.plugin.AuditEvent.EventType;
+import com.starrocks.plugin.AuditPlugin;
+import com.starrocks.plugin.Plugin;
+import com.starrocks.plugin.PluginInfo;
+import com.starrocks.plugin.PluginInfo.PluginType;
+import com.starrocks.plugin.PluginMgr;
+import com.starrocks.server.GlobalStateMgr;
+import com.starrocks.sql.parser.SqlParser;
+import com.starrocks.statistic.StatisticUtils;
+import com.starrocks.statistic.StatsConstants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// A builtin Audit plugin, registered when FE start.
+// If enable_audit_table_sink is true, it loads the "AFTER_QUERY" AuditEvents into the table
+// _statistics_.audit_log, so the audit log can be queried by SQL.
+// The events are appended to a columnar AuditChunk, which is loaded by multi-rows INSERTs once it has
+// audit_table_sink_batch_rows rows, or audit_table_sink_flush_interval_ms after it was created.
+// Each INSERT is at most audit_table_sink_max_sql_length long, so a batch of long statements is not parsed
+// and planned as one huge SQL.
+public class AuditTableSink extends Plugin implements AuditPlugin {
+    private static final Logger LOG = LogManager.getLogger(AuditTableSink.class);
+
+    public static final String AUDIT_TABLE_NAME = "audit_log";
+    // the sealed chunks waiting to be loaded, the new chunks are dropped if the loading falls behind
+    @VisibleForTesting
+    static final int MAX_PENDING_CHUNKS = 16;
+    // the partitions of the days in advance
+    private static final int DYNAMIC_PARTITION_END_DAYS = 3;
+
+    private final PluginInfo pluginInfo;
+    private final BlockingQueue<AuditChunk> pendingChunks = Queues.newArrayBlockingQueue(MAX_PENDING_CHUNKS);
+    private final Object lock = new Object();
+    private AuditChunk currentChunk = null;
+    private boolean flushThreadStarted = false;
+    // the backoff before the first retry of a failed load, doubled for every retry
+    @VisibleForTesting
+    long retryBackoffMs = 1000;
+
+    public AuditTableSink() {
+        pluginInfo = new PluginInfo(PluginMgr.BUILTIN_PLUGIN_PREFIX + "AuditTableSink", PluginType.AUDIT,
+                "builtin audit table sink", DigitalVersion.fromString("2.4.0"),
+                DigitalVersion.fromString("1.8.31"), AuditTableSink.class.getName(), null, null);
+    }
+
+    public PluginInfo getPluginInfo() {
+        return pluginInfo;
+    }
+
+    @Override
+    public boolean eventFilter(EventType type) {
+        return Config.enable_audit_table_sink && type == EventType.AFTER_QUERY;
+    }
+
+    @Override
+    public void exec(AuditEvent event) {
+        synchronized (lock) {
+            appendEvent(event);
+        }
+    }
+
+    @Override
+    public void execBatch(List<AuditEvent> events) {
+        synchronized (lock) {
+            for (AuditEvent event : events) {
+                appendEvent(event);
+            }
+        }
+    }
+
+    private void appendEvent(AuditEvent event) {
+        if (!flushThreadStarted) {
+            startFlushThread();
+            flushThreadStarted = true;
+        }
+        if (currentChunk == null) {
+            currentChunk = new AuditChunk(Math.max(1, Config.audit_table_sink_batch_rows));
+        }
+        currentChunk.append(event, Config.audit_table_sink_max_stmt_length);
+        if (currentChunk.isFull()) {
+            sealCurrentChunk();
+        }
+    }
+
+    // must hold the lock
+    private void sealCurrentChunk() {
+        AuditChunk chunk = currentChunk;
+        currentChunk = null;
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (!pendingChunks.offer(chunk)) {
+            LOG.warn("too many audit chunks are waiting to be loaded, drop {} audit events", chunk.getNumRows());
+            if (MetricRepo.isInit) {
+                MetricRepo.COUNTER_AUDIT_TABLE_FAILED_ROWS.increase((long) chunk.getNumRows());
+            }
+        }
+    }
+
+    @VisibleForTesting
+    AuditChunk pollChunk(long timeoutMs) throws InterruptedException {
+        AuditChunk chunk = pendingChunks.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (chunk != null) {
+            return chunk;
+        }
+        synchronized (lock) {
+            if (currentChunk != null && System.currentTimeMillis() - currentChunk.getCreateTimeMs() >=
+                    Config.audit_table_sink_flush_interval_ms) {
+                sealCurrentChunk();
+            }
+        }
+        return pendingChunks.poll();
+    }
+
+    @VisibleForTesting
+    void startFlushThread() {
+        Thread flushThread = new Thread(this::runFlush, "audit-table-sink");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    private void runFlush() {
+        while (true) {
+            try {
+                AuditChunk chunk = pollChunk(Math.max(100, Config.audit_table_sink_flush_interval_ms));
+                if (chunk != null) {
+                    loadChunk(chunk);
+                }
+            } catch (InterruptedException e) {
+                LOG.warn("audit table sink is interrupted", e);
+                return;
+            } catch (Throwable e) {
+                LOG.warn("failed to load audit events into the audit table", e);
+            }
+        }
+    }
+
+    // return the number of rows loaded
+    @VisibleForTesting
+    int loadChunk(AuditChunk chunk) throws InterruptedException {
+        int loadedRows = 0;
+        for (Pair<String, Integer> sql : chunk.toInsertSqls(AUDIT_TABLE_NAME,
+                Config.audit_table_sink_max_sql_length)) {
+            if (loadRows(sql.first, sql.second)) {
+                loadedRows += sql.second;
+            }
+        }
+        return loadedRows;
+    }
+
+    private boolean loadRows(String sql, int numRows) throws InterruptedException {
+        long backoffMs = retryBackoffMs;
+        for (int i = 0; ; i++) {
+            try {
+                loadSql(sql);
+                if (MetricRepo.isInit) {
+                    MetricRepo.COUNTER_AUDIT_TABLE_LOADED_ROWS.increase((long) numRows);
+                }
+                return true;
+            } catch (Exception e) {
+                if (i >= Config.audit_table_sink_max_retries) {
+                    LOG.warn("failed to load {} audit events into the audit table", numRows, e);
+                    if (MetricRepo.isInit) {
+                        MetricRepo.COUNTER_AUDIT_TABLE_FAILED_ROWS.increase((long) numRows);
+                    }
+                    return false;
+                }
+                LOG.info("failed to load audit events into the audit table, retry after {}ms: {}",
+                        backoffMs, e.getMessage());
+                Thread.sleep(backoffMs);
+                backoffMs *= 2;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void loadSql(String sql) throws Exception {
+        createTableIfNotExists();
+        executeSql(sql);
+    }
+
+    private static void createTableIfNotExists() throws Exception {
+        Database db = GlobalStateMgr.getCurrentState().getDb(StatsConstants.STATISTICS_DB_NAME);
+        if (db == null) {
+            // it's created by StatisticsMetaManager
+            throw new DdlException("database " + StatsConstants.STATISTICS_DB_NAME + " does not exist");
+        }
+        if (db.getTable(AUDIT_TABLE_NAME) != null) {
+            return;
+        }
+        int replicationNum = Math.max(1, Math.min(3, GlobalStateMgr.getCurrentSystemInfo().getTotalBackendNumber()));
+        executeSql(buildCreateTableSql(replicationNum, Config.audit_table_retention_days, LocalDate.now()));
+        LOG.info("create audit table {} done", AUDIT_TABLE_NAME);
+    }
+
+    // The partitions from yesterday to the end of the dynamic partitions are created with the table, the events
+    // can't be loaded until the partitions are created, and the dynamic partition scheduler may run a long time
+    // later, or never if dynamic_partition_enable is false. Their names are the same as the dynamic partitions.
+    @VisibleForTesting
+    static String buildCreateTableSql(int replicationNum, int retentionDays, LocalDate today) {
+        return "CREATE TABLE IF NOT EXISTS " + AUDIT_TABLE_NAME + " (" +
+                "query_id VARCHAR(64), " +
+                "time DATETIME, " +
+                "client_ip VARCHAR(128), " +
+                "user VARCHAR(128), " +
+                "resource_group VARCHAR(128), " +
+                "db VARCHAR(128), " +
+                "state VARCHAR(32), " +
+                "error_code VARCHAR(512), " +
+                "query_time_ms BIGINT, " +
+                "scan_bytes BIGINT, " +
+                "scan_rows BIGINT, " +
+                "return_rows BIGINT, " +
+                "cpu_cost_ns BIGINT, " +
+                "mem_cost_bytes BIGINT, " +
+                "stmt_id BIGINT, " +
+                "is_query TINYINT, " +
+                "fe_ip VARCHAR(128), " +
+                "stmt VARCHAR(1048576), " +
+                "digest VARCHAR(32)" +
+                ") DUPLICATE KEY(query_id, time) " +
+                "PARTITION BY RANGE(time) (START (\"" + today.minusDays(1) + "\") END (\"" +
+                today.plusDays(DYNAMIC_PARTITION_END_DAYS + 1) + "\") EVERY (INTERVAL 1 DAY)) " +
+                "DISTRIBUTED BY HASH(query_id) BUCKETS 3 " +
+                "PROPERTIES (" +
+                "\"replication_num\" = \"" + replicationNum + "\", " +
+                "\"dynamic_partition.enable\" = \"true\", " +
+                "\"dynamic_partition.time_unit\" = \"DAY\", " +
+                "\"dynamic_partition.start\" = \"-" + retentionDays + "\", " +
+                "\"dynamic_partition.end\" = \"" + DYNAMIC_PARTITION_END_DAYS + "\", " +
+                "\"dynamic_partition.prefix\" = \"p\", " +
+                "\"dynamic_partition.buckets\" = \"3\")";
+    }
+
+    private static void executeSql(String sql) throws Exception {
+        ConnectContext context = StatisticUtils.buildConnectContext();
+        StatementBase parsedStmt = SqlParser.parseFirstStatement(sql, context.getSessionVariable().getSqlMode());
+        StmtExecutor executor = new StmtExecutor(context, parsedStmt);
+        executor.execute();
+        if (context.getState().getStateType() == QueryState.MysqlStateType.ERR) {
+            throw new DdlException(context.getState().getErrorMessage());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.qe;
+
+import com.google.common.collect.Lists;
+import com.starrocks.common.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Track the load of each backend seen by this FE, to choose the replicas of the scan ranges:
+ * - the number of fragment instances deployed by this FE and still running on the backend.
+ * - the p99 latency of the recent RPCs to deploy fragments to the backend, in the last
+ *   backend_load_latency_window_second seconds.
+ *
+ * A backend is slow if its p99 latency is slow_replica_latency_ratio times of the median of all the backends,
+ * the scan ranges fall back to the other replicas of the slow backends.
+ */
+public class BackendLoadTracker {
+    private static final BackendLoadTracker INSTANCE = new BackendLoadTracker();
+
+    private static final int LATENCY_WINDOW_SIZE = 128;
+    // the p99 latencies are refreshed at most once per interval
+    private static final long REFRESH_INTERVAL_MS = 1000L;
+
+    private final Map<Long, BackendLoad> backendLoads = new ConcurrentHashMap<>();
+    private volatile long medianP99LatencyUs = 0;
+    private volatile long lastRefreshTimeMs = 0;
+
+    private static class BackendLoad {
+        private final AtomicInteger runningInstances = new AtomicInteger(0);
+        // the ring of the recent latencies and their timestamps
+        private final long[] latenciesUs = new long[LATENCY_WINDOW_SIZE];
+        private final long[] timestampsMs = new long[LATENCY_WINDOW_SIZE];
+        private int nextIndex = 0;
+        private volatile long p99LatencyUs = 0;
+
+        synchronized void addLatency(long latencyUs, long nowMs) {
+            latenciesUs[nextIndex] = latencyUs;
+            timestampsMs[nextIndex] = nowMs;
+            nextIndex = (nextIndex + 1) % LATENCY_WINDOW_SIZE;
+        }
+
+        synchronized void refreshP99Latency(long nowMs) {
+            long expireTimeMs = nowMs - Config.backend_load_latency_window_second * 1000L;
+            long[] recent = new long[LATENCY_WINDOW_SIZE];
+            int num = 0;
+            for (int i = 0; i < LATENCY_WINDOW_SIZE; i++) {
+                if (timestampsMs[i] > expireTimeMs) {
+                    recent[num++] = latenciesUs[i];
+                }
+            }
+            if (num == 0) {
+                p99LatencyUs = 0;
+                return;
+            }
+            Arrays.sort(recent, 0, num);
+            p99LatencyUs = recent[(int) Math.ceil(num * 0.99) - 1];
+        }
+    }
+
+    public static BackendLoadTracker getInstance() {
+        return INSTANCE;
+    }
+
+    private BackendLoad getOrCreate(long backendId) {
+        return backendLoads.computeIfAbsent(backendId, k -> new BackendLoad());
+    }
+
+    public void addRunningInstances(long backendId, int delta) {
+        AtomicInteger runningInstances = getOrCreate(backendId).runningInstances;
+        if (runningInstances.addAndGet(delta) < 0) {
+            // the instances of the coordinators before restarting the tracker, never goes negative
+            runningInstances.set(0);
+        }
+    }
+
+    public int getRunningInstances(long backendId) {
+        BackendLoad load = backendLoads.get(backendId);
+        return load == null ? 0 : load.runningInstances.get();
+    }
+
+    public void recordRpcLatency(long backendId, long latencyUs) {
+        getOrCreate(backendId).addLatency(latencyUs, System.currentTimeMillis());
+    }
+
+    public long getP99LatencyUs(long backendId) {
+        refreshIfNeeded();
+        BackendLoad load = backendLoads.get(backendId);
+        return load == null ? 0 : load.p99LatencyUs;
+    }
+
+    private void refreshIfNeeded() {
+        long nowMs = System.currentTimeMillis();
+        if (nowMs - lastRefreshTimeMs < REFRESH_INTERVAL_MS) {
+            return;
+        }
+        synchronized (this) {
+            if (nowMs - lastRefreshTimeMs < REFRESH_INTERVAL_MS) {
+                return;
+            }
+            List<Long> p99Latencies = Lists.newArrayList();
+            for (BackendLoad load : backendLoads.values()) {
+                load.refreshP99Latency(nowMs);
+                if (load.p99LatencyUs > 0) {
+                    p99Latencies.add(load.p99LatencyUs);
+                }
+            }
+            if (p99Latencies.isEmpty()) {
+                medianP99LatencyUs = 0;
+            } else {
+                Collections.sort(p99Latencies);
+                medianP99LatencyUs = p99Latencies.get(p99Latencies.size() / 2);
+            }
+            lastRefreshTimeMs = nowMs;
+        }
+    }
+
+    /**
+     * The ratio of the p99 latency of the backend to the median of all the backends, 1 if unknown.
+     */
+    private double getLatencyRatio(long backendId) {
+        long p99LatencyUs = getP99LatencyUs(backendId);
+        long medianUs = medianP99LatencyUs;
+        if (p99LatencyUs <= 0 || medianUs <= 0) {
+            return 1;
+        }
+        return (double) p99LatencyUs / medianUs;
+    }
+
+    public boolean isSlow(long backendId) {
+        return getP99LatencyUs(backendId) >= Config.slow_replica_min_latency_ms * 1000L &&
+                getLatencyRatio(backendId) >= Config.slow_replica_latency_ratio;
+    }
+
+    /**
+     * The load score of the backend, 0 for an idle backend, the higher the busier.
+     * It is the number of running instances per core, plus how much slower the backend is than the median.
+     */
+    public double getLoadScore(long backendId, int cpuCores) {
+        double instancesPerCore = (double) getRunningInstances(backendId) / Math.max(1, cpuCores);
+        return instancesPerCore + Math.max(0, getLatencyRatio(backendId) - 1);
+    }
+
+    // for test
+    void clear() {
+        backendLoads.clear();
+        medianP99LatencyUs = 0;
+        lastRefreshTimeMs = 0;
+    }
+}
@@ -663,10 +663,15 @@ public class ConnectProcessor {
             return;
         }
 
-        // dispatch
-        dispatch();
-        // finalize
-        finalizeCommand();
+        try {
+            // dispatch
+            dispatch();
+            // finalize
+            finalizeCommand();
+        } finally {
+            // the send buffer is borrowed again by the next command
+            channel.releaseSendBuffer();
+        }
 
         ctx.setCommand(MysqlCommand.COM_SLEEP);
     }
@@ -182,6 +182,7 @@ public class ConnectScheduler {
 
                 if (registerConnection(context)) {
                     MysqlProto.sendResponsePacket(context);
+                    context.getMysqlChannel().startCompressionIfNegotiated();
                 } else {
                     context.getState().setError("Reach limit of connections");
                     MysqlProto.sendResponsePacket(context);
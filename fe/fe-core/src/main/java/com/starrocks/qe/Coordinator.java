@@ -40,6 +40,7 @@ import com.starrocks.common.MarkedCountDownLatch;
 import com.starrocks.common.Pair;
 import com.starrocks.common.Reference;
 import com.starrocks.common.Status;
+import com.starrocks.common.ThreadPoolManager;
 import com.starrocks.common.UserException;
 import com.starrocks.common.util.Counter;
 import com.starrocks.common.util.DebugUtil;
@@ -73,6 +74,7 @@ import com.starrocks.proto.PPlanFragmentCancelReason;
 import com.starrocks.proto.StatusPB;
 import com.starrocks.qe.QueryStatisticsItem.FragmentInstanceInfo;
 import com.starrocks.rpc.BackendServiceClient;
+import com.starrocks.rpc.EmptyRpcCallback;
 import com.starrocks.rpc.RpcException;
 import com.starrocks.server.GlobalStateMgr;
 import com.starrocks.service.FrontendOptions;
@@ -89,6 +91,7 @@ import com.starrocks.thrift.TExecPlanFragmentParams;
 import com.starrocks.thrift.TInternalScanRange;
 import com.starrocks.thrift.TNetworkAddress;
 import com.starrocks.thrift.TPipelineProfileLevel;
+import com.starrocks.thrift.TPlanFragment;
 import com.starrocks.thrift.TPlanFragmentDestination;
 import com.starrocks.thrift.TPlanFragmentExecParams;
 import com.starrocks.thrift.TQueryGlobals;
@@ -118,6 +121,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -130,9 +134,13 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
@@ -147,6 +155,14 @@ public class Coordinator {
 
     // Random is used to shuffle instances of partitioned
     private static final Random instanceRandom = new Random();
+
+    private static final int DEPLOY_SERIALIZE_THREAD_NUM = Config.deploy_serialize_thread_num > 0 ?
+            Config.deploy_serialize_thread_num : Runtime.getRuntime().availableProcessors();
+    // the deploying thread serializes the request itself when the pool is saturated, instead of waiting for it
+    private static final ExecutorService DEPLOY_SERIALIZE_POOL = ThreadPoolManager.newDaemonThreadPool(
+            DEPLOY_SERIALIZE_THREAD_NUM, DEPLOY_SERIALIZE_THREAD_NUM, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(Config.deploy_serialize_queue_size), new ThreadPoolExecutor.CallerRunsPolicy(),
+            "deploy-serialize-pool", true);
     // parallel execute
     private final TUniqueId nextInstanceId;
     // Overall status of the entire query; set to the first reported fragment error
@@ -499,6 +515,16 @@ public class Coordinator {
         deliverExecFragments();
     }
 
+    /**
+     * Like exec(), but waits in the query queue of the resource group before delivering the fragments,
+     * QueryQueueManager.release() must be called after the query finishes.
+     */
+    public void execQuery() throws Exception {
+        prepareExec();
+        QueryQueueManager.getInstance().waitAdmitted(connectContext, this);
+        deliverExecFragments();
+    }
+
     public static ResourceGroup prepareResourceGroup(ConnectContext connect) {
         ResourceGroup resourceGroup = null;
         if (connect == null || !connect.getSessionVariable().isEnableResourceGroup()) {
@@ -836,9 +862,52 @@ public class Coordinator {
         return groups;
     }
 
+    // A batch request of the fragment instances to a host, with its serialized bytes.
+    // The common fragment and the descriptor table are not set in the request, their bytes serialized once
+    // for all the requests are appended to the common params when the request is serialized.
+    private static class DeployRequest {
+        private final List<BackendExecState> execStates;
+        private final TExecBatchPlanFragmentsParams request;
+        // null if the fragment is set in the common params of the request
+        private final SerializedThriftStruct fragment;
+        private final SerializedThriftStruct descTable;
+        private Future<byte[]> serializedRequest;
+
+        DeployRequest(List<BackendExecState> execStates, TExecBatchPlanFragmentsParams request,
+                      SerializedThriftStruct fragment, SerializedThriftStruct descTable) {
+            this.execStates = execStates;
+            this.request = request;
+            this.fragment = fragment;
+            this.descTable = descTable;
+        }
+
+        byte[] serialize() throws TException {
+            Map<TExecPlanFragmentParams._Fields, SerializedThriftStruct> commonFields =
+                    new EnumMap<>(TExecPlanFragmentParams._Fields.class);
+            if (fragment != null) {
+                commonFields.put(TExecPlanFragmentParams._Fields.FRAGMENT, fragment);
+            }
+            commonFields.put(TExecPlanFragmentParams._Fields.DESC_TBL, descTable);
+            SerializedThriftStruct commonParams =
+                    SerializedThriftStruct.withFields(request.getCommon_param(), commonFields);
+
+            TExecBatchPlanFragmentsParams uniqueParams = new TExecBatchPlanFragmentsParams();
+            uniqueParams.setUnique_param_per_instance(request.getUnique_param_per_instance());
+            return SerializedThriftStruct.withFields(uniqueParams,
+                    ImmutableMap.of(TExecBatchPlanFragmentsParams._Fields.COMMON_PARAM, commonParams)).getBytes();
+        }
+    }
+
     /**
      * Deliver multiple fragments concurrently according to the topological order,
      * and all the instances of a fragment to the same destination host are delivered in the same request.
+     * <p>
+     * The requests of all the fragment groups are built first, and serialized on DEPLOY_SERIALIZE_POOL in the
+     * delivery order, or by this thread if the pool is saturated, then the requests of a group are sent as soon as
+     * they are serialized. So serializing the
+     * requests of the next groups overlaps with the RPCs of the current group. The descriptor table and the common
+     * fragment of each fragment are serialized only once for all the hosts. The time of each phase is recorded in
+     * the query profile.
      */
     private void deliverExecBatchFragmentsRequests(boolean enablePipelineEngine) throws Exception {
         long queryDeliveryTimeoutMs = Math.min(queryOptions.query_timeout, queryOptions.query_delivery_timeout) * 1000L;
@@ -848,7 +917,10 @@ public class Coordinator {
         List<List<PlanFragment>> fragmentGroups = computeTopologicalOrderFragments();
 
         lock();
+        // group -> stage -> requests
+        List<List<List<DeployRequest>>> deployRequests = Lists.newArrayList();
         try {
+            long buildStartNs = System.nanoTime();
             // execute all instances from up to bottom
             int backendNum = 0;
             int profileFragmentId = 0;
@@ -856,9 +928,11 @@ public class Coordinator {
             Set<Long> dbIds = connectContext != null ? connectContext.getCurrentSqlDbIds() : null;
 
             this.descTable.setIs_cached(false);
-            TDescriptorTable emptyDescTable = new TDescriptorTable();
-            emptyDescTable.setIs_cached(true);
-            emptyDescTable.setTupleDescriptors(Collections.emptyList());
+            SerializedThriftStruct sharedDescTable = new SerializedThriftStruct(this.descTable);
+            TDescriptorTable cachedDescTable = new TDescriptorTable();
+            cachedDescTable.setIs_cached(true);
+            cachedDescTable.setTupleDescriptors(Collections.emptyList());
+            SerializedThriftStruct emptyDescTable = new SerializedThriftStruct(cachedDescTable);
 
             // Record the first groupIndex of each host.
             // Each host only sends descTable once in the first batch request.
@@ -871,8 +945,7 @@ public class Coordinator {
                 // Otherwise, the request will be in the first stage, including
                 // - the request need send descTable.
                 // - the request to the host, where some request in the previous group has already sent descTable.
-                List<List<Pair<List<BackendExecState>, TExecBatchPlanFragmentsParams>>> inflightRequestsList =
-                        ImmutableList.of(new ArrayList<>(), new ArrayList<>());
+                List<List<DeployRequest>> inflightRequestsList = ImmutableList.of(new ArrayList<>(), new ArrayList<>());
                 for (PlanFragment fragment : fragmentGroup) {
                     FragmentExecParams params = fragmentExecParamsMap.get(fragment.getFragmentId());
                     Preconditions.checkState(!params.instanceExecParams.isEmpty());
@@ -900,7 +973,7 @@ public class Coordinator {
                         }
 
                         int inflightIndex = 0;
-                        TDescriptorTable curDescTable = this.descTable;
+                        SerializedThriftStruct curDescTable = sharedDescTable;
                         if (enablePipelineEngine) {
                             Integer firstGroupIndex = host2firstGroupIndex.get(host);
                             if (firstGroupIndex == null) {
@@ -922,9 +995,14 @@ public class Coordinator {
                         Set<TUniqueId> curInstanceIds = requests.stream()
                                 .map(FInstanceExecParam::getInstanceId)
                                 .collect(Collectors.toSet());
+                        // the descriptor table and the shared fragment are appended when the request is serialized
                         TExecBatchPlanFragmentsParams tRequest =
-                                params.toThriftInBatch(curInstanceIds, host, curDescTable, dbIds, enablePipelineEngine);
+                                params.toThriftInBatch(curInstanceIds, host, null, dbIds, enablePipelineEngine);
                         TExecPlanFragmentParams tCommonParams = tRequest.getCommon_param();
+                        SerializedThriftStruct serializedFragment = params.getSerializedCommonFragment();
+                        if (serializedFragment != null) {
+                            tCommonParams.unsetFragment();
+                        }
                         List<TExecPlanFragmentParams> tUniqueParamsList = tRequest.getUnique_param_per_instance();
                         Preconditions.checkState(!tUniqueParamsList.isEmpty());
 
@@ -952,23 +1030,58 @@ public class Coordinator {
                             }
                         }
 
-                        inflightRequestsList.get(inflightIndex).add(Pair.create(execStates, tRequest));
+                        inflightRequestsList.get(inflightIndex).add(
+                                new DeployRequest(execStates, tRequest, serializedFragment, curDescTable));
                     }
 
                     profileFragmentId += 1;
                 }
+                deployRequests.add(inflightRequestsList);
+            }
+            long buildTimeNs = System.nanoTime() - buildStartNs;
+
+            // The requests are not modified any more, serialize them in the delivery order.
+            AtomicLong serializeTimeNs = new AtomicLong();
+            AtomicLong serializedBytes = new AtomicLong();
+            for (List<List<DeployRequest>> inflightRequestsList : deployRequests) {
+                for (List<DeployRequest> inflightRequests : inflightRequestsList) {
+                    for (DeployRequest deployRequest : inflightRequests) {
+                        deployRequest.serializedRequest = DEPLOY_SERIALIZE_POOL.submit(() -> {
+                            long startNs = System.nanoTime();
+                            byte[] bytes = deployRequest.serialize();
+                            serializeTimeNs.addAndGet(System.nanoTime() - startNs);
+                            serializedBytes.addAndGet(bytes.length);
+                            return bytes;
+                        });
+                    }
+                }
+            }
 
-                for (List<Pair<List<BackendExecState>, TExecBatchPlanFragmentsParams>> inflightRequests : inflightRequestsList) {
+            long sendStartNs = System.nanoTime();
+            for (List<List<DeployRequest>> inflightRequestsList : deployRequests) {
+                for (List<DeployRequest> inflightRequests : inflightRequestsList) {
                     List<Pair<BackendExecState, Future<PExecBatchPlanFragmentsResult>>> futures = Lists.newArrayList();
-                    for (Pair<List<BackendExecState>, TExecBatchPlanFragmentsParams> inflightRequest : inflightRequests) {
-                        List<BackendExecState> execStates = inflightRequest.first;
-                        execStates.forEach(execState -> execState.setInitiated(true));
-
+                    for (DeployRequest inflightRequest : inflightRequests) {
+                        List<BackendExecState> execStates = inflightRequest.execStates;
                         Preconditions.checkState(!execStates.isEmpty());
                         // Just choose any instance ExecState to send the batch RPC request.
                         BackendExecState firstExecState = execStates.get(0);
+
+                        byte[] serializedRequest;
+                        try {
+                            serializedRequest = inflightRequest.serializedRequest.get(queryDeliveryTimeoutMs,
+                                    TimeUnit.MILLISECONDS);
+                        } catch (ExecutionException | InterruptedException | TimeoutException e) {
+                            LOG.warn("failed to serialize the request of fragment {} to backend {}",
+                                    firstExecState.fragmentId, firstExecState.backend.getId(), e);
+                            queryStatus.setStatus("failed to serialize plan fragments: " + e.getMessage());
+                            cancelInternal(PPlanFragmentCancelReason.INTERNAL_ERROR);
+                            throw new UserException("failed to serialize plan fragments: " + e.getMessage());
+                        }
+
+                        execStates.forEach(execState -> execState.setInitiated(true));
                         futures.add(Pair.create(firstExecState,
-                                firstExecState.execRemoteBatchFragmentsAsync(inflightRequest.second)));
+                                firstExecState.execRemoteBatchFragmentsAsync(serializedRequest)));
                     }
 
                     for (Pair<BackendExecState, Future<PExecBatchPlanFragmentsResult>> pair : futures) {
@@ -1015,8 +1128,24 @@ public class Coordinator {
                 }
             }
 
+            queryProfile.addCounter("DeployBuildTime", TUnit.TIME_NS).setValue(buildTimeNs);
+            queryProfile.addCounter("DeploySerializeTime", TUnit.TIME_NS).setValue(serializeTimeNs.get());
+            queryProfile.addCounter("DeploySendTime", TUnit.TIME_NS).setValue(System.nanoTime() - sendStartNs);
+            queryProfile.addCounter("DeployRequestBytes", TUnit.BYTES).setValue(serializedBytes.get());
+            queryProfile.addCounter("DeployDescTableBytes", TUnit.BYTES).setValue(sharedDescTable.getSerializedSize());
+
             attachInstanceProfileToFragmentProfile();
         } finally {
+            // the requests not serialized yet if the delivery fails
+            for (List<List<DeployRequest>> inflightRequestsList : deployRequests) {
+                for (List<DeployRequest> inflightRequests : inflightRequestsList) {
+                    for (DeployRequest deployRequest : inflightRequests) {
+                        if (deployRequest.serializedRequest != null) {
+                            deployRequest.serializedRequest.cancel(false);
+                        }
+                    }
+                }
+            }
             unlock();
         }
     }
@@ -2142,6 +2271,7 @@ public class Coordinator {
                 updateCommitInfos(params.getCommitInfos());
             }
             profileDoneSignal.markedCountDown(params.getFragment_instance_id(), -1L);
+            execState.removeFromBackendLoad();
         }
 
         if (params.isSetLoaded_rows()) {
@@ -2462,6 +2592,9 @@ public class Coordinator {
         boolean initiated;
         boolean done;
         boolean hasCanceled;
+        // whether the instance is counted in and released from BackendLoadTracker
+        boolean loadTracked;
+        boolean loadReleased;
         int profileFragmentId;
         RuntimeProfile profile;
         TNetworkAddress address;
@@ -2580,9 +2713,10 @@ public class Coordinator {
             } catch (Exception e) {
                 throw new TException(e.getMessage());
             }
-            this.initiated = true;
+            setInitiated(true);
             try {
-                return BackendServiceClient.getInstance().execPlanFragmentAsync(brpcAddress, uniqueRpcParams);
+                return BackendServiceClient.getInstance().execPlanFragmentAsync(brpcAddress, uniqueRpcParams,
+                        new LatencyRecordingCallback<>(backend.getId()));
             } catch (RpcException e) {
                 // DO NOT throw exception here, return a complete future with error code,
                 // so that the following logic will cancel the fragment.
@@ -2623,16 +2757,17 @@ public class Coordinator {
         }
 
         public Future<PExecBatchPlanFragmentsResult> execRemoteBatchFragmentsAsync(
-                TExecBatchPlanFragmentsParams tRequest) throws TException {
+                byte[] serializedRequest) throws TException {
             TNetworkAddress brpcAddress;
             try {
                 brpcAddress = new TNetworkAddress(backend.getHost(), backend.getBrpcPort());
             } catch (Exception e) {
                 throw new TException(e.getMessage());
             }
-            this.initiated = true;
+            setInitiated(true);
             try {
-                return BackendServiceClient.getInstance().execBatchPlanFragmentsAsync(brpcAddress, tRequest);
+                return BackendServiceClient.getInstance().execBatchPlanFragmentsAsync(brpcAddress, serializedRequest,
+                        new LatencyRecordingCallback<>(backend.getId()));
             } catch (RpcException e) {
                 // DO NOT throw exception here, return a complete future with error code,
                 // so that the following logic will cancel the fragment.
@@ -2684,6 +2819,53 @@ public class Coordinator {
 
         public void setInitiated(boolean initiated) {
             this.initiated = initiated;
+            if (initiated) {
+                addToBackendLoad();
+            }
+        }
+
+        // count this instance in the running instances of the backend until it is done
+        private synchronized void addToBackendLoad() {
+            if (!loadTracked && backend != null) {
+                loadTracked = true;
+                BackendLoadTracker.getInstance().addRunningInstances(backend.getId(), 1);
+            }
+        }
+
+        synchronized void removeFromBackendLoad() {
+            if (loadTracked && !loadReleased) {
+                loadReleased = true;
+                BackendLoadTracker.getInstance().addRunningInstances(backend.getId(), -1);
+            }
+        }
+    }
+
+    // record the latency of the RPC to deploy fragments, to detect the slow backends
+    private static class LatencyRecordingCallback<T> extends EmptyRpcCallback<T> {
+        private final long backendId;
+        private final long startNs = System.nanoTime();
+
+        LatencyRecordingCallback(long backendId) {
+            this.backendId = backendId;
+        }
+
+        @Override
+        public void success(T response) {
+            BackendLoadTracker.getInstance().recordRpcLatency(backendId, (System.nanoTime() - startNs) / 1000);
+        }
+
+        @Override
+        public void fail(Throwable e) {
+            BackendLoadTracker.getInstance().recordRpcLatency(backendId, (System.nanoTime() - startNs) / 1000);
+        }
+    }
+
+    /**
+     * Release the running instances of this query in BackendLoadTracker, whether they have reported done or not.
+     */
+    public void releaseBackendLoad() {
+        for (BackendExecState execState : backendExecStates.values()) {
+            execState.removeFromBackendLoad();
         }
     }
 
@@ -2699,6 +2881,9 @@ public class Coordinator {
         public FragmentScanRangeAssignment scanRangeAssignment = new FragmentScanRangeAssignment();
         TRuntimeFilterParams runtimeFilterParams = new TRuntimeFilterParams();
         public boolean bucketSeqToInstanceForFilterIsSet = false;
+        // The common thrift fragment shared by the requests to all the hosts, built and serialized only once.
+        private TPlanFragment commonFragment;
+        private SerializedThriftStruct serializedCommonFragment;
 
         public FragmentExecParams(PlanFragment fragment) {
             this.fragment = fragment;
@@ -2721,6 +2906,40 @@ public class Coordinator {
             }
         }
 
+        /**
+         * Build the common thrift fragment once and share it among all the requests of this fragment.
+         * The fragments whose output sink is unique for each instance are built for every request,
+         * because toThriftForUniqueParams modifies their sinks.
+         */
+        private TPlanFragment getCommonFragment() {
+            if (!isCommonFragmentShared()) {
+                return fragment.toThrift();
+            }
+            if (commonFragment == null) {
+                commonFragment = fragment.toThrift();
+            }
+            return commonFragment;
+        }
+
+        /**
+         * The bytes of the common thrift fragment serialized once for all the batch requests of this fragment,
+         * null if the fragment is built for every request.
+         */
+        private SerializedThriftStruct getSerializedCommonFragment() throws TException {
+            if (!isCommonFragmentShared()) {
+                return null;
+            }
+            if (serializedCommonFragment == null) {
+                serializedCommonFragment = new SerializedThriftStruct(getCommonFragment());
+            }
+            return serializedCommonFragment;
+        }
+
+        private boolean isCommonFragmentShared() {
+            DataSink sink = fragment.getSink();
+            return !(fragment instanceof MultiCastPlanFragment || sink instanceof ExportSink);
+        }
+
         /**
          * Set the common fields of all the fragment instances to the destination common thrift params.
          *
@@ -2734,7 +2953,7 @@ public class Coordinator {
                                              TNetworkAddress destHost, TDescriptorTable descTable,
                                              boolean isEnablePipelineEngine) {
             commonParams.setProtocol_version(InternalServiceVersion.V1);
-            commonParams.setFragment(fragment.toThrift());
+            commonParams.setFragment(getCommonFragment());
             commonParams.setDesc_tbl(descTable);
             commonParams.setFunc_version(3);
             commonParams.setCoord(coordAddress);
@@ -3011,15 +3230,35 @@ public class Coordinator {
 
         @Override
         public void computeScanRangeAssignment() throws Exception {
+            boolean loadAware = Config.enable_load_aware_replica_selection;
+            BackendLoadTracker loadTracker = BackendLoadTracker.getInstance();
             HashMap<TNetworkAddress, Long> assignedBytesPerHost = Maps.newHashMap();
             for (TScanRangeLocations scanRangeLocations : locations) {
-                // assign this scan range to the host w/ the fewest assigned bytes
-                Long minAssignedBytes = Long.MAX_VALUE;
+                List<TScanRangeLocation> candidates = scanRangeLocations.getLocations();
+                if (loadAware && candidates.size() > 1) {
+                    // fall back to the other replicas of the slow backends
+                    List<TScanRangeLocation> notSlowLocations = candidates.stream()
+                            .filter(location -> !loadTracker.isSlow(location.backend_id))
+                            .collect(Collectors.toList());
+                    if (!notSlowLocations.isEmpty()) {
+                        candidates = notSlowLocations;
+                    }
+                }
+
+                // assign this scan range to the host w/ the fewest assigned bytes,
+                // weighted by the load of the host if loadAware
+                double minCost = Double.MAX_VALUE;
                 TScanRangeLocation minLocation = null;
-                for (final TScanRangeLocation location : scanRangeLocations.getLocations()) {
+                for (final TScanRangeLocation location : candidates) {
                     Long assignedBytes = findOrInsert(assignedBytesPerHost, location.server, 0L);
-                    if (assignedBytes < minAssignedBytes) {
-                        minAssignedBytes = assignedBytes;
+                    double cost = assignedBytes;
+                    if (loadAware) {
+                        Backend backend = idToBackend.get(location.backend_id);
+                        int cpuCores = backend == null ? 1 : backend.getCpuCores();
+                        cost = (assignedBytes + 1) * (1 + loadTracker.getLoadScore(location.backend_id, cpuCores));
+                    }
+                    if (cost < minCost) {
+                        minCost = cost;
                         minLocation = location;
                     }
                 }
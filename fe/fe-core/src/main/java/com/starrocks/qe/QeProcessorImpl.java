@@ -75,8 +75,12 @@ public final class QeProcessorImpl implements QeProcessor {
 
     @Override
     public void unregisterQuery(TUniqueId queryId) {
-        if (coordinatorMap.remove(queryId) != null) {
+        QueryInfo info = coordinatorMap.remove(queryId);
+        if (info != null) {
             LOG.info("deregister query id {}", DebugUtil.printId(queryId));
+            if (info.getCoord() != null) {
+                info.getCoord().releaseBackendLoad();
+            }
         }
     }
 
@@ -22,6 +22,8 @@
 package com.starrocks.qe;
 
 
+import com.starrocks.common.util.ProfileManager;
+
 import java.io.Serializable;
 
 public class QueryDetail implements Serializable {
@@ -57,7 +59,9 @@ public class QueryDetail implements Serializable {
     private String user;
     private String errorMessage;
     private String explain;
-    private String profile;
+    // the profile compressed by ProfileManager, it's decompressed only when the query detail is requested,
+    // see QueryDetailAction
+    private transient byte[] compressedProfile;
     private String resourceGroupName;
 
     public QueryDetail() {
@@ -104,7 +108,7 @@ public class QueryDetail implements Serializable {
         queryDetail.user = this.user;
         queryDetail.errorMessage = this.errorMessage;
         queryDetail.explain = this.explain;
-        queryDetail.profile = this.profile;
+        queryDetail.compressedProfile = this.compressedProfile;
         return queryDetail;
     }
 
@@ -213,11 +217,19 @@ public class QueryDetail implements Serializable {
     }
 
     public String getProfile() {
-        return profile;
+        return compressedProfile == null ? null : ProfileManager.decompress(compressedProfile);
     }
 
     public void setProfile(String profile) {
-        this.profile = profile;
+        this.compressedProfile = profile == null ? null : ProfileManager.compress(profile);
+    }
+
+    public byte[] getCompressedProfile() {
+        return compressedProfile;
+    }
+
+    public void setCompressedProfile(byte[] compressedProfile) {
+        this.compressedProfile = compressedProfile;
     }
 
     public String getResourceGroupName() {
@@ -22,62 +22,211 @@
 package com.starrocks.qe;
 
 import com.google.common.collect.Lists;
+import com.starrocks.common.Config;
 
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 // Queue of QueryDetail.
 // It's used to collect queries for monitor.
+//
+// The query details are kept in a lock-free ring buffer ordered by event time, the queries starting and finishing
+// concurrently don't contend on a monitor, and getQueryDetailsAfterTime binary searches the position to start from.
+// A query detail is evicted when it's older than cacheTimeNS, or the ring holds query_detail_queue_max_num details,
+// or the details take more than query_detail_queue_max_bytes.
 public class QueryDetailQueue {
-    private static final LinkedList<QueryDetail> totalQueries = new LinkedList<QueryDetail>();
-
     //starrocks-manager pull queries every 1 second
     //metrics calculate query latency every 15 second
     //do not set cacheTime lower than these time
     private static final long cacheTimeNS = 30000000000L;
-    private static long latestMS;
-    private static long latestMSCnt;
 
-    public static synchronized void addAndRemoveTimeoutQueryDetail(QueryDetail queryDetail) {
+    // the fixed memory of a QueryDetail besides its strings
+    private static final long QUERY_DETAIL_BASE_BYTES = 256L;
+
+    private static final int capacity = Math.max(1, Config.query_detail_queue_max_num);
+    private static final AtomicReferenceArray<Entry> ring = new AtomicReferenceArray<>(capacity);
+    // the next sequence to write and the event time of the latest detail, updated together by CAS so the
+    // event times are in the order of the sequences
+    private static final AtomicReference<Cursor> tail = new AtomicReference<>(new Cursor(0, 0));
+    // the sequence of the oldest detail not evicted
+    private static final AtomicLong head = new AtomicLong(0);
+    private static final AtomicLong totalBytes = new AtomicLong(0);
+
+    private static class Cursor {
+        private final long seq;
+        private final long eventTime;
+
+        Cursor(long seq, long eventTime) {
+            this.seq = seq;
+            this.eventTime = eventTime;
+        }
+    }
+
+    private static class Entry {
+        private final long seq;
+        private final QueryDetail queryDetail;
+        private final long bytes;
+
+        Entry(long seq, QueryDetail queryDetail, long bytes) {
+            this.seq = seq;
+            this.queryDetail = queryDetail;
+            this.bytes = bytes;
+        }
+    }
+
+    public static void addAndRemoveTimeoutQueryDetail(QueryDetail queryDetail) {
+        if (!isSampled(queryDetail)) {
+            return;
+        }
         //set event time here to guarantee order
-        long now = getCurrentTimeNS();
-        queryDetail.setEventTime(now);
-        totalQueries.add(queryDetail);
-
-        Iterator<QueryDetail> it = totalQueries.iterator();
-        long deleteTime = now - cacheTimeNS;
-        while (it.hasNext()) {
-            QueryDetail detail = it.next();
-            if (detail.getEventTime() < deleteTime) {
-                it.remove();
-            } else {
+        //NOTICE: this is not precise nano seconds, but good enough to make eventTime in order and unique
+        Cursor cursor;
+        Cursor next;
+        do {
+            cursor = tail.get();
+            long now = System.currentTimeMillis() * 1000000;
+            next = new Cursor(cursor.seq + 1, Math.max(now, cursor.eventTime + 1));
+        } while (!tail.compareAndSet(cursor, next));
+        long seq = cursor.seq;
+        queryDetail.setEventTime(next.eventTime);
+
+        // the slot is reused only after its previous detail is evicted
+        while (head.get() <= seq - capacity) {
+            if (!evictHead(Long.MAX_VALUE)) {
+                Thread.yield();
+            }
+        }
+        long bytes = estimateBytes(queryDetail);
+        totalBytes.addAndGet(bytes);
+        ring.set(slot(seq), new Entry(seq, queryDetail, bytes));
+
+        long deleteTime = next.eventTime - cacheTimeNS;
+        while (totalBytes.get() > Config.query_detail_queue_max_bytes || isHeadExpired(deleteTime)) {
+            // always keep the latest detail
+            if (head.get() >= seq || !evictHead(deleteTime)) {
                 break;
             }
         }
     }
 
-    public static synchronized List<QueryDetail> getQueryDetailsAfterTime(long eventTime) {
+    public static List<QueryDetail> getQueryDetailsAfterTime(long eventTime) {
         List<QueryDetail> results = Lists.newArrayList();
-        for (QueryDetail queryDetail : totalQueries) {
-            if (queryDetail.getEventTime() > eventTime) {
-                results.add(queryDetail);
+        long end = tail.get().seq;
+        // the first sequence whose event time is after eventTime, the evicted details are before it
+        long low = head.get();
+        long high = end;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            Entry entry = ring.get(slot(mid));
+            if (isEvicted(entry, mid)) {
+                low = mid + 1;
+            } else if (entry == null || entry.seq < mid) {
+                // not written yet, all the details from here on are not visible
+                high = mid;
+            } else if (entry.queryDetail.getEventTime() <= eventTime) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (long seq = low; seq < end; seq++) {
+            Entry entry = ring.get(slot(seq));
+            if (isEvicted(entry, seq)) {
+                continue;
+            }
+            if (entry == null || entry.seq < seq) {
+                // the details are returned in order, the ones after an unwritten one are returned by the next call
+                break;
+            }
+            if (entry.queryDetail.getEventTime() > eventTime) {
+                results.add(entry.queryDetail);
             }
         }
         return results;
     }
 
-    //must get lock before call
-    //NOTICE: this is not precise nano seconds, but good enough to make eventTime in order and unique
-    private static long getCurrentTimeNS() {
-        long ms = System.currentTimeMillis();
-        if (ms == latestMS) {
-            latestMSCnt++;
-            return ms * 1000000 + latestMSCnt;
-        } else {
-            latestMS = ms;
-            latestMSCnt = 0;
-            return ms * 1000000;
+    private static boolean isHeadExpired(long deleteTime) {
+        Entry entry = ring.get(slot(head.get()));
+        return entry != null && entry.queryDetail.getEventTime() < deleteTime;
+    }
+
+    // Evict the oldest detail, returns false if it's not written yet or it's evicted by another thread
+    private static boolean evictHead(long deleteTime) {
+        long seq = head.get();
+        Entry entry = ring.get(slot(seq));
+        if (entry == null || entry.seq != seq) {
+            return false;
+        }
+        if (deleteTime != Long.MAX_VALUE && entry.queryDetail.getEventTime() >= deleteTime &&
+                totalBytes.get() <= Config.query_detail_queue_max_bytes) {
+            return false;
+        }
+        if (!head.compareAndSet(seq, seq + 1)) {
+            return false;
+        }
+        // release the detail, unless the slot is already reused by a new detail
+        ring.compareAndSet(slot(seq), entry, null);
+        totalBytes.addAndGet(-entry.bytes);
+        return true;
+    }
+
+    // The detail of seq is evicted if the slot is released or reused by a later detail. A released slot is
+    // not distinguishable from an unwritten one, it's evicted if seq is before the head.
+    private static boolean isEvicted(Entry entry, long seq) {
+        if (entry != null && entry.seq > seq) {
+            return true;
+        }
+        return (entry == null || entry.seq < seq) && seq < head.get();
+    }
+
+    private static int slot(long seq) {
+        return (int) (seq % capacity);
+    }
+
+    // Sample the queries by query id, so both the running and the finished details of a sampled query are kept
+    private static boolean isSampled(QueryDetail queryDetail) {
+        double ratio = Config.query_detail_sample_ratio;
+        if (ratio >= 1 || queryDetail.getQueryId() == null) {
+            return true;
+        }
+        return (queryDetail.getQueryId().hashCode() & Integer.MAX_VALUE) % 10000 < ratio * 10000;
+    }
+
+    private static long estimateBytes(QueryDetail queryDetail) {
+        byte[] compressedProfile = queryDetail.getCompressedProfile();
+        return QUERY_DETAIL_BASE_BYTES + (compressedProfile == null ? 0 : compressedProfile.length) +
+                2L * (length(queryDetail.getSql()) + length(queryDetail.getExplain()) +
+                length(queryDetail.getErrorMessage()));
+    }
+
+    private static int length(String str) {
+        return str == null ? 0 : str.length();
+    }
+
+    // for test, not thread safe
+    static void clear() {
+        for (int i = 0; i < capacity; i++) {
+            ring.set(i, null);
+        }
+        tail.set(new Cursor(0, 0));
+        head.set(0);
+        totalBytes.set(0);
+    }
+
+    static long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    // for test, the number of the details referenced by the ring
+    static int getRetainedNum() {
+        int num = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (ring.get(i) != null) {
+                num++;
+            }
         }
+        return num;
     }
-};
+}
@@ -0,0 +1,296 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.qe;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.starrocks.catalog.ResourceGroup;
+import com.starrocks.common.Config;
+import com.starrocks.common.UserException;
+import com.starrocks.common.util.DebugUtil;
+import com.starrocks.metric.MetricRepo;
+import com.starrocks.server.GlobalStateMgr;
+import com.starrocks.system.Frontend;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Admit the queries by the concurrency_limit of their resource groups and query_queue_concurrency_limit before
+ * deploying the fragments. A query exceeding the limits waits in the queue of its resource group rather than
+ * fails on BE. The pending queries of a resource group are admitted by query_queue_priority, then by arrival.
+ * When a slot is released, the resource group with the fewest running queries is served first, so a busy
+ * resource group can not starve the others.
+ *
+ * The limits are split among the alive FEs, every FE admits its share of the limits by itself,
+ * see {@link #shareOfFrontends(int)}.
+ */
+public class QueryQueueManager {
+    private static final Logger LOG = LogManager.getLogger(QueryQueueManager.class);
+
+    // the queries without resource group
+    private static final String NO_RESOURCE_GROUP = "";
+
+    // wake up the pending queries periodically to check if they are killed, or the limits and alive FEs are changed
+    private static final long CHECK_INTERVAL_MS = 1000L;
+
+    private static final QueryQueueManager INSTANCE = new QueryQueueManager();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // resource group name -> the number of running queries
+    private final Map<String, Integer> runningQueries = Maps.newHashMap();
+    // resource group name -> pending queries
+    private final Map<String, PriorityQueue<PendingQuery>> pendingQueries = Maps.newHashMap();
+    // admitted coordinator -> resource group name
+    private final Map<Coordinator, String> admittedQueries = Maps.newHashMap();
+    private int totalRunning = 0;
+    private long nextSeq = 0;
+
+    private static final Comparator<PendingQuery> PENDING_ORDER =
+            Comparator.comparingInt((PendingQuery query) -> query.priority).reversed()
+                    .thenComparingLong(query -> query.seq);
+
+    private class PendingQuery {
+        private final Coordinator coord;
+        private final String resourceGroupName;
+        // read every time, the concurrency_limit may be altered when the query is pending
+        private final ResourceGroup resourceGroup;
+        private final int priority;
+        private final long seq;
+        private final long startTime;
+        private final Condition admittedCond;
+        private boolean admitted = false;
+
+        PendingQuery(Coordinator coord, String resourceGroupName, ResourceGroup resourceGroup, int priority) {
+            this.coord = coord;
+            this.resourceGroupName = resourceGroupName;
+            this.resourceGroup = resourceGroup;
+            this.priority = priority;
+            this.seq = nextSeq++;
+            this.startTime = System.currentTimeMillis();
+            this.admittedCond = lock.newCondition();
+        }
+
+        int getConcurrencyLimit() {
+            Integer limit = resourceGroup == null ? null : resourceGroup.getConcurrencyLimit();
+            return limit == null ? 0 : limit;
+        }
+    }
+
+    public static QueryQueueManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Wait until the query is admitted, the caller must call {@link #release(Coordinator)} when the query finishes.
+     *
+     * @throws UserException if the query is not admitted in query_queue_pending_timeout_second or it is killed
+     */
+    public void waitAdmitted(ConnectContext connectContext, Coordinator coord) throws UserException {
+        if (!Config.enable_query_queue || connectContext == null) {
+            return;
+        }
+        ResourceGroup resourceGroup = coord.resourceGroup;
+        String resourceGroupName = resourceGroup == null || resourceGroup.getName() == null ?
+                NO_RESOURCE_GROUP : resourceGroup.getName();
+        int concurrencyLimit = resourceGroup == null || resourceGroup.getConcurrencyLimit() == null ?
+                0 : resourceGroup.getConcurrencyLimit();
+        if (concurrencyLimit <= 0 && Config.query_queue_concurrency_limit <= 0) {
+            return;
+        }
+
+        long timeoutMs = Math.min(Config.query_queue_pending_timeout_second,
+                connectContext.getSessionVariable().getQueryTimeoutS()) * 1000L;
+        lock.lock();
+        PendingQuery query = new PendingQuery(coord, resourceGroupName, resourceGroup,
+                connectContext.getSessionVariable().getQueryQueuePriority());
+        try {
+            PriorityQueue<PendingQuery> queue = pendingQueries.get(resourceGroupName);
+            if ((queue == null || queue.isEmpty()) && canAdmit(query)) {
+                admit(query);
+                return;
+            }
+            pendingQueries.computeIfAbsent(resourceGroupName, k -> new PriorityQueue<>(PENDING_ORDER)).add(query);
+
+            long deadline = query.startTime + timeoutMs;
+            while (!query.admitted) {
+                long remainMs = deadline - System.currentTimeMillis();
+                if (connectContext.isKilled()) {
+                    removePending(query);
+                    throw new UserException("query is killed when waiting in query queue");
+                }
+                if (remainMs <= 0) {
+                    removePending(query);
+                    if (MetricRepo.isInit) {
+                        MetricRepo.COUNTER_QUERY_QUEUE_TIMEOUT.increase(1L);
+                    }
+                    throw new UserException(String.format("query is not admitted in %d seconds, resource group: %s",
+                            timeoutMs / 1000, resourceGroupName));
+                }
+                if (!query.admittedCond.await(Math.min(remainMs, CHECK_INTERVAL_MS), TimeUnit.MILLISECONDS)) {
+                    // the limits may be raised or some FEs may be down, without any query released
+                    admitPendingQueries();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // it may be admitted just before interrupted, then it runs as usual
+            if (!query.admitted) {
+                removePending(query);
+                throw new UserException("interrupted when waiting in query queue");
+            }
+        } finally {
+            lock.unlock();
+        }
+        long waitMs = System.currentTimeMillis() - query.startTime;
+        if (MetricRepo.isInit) {
+            MetricRepo.HISTO_QUERY_QUEUE_WAIT_TIME.update(waitMs);
+        }
+        LOG.debug("query {} is admitted after waiting {}ms in resource group [{}]",
+                DebugUtil.printId(connectContext.getExecutionId()), waitMs, resourceGroupName);
+    }
+
+    /**
+     * Release the slot of an admitted query, it does nothing if the query is not admitted.
+     */
+    public void release(Coordinator coord) {
+        lock.lock();
+        try {
+            String resourceGroupName = admittedQueries.remove(coord);
+            if (resourceGroupName == null) {
+                return;
+            }
+            runningQueries.merge(resourceGroupName, -1, Integer::sum);
+            totalRunning--;
+            admitPendingQueries();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // the query leaving the queue may be the head blocking the other queries
+    private void removePending(PendingQuery query) {
+        pendingQueries.get(query.resourceGroupName).remove(query);
+        admitPendingQueries();
+    }
+
+    private void admitPendingQueries() {
+        while (true) {
+            PendingQuery next = null;
+            for (PriorityQueue<PendingQuery> queue : pendingQueries.values()) {
+                PendingQuery head = queue.peek();
+                if (head == null || !canAdmit(head)) {
+                    continue;
+                }
+                if (next == null || getRunning(head.resourceGroupName) < getRunning(next.resourceGroupName)) {
+                    next = head;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            pendingQueries.get(next.resourceGroupName).poll();
+            admit(next);
+            next.admittedCond.signal();
+        }
+    }
+
+    private boolean canAdmit(PendingQuery query) {
+        int globalLimit = Config.query_queue_concurrency_limit;
+        if (globalLimit > 0 && totalRunning >= shareOfFrontends(globalLimit)) {
+            return false;
+        }
+        int groupLimit = query.getConcurrencyLimit();
+        return groupLimit <= 0 || getRunning(query.resourceGroupName) < shareOfFrontends(groupLimit);
+    }
+
+    private void admit(PendingQuery query) {
+        query.admitted = true;
+        admittedQueries.put(query.coord, query.resourceGroupName);
+        runningQueries.merge(query.resourceGroupName, 1, Integer::sum);
+        totalRunning++;
+    }
+
+    private int getRunning(String resourceGroupName) {
+        return runningQueries.getOrDefault(resourceGroupName, 0);
+    }
+
+    /**
+     * The share of a positive limit admitted by this FE, so that the shares of all the alive FEs sum up to the limit.
+     * The alive FEs are ordered by their names, each of them gets limit / aliveNum, and the first limit % aliveNum
+     * of them get one more. If the limit is less than the number of the alive FEs, some FEs get 0, and their
+     * queries wait in the queue until the limit is raised or some FEs are down.
+     */
+    @VisibleForTesting
+    int shareOfFrontends(int limit) {
+        List<Frontend> frontends = GlobalStateMgr.getCurrentState().getFrontends(null);
+        if (frontends == null) {
+            return limit;
+        }
+        List<String> aliveNames = frontends.stream().filter(Frontend::isAlive).map(Frontend::getNodeName)
+                .sorted().collect(Collectors.toList());
+        if (aliveNames.isEmpty()) {
+            return limit;
+        }
+        int index = aliveNames.indexOf(GlobalStateMgr.getCurrentState().getNodeName());
+        int share = limit / aliveNames.size();
+        // this FE gets the floor share if it's not alive in its own view yet
+        return index >= 0 && index < limit % aliveNames.size() ? share + 1 : share;
+    }
+
+    public int getPendingQueryNum() {
+        lock.lock();
+        try {
+            return pendingQueries.values().stream().mapToInt(PriorityQueue::size).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRunningQueryNum() {
+        lock.lock();
+        try {
+            return totalRunning;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns [ResourceGroup, Running, Pending, MaxPendingTimeMs] of every resource group.
+     */
+    public List<List<String>> getQueueInfos() {
+        long now = System.currentTimeMillis();
+        List<List<String>> infos = Lists.newArrayList();
+        lock.lock();
+        try {
+            Map<String, Integer> groups = Maps.newTreeMap();
+            runningQueries.forEach((name, running) -> groups.put(name, running));
+            pendingQueries.keySet().forEach(name -> groups.putIfAbsent(name, 0));
+            for (Map.Entry<String, Integer> entry : groups.entrySet()) {
+                PriorityQueue<PendingQuery> queue = pendingQueries.get(entry.getKey());
+                int pendingNum = queue == null ? 0 : queue.size();
+                long maxPendingMs = queue == null ? 0 :
+                        queue.stream().mapToLong(query -> now - query.startTime).max().orElse(0);
+                if (entry.getValue() == 0 && pendingNum == 0) {
+                    continue;
+                }
+                infos.add(ImmutableList.of(entry.getKey(), String.valueOf(entry.getValue()),
+                        String.valueOf(pendingNum), String.valueOf(maxPendingMs)));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return infos;
+    }
+}
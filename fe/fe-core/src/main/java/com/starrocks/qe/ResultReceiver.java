@@ -22,7 +22,11 @@
 package com.starrocks.qe;
 
 import com.baidu.brpc.RpcContext;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Queues;
+import com.starrocks.common.Config;
 import com.starrocks.common.Status;
+import com.starrocks.common.ThreadPoolManager;
 import com.starrocks.common.util.DebugUtil;
 import com.starrocks.metric.MetricRepo;
 import com.starrocks.proto.PFetchDataRequest;
@@ -41,22 +45,68 @@ import org.apache.logging.log4j.Logger;
 import org.apache.thrift.TDeserializer;
 import org.apache.thrift.TException;
 
+import java.nio.ByteBuffer;
+import java.util.Queue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ResultReceiver {
     private static final Logger LOG = LogManager.getLogger(ResultReceiver.class);
-    private boolean isDone = false;
-    private boolean isCancel = false;
+
+    // Fetch the result batches of the queries in the background, the number of threads limits the number of
+    // queries fetching results concurrently. The pool has no queue, so a query is rejected when all the threads
+    // are busy and fetches its results synchronously, instead of waiting for the prefetching of other queries.
+    private static final ThreadPoolExecutor PREFETCH_POOL = ThreadPoolManager.newDaemonThreadPool(
+            0, Config.result_prefetch_thread_num, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            new ThreadPoolExecutor.AbortPolicy(), "result-prefetch-pool", true);
+    // the bytes of the result batches prefetched but not consumed yet of all the queries
+    private static final AtomicLong PREFETCHED_BYTES = new AtomicLong(0L);
+    // wake up the consumer periodically to check if the query is cancelled
+    private static final long CHECK_INTERVAL_MS = 1000L;
+
+    private volatile boolean isDone = false;
+    private volatile boolean isCancel = false;
     private long packetIdx = 0;
     private final long timeoutTs;
+    private final int timeoutS;
     private final TNetworkAddress address;
     private final PUniqueId finstId;
     private final Long backendId;
     private Thread currentThread;
 
+    // The result batches fetched in advance by the prefetch task, bounded by result_prefetch_batch_num
+    // and result_prefetch_max_bytes, the prefetch task waits when the queue is full.
+    private final int prefetchBatchNum;
+    private final long prefetchMaxBytes;
+    private final ReentrantLock prefetchLock = new ReentrantLock();
+    private final Condition notEmpty = prefetchLock.newCondition();
+    private final Condition notFull = prefetchLock.newCondition();
+    private final Queue<FetchResult> prefetchQueue = Queues.newArrayDeque();
+    private long prefetchQueueBytes = 0;
+    private boolean prefetchStarted = false;
+    private boolean isPrefetching = false;
+    private boolean prefetchFinished = false;
+
+    private static class FetchResult {
+        private final RowBatch rowBatch;
+        private final Status status;
+        private final long bytes;
+
+        FetchResult(RowBatch rowBatch, Status status, long bytes) {
+            this.rowBatch = rowBatch;
+            this.status = status;
+            this.bytes = bytes;
+        }
+    }
+
     public ResultReceiver(TUniqueId tid, Long backendId, TNetworkAddress address, int timeoutMs) {
         this.finstId = new PUniqueId();
         this.finstId.hi = tid.hi;
@@ -64,9 +114,130 @@ public class ResultReceiver {
         this.backendId = backendId;
         this.address = address;
         this.timeoutTs = System.currentTimeMillis() + timeoutMs;
+        this.timeoutS = timeoutMs / 1000;
+        this.prefetchBatchNum = Config.result_prefetch_batch_num;
+        this.prefetchMaxBytes = Config.result_prefetch_max_bytes;
+    }
+
+    public static long getPrefetchedBytes() {
+        return PREFETCHED_BYTES.get();
     }
 
+    @VisibleForTesting
+    static ThreadPoolExecutor getPrefetchPool() {
+        return PREFETCH_POOL;
+    }
+
+    /**
+     * Get the next result batch. If prefetching is enabled, the next batches are fetched in the background
+     * while the current batch is sent to the client.
+     */
     public RowBatch getNext(Status status) throws TException {
+        if (prefetchBatchNum <= 0) {
+            return fetchNext(status);
+        }
+        if (!prefetchStarted) {
+            prefetchStarted = true;
+            try {
+                PREFETCH_POOL.submit(this::prefetch);
+                isPrefetching = true;
+            } catch (RejectedExecutionException e) {
+                LOG.info("too many queries prefetching results, fetch results synchronously, finstId={}",
+                        DebugUtil.printId(finstId));
+            }
+        }
+        if (!isPrefetching) {
+            return fetchNext(status);
+        }
+
+        FetchResult result;
+        prefetchLock.lock();
+        try {
+            while (prefetchQueue.isEmpty()) {
+                if (isCancel) {
+                    status.setStatus(Status.CANCELLED);
+                    return null;
+                }
+                if (prefetchFinished) {
+                    return fetchNext(status);
+                }
+                notEmpty.await(CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+            result = prefetchQueue.poll();
+            prefetchQueueBytes -= result.bytes;
+            PREFETCHED_BYTES.addAndGet(-result.bytes);
+            notFull.signal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status.setStatus(Status.CANCELLED);
+            return null;
+        } finally {
+            prefetchLock.unlock();
+        }
+        if (!result.status.ok()) {
+            status.setStatus(result.status);
+        }
+        return result.rowBatch;
+    }
+
+    // Fetch the batches until eos or error, and put them into prefetchQueue.
+    private void prefetch() {
+        while (true) {
+            prefetchLock.lock();
+            try {
+                // stop waiting when the query times out, in case the consumer never comes back
+                while (!isCancel && !prefetchQueue.isEmpty() && System.currentTimeMillis() < timeoutTs &&
+                        (prefetchQueue.size() >= prefetchBatchNum || prefetchQueueBytes >= prefetchMaxBytes)) {
+                    notFull.await(CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                isCancel = true;
+            } finally {
+                prefetchLock.unlock();
+            }
+
+            Status status = new Status();
+            RowBatch rowBatch;
+            try {
+                rowBatch = isCancel ? null : fetchNext(status);
+            } catch (Throwable e) {
+                LOG.warn("prefetch result exception, finstId={}", DebugUtil.printId(finstId), e);
+                status.setStatus("failed to fetch result: " + e.getMessage());
+                rowBatch = null;
+            }
+            if (isCancel) {
+                status.setStatus(Status.CANCELLED);
+            }
+
+            boolean finished = rowBatch == null || !status.ok() || rowBatch.isEos() || isDone;
+            long bytes = 0;
+            if (rowBatch != null && rowBatch.getBatch() != null && rowBatch.getBatch().getRows() != null) {
+                for (ByteBuffer row : rowBatch.getBatch().getRows()) {
+                    bytes += row.remaining();
+                }
+            }
+            prefetchLock.lock();
+            try {
+                if (isCancel) {
+                    // cancel() has released the prefetched batches, the batch is not accounted any more
+                    bytes = 0;
+                }
+                prefetchQueue.add(new FetchResult(rowBatch, status, bytes));
+                prefetchQueueBytes += bytes;
+                PREFETCHED_BYTES.addAndGet(bytes);
+                prefetchFinished = finished;
+                notEmpty.signal();
+            } finally {
+                prefetchLock.unlock();
+            }
+            if (finished) {
+                return;
+            }
+        }
+    }
+
+    private RowBatch fetchNext(Status status) throws TException {
         if (isDone) {
             return null;
         }
@@ -139,16 +310,14 @@ public class ResultReceiver {
             if (e.getMessage().contains("time out")) {
                 // if timeout, we set error code to TIMEOUT, and it will not retry querying.
                 status.setStatus(new Status(TStatusCode.TIMEOUT,
-                        String.format("Query exceeded time limit of %d seconds",
-                                ConnectContext.get().getSessionVariable().getQueryTimeoutS())));
+                        String.format("Query exceeded time limit of %d seconds", timeoutS)));
             } else {
                 status.setRpcStatus(e.getMessage());
                 SimpleScheduler.addToBlacklist(backendId);
             }
         } catch (TimeoutException e) {
             LOG.warn("fetch result timeout, finstId={}", DebugUtil.printId(finstId), e);
-            status.setStatus(String.format("Query exceeded time limit of %d seconds",
-                    ConnectContext.get().getSessionVariable().getQueryTimeoutS()));
+            status.setStatus(String.format("Query exceeded time limit of %d seconds", timeoutS));
             if (MetricRepo.isInit) {
                 MetricRepo.COUNTER_QUERY_TIMEOUT.increase(1L);
             }
@@ -166,6 +335,17 @@ public class ResultReceiver {
 
     public void cancel() {
         isCancel = true;
+        prefetchLock.lock();
+        try {
+            // the prefetched batches are not consumed any more
+            PREFETCHED_BYTES.addAndGet(-prefetchQueueBytes);
+            prefetchQueueBytes = 0;
+            prefetchQueue.clear();
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            prefetchLock.unlock();
+        }
         synchronized (this) {
             if (currentThread != null) {
                 // TODO(cmy): we cannot interrupt this thread, or we may throw
@@ -0,0 +1,70 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.qe;
+
+import com.google.common.base.Preconditions;
+import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+import org.apache.thrift.TFieldIdEnum;
+import org.apache.thrift.TSerializer;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TType;
+import org.apache.thrift.transport.TIOStreamTransport;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+/**
+ * The bytes of a thrift struct serialized by TBinaryProtocol, which are shared by all the requests that contain
+ * the struct, such as the descriptor table of a query and the common fragment of a plan fragment.
+ * <p>
+ * TBinaryProtocol writes a struct as its fields followed by a stop byte, and the fields can be read in any order.
+ * So a request is serialized without the shared fields, and the shared fields are appended to it as they are,
+ * see {@link #withFields}. The result is deserialized to the same request as serializing the whole request.
+ */
+class SerializedThriftStruct {
+    private final byte[] bytes;
+
+    SerializedThriftStruct(TBase<?, ?> struct) throws TException {
+        this(new TSerializer(new TBinaryProtocol.Factory()).serialize(struct));
+    }
+
+    private SerializedThriftStruct(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    int getSize() {
+        return bytes.length;
+    }
+
+    /**
+     * Serialize the struct with the given struct fields, which must not be set in the struct.
+     */
+    static <F extends TFieldIdEnum> SerializedThriftStruct withFields(TBase<?, F> struct,
+                                                                   Map<F, SerializedThriftStruct> fields)
+            throws TException {
+        byte[] structBytes = new TSerializer(new TBinaryProtocol.Factory()).serialize(struct);
+        int size = structBytes.length;
+        for (SerializedThriftStruct field : fields.values()) {
+            size += field.getSize() + 3;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        // without the stop byte
+        out.write(structBytes, 0, structBytes.length - 1);
+        TBinaryProtocol protocol = new TBinaryProtocol(new TIOStreamTransport(out));
+        for (Map.Entry<F, SerializedThriftStruct> entry : fields.entrySet()) {
+            F fieldId = entry.getKey();
+            Preconditions.checkState(!struct.isSet(fieldId), "field %s is already set", fieldId.getFieldName());
+            protocol.writeFieldBegin(new TField(fieldId.getFieldName(), TType.STRUCT, fieldId.getThriftFieldId()));
+            out.write(entry.getValue().bytes, 0, entry.getValue().bytes.length);
+            protocol.writeFieldEnd();
+        }
+        protocol.writeFieldStop();
+        return new SerializedThriftStruct(out.toByteArray());
+    }
+}
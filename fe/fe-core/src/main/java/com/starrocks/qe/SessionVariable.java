@@ -164,6 +164,9 @@ public class SessionVariable implements Serializable, Writable, Cloneable {
 
     public static final String RESOURCE_GROUP_ID = "workgroup_id";
 
+    // The priority of the query waiting in the query queue of its resource group, the bigger the earlier admitted
+    public static final String QUERY_QUEUE_PRIORITY = "query_queue_priority";
+
     // hash join right table push down
     public static final String HASH_JOIN_PUSH_DOWN_RIGHT_TABLE = "hash_join_push_down_right_table";
 
@@ -238,6 +241,9 @@ public class SessionVariable implements Serializable, Writable, Cloneable {
 
     public static final String ENABLE_HIVE_COLUMN_STATS = "enable_hive_column_stats";
 
+    // push down group by aggregations to elasticsearch as composite aggregations
+    public static final String ENABLE_ES_AGGREGATION_PUSH_DOWN = "enable_es_aggregation_push_down";
+
     public static final String RUNTIME_FILTER_SCAN_WAIT_TIME = "runtime_filter_scan_wait_time";
     public static final String RUNTIME_FILTER_ON_EXCHANGE_NODE = "runtime_filter_on_exchange_node";
     public static final String ENABLE_OPTIMIZER_TRACE_LOG = "enable_optimizer_trace_log";
@@ -457,6 +463,9 @@ public class SessionVariable implements Serializable, Writable, Cloneable {
     @VariableMgr.VarAttr(name = RESOURCE_GROUP_ID, flag = VariableMgr.INVISIBLE)
     private int resourceGroupId = 0;
 
+    @VariableMgr.VarAttr(name = QUERY_QUEUE_PRIORITY)
+    private int queryQueuePriority = 0;
+
     @VariableMgr.VarAttr(name = ENABLE_INSERT_STRICT)
     private boolean enableInsertStrict = true;
 
@@ -575,6 +584,9 @@ public class SessionVariable implements Serializable, Writable, Cloneable {
     @VariableMgr.VarAttr(name = ENABLE_HIVE_COLUMN_STATS)
     private boolean enableHiveColumnStats = true;
 
+    @VariableMgr.VarAttr(name = ENABLE_ES_AGGREGATION_PUSH_DOWN)
+    private boolean enableEsAggregationPushDown = true;
+
     @VariableMgr.VarAttr(name = JOIN_IMPLEMENTATION_MODE)
     private String joinImplementationMode = "hash"; // auto, merge, hash
 
@@ -633,6 +645,14 @@ public class SessionVariable implements Serializable, Writable, Cloneable {
         return enableHiveColumnStats;
     }
 
+    public boolean isEnableEsAggregationPushDown() {
+        return enableEsAggregationPushDown;
+    }
+
+    public void setEnableEsAggregationPushDown(boolean enableEsAggregationPushDown) {
+        this.enableEsAggregationPushDown = enableEsAggregationPushDown;
+    }
+
     public long getMaxExecMemByte() {
         return maxExecMemByte;
     }
@@ -707,6 +727,14 @@ public class SessionVariable implements Serializable, Writable, Cloneable {
         return resourceGroup;
     }
 
+    public int getQueryQueuePriority() {
+        return queryQueuePriority;
+    }
+
+    public void setQueryQueuePriority(int queryQueuePriority) {
+        this.queryQueuePriority = queryQueuePriority;
+    }
+
     public void setResourceGroup(String resourceGroup) {
         this.resourceGroup = resourceGroup;
     }
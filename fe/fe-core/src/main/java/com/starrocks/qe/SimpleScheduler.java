@@ -22,7 +22,7 @@
 package com.starrocks.qe;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.starrocks.common.Config;
 import com.starrocks.common.Reference;
@@ -38,7 +38,9 @@ import org.apache.logging.log4j.Logger;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -51,7 +53,12 @@ public class SimpleScheduler {
     private static AtomicLong nextComputeNodeId = new AtomicLong(0);
     private static final Logger LOG = LogManager.getLogger(SimpleScheduler.class);
 
+    // backend id -> the remaining retry times, only accessed with the lock held
     private static Map<Long, Integer> blacklistBackends = Maps.newHashMap();
+    // the ids in blacklistBackends, republished with the lock held whenever they change,
+    // so choosing the hosts reads the blacklist without the lock
+    private static final AtomicReference<ImmutableSet<Long>> blacklistSnapshot =
+            new AtomicReference<>(ImmutableSet.of());
     private static Lock lock = new ReentrantLock();
     private static UpdateBlacklistThread updateBlacklistThread;
 
@@ -68,28 +75,24 @@ public class SimpleScheduler {
             return null;
         }
         LOG.debug("getHost backendID={}, backendSize={}", backendId, backends.size());
+        Set<Long> blacklist = blacklistSnapshot.get();
         Backend backend = backends.get(backendId);
-        lock.lock();
-        try {
-            if (backend != null && backend.isAlive() && !blacklistBackends.containsKey(backendId)) {
-                backendIdRef.setRef(backendId);
-                return new TNetworkAddress(backend.getHost(), backend.getBePort());
-            } else {
-                for (TScanRangeLocation location : locations) {
-                    if (location.backend_id == backendId) {
-                        continue;
-                    }
-                    // choose the first alive backend(in analysis stage, the locations are random)
-                    Backend candidateBackend = backends.get(location.backend_id);
-                    if (candidateBackend != null && candidateBackend.isAlive()
-                            && !blacklistBackends.containsKey(location.backend_id)) {
-                        backendIdRef.setRef(location.backend_id);
-                        return new TNetworkAddress(candidateBackend.getHost(), candidateBackend.getBePort());
-                    }
+        if (backend != null && backend.isAlive() && !blacklist.contains(backendId)) {
+            backendIdRef.setRef(backendId);
+            return new TNetworkAddress(backend.getHost(), backend.getBePort());
+        } else {
+            for (TScanRangeLocation location : locations) {
+                if (location.backend_id == backendId) {
+                    continue;
+                }
+                // choose the first alive backend(in analysis stage, the locations are random)
+                Backend candidateBackend = backends.get(location.backend_id);
+                if (candidateBackend != null && candidateBackend.isAlive()
+                        && !blacklist.contains(location.backend_id)) {
+                    backendIdRef.setRef(location.backend_id);
+                    return new TNetworkAddress(candidateBackend.getHost(), candidateBackend.getBePort());
                 }
             }
-        } finally {
-            lock.unlock();
         }
         // no backend returned
         return null;
@@ -97,127 +100,51 @@ public class SimpleScheduler {
 
     public static TNetworkAddress getComputeNodeHost(ImmutableMap<Long, ComputeNode> computenodes,
                                                      Reference<Long> computeNodeIdRef) {
-        if (computenodes == null) {
-            return null;
-        }
-        int computeNodedSize = computenodes.size();
-        if (computeNodedSize == 0) {
+        Map.Entry<Long, ComputeNode> entry = chooseNode(computenodes, nextComputeNodeHostId);
+        if (entry == null) {
+            // no compute node returned
             return null;
         }
-        long id = nextComputeNodeHostId.getAndIncrement() % computeNodedSize;
-
-        List<Long> idToComputeNodeId = Lists.newArrayList();
-        idToComputeNodeId.addAll(computenodes.keySet());
-        Long computeNodeId = idToComputeNodeId.get((int) id);
-        ComputeNode computeNode = computenodes.get(computeNodeId);
-
-        if (computeNode != null && computeNode.isAlive() && !blacklistBackends.containsKey(computeNodeId)) {
-            computeNodeIdRef.setRef(computeNodeId);
-            return new TNetworkAddress(computeNode.getHost(), computeNode.getBePort());
-        } else {
-            long candidateId = id + 1;  // get next candidate id
-            for (int i = 0; i < computeNodedSize; i++) {
-                LOG.debug("i={} candidatedId={}", i, candidateId);
-                if (candidateId >= computeNodedSize) {
-                    candidateId = 0;
-                }
-                if (candidateId == id) {
-                    continue;
-                }
-                Long candidateComputeNodeId = idToComputeNodeId.get((int) candidateId);
-                LOG.debug("candidatebackendId={}", candidateComputeNodeId);
-                ComputeNode candidateBackend = computenodes.get(candidateComputeNodeId);
-                if (candidateBackend != null && candidateBackend.isAlive()
-                        && !blacklistBackends.containsKey(candidateComputeNodeId)) {
-                    computeNodeIdRef.setRef(candidateComputeNodeId);
-                    return new TNetworkAddress(candidateBackend.getHost(), candidateBackend.getBePort());
-                }
-                candidateId = nextComputeNodeId.getAndIncrement() % computeNodedSize;
-            }
-        }
-        // no compute node returned
-        return null;
+        computeNodeIdRef.setRef(entry.getKey());
+        return new TNetworkAddress(entry.getValue().getHost(), entry.getValue().getBePort());
     }
 
     public static TNetworkAddress getBackendHost(ImmutableMap<Long, Backend> backends,
                                           Reference<Long> backendIdRef) {
-        if (backends == null) {
+        Map.Entry<Long, Backend> entry = chooseNode(backends, nextBackendHostId);
+        if (entry == null) {
+            // no backend returned
             return null;
         }
-        int backendSize = backends.size();
-        if (backendSize == 0) {
-            return null;
-        }
-        long id = nextBackendHostId.getAndIncrement() % backendSize;
-
-        List<Long> idToBackendId = Lists.newArrayList();
-        idToBackendId.addAll(backends.keySet());
-        Long backendId = idToBackendId.get((int) id);
-        Backend backend = backends.get(backendId);
-
-        if (backend != null && backend.isAlive() && !blacklistBackends.containsKey(backendId)) {
-            backendIdRef.setRef(backendId);
-            return new TNetworkAddress(backend.getHost(), backend.getBePort());
-        } else {
-            long candidateId = id + 1;  // get next candidate id
-            for (int i = 0; i < backendSize; i++) {
-                LOG.debug("i={} candidatedId={}", i, candidateId);
-                if (candidateId >= backendSize) {
-                    candidateId = 0;
-                }
-                if (candidateId == id) {
-                    continue;
-                }
-                Long candidatebackendId = idToBackendId.get((int) candidateId);
-                LOG.debug("candidatebackendId={}", candidatebackendId);
-                Backend candidateBackend = backends.get(candidatebackendId);
-                if (candidateBackend != null && candidateBackend.isAlive()
-                        && !blacklistBackends.containsKey(candidatebackendId)) {
-                    backendIdRef.setRef(candidatebackendId);
-                    return new TNetworkAddress(candidateBackend.getHost(), candidateBackend.getBePort());
-                }
-                candidateId = nextBackendHostId.getAndIncrement() % backendSize;
-            }
-        }
-        // no backend returned
-        return null;
+        backendIdRef.setRef(entry.getKey());
+        return new TNetworkAddress(entry.getValue().getHost(), entry.getValue().getBePort());
     }
 
     public static ComputeNode getComputeNode(ImmutableMap<Long, ComputeNode> computeNodes) {
-        if (computeNodes == null) {
+        Map.Entry<Long, ComputeNode> entry = chooseNode(computeNodes, nextComputeNodeId);
+        return entry == null ? null : entry.getValue();
+    }
+
+    // Choose the nodes in turn, skip the dead and blacklisted ones.
+    // The entries of the immutable map are indexed in place, so nothing is copied for each choice.
+    private static <T extends ComputeNode> Map.Entry<Long, T> chooseNode(ImmutableMap<Long, T> nodes,
+                                                                         AtomicLong nextId) {
+        if (nodes == null) {
             return null;
         }
-        int computeNodeSize = computeNodes.size();
-        if (computeNodeSize == 0) {
+        int size = nodes.size();
+        if (size == 0) {
             return null;
         }
-        long id = nextComputeNodeId.getAndIncrement() % computeNodeSize;
-
-        List<Long> idToComputeNodeId = Lists.newArrayList();
-        idToComputeNodeId.addAll(computeNodes.keySet());
-        Long computeNodeId = idToComputeNodeId.get((int) id);
-        ComputeNode computeNode = computeNodes.get(computeNodeId);
-
-        if (computeNode != null && computeNode.isAlive() && !blacklistBackends.containsKey(computeNodeId)) {
-            return computeNode;
-        } else {
-            long candidateId = nextComputeNodeId.getAndIncrement() % computeNodeSize;  // get next candidate id
-            for (int i = 0; i < computeNodeSize; i++) {
-                LOG.debug("i={} candidatedId={}", i, candidateId);
-                if (candidateId == id) {
-                    continue;
-                }
-                Long candidatebackendId = idToComputeNodeId.get((int) candidateId);
-                LOG.debug("candidatebackendId={}", candidatebackendId);
-                ComputeNode candidateBackend = computeNodes.get(candidatebackendId);
-                if (candidateBackend != null && candidateBackend.isAlive()
-                        && !blacklistBackends.containsKey(candidatebackendId)) {
-                    return candidateBackend;
-                }
-                candidateId = nextComputeNodeId.getAndIncrement() % computeNodeSize;
+        Set<Long> blacklist = blacklistSnapshot.get();
+        List<Map.Entry<Long, T>> entries = nodes.entrySet().asList();
+        int start = (int) Math.floorMod(nextId.getAndIncrement(), (long) size);
+        for (int i = 0; i < size; i++) {
+            Map.Entry<Long, T> entry = entries.get((start + i) % size);
+            if (entry.getValue() != null && entry.getValue().isAlive() && !blacklist.contains(entry.getKey())) {
+                return entry;
             }
         }
-        // no backend returned
         return null;
     }
 
@@ -229,6 +156,7 @@ public class SimpleScheduler {
         try {
             int tryTime = Config.heartbeat_timeout_second + 1;
             blacklistBackends.put(backendID, tryTime);
+            publishBlacklist();
             LOG.warn("add black list " + backendID);
         } finally {
             lock.unlock();
@@ -236,11 +164,13 @@ public class SimpleScheduler {
     }
 
     public static boolean isInBlacklist(long backendId) {
-        lock.lock();
-        try {
-            return blacklistBackends.containsKey(backendId);
-        } finally {
-            lock.unlock();
+        return blacklistSnapshot.get().contains(backendId);
+    }
+
+    // must hold the lock
+    private static void publishBlacklist() {
+        if (!blacklistSnapshot.get().equals(blacklistBackends.keySet())) {
+            blacklistSnapshot.set(ImmutableSet.copyOf(blacklistBackends.keySet()));
         }
     }
 
@@ -292,6 +222,7 @@ public class SimpleScheduler {
                                 }
                             }
                         }
+                        publishBlacklist();
                     } finally {
                         lock.unlock();
                         LOG.debug("UpdateBlacklistThread retry end");
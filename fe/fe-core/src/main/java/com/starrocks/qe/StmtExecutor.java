@@ -135,6 +135,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -423,6 +424,9 @@ public class StmtExecutor {
                         }
                     } finally {
                         QeProcessorImpl.INSTANCE.unregisterQuery(context.getExecutionId());
+                        if (coord != null) {
+                            QueryQueueManager.getInstance().release(coord);
+                        }
                     }
                 }
             } else if (parsedStmt instanceof SetStmt) {
@@ -598,11 +602,10 @@ public class StmtExecutor {
         profile.getChildMap().get("Summary")
                 .addInfoString(ProfileManager.PROFILE_TIME,
                         DebugUtil.getPrettyStringMs(profileEndTime - profileBeginTime));
-        StringBuilder builder = new StringBuilder();
-        profile.prettyPrint(builder, "");
-        String profileContent = ProfileManager.getInstance().pushProfile(profile);
+        byte[] compressedProfile = ProfileManager.getInstance().pushProfile(profile);
         if (context.getQueryDetail() != null) {
-            context.getQueryDetail().setProfile(profileContent);
+            // share the compressed profile with ProfileManager instead of keeping another copy of the text
+            context.getQueryDetail().setCompressedProfile(compressedProfile);
         }
     }
 
@@ -725,7 +728,7 @@ public class StmtExecutor {
         QeProcessorImpl.INSTANCE.registerQuery(context.getExecutionId(),
                 new QeProcessorImpl.QueryInfo(context, originStmt.originStmt, coord));
 
-        coord.exec();
+        coord.execQuery();
 
         // send result
         // 1. If this is a query with OUTFILE clause, eg: select * from tbl1 into outfile xxx,
@@ -744,23 +747,29 @@ public class StmtExecutor {
             isOutfileQuery = ((QueryStatement) queryStmt).hasOutFileClause();
         }
         boolean isSendFields = false;
+        // the time waiting for the result batches from BE, compared with the time sending them to the client
+        long fetchTimeNs = 0;
+        long sendTimeNs = 0;
         while (true) {
+            long fetchStartNs = System.nanoTime();
             batch = coord.getNext();
+            long sendStartNs = System.nanoTime();
+            fetchTimeNs += sendStartNs - fetchStartNs;
             // for outfile query, there will be only one empty batch send back with eos flag
             if (batch.getBatch() != null && !isOutfileQuery) {
                 // For some language driver, getting error packet after fields packet will be recognized as a success result
                 // so We need to send fields after first batch arrived
-                if (!isSendFields) {
-                    sendFields(colNames, outputExprs);
-                    isSendFields = true;
-                }
                 if (channel.isSendBufferNull()) {
                     int bufferSize = 0;
                     for (ByteBuffer row : batch.getBatch().getRows()) {
-                        bufferSize += (row.position() - row.limit());
+                        // +4 for header size
+                        bufferSize += row.remaining() + 4;
                     }
-                    // +8 for header size
-                    channel.initBuffer(bufferSize + 8);
+                    channel.initBuffer(bufferSize);
+                }
+                if (!isSendFields) {
+                    sendFields(colNames, outputExprs);
+                    isSendFields = true;
                 }
 
                 for (ByteBuffer row : batch.getBatch().getRows()) {
@@ -768,10 +777,15 @@ public class StmtExecutor {
                 }
                 context.updateReturnRows(batch.getBatch().getRows().size());
             }
+            sendTimeNs += System.nanoTime() - sendStartNs;
             if (batch.isEos()) {
                 break;
             }
         }
+        if (MetricRepo.isInit) {
+            MetricRepo.HISTO_QUERY_RESULT_FETCH_TIME.update(TimeUnit.NANOSECONDS.toMillis(fetchTimeNs));
+            MetricRepo.HISTO_QUERY_RESULT_SEND_TIME.update(TimeUnit.NANOSECONDS.toMillis(sendTimeNs));
+        }
         if (!isSendFields && !isOutfileQuery) {
             sendFields(colNames, outputExprs);
         }
@@ -64,13 +64,21 @@ public class BackendServiceClient {
     public Future<PExecPlanFragmentResult> execPlanFragmentAsync(
             TNetworkAddress address, TExecPlanFragmentParams tRequest)
             throws TException, RpcException {
+        return execPlanFragmentAsync(address, tRequest, new EmptyRpcCallback<PExecPlanFragmentResult>());
+    }
+
+    /**
+     * @param callback called when the RPC finishes
+     */
+    public Future<PExecPlanFragmentResult> execPlanFragmentAsync(
+            TNetworkAddress address, TExecPlanFragmentParams tRequest, RpcCallback<PExecPlanFragmentResult> callback)
+            throws TException, RpcException {
         final PExecPlanFragmentRequest pRequest = new PExecPlanFragmentRequest();
         TSerializer serializer = new TSerializer();
         byte[] serializedRequest = serializer.serialize(tRequest);
         RpcContext rpcContext = RpcContext.getContext();
         rpcContext.setReadTimeoutMillis(60000);
         rpcContext.setRequestBinaryAttachment(serializedRequest);
-        RpcCallback<PExecPlanFragmentResult> callback = new EmptyRpcCallback<PExecPlanFragmentResult>();
         try {
             final PBackendServiceAsync service = BrpcProxy.getInstance().getBackendService(address);
             return service.execPlanFragment(pRequest, callback);
@@ -99,13 +107,30 @@ public class BackendServiceClient {
     public Future<PExecBatchPlanFragmentsResult> execBatchPlanFragmentsAsync(
             TNetworkAddress address, TExecBatchPlanFragmentsParams tRequest)
             throws TException, RpcException {
-        final PExecBatchPlanFragmentsRequest pRequest = new PExecBatchPlanFragmentsRequest();
         TSerializer serializer = new TSerializer();
-        byte[] serializedRequest = serializer.serialize(tRequest);
+        return execBatchPlanFragmentsAsync(address, serializer.serialize(tRequest));
+    }
+
+    /**
+     * @param serializedRequest TExecBatchPlanFragmentsParams serialized by TBinaryProtocol
+     */
+    public Future<PExecBatchPlanFragmentsResult> execBatchPlanFragmentsAsync(
+            TNetworkAddress address, byte[] serializedRequest) throws RpcException {
+        return execBatchPlanFragmentsAsync(address, serializedRequest,
+                new EmptyRpcCallback<PExecBatchPlanFragmentsResult>());
+    }
+
+    /**
+     * @param serializedRequest TExecBatchPlanFragmentsParams serialized by TBinaryProtocol
+     * @param callback          called when the RPC finishes
+     */
+    public Future<PExecBatchPlanFragmentsResult> execBatchPlanFragmentsAsync(
+            TNetworkAddress address, byte[] serializedRequest, RpcCallback<PExecBatchPlanFragmentsResult> callback)
+            throws RpcException {
+        final PExecBatchPlanFragmentsRequest pRequest = new PExecBatchPlanFragmentsRequest();
         RpcContext rpcContext = RpcContext.getContext();
         rpcContext.setReadTimeoutMillis(600000);
         rpcContext.setRequestBinaryAttachment(serializedRequest);
-        RpcCallback<PExecBatchPlanFragmentsResult> callback = new EmptyRpcCallback<PExecBatchPlanFragmentsResult>();
         Future<PExecBatchPlanFragmentsResult> resultFuture = null;
         for (int i = 1; i <= Config.max_query_retry_time && resultFuture == null; ++i) {
             try {
@@ -1,6 +1,8 @@
 // This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
 package com.starrocks.scheduler;
 
+import com.starrocks.catalog.MaterializedView;
+
 import java.util.Map;
 import java.util.Set;
 
@@ -8,6 +10,11 @@ public class MvTaskRunContext extends TaskRunContext {
 
     Map<String, Set<String>> baseToMvNameRef;
     Map<String, Set<String>> mvToBaseNameRef;
+    // base table id -> (partition name -> partition info), the base partition versions consumed
+    // by the materialized view before this task run
+    Map<Long, Map<String, MaterializedView.BasePartitionInfo>> consumedBasePartitionInfos;
+    // the materialized view partitions added by this task run
+    Set<String> addedMvPartitionNames;
 
     public MvTaskRunContext(TaskRunContext context) {
         this.ctx = context.ctx;
@@ -31,4 +38,21 @@ public class MvTaskRunContext extends TaskRunContext {
     public void setMvToBaseNameRef(Map<String, Set<String>> mvToBaseNameRef) {
         this.mvToBaseNameRef = mvToBaseNameRef;
     }
+
+    public Map<Long, Map<String, MaterializedView.BasePartitionInfo>> getConsumedBasePartitionInfos() {
+        return consumedBasePartitionInfos;
+    }
+
+    public void setConsumedBasePartitionInfos(
+            Map<Long, Map<String, MaterializedView.BasePartitionInfo>> consumedBasePartitionInfos) {
+        this.consumedBasePartitionInfos = consumedBasePartitionInfos;
+    }
+
+    public Set<String> getAddedMvPartitionNames() {
+        return addedMvPartitionNames;
+    }
+
+    public void setAddedMvPartitionNames(Set<String> addedMvPartitionNames) {
+        this.addedMvPartitionNames = addedMvPartitionNames;
+    }
 }
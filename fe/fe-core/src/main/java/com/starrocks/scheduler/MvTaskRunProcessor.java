@@ -4,6 +4,7 @@ package com.starrocks.scheduler;
 
 import com.clearspring.analytics.util.Lists;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Range;
 import com.google.common.collect.Sets;
@@ -23,18 +24,22 @@ import com.starrocks.analysis.StringLiteral;
 import com.starrocks.catalog.Column;
 import com.starrocks.catalog.Database;
 import com.starrocks.catalog.ExpressionRangePartitionInfo;
+import com.starrocks.catalog.FunctionSet;
 import com.starrocks.catalog.HashDistributionInfo;
+import com.starrocks.catalog.KeysType;
 import com.starrocks.catalog.MaterializedView;
 import com.starrocks.catalog.OlapTable;
 import com.starrocks.catalog.Partition;
 import com.starrocks.catalog.PartitionInfo;
 import com.starrocks.catalog.PartitionKey;
 import com.starrocks.catalog.SinglePartitionInfo;
+import com.starrocks.common.Config;
 import com.starrocks.common.io.DeepCopy;
 import com.starrocks.common.util.UUIDUtil;
 import com.starrocks.planner.OlapScanNode;
 import com.starrocks.planner.ScanNode;
 import com.starrocks.qe.ConnectContext;
+import com.starrocks.qe.QueryState;
 import com.starrocks.qe.StmtExecutor;
 import com.starrocks.server.GlobalStateMgr;
 import com.starrocks.sql.StatementPlanner;
@@ -42,6 +47,7 @@ import com.starrocks.sql.analyzer.Analyzer;
 import com.starrocks.sql.analyzer.AnalyzerUtils;
 import com.starrocks.sql.analyzer.SemanticException;
 import com.starrocks.sql.ast.QueryStatement;
+import com.starrocks.sql.ast.SelectRelation;
 import com.starrocks.sql.ast.TableRelation;
 import com.starrocks.sql.common.DmlException;
 import com.starrocks.sql.common.PartitionDiff;
@@ -87,6 +93,9 @@ public class MvTaskRunProcessor extends BaseTaskRunProcessor {
             LOG.warn(errorMsg);
             throw new DmlException(errorMsg);
         }
+        // the base partition versions consumed by the last refresh, used by the incremental refresh
+        mvContext.setConsumedBasePartitionInfos(copyBasePartitionInfos(materializedView));
+        mvContext.setAddedMvPartitionNames(Collections.emptySet());
         // collect all base table partition info
         Map<Long, OlapTable> olapTables = collectBaseTables(materializedView, database);
         PartitionInfo partitionInfo = materializedView.getPartitionInfo();
@@ -168,6 +177,22 @@ public class MvTaskRunProcessor extends BaseTaskRunProcessor {
             refreshMv(mvContext, materializedView, database, olapTables, partitionTable, needRefreshPartitionNames);
         }
     }
+    private Map<Long, Map<String, MaterializedView.BasePartitionInfo>> copyBasePartitionInfos(MaterializedView mv) {
+        Map<Long, Map<String, MaterializedView.BasePartitionInfo>> result = Maps.newHashMap();
+        for (Map.Entry<Long, Map<String, MaterializedView.BasePartitionInfo>> tableEntry :
+                mv.getRefreshScheme().getAsyncRefreshContext().getBaseTableVisibleVersionMap().entrySet()) {
+            Map<String, MaterializedView.BasePartitionInfo> partitionInfos = Maps.newHashMap();
+            for (Map.Entry<String, MaterializedView.BasePartitionInfo> partitionEntry :
+                    tableEntry.getValue().entrySet()) {
+                MaterializedView.BasePartitionInfo info = partitionEntry.getValue();
+                partitionInfos.put(partitionEntry.getKey(), info == null ? null :
+                        new MaterializedView.BasePartitionInfo(info.getId(), info.getVersion()));
+            }
+            result.put(tableEntry.getKey(), partitionInfos);
+        }
+        return result;
+    }
+
     public Map<Long, OlapTable> collectBaseTables(MaterializedView materializedView, Database database) {
         Map<Long, OlapTable> olapTables = Maps.newHashMap();
         Set<Long> baseTableIds = materializedView.getBaseTableIds();
@@ -233,6 +258,7 @@ public class MvTaskRunProcessor extends BaseTaskRunProcessor {
             needRefreshMvPartitionNames.add(mvPartitionName);
         }
         LOG.info("The process of synchronizing materialized view [{}] partitions add range [{}]", mv.getName(), adds);
+        context.setAddedMvPartitionNames(adds.keySet());
 
         Map<String, Set<String>> baseToMvNameRef = SyncPartitionUtils
                 .generatePartitionRefMap(basePartitionMap, mvPartitionMap);
@@ -376,15 +402,13 @@ public class MvTaskRunProcessor extends BaseTaskRunProcessor {
                 tableNamePartitionNames.put(olapTable.getName(), olapTable.getPartitionNames());
             }
         }
+        if (Config.enable_mv_incremental_refresh && incrementalRefreshMv(context, mv, db, olapTables,
+                tableNamePartitionNames, mvRefreshPartitionNames)) {
+            return;
+        }
         // set partition names into insertStmt
         ConnectContext ctx = context.getCtx();
-        ctx.getAuditEventBuilder().reset();
-        ctx.getAuditEventBuilder()
-                .setTimestamp(System.currentTimeMillis())
-                .setClientIp(context.getRemoteIp())
-                .setUser(ctx.getQualifiedUser())
-                .setDb(ctx.getDatabase());
-        ctx.getPlannerProfile().reset();
+        resetStmtContext(context);
         String definition = context.getDefinition();
         InsertStmt insertStmt =
                 (InsertStmt) SqlParser.parse(definition, ctx.getSessionVariable().getSqlMode()).get(0);
@@ -403,7 +427,195 @@ public class MvTaskRunProcessor extends BaseTaskRunProcessor {
         Analyzer.analyze(insertStmt, ctx);
         // execute insert stmt
         execInsertStmt(db, insertStmt, context, mv,
-                collectPartitionInfo(olapTables, tableNamePartitionNames));
+                collectPartitionInfo(olapTables, tableNamePartitionNames), Collections.emptyMap());
+    }
+
+    private void resetStmtContext(MvTaskRunContext context) {
+        ConnectContext ctx = context.getCtx();
+        ctx.getAuditEventBuilder().reset();
+        ctx.getAuditEventBuilder()
+                .setTimestamp(System.currentTimeMillis())
+                .setClientIp(context.getRemoteIp())
+                .setUser(ctx.getQualifiedUser())
+                .setDb(ctx.getDatabase());
+        ctx.getPlannerProfile().reset();
+    }
+
+    /**
+     * Refresh the mv by aggregating the rows loaded into the base table since the last refresh and merging
+     * them into the mv partitions, e.g.
+     * create materialized view mv1 partition by dt as select dt, k, sum(v) s, count(*) c from tbl1 group by dt, k;
+     * if tbl1 p1 is loaded since the last refresh, task uses this sql to refresh m1:
+     * insert overwrite mv1 partition(m1) select dt, k, sum(s), sum(c) from (select * from mv1 partition(m1)
+     *     union all select dt, k, sum(v), count(*) from tbl1 partition(p1) group by dt, k) group by dt, k;
+     * and tbl1 p1 only reads the rowsets loaded after the version consumed by the last refresh.
+     * Only the mv of one duplicate key table whose aggregations can be merged is refreshed incrementally,
+     * BE fails the scan if a delete is found in the new rowsets or the rowsets are compacted with the consumed ones.
+     * Returns false if the mv should be fully refreshed.
+     */
+    private boolean incrementalRefreshMv(MvTaskRunContext context, MaterializedView mv, Database db,
+                                         Map<Long, OlapTable> olapTables,
+                                         Map<String, Set<String>> tableNamePartitionNames,
+                                         Set<String> mvRefreshPartitionNames) {
+        if (olapTables.size() != 1) {
+            return false;
+        }
+        OlapTable base = olapTables.values().iterator().next();
+        if (base.getKeysType() != KeysType.DUP_KEYS || base.isLakeTable()) {
+            return false;
+        }
+        Map<String, Long> partitionStartVersions =
+                getPartitionStartVersions(context, base, tableNamePartitionNames.get(base.getName()));
+        if (partitionStartVersions == null || partitionStartVersions.isEmpty()) {
+            return false;
+        }
+
+        ConnectContext ctx = context.getCtx();
+        try {
+            String mergeSql = buildMergeSql(mv, ctx);
+            if (mergeSql == null) {
+                return false;
+            }
+            resetStmtContext(context);
+            InsertStmt insertStmt =
+                    (InsertStmt) SqlParser.parse(mergeSql, ctx.getSessionVariable().getSqlMode()).get(0);
+            insertStmt.setTargetPartitionNames(new PartitionNames(false, new ArrayList<>(mvRefreshPartitionNames)));
+            Map<String, TableRelation> tableRelations =
+                    AnalyzerUtils.collectAllTableRelation(insertStmt.getQueryStatement());
+            tableRelations.get(mv.getName()).setPartitionNames(
+                    new PartitionNames(false, new ArrayList<>(mvRefreshPartitionNames)));
+            tableRelations.get(base.getName()).setPartitionNames(
+                    new PartitionNames(false, new ArrayList<>(partitionStartVersions.keySet())));
+            insertStmt.setSystem(true);
+            Analyzer.analyze(insertStmt, ctx);
+
+            Map<Long, Long> partitionIdStartVersions = Maps.newHashMap();
+            partitionStartVersions.forEach((partitionName, startVersion) ->
+                    partitionIdStartVersions.put(base.getPartition(partitionName).getId(), startVersion));
+            execInsertStmt(db, insertStmt, context, mv,
+                    collectPartitionInfo(olapTables, ImmutableMap.of(base.getName(), partitionStartVersions.keySet())),
+                    partitionIdStartVersions);
+        } catch (Exception e) {
+            LOG.warn("Failed to refresh materialized view {} incrementally, fall back to full refresh",
+                    mv.getName(), e);
+            ctx.getState().reset();
+            return false;
+        }
+        LOG.info("Refreshed materialized view [{}] partitions [{}] incrementally from base partitions [{}]",
+                mv.getName(), mvRefreshPartitionNames, partitionStartVersions);
+        return true;
+    }
+
+    /**
+     * Returns the changed base partitions and the versions to read from, null if the rows consumed by the mv
+     * may be changed, e.g. the partition is dropped or replaced.
+     */
+    private Map<String, Long> getPartitionStartVersions(MvTaskRunContext context, OlapTable base,
+                                                        Set<String> basePartitionNames) {
+        Map<String, MaterializedView.BasePartitionInfo> consumedInfos =
+                context.getConsumedBasePartitionInfos().getOrDefault(base.getId(), Collections.emptyMap());
+        for (String consumedPartitionName : consumedInfos.keySet()) {
+            if (base.getPartition(consumedPartitionName) == null) {
+                return null;
+            }
+        }
+        // the new mv partitions are empty, all the rows of their base partitions must be read
+        Set<String> fullReadPartitionNames = Sets.newHashSet();
+        if (context.getMvToBaseNameRef() != null) {
+            for (String mvPartitionName : context.getAddedMvPartitionNames()) {
+                fullReadPartitionNames.addAll(context.getMvToBaseNameRef().get(mvPartitionName));
+            }
+        }
+
+        Map<String, Long> result = Maps.newHashMap();
+        for (String basePartitionName : basePartitionNames) {
+            Partition partition = base.getPartition(basePartitionName);
+            MaterializedView.BasePartitionInfo consumedInfo = consumedInfos.get(basePartitionName);
+            if (consumedInfo == null || consumedInfo.getVersion() <= Partition.PARTITION_INIT_VERSION) {
+                // no row of the partition is consumed
+                result.put(basePartitionName, 0L);
+            } else if (consumedInfo.getId() != partition.getId()
+                    || partition.getVisibleVersion() < consumedInfo.getVersion()
+                    || fullReadPartitionNames.contains(basePartitionName)) {
+                return null;
+            } else if (partition.getVisibleVersion() > consumedInfo.getVersion()) {
+                result.put(basePartitionName, consumedInfo.getVersion() + 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sql merging the new aggregated rows of the mv definition into the mv,
+     * null if the aggregations of the mv can not be merged.
+     */
+    private String buildMergeSql(MaterializedView mv, ConnectContext ctx) {
+        QueryStatement queryStatement = (QueryStatement) SqlParser.parse(mv.getViewDefineSql(),
+                ctx.getSessionVariable().getSqlMode()).get(0);
+        Analyzer.analyze(queryStatement, ctx);
+        if (!(queryStatement.getQueryRelation() instanceof SelectRelation)) {
+            return null;
+        }
+        SelectRelation selectRelation = (SelectRelation) queryStatement.getQueryRelation();
+        if (!selectRelation.hasAggregation() || selectRelation.hasHavingClause() || selectRelation.isDistinct()
+                || selectRelation.hasOrderByClause() || selectRelation.hasLimit()
+                || selectRelation.hasAnalyticInfo() || !(selectRelation.getRelation() instanceof TableRelation)
+                || (selectRelation.getGroupingSetsList() != null && !selectRelation.getGroupingSetsList().isEmpty())) {
+            return null;
+        }
+        List<Expr> outputExprs = selectRelation.getOutputExpr();
+        List<Column> columns = mv.getBaseSchema();
+        // the rows of different groups can not be merged if some group by expressions are not output
+        if (outputExprs.size() != columns.size() || !outputExprs.containsAll(selectRelation.getGroupBy())) {
+            return null;
+        }
+
+        List<String> selectItems = Lists.newArrayList();
+        List<String> groupByItems = Lists.newArrayList();
+        for (int i = 0; i < outputExprs.size(); i++) {
+            Expr outputExpr = outputExprs.get(i);
+            String columnName = "`" + columns.get(i).getName() + "`";
+            if (selectRelation.getGroupBy().contains(outputExpr)) {
+                selectItems.add(columnName);
+                groupByItems.add(columnName);
+            } else if (outputExpr instanceof FunctionCallExpr && selectRelation.getAggregate().contains(outputExpr)) {
+                String mergeFunction = getMergeFunction((FunctionCallExpr) outputExpr);
+                if (mergeFunction == null) {
+                    return null;
+                }
+                selectItems.add(mergeFunction + "(" + columnName + ")");
+            } else {
+                return null;
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("insert overwrite `").append(mv.getName()).append("` select ")
+                .append(String.join(", ", selectItems))
+                .append(" from (select * from `").append(mv.getName()).append("` union all ")
+                .append(mv.getViewDefineSql()).append(") `__mv_delta`");
+        if (!groupByItems.isEmpty()) {
+            sb.append(" group by ").append(String.join(", ", groupByItems));
+        }
+        return sb.toString();
+    }
+
+    private String getMergeFunction(FunctionCallExpr aggregate) {
+        if (aggregate.isDistinct()) {
+            return null;
+        }
+        String functionName = aggregate.getFnName().getFunction().toLowerCase();
+        switch (functionName) {
+            case FunctionSet.COUNT:
+                return FunctionSet.SUM;
+            case FunctionSet.SUM:
+            case FunctionSet.MIN:
+            case FunctionSet.MAX:
+            case FunctionSet.BITMAP_UNION:
+            case FunctionSet.HLL_UNION:
+                return functionName;
+            default:
+                return null;
+        }
     }
 
     private Map<Long, Map<String, MaterializedView.BasePartitionInfo>> collectPartitionInfo(
@@ -425,9 +637,14 @@ public class MvTaskRunProcessor extends BaseTaskRunProcessor {
         return tablePartitionInfos;
     }
 
+    /**
+     * @param partitionStartVersions partition id -> the version to read from, the base partitions not in it are
+     *                               read entirely
+     */
     private void execInsertStmt(Database database, InsertStmt insertStmt,
                                 TaskRunContext context, MaterializedView materializedView,
-                                Map<Long, Map<String, MaterializedView.BasePartitionInfo>> plannedOlapTablePartitionInfos) {
+                                Map<Long, Map<String, MaterializedView.BasePartitionInfo>> plannedOlapTablePartitionInfos,
+                                Map<Long, Long> partitionStartVersions) {
         ConnectContext ctx = context.getCtx();
         StmtExecutor executor = new StmtExecutor(ctx, insertStmt);
         ctx.setExecutor(executor);
@@ -444,9 +661,16 @@ public class MvTaskRunProcessor extends BaseTaskRunProcessor {
                 for (ScanNode scanNode : scanNodes) {
                     if (scanNode instanceof OlapScanNode) {
                         OlapScanNode olapScanNode = (OlapScanNode) scanNode;
+                        OlapTable olapTable = olapScanNode.getOlapTable();
+                        // the incremental refresh reads the mv itself, it is not a base table
+                        if (olapTable.getId() == materializedView.getId()) {
+                            continue;
+                        }
+                        if (!partitionStartVersions.isEmpty()) {
+                            olapScanNode.setPartitionStartVersions(partitionStartVersions);
+                        }
                         Map<String, MaterializedView.BasePartitionInfo> selectedPartitionIdVersions =
                                 getSelectedPartitionInfos(olapScanNode);
-                        OlapTable olapTable = olapScanNode.getOlapTable();
                         selectedBasePartitionInfos.put(olapTable.getId(), selectedPartitionIdVersions);
                     }
                 }
@@ -456,6 +680,10 @@ public class MvTaskRunProcessor extends BaseTaskRunProcessor {
                 database.readUnlock();
             }
             executor.handleDMLStmt(execPlan, insertStmt);
+            // the consumed versions are not updated if the insert failed
+            if (ctx.getState().getStateType() == QueryState.MysqlStateType.ERR) {
+                throw new DmlException(ctx.getState().getErrorMessage());
+            }
             // use selected base partition info to update mv version map & partition name map
             for (Map.Entry<Long, Map<String, MaterializedView.BasePartitionInfo>> longMapEntry :
                     selectedBasePartitionInfos.entrySet()) {
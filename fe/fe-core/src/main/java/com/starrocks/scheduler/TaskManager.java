@@ -91,14 +91,19 @@ public class TaskManager {
                 if (!taskRunManager.tryTaskRunLock()) {
                     return;
                 }
+                List<TaskRunStatusChange> statusChanges = Lists.newArrayList();
                 try {
-                    taskRunManager.checkRunningTaskRun();
-                    taskRunManager.scheduledPendingTaskRun();
+                    taskRunManager.checkRunningTaskRun(statusChanges);
+                    taskRunManager.scheduledPendingTaskRun(statusChanges);
                 } catch (Exception ex) {
                     LOG.warn("failed to dispatch task.", ex);
                 } finally {
                     taskRunManager.taskRunUnlock();
                 }
+                // write edit log out of the lock, submitting TaskRuns need not wait for it
+                for (TaskRunStatusChange statusChange : statusChanges) {
+                    GlobalStateMgr.getCurrentState().getEditLog().logUpdateTaskRun(statusChange);
+                }
             }, 0, 1, TimeUnit.SECONDS);
         }
     }
@@ -262,7 +267,14 @@ public class TaskManager {
     }
 
     public SubmitResult executeTask(String taskName) {
-        return executeTask(taskName, new ExecuteOption());
+        ExecuteOption option = new ExecuteOption();
+        Task task = nameToTaskMap.get(taskName);
+        // a pending refresh already refreshes the mv to the latest data, the same refreshes triggered by
+        // schedule or events are redundant
+        if (task != null && task.getSource() == Constants.TaskSource.MV) {
+            option.setMergeRedundant(true);
+        }
+        return executeTask(taskName, option);
     }
 
     public SubmitResult executeTask(String taskName, ExecuteOption option) {
@@ -24,6 +24,8 @@ public class TaskRun implements Comparable<TaskRun> {
 
     private static final Logger LOG = LogManager.getLogger(TaskRun.class);
 
+    public static final long INVALID_MV_ID = -1L;
+
     private long taskId;
 
     private Map<String, String> properties;
@@ -38,6 +40,9 @@ public class TaskRun implements Comparable<TaskRun> {
 
     private TaskRunStatus status;
 
+    // the time it starts to run in TaskRunExecutor
+    private long startTime;
+
     public long getTaskId() {
         return taskId;
     }
@@ -70,6 +75,25 @@ public class TaskRun implements Comparable<TaskRun> {
         this.task = task;
     }
 
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * Returns the id of the materialized view refreshed by this TaskRun, INVALID_MV_ID if it is not a MV refresh.
+     */
+    public long getMvId() {
+        if (task.getSource() != Constants.TaskSource.MV || task.getProperties() == null) {
+            return INVALID_MV_ID;
+        }
+        String mvId = task.getProperties().get(MvTaskRunProcessor.MV_ID);
+        return mvId == null ? INVALID_MV_ID : Long.parseLong(mvId);
+    }
+
     public TaskRunProcessor getProcessor() {
         return processor;
     }
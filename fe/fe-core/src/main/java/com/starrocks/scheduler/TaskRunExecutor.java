@@ -2,18 +2,32 @@
 
 package com.starrocks.scheduler;
 
+import com.starrocks.common.Config;
+import com.starrocks.common.ThreadPoolManager;
+import com.starrocks.metric.TableMetricsEntity;
+import com.starrocks.metric.TableMetricsRegistry;
 import com.starrocks.scheduler.persist.TaskRunStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 
 public class TaskRunExecutor {
     private static final Logger LOG = LogManager.getLogger(TaskRunExecutor.class);
-    private final ExecutorService taskRunPool = Executors.newCachedThreadPool();
+
+    // TaskRunManager never runs more than task_runs_concurrency TaskRuns, the queue only holds the TaskRuns
+    // submitted when a finished TaskRun has not returned its thread yet.
+    private final ThreadPoolExecutor taskRunPool = ThreadPoolManager.newDaemonThreadPool(
+            Config.task_runs_concurrency, Config.task_runs_concurrency, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), new ThreadPoolExecutor.AbortPolicy(), "starrocks-taskrun-pool", true);
+
+    public TaskRunExecutor() {
+        taskRunPool.allowCoreThreadTimeOut(true);
+    }
 
     public void executeTaskRun(TaskRun taskRun) {
         if (taskRun == null) {
@@ -29,8 +43,10 @@ public class TaskRunExecutor {
             return;
         }
 
+        adjustPoolSize();
         Future<?> future = taskRunPool.submit(() -> {
             status.setState(Constants.TaskRunState.RUNNING);
+            taskRun.setStartTime(System.currentTimeMillis());
             try {
                 boolean isSuccess = taskRun.executeTaskRun();
                 if (isSuccess) {
@@ -45,9 +61,37 @@ public class TaskRunExecutor {
                 status.setErrorMessage(ex.toString());
             } finally {
                 status.setFinishTime(System.currentTimeMillis());
+                updateMvRefreshMetrics(taskRun);
             }
         });
         taskRun.setFuture(future);
     }
 
+    // task_runs_concurrency is mutable
+    private void adjustPoolSize() {
+        int poolSize = Math.max(1, Config.task_runs_concurrency);
+        if (poolSize > taskRunPool.getMaximumPoolSize()) {
+            taskRunPool.setMaximumPoolSize(poolSize);
+            taskRunPool.setCorePoolSize(poolSize);
+        } else if (poolSize < taskRunPool.getMaximumPoolSize()) {
+            taskRunPool.setCorePoolSize(poolSize);
+            taskRunPool.setMaximumPoolSize(poolSize);
+        }
+    }
+
+    private void updateMvRefreshMetrics(TaskRun taskRun) {
+        long mvId = taskRun.getMvId();
+        if (mvId == TaskRun.INVALID_MV_ID) {
+            return;
+        }
+        TaskRunStatus status = taskRun.getStatus();
+        TableMetricsEntity entity = TableMetricsRegistry.getInstance().getMetricsEntity(mvId);
+        entity.counterMvRefreshPendingTimeMsTotal.increase(taskRun.getStartTime() - status.getCreateTime());
+        entity.counterMvRefreshRunningTimeMsTotal.increase(status.getFinishTime() - taskRun.getStartTime());
+        if (status.getState() == Constants.TaskRunState.SUCCESS) {
+            entity.counterMvRefreshSuccessTotal.increase(1L);
+        } else {
+            entity.counterMvRefreshFailedTotal.increase(1L);
+        }
+    }
 }
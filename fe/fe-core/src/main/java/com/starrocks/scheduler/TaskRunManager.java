@@ -2,13 +2,20 @@
 
 package com.starrocks.scheduler;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
+import com.starrocks.catalog.Database;
+import com.starrocks.catalog.MaterializedView;
+import com.starrocks.catalog.ResourceGroup;
+import com.starrocks.catalog.Table;
 import com.starrocks.common.Config;
 import com.starrocks.common.util.QueryableReentrantLock;
 import com.starrocks.common.util.UUIDUtil;
 import com.starrocks.common.util.Util;
 import com.starrocks.qe.ConnectContext;
+import com.starrocks.qe.SessionVariable;
 import com.starrocks.scheduler.persist.TaskRunStatus;
 import com.starrocks.scheduler.persist.TaskRunStatusChange;
 import com.starrocks.server.GlobalStateMgr;
@@ -16,9 +23,12 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -41,6 +51,10 @@ public class TaskRunManager {
     // Use to execute actual TaskRun
     private final TaskRunExecutor taskRunExecutor = new TaskRunExecutor();
 
+    private static final Comparator<TaskRun> SCHEDULE_ORDER =
+            Comparator.comparingInt((TaskRun taskRun) -> taskRun.getStatus().getPriority()).reversed()
+                    .thenComparingLong(taskRun -> taskRun.getStatus().getCreateTime());
+
     private final QueryableReentrantLock taskRunLock = new QueryableReentrantLock(true);
 
     public SubmitResult submitTaskRun(TaskRun taskRun, ExecuteOption option) {
@@ -138,8 +152,9 @@ public class TaskRunManager {
         return oldTaskRun;
     }
 
-    // check if a running TaskRun is complete and remove it from running TaskRun map
-    public void checkRunningTaskRun() {
+    // check if a running TaskRun is complete and remove it from running TaskRun map,
+    // the status changes are persisted by the caller after releasing the task run lock
+    public void checkRunningTaskRun(List<TaskRunStatusChange> statusChanges) {
         Iterator<Long> runningIterator = runningTaskRunMap.keySet().iterator();
         while (runningIterator.hasNext()) {
             Long taskId = runningIterator.next();
@@ -153,40 +168,109 @@ public class TaskRunManager {
             if (future.isDone()) {
                 runningIterator.remove();
                 taskRunHistory.addHistory(taskRun.getStatus());
-                TaskRunStatusChange statusChange = new TaskRunStatusChange(taskRun.getTaskId(), taskRun.getStatus(),
-                        Constants.TaskRunState.RUNNING, taskRun.getStatus().getState());
-                GlobalStateMgr.getCurrentState().getEditLog().logUpdateTaskRun(statusChange);
+                statusChanges.add(new TaskRunStatusChange(taskRun.getTaskId(), taskRun.getStatus(),
+                        Constants.TaskRunState.RUNNING, taskRun.getStatus().getState()));
             }
         }
     }
 
-    // schedule the pending TaskRun that can be run into running TaskRun map
-    public void scheduledPendingTaskRun() {
+    // schedule the pending TaskRun that can be run into running TaskRun map.
+    // The heads of the pending queues are scheduled by priority and create time, a TaskRun is not scheduled if
+    // - task_runs_concurrency TaskRuns are running
+    // - the concurrency limit of its resource group is reached
+    // - it refreshes a mv whose base mv is pending or running, so the mv is refreshed after its base mvs
+    //   rather than refreshed twice
+    public void scheduledPendingTaskRun(List<TaskRunStatusChange> statusChanges) {
         int currentRunning = runningTaskRunMap.size();
+        if (currentRunning >= Config.task_runs_concurrency) {
+            return;
+        }
+
+        Map<String, Integer> resourceGroupRunning = Maps.newHashMap();
+        Set<Long> refreshingMvIds = Sets.newHashSet();
+        for (TaskRun runningTaskRun : runningTaskRunMap.values()) {
+            resourceGroupRunning.merge(getResourceGroupName(runningTaskRun), 1, Integer::sum);
+            refreshingMvIds.add(runningTaskRun.getMvId());
+        }
 
+        List<TaskRun> candidates = Lists.newArrayList();
         Iterator<Long> pendingIterator = pendingTaskRunMap.keySet().iterator();
         while (pendingIterator.hasNext()) {
             Long taskId = pendingIterator.next();
-            TaskRun runningTaskRun = runningTaskRunMap.get(taskId);
-            if (runningTaskRun == null) {
-                Queue<TaskRun> taskRunQueue = pendingTaskRunMap.get(taskId);
-                if (taskRunQueue.size() == 0) {
-                    pendingIterator.remove();
-                } else {
-                    if (currentRunning >= Config.task_runs_concurrency) {
-                        break;
-                    }
-                    TaskRun pendingTaskRun = taskRunQueue.poll();
-                    taskRunExecutor.executeTaskRun(pendingTaskRun);
-                    runningTaskRunMap.put(taskId, pendingTaskRun);
-                    // RUNNING state persistence is for FE FOLLOWER update state
-                    TaskRunStatusChange statusChange = new TaskRunStatusChange(taskId, pendingTaskRun.getStatus(),
-                            Constants.TaskRunState.PENDING, Constants.TaskRunState.RUNNING);
-                    GlobalStateMgr.getCurrentState().getEditLog().logUpdateTaskRun(statusChange);
-                    currentRunning++;
-                }
+            Queue<TaskRun> taskRunQueue = pendingTaskRunMap.get(taskId);
+            TaskRun pendingTaskRun = taskRunQueue.peek();
+            if (pendingTaskRun == null) {
+                pendingIterator.remove();
+                continue;
             }
+            refreshingMvIds.add(pendingTaskRun.getMvId());
+            if (!runningTaskRunMap.containsKey(taskId)) {
+                candidates.add(pendingTaskRun);
+            }
+        }
+        candidates.sort(SCHEDULE_ORDER);
+
+        for (TaskRun pendingTaskRun : candidates) {
+            if (currentRunning >= Config.task_runs_concurrency) {
+                break;
+            }
+            if (isBaseMvRefreshing(pendingTaskRun, refreshingMvIds)) {
+                continue;
+            }
+            String resourceGroupName = getResourceGroupName(pendingTaskRun);
+            int concurrencyLimit = getConcurrencyLimit(resourceGroupName);
+            if (concurrencyLimit > 0 && resourceGroupRunning.getOrDefault(resourceGroupName, 0) >= concurrencyLimit) {
+                continue;
+            }
+
+            long taskId = pendingTaskRun.getTaskId();
+            pendingTaskRunMap.get(taskId).poll();
+            taskRunExecutor.executeTaskRun(pendingTaskRun);
+            runningTaskRunMap.put(taskId, pendingTaskRun);
+            // RUNNING state persistence is for FE FOLLOWER update state
+            statusChanges.add(new TaskRunStatusChange(taskId, pendingTaskRun.getStatus(),
+                    Constants.TaskRunState.PENDING, Constants.TaskRunState.RUNNING));
+            resourceGroupRunning.merge(resourceGroupName, 1, Integer::sum);
+            currentRunning++;
+        }
+    }
+
+    private boolean isBaseMvRefreshing(TaskRun taskRun, Set<Long> refreshingMvIds) {
+        long mvId = taskRun.getMvId();
+        if (mvId == TaskRun.INVALID_MV_ID) {
+            return false;
+        }
+        Database db = GlobalStateMgr.getCurrentState().getDb(taskRun.getTask().getDbName());
+        if (db == null) {
+            return false;
+        }
+        Table table = db.getTable(mvId);
+        if (!(table instanceof MaterializedView)) {
+            return false;
+        }
+        Set<Long> baseTableIds = ((MaterializedView) table).getBaseTableIds();
+        return baseTableIds != null && baseTableIds.stream().anyMatch(refreshingMvIds::contains);
+    }
+
+    private String getResourceGroupName(TaskRun taskRun) {
+        Map<String, String> properties = taskRun.getProperties();
+        if (properties == null) {
+            return "";
+        }
+        return properties.getOrDefault(SessionVariable.RESOURCE_GROUP, "");
+    }
+
+    // 0 means no limit
+    private int getConcurrencyLimit(String resourceGroupName) {
+        if (resourceGroupName.isEmpty()) {
+            return 0;
+        }
+        ResourceGroup resourceGroup =
+                GlobalStateMgr.getCurrentState().getResourceGroupMgr().getResourceGroup(resourceGroupName);
+        if (resourceGroup == null || resourceGroup.getConcurrencyLimit() == null) {
+            return 0;
         }
+        return resourceGroup.getConcurrencyLimit();
     }
 
     public boolean tryTaskRunLock() {
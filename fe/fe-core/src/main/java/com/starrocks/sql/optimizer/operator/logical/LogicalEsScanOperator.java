@@ -7,6 +7,7 @@ import com.google.common.collect.Lists;
 import com.starrocks.catalog.Column;
 import com.starrocks.catalog.EsTable;
 import com.starrocks.catalog.Table;
+import com.starrocks.external.elasticsearch.EsAggregationBuilder;
 import com.starrocks.external.elasticsearch.EsShardPartitions;
 import com.starrocks.external.elasticsearch.EsTablePartitions;
 import com.starrocks.sql.optimizer.operator.OperatorType;
@@ -21,6 +22,8 @@ import java.util.Map;
 public class LogicalEsScanOperator extends LogicalScanOperator {
     private final EsTablePartitions esTablePartitions;
     private final List<EsShardPartitions> selectedIndex = Lists.newArrayList();
+    // not null if the scan returns the buckets of the aggregation instead of the documents
+    private final EsAggregationBuilder aggregation;
 
     public LogicalEsScanOperator(Table table,
                                  Map<ColumnRefOperator, Column> colRefToColumnMetaMap,
@@ -28,6 +31,16 @@ public class LogicalEsScanOperator extends LogicalScanOperator {
                                  long limit,
                                  ScalarOperator predicate,
                                  Projection projection) {
+        this(table, colRefToColumnMetaMap, columnMetaToColRefMap, limit, predicate, projection, null);
+    }
+
+    public LogicalEsScanOperator(Table table,
+                                 Map<ColumnRefOperator, Column> colRefToColumnMetaMap,
+                                 Map<Column, ColumnRefOperator> columnMetaToColRefMap,
+                                 long limit,
+                                 ScalarOperator predicate,
+                                 Projection projection,
+                                 EsAggregationBuilder aggregation) {
         super(OperatorType.LOGICAL_ES_SCAN,
                 table,
                 colRefToColumnMetaMap,
@@ -35,6 +48,7 @@ public class LogicalEsScanOperator extends LogicalScanOperator {
                 limit, predicate, projection);
         Preconditions.checkState(table instanceof EsTable);
         this.esTablePartitions = ((EsTable) table).getEsTablePartitions();
+        this.aggregation = aggregation;
     }
 
     private LogicalEsScanOperator(Builder builder) {
@@ -46,6 +60,7 @@ public class LogicalEsScanOperator extends LogicalScanOperator {
         Preconditions.checkState(builder.table instanceof EsTable);
         this.esTablePartitions = builder.esTablePartitions;
         this.selectedIndex.addAll(builder.selectedIndex);
+        this.aggregation = builder.aggregation;
     }
 
     public EsTablePartitions getEsTablePartitions() {
@@ -56,6 +71,10 @@ public class LogicalEsScanOperator extends LogicalScanOperator {
         return this.selectedIndex;
     }
 
+    public EsAggregationBuilder getAggregation() {
+        return aggregation;
+    }
+
     @Override
     public <R, C> R accept(OperatorVisitor<R, C> visitor, C context) {
         return visitor.visitLogicalEsScan(this, context);
@@ -65,6 +84,7 @@ public class LogicalEsScanOperator extends LogicalScanOperator {
             extends LogicalScanOperator.Builder<LogicalEsScanOperator, LogicalEsScanOperator.Builder> {
         private EsTablePartitions esTablePartitions;
         private List<EsShardPartitions> selectedIndex = Lists.newArrayList();
+        private EsAggregationBuilder aggregation;
 
         @Override
         public LogicalEsScanOperator build() {
@@ -76,6 +96,7 @@ public class LogicalEsScanOperator extends LogicalScanOperator {
             super.withOperator(esScanOperator);
             this.esTablePartitions = esScanOperator.esTablePartitions;
             this.selectedIndex = esScanOperator.selectedIndex;
+            this.aggregation = esScanOperator.aggregation;
             return this;
         }
     }
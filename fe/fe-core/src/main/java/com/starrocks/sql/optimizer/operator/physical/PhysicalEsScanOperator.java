@@ -4,6 +4,7 @@ package com.starrocks.sql.optimizer.operator.physical;
 
 import com.starrocks.catalog.Column;
 import com.starrocks.catalog.Table;
+import com.starrocks.external.elasticsearch.EsAggregationBuilder;
 import com.starrocks.external.elasticsearch.EsShardPartitions;
 import com.starrocks.sql.optimizer.OptExpression;
 import com.starrocks.sql.optimizer.OptExpressionVisitor;
@@ -19,21 +20,28 @@ import java.util.Objects;
 
 public class PhysicalEsScanOperator extends PhysicalScanOperator {
     private final List<EsShardPartitions> selectedIndex;
+    private final EsAggregationBuilder aggregation;
 
     public PhysicalEsScanOperator(Table table,
                                   Map<ColumnRefOperator, Column> colRefToColumnMetaMap,
                                   List<EsShardPartitions> selectedIndex,
                                   long limit,
                                   ScalarOperator predicate,
-                                  Projection projection) {
+                                  Projection projection,
+                                  EsAggregationBuilder aggregation) {
         super(OperatorType.PHYSICAL_ES_SCAN, table, colRefToColumnMetaMap, limit, predicate, projection);
         this.selectedIndex = selectedIndex;
+        this.aggregation = aggregation;
     }
 
     public List<EsShardPartitions> getSelectedIndex() {
         return this.selectedIndex;
     }
 
+    public EsAggregationBuilder getAggregation() {
+        return aggregation;
+    }
+
     @Override
     public <R, C> R accept(OperatorVisitor<R, C> visitor, C context) {
         return visitor.visitPhysicalEsScan(this, context);
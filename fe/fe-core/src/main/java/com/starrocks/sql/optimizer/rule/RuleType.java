@@ -45,6 +45,7 @@ public enum RuleType {
     TF_PUSH_DOWN_PREDICATE_TABLE_FUNCTION,
     TF_PUSH_DOWN_PREDICATE_REPEAT,
     TF_PUSH_DOWN_AGG_TO_META_SCAN,
+    TF_PUSH_DOWN_AGG_TO_ES_SCAN,
     TF_MERGE_PREDICATE_SCAN,
     TF_MERGE_TWO_FILTERS,
     TF_PUSH_DOWN_PREDICATE_CTE_CONSUME,
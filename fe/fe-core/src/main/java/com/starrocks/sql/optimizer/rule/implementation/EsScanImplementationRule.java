@@ -27,7 +27,8 @@ public class EsScanImplementationRule extends ImplementationRule {
                 logical.getSelectedIndex(),
                 logical.getLimit(),
                 logical.getPredicate(),
-                logical.getProjection());
+                logical.getProjection(),
+                logical.getAggregation());
 
         OptExpression result = new OptExpression(physical);
         return Lists.newArrayList(result);
@@ -13,6 +13,7 @@ import com.starrocks.sql.optimizer.Utils;
 import com.starrocks.sql.optimizer.base.ColumnRefSet;
 import com.starrocks.sql.optimizer.operator.OperatorType;
 import com.starrocks.sql.optimizer.operator.Projection;
+import com.starrocks.sql.optimizer.operator.logical.LogicalEsScanOperator;
 import com.starrocks.sql.optimizer.operator.logical.LogicalOlapScanOperator;
 import com.starrocks.sql.optimizer.operator.logical.LogicalScanOperator;
 import com.starrocks.sql.optimizer.operator.pattern.Pattern;
@@ -43,6 +44,11 @@ public class PruneScanColumnRule extends TransformationRule {
     @Override
     public List<OptExpression> transform(OptExpression input, OptimizerContext context) {
         LogicalScanOperator scanOperator = (LogicalScanOperator) input.getOp();
+        if (scanOperator instanceof LogicalEsScanOperator
+                && ((LogicalEsScanOperator) scanOperator).getAggregation() != null) {
+            // the columns of the pushed down aggregation are all produced by the same ES request
+            return Collections.emptyList();
+        }
         ColumnRefSet requiredOutputColumns = context.getTaskContext().getRequiredColumns();
 
         // The `outputColumns`s are some columns required but not specified by `requiredOutputColumns`.
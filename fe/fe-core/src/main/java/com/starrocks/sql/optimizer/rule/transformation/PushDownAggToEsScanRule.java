@@ -0,0 +1,259 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.sql.optimizer.rule.transformation;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.starrocks.catalog.AggregateFunction;
+import com.starrocks.catalog.Column;
+import com.starrocks.catalog.EsTable;
+import com.starrocks.catalog.FunctionSet;
+import com.starrocks.catalog.PrimitiveType;
+import com.starrocks.catalog.Type;
+import com.starrocks.external.elasticsearch.EsAggregationBuilder;
+import com.starrocks.external.elasticsearch.EsMajorVersion;
+import com.starrocks.sql.optimizer.OptExpression;
+import com.starrocks.sql.optimizer.OptimizerContext;
+import com.starrocks.sql.optimizer.Utils;
+import com.starrocks.sql.optimizer.base.ColumnRefFactory;
+import com.starrocks.sql.optimizer.operator.Operator;
+import com.starrocks.sql.optimizer.operator.OperatorType;
+import com.starrocks.sql.optimizer.operator.logical.LogicalAggregationOperator;
+import com.starrocks.sql.optimizer.operator.logical.LogicalEsScanOperator;
+import com.starrocks.sql.optimizer.operator.logical.LogicalProjectOperator;
+import com.starrocks.sql.optimizer.operator.pattern.Pattern;
+import com.starrocks.sql.optimizer.operator.scalar.BinaryPredicateOperator;
+import com.starrocks.sql.optimizer.operator.scalar.CallOperator;
+import com.starrocks.sql.optimizer.operator.scalar.CastOperator;
+import com.starrocks.sql.optimizer.operator.scalar.ColumnRefOperator;
+import com.starrocks.sql.optimizer.operator.scalar.CompoundPredicateOperator;
+import com.starrocks.sql.optimizer.operator.scalar.ConstantOperator;
+import com.starrocks.sql.optimizer.operator.scalar.InPredicateOperator;
+import com.starrocks.sql.optimizer.operator.scalar.IsNullPredicateOperator;
+import com.starrocks.sql.optimizer.operator.scalar.LikePredicateOperator;
+import com.starrocks.sql.optimizer.operator.scalar.ScalarOperator;
+import com.starrocks.sql.optimizer.rule.RuleType;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// For query: select k1, date_trunc('day', dt), count(*), max(v1) from es_table where k2 = 'a' group by 1, 2
+// ES aggregates every shard to buckets by a composite aggregation, so the es scan returns the partial
+// aggregation results instead of the documents, and the aggregation is rewritten to the merge phase:
+//   Aggregation(count, max)              Aggregation(merge count, merge max)
+//            |                 =>                    |
+//         Project                       EsScan(composite aggregation)
+//            |
+//         EsScan
+// Only the group by columns and aggregations ES could compute exactly are pushed down, and all the
+// predicates must be pushed down to ES too, otherwise the query scans the documents.
+public class PushDownAggToEsScanRule extends TransformationRule {
+    private static final Map<String, String> DATE_TRUNC_INTERVALS = ImmutableMap.<String, String>builder()
+            .put("second", "1s")
+            .put("minute", "1m")
+            .put("hour", "1h")
+            .put("day", "1d")
+            .put("week", "1w")
+            .put("month", "1M")
+            .put("quarter", "1q")
+            .put("year", "1y")
+            .build();
+
+    public PushDownAggToEsScanRule() {
+        super(RuleType.TF_PUSH_DOWN_AGG_TO_ES_SCAN,
+                Pattern.create(OperatorType.LOGICAL_AGGR).
+                        addChildren(Pattern.create(OperatorType.LOGICAL_PROJECT, OperatorType.LOGICAL_ES_SCAN)));
+    }
+
+    @Override
+    public boolean check(OptExpression input, OptimizerContext context) {
+        if (!context.getSessionVariable().isEnableEsAggregationPushDown()) {
+            return false;
+        }
+        LogicalAggregationOperator agg = (LogicalAggregationOperator) input.getOp();
+        LogicalEsScanOperator scan = (LogicalEsScanOperator) input.inputAt(0).inputAt(0).getOp();
+        EsTable table = (EsTable) scan.getTable();
+        EsMajorVersion version = table.remoteVersion();
+        // composite aggregation with missing bucket needs es 6.4, the doc values are needed to aggregate
+        if (version == null || version.before(EsMajorVersion.V_7_X) || table.getEsTablePartitions() == null
+                || !table.isDocValueScanEnable()) {
+            return false;
+        }
+        if (!agg.getType().isGlobal() || agg.isSplit() || agg.getGroupingKeys().isEmpty()
+                || agg.getSingleDistinctFunctionPos() != -1) {
+            return false;
+        }
+        if (scan.getAggregation() != null || scan.getLimit() != Operator.DEFAULT_LIMIT
+                || scan.getProjection() != null) {
+            return false;
+        }
+        return Utils.extractConjuncts(scan.getPredicate()).stream().allMatch(p -> canPushDownPredicate(scan, p));
+    }
+
+    @Override
+    public List<OptExpression> transform(OptExpression input, OptimizerContext context) {
+        LogicalAggregationOperator agg = (LogicalAggregationOperator) input.getOp();
+        LogicalProjectOperator project = (LogicalProjectOperator) input.inputAt(0).getOp();
+        LogicalEsScanOperator scan = (LogicalEsScanOperator) input.inputAt(0).inputAt(0).getOp();
+        EsTable table = (EsTable) scan.getTable();
+        Map<String, String> docValueFields = table.docValueContext();
+        ColumnRefFactory columnRefFactory = context.getColumnRefFactory();
+
+        EsAggregationBuilder aggregation = new EsAggregationBuilder();
+        Map<ColumnRefOperator, Column> newScanColumns = Maps.newHashMap();
+        for (ColumnRefOperator groupingKey : agg.getGroupingKeys()) {
+            ScalarOperator expr = project.getColumnRefMap().get(groupingKey);
+            String name = "__key_" + groupingKey.getId();
+            if (expr instanceof ColumnRefOperator) {
+                String field = getDocValueField(scan, docValueFields, expr);
+                if (field == null || !isSupportedGroupingType(expr.getType())) {
+                    return Collections.emptyList();
+                }
+                // keep the column name, the predicates on the column are built by its name
+                name = scan.getColRefToColumnMetaMap().get(expr).getName();
+                aggregation.addTerms(name, field);
+            } else if (expr instanceof CallOperator
+                    && FunctionSet.DATE_TRUNC.equalsIgnoreCase(((CallOperator) expr).getFnName())) {
+                ScalarOperator unit = expr.getChild(0);
+                ScalarOperator column = expr.getChild(1);
+                // date_trunc(date) is date_trunc(cast(date as datetime))
+                if (column instanceof CastOperator && column.getChild(0).getType().isDateType()) {
+                    column = column.getChild(0);
+                }
+                String field = getDocValueField(scan, docValueFields, column);
+                if (field == null || !column.getType().isDateType() || !(unit instanceof ConstantOperator)
+                        || !unit.getType().isStringType()) {
+                    return Collections.emptyList();
+                }
+                String interval = DATE_TRUNC_INTERVALS.get(((ConstantOperator) unit).getVarchar().toLowerCase());
+                if (interval == null) {
+                    return Collections.emptyList();
+                }
+                aggregation.addDateHistogram(name, field, interval);
+            } else {
+                return Collections.emptyList();
+            }
+            newScanColumns.put(groupingKey, new Column(name, groupingKey.getType(), true));
+        }
+
+        Map<ColumnRefOperator, CallOperator> newAggCalls = Maps.newHashMap();
+        for (Map.Entry<ColumnRefOperator, CallOperator> kv : agg.getAggregations().entrySet()) {
+            CallOperator aggCall = kv.getValue();
+            if (aggCall.isDistinct()) {
+                return Collections.emptyList();
+            }
+            String fnName = aggCall.getFnName();
+            AggregateFunction aggFunction = (AggregateFunction) aggCall.getFunction();
+            Type intermediateType = aggFunction.getIntermediateType() == null ?
+                    aggFunction.getReturnType() : aggFunction.getIntermediateType();
+
+            ColumnRefOperator partialColumn;
+            if (fnName.equals(FunctionSet.COUNT) && aggCall.getChildren().isEmpty()) {
+                // count(*) is the doc count of the bucket, never null
+                partialColumn = columnRefFactory.create(EsAggregationBuilder.DOC_COUNT, intermediateType, false);
+                newScanColumns.put(partialColumn,
+                        new Column(EsAggregationBuilder.DOC_COUNT, intermediateType, false));
+            } else {
+                if (aggCall.getChildren().size() != 1) {
+                    return Collections.emptyList();
+                }
+                ScalarOperator arg = aggCall.getChild(0);
+                if (arg instanceof ColumnRefOperator) {
+                    arg = project.getColumnRefMap().get(arg);
+                }
+                String field = getDocValueField(scan, docValueFields, arg);
+                String metric = field == null ? null : getMetric(fnName, arg.getType());
+                if (metric == null) {
+                    return Collections.emptyList();
+                }
+                String name = "__agg_" + kv.getKey().getId();
+                boolean nullable = !metric.equals("value_count");
+                partialColumn = columnRefFactory.create(name, intermediateType, nullable);
+                newScanColumns.put(partialColumn, new Column(name, intermediateType, nullable));
+                aggregation.addMetric(name, metric, field);
+            }
+            newAggCalls.put(kv.getKey(), new CallOperator(fnName, aggCall.getType(),
+                    Lists.newArrayList(partialColumn), aggFunction));
+        }
+
+        // the columns of the predicates are kept to build the ES query, no value is returned for them
+        for (ColumnRefOperator ref : Utils.extractColumnRef(scan.getPredicate())) {
+            Column column = scan.getColRefToColumnMetaMap().get(ref);
+            newScanColumns.putIfAbsent(ref, new Column(column.getName(), column.getType(), true));
+        }
+
+        Map<Column, ColumnRefOperator> newColumnToRefs = Maps.newHashMap();
+        newScanColumns.forEach((ref, column) -> newColumnToRefs.put(column, ref));
+        LogicalEsScanOperator newScan = new LogicalEsScanOperator(table, newScanColumns, newColumnToRefs,
+                Operator.DEFAULT_LIMIT, scan.getPredicate(), null, aggregation);
+
+        // the scan returns the partial aggregation results, the aggregation merges them
+        LogicalAggregationOperator newAgg = new LogicalAggregationOperator.Builder().withOperator(agg)
+                .setAggregations(newAggCalls)
+                .setSplit()
+                .build();
+        return Lists.newArrayList(OptExpression.create(newAgg, OptExpression.create(newScan)));
+    }
+
+    private static String getDocValueField(LogicalEsScanOperator scan, Map<String, String> docValueFields,
+                                           ScalarOperator expr) {
+        if (!(expr instanceof ColumnRefOperator)) {
+            return null;
+        }
+        Column column = scan.getColRefToColumnMetaMap().get(expr);
+        return column == null ? null : docValueFields.get(column.getName());
+    }
+
+    private static boolean isSupportedGroupingType(Type type) {
+        return type.isBoolean() || type.isIntegerType() || type.isFloatingPointType()
+                || type.isStringType() || type.isDateType();
+    }
+
+    // ES computes the metrics in double, only push down the ones without precision loss
+    private static String getMetric(String fnName, Type type) {
+        PrimitiveType primitiveType = type.getPrimitiveType();
+        boolean exactInDouble = primitiveType == PrimitiveType.TINYINT || primitiveType == PrimitiveType.SMALLINT
+                || primitiveType == PrimitiveType.INT || type.isFloatingPointType();
+        switch (fnName) {
+            case FunctionSet.COUNT:
+                return "value_count";
+            case FunctionSet.SUM:
+                return exactInDouble ? "sum" : null;
+            case FunctionSet.MIN:
+            case FunctionSet.MAX:
+                return exactInDouble || type.isDateType() ? fnName : null;
+            default:
+                return null;
+        }
+    }
+
+    // the same predicates as the ones BE pushes down to ES, see EsPredicate
+    private static boolean canPushDownPredicate(LogicalEsScanOperator scan, ScalarOperator predicate) {
+        if (predicate instanceof CompoundPredicateOperator) {
+            CompoundPredicateOperator compound = (CompoundPredicateOperator) predicate;
+            return !compound.isNot()
+                    && compound.getChildren().stream().allMatch(child -> canPushDownPredicate(scan, child));
+        } else if (predicate instanceof BinaryPredicateOperator) {
+            BinaryPredicateOperator.BinaryType binaryType = ((BinaryPredicateOperator) predicate).getBinaryType();
+            if (binaryType == BinaryPredicateOperator.BinaryType.EQ_FOR_NULL) {
+                return false;
+            }
+            ScalarOperator left = predicate.getChild(0);
+            ScalarOperator right = predicate.getChild(1);
+            return (isScanColumn(scan, left) && right.isConstantRef())
+                    || (isScanColumn(scan, right) && left.isConstantRef());
+        } else if (predicate instanceof InPredicateOperator || predicate instanceof LikePredicateOperator) {
+            return isScanColumn(scan, predicate.getChild(0))
+                    && predicate.getChildren().stream().skip(1).allMatch(ScalarOperator::isConstantRef);
+        } else if (predicate instanceof IsNullPredicateOperator) {
+            return isScanColumn(scan, predicate.getChild(0));
+        }
+        return false;
+    }
+
+    private static boolean isScanColumn(LogicalEsScanOperator scan, ScalarOperator operator) {
+        return operator instanceof ColumnRefOperator && scan.getColRefToColumnMetaMap().containsKey(operator);
+    }
+}
@@ -22,6 +22,7 @@ import com.starrocks.sql.optimizer.rewrite.ScalarOperatorRewriter;
 import com.starrocks.sql.optimizer.rewrite.ScalarRangePredicateExtractor;
 import com.starrocks.sql.optimizer.rule.RuleType;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -77,6 +78,10 @@ public class PushDownPredicateScanRule extends TransformationRule {
             return Lists.newArrayList(project);
         } else if (logicalScanOperator instanceof LogicalEsScanOperator) {
             LogicalEsScanOperator esScanOperator = (LogicalEsScanOperator) logicalScanOperator;
+            if (esScanOperator.getAggregation() != null) {
+                // the scan returns the buckets of an aggregation, keep the filter above it
+                return Collections.emptyList();
+            }
             LogicalEsScanOperator newScanOperator = new LogicalEsScanOperator(
                     esScanOperator.getTable(),
                     esScanOperator.getColRefToColumnMetaMap(),
@@ -7,8 +7,10 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.starrocks.catalog.IcebergTable;
 import com.starrocks.catalog.Table;
 import com.starrocks.common.Config;
+import com.starrocks.external.iceberg.cost.IcebergStatisticStore;
 import com.starrocks.sql.optimizer.operator.scalar.ColumnRefOperator;
 import com.starrocks.statistic.StatisticUtils;
 import org.apache.logging.log4j.LogManager;
@@ -113,6 +115,10 @@ public class CachedStatisticStorage implements StatisticStorage {
 
     @Override
     public void expireColumnStatistics(Table table, List<String> columns) {
+        if (table instanceof IcebergTable) {
+            IcebergStatisticStore.invalidate(((IcebergTable) table).getIcebergTable());
+            return;
+        }
         List<ColumnStatsCacheKey> allKeys = Lists.newArrayList();
         for (String column : columns) {
             ColumnStatsCacheKey key = new ColumnStatsCacheKey(table.getId(), column);
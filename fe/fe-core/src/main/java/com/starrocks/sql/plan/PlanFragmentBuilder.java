@@ -1005,6 +1005,7 @@ public class PlanFragmentBuilder {
                 scanNode.getConjuncts().add(ScalarOperatorToExpr.buildExecExpression(predicate, formatterContext));
             }
             scanNode.setLimit(node.getLimit());
+            scanNode.setAggregation(node.getAggregation());
             scanNode.computeStatistics(optExpression.getStatistics());
             try {
                 scanNode.assignBackends();
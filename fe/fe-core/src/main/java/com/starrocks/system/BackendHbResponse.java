@@ -47,6 +47,9 @@ public class BackendHbResponse extends HeartbeatResponse implements Writable {
     private String version = "";
     @SerializedName(value = "cpuCores")
     private int cpuCores;
+    // not persisted with the backend heartbeat, it changes on every heartbeat,
+    // it's synchronized by the 'mocked' master Frontend heartbeat
+    private LoadStatistics loadStatistics = LoadStatistics.EMPTY;
 
     public BackendHbResponse() {
         super(HeartbeatResponse.Type.BACKEND);
@@ -101,6 +104,14 @@ public class BackendHbResponse extends HeartbeatResponse implements Writable {
         return cpuCores;
     }
 
+    public LoadStatistics getLoadStatistics() {
+        return loadStatistics;
+    }
+
+    public void setLoadStatistics(LoadStatistics loadStatistics) {
+        this.loadStatistics = loadStatistics;
+    }
+
     public static BackendHbResponse read(DataInput in) throws IOException {
         BackendHbResponse result = new BackendHbResponse();
         result.readFields(in);
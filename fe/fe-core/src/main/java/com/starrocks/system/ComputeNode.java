@@ -73,6 +73,9 @@ public class ComputeNode implements IComputable, Writable {
     // port of starlet on BE
     private volatile int starletPort;
 
+    // the load statistics reported by the last heartbeat, not persisted
+    private volatile LoadStatistics loadStatistics = LoadStatistics.EMPTY;
+
     public ComputeNode() {
         this.host = "";
         this.version = "";
@@ -354,6 +357,15 @@ public class ComputeNode implements IComputable, Writable {
         return cpuCores;
     }
 
+    public LoadStatistics getLoadStatistics() {
+        return loadStatistics;
+    }
+
+    // replayed from the heartbeat of the leader FE
+    public void setLoadStatistics(LoadStatistics loadStatistics) {
+        this.loadStatistics = loadStatistics;
+    }
+
     public void setCpuCores(int cpuCores) {
         this.cpuCores = cpuCores;
     }
@@ -406,6 +418,9 @@ public class ComputeNode implements IComputable, Writable {
                 BackendCoreStat.setNumOfHardwareCoresOfBe(hbResponse.getBeId(), hbResponse.getCpuCores());
             }
 
+            // changes on every heartbeat, so it doesn't make the heartbeat logged
+            this.loadStatistics = hbResponse.getLoadStatistics();
+
             heartbeatErrMsg = "";
             this.heartbeatRetryTimes = 0;
         } else {
@@ -56,15 +56,22 @@ public class FrontendHbResponse extends HeartbeatResponse implements Writable {
     @SerializedName(value = "backendId2cpuCores")
     private Map<Long, Integer> backendId2cpuCores = Maps.newHashMap();
 
+    // Synchronize the load statistics of backends, which choose the backends of the stream loads redirected by
+    // other Frontends. Like backendId2cpuCores, it's only non-empty in the 'mocked' master Frontend heartbeat.
+    @SerializedName(value = "backendId2LoadStatistics")
+    private Map<Long, LoadStatistics> backendId2LoadStatistics = Maps.newHashMap();
+
     public FrontendHbResponse() {
         super(HeartbeatResponse.Type.FRONTEND);
     }
 
     public FrontendHbResponse(String name, int queryPort, int rpcPort,
                               long replayedJournalId, long hbTime, long feStartTime, String feVersion,
-                              Map<Long, Integer> backendId2cpuCores) {
+                              Map<Long, Integer> backendId2cpuCores,
+                              Map<Long, LoadStatistics> backendId2LoadStatistics) {
         this(name, queryPort, rpcPort, replayedJournalId, hbTime, feStartTime, feVersion);
         this.backendId2cpuCores = backendId2cpuCores;
+        this.backendId2LoadStatistics = backendId2LoadStatistics;
     }
 
     public FrontendHbResponse(String name, int queryPort, int rpcPort,
@@ -115,6 +122,11 @@ public class FrontendHbResponse extends HeartbeatResponse implements Writable {
         return backendId2cpuCores;
     }
 
+    public Map<Long, LoadStatistics> getBackendId2LoadStatistics() {
+        // null if it's replayed from the heartbeat of an old version
+        return backendId2LoadStatistics == null ? Maps.newHashMap() : backendId2LoadStatistics;
+    }
+
     public static FrontendHbResponse read(DataInput in) throws IOException {
         FrontendHbResponse result = new FrontendHbResponse();
         result.readFields(in);
@@ -160,12 +160,18 @@ public class HeartbeatMgr extends LeaderDaemon {
 
         // we also add a 'mocked' master Frontend heartbeat response to synchronize master info to other Frontends.
         Map<Long, Integer> backendId2cpuCores = Maps.newHashMap();
-        nodeMgr.getIdToBackend().values().forEach(
-                backend -> backendId2cpuCores.put(backend.getId(), BackendCoreStat.getCoresOfBe(backend.getId())));
+        Map<Long, LoadStatistics> backendId2LoadStatistics = Maps.newHashMap();
+        nodeMgr.getIdToBackend().values().forEach(backend -> {
+            backendId2cpuCores.put(backend.getId(), BackendCoreStat.getCoresOfBe(backend.getId()));
+            if (backend.getLoadStatistics().getReportTimeMs() > 0) {
+                backendId2LoadStatistics.put(backend.getId(), backend.getLoadStatistics());
+            }
+        });
         hbPackage.addHbResponse(new FrontendHbResponse(masterFeNodeName, Config.query_port, Config.rpc_port,
                 GlobalStateMgr.getCurrentState().getMaxJournalId(),
                 System.currentTimeMillis(), GlobalStateMgr.getCurrentState().getFeStartTime(),
-                Version.STARROCKS_VERSION + "-" + Version.STARROCKS_COMMIT_HASH, backendId2cpuCores));
+                Version.STARROCKS_VERSION + "-" + Version.STARROCKS_COMMIT_HASH, backendId2cpuCores,
+                backendId2LoadStatistics));
 
         // write edit log
         GlobalStateMgr.getCurrentState().getEditLog().logHeartbeat(hbPackage);
@@ -185,6 +191,12 @@ public class HeartbeatMgr extends LeaderDaemon {
                         BackendCoreStat.setNumOfHardwareCoresOfBe(backendId, cpuCores);
                     }
                 });
+                hbResponse.getBackendId2LoadStatistics().forEach((backendId, loadStatistics) -> {
+                    Backend be = nodeMgr.getBackend(backendId);
+                    if (be != null) {
+                        be.setLoadStatistics(loadStatistics);
+                    }
+                });
 
                 Frontend fe = GlobalStateMgr.getCurrentState().getFeByName(hbResponse.getName());
                 if (fe != null) {
@@ -290,8 +302,17 @@ public class HeartbeatMgr extends LeaderDaemon {
                     }
 
                     // backend.updateOnce(bePort, httpPort, beRpcPort, brpcPort);
-                    return new BackendHbResponse(computeNodeId, bePort, httpPort, brpcPort, starletPort,
-                            System.currentTimeMillis(), version, cpuCores);
+                    long hbTime = System.currentTimeMillis();
+                    BackendHbResponse hbResponse = new BackendHbResponse(computeNodeId, bePort, httpPort, brpcPort,
+                            starletPort, hbTime, version, cpuCores);
+                    hbResponse.setLoadStatistics(new LoadStatistics(
+                            tBackendInfo.isSetLoad_mem_bytes() ? tBackendInfo.getLoad_mem_bytes() : 0,
+                            tBackendInfo.isSetLoad_mem_limit() ? tBackendInfo.getLoad_mem_limit() : -1,
+                            tBackendInfo.isSetNum_load_channels() ? tBackendInfo.getNum_load_channels() : 0,
+                            tBackendInfo.isSetNum_running_stream_loads() ?
+                                    tBackendInfo.getNum_running_stream_loads() : 0,
+                            hbTime));
+                    return hbResponse;
                 } else {
                     return new BackendHbResponse(computeNodeId,
                             result.getStatus().getError_msgs().isEmpty() ? "Unknown error"
@@ -0,0 +1,71 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.system;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * The load statistics reported by the heartbeat of a backend, used to choose the coordinator backend of the
+ * stream loads. They are synchronized to the other FEs by the heartbeat of the leader FE, see
+ * {@link FrontendHbResponse#getBackendId2LoadStatistics()}.
+ */
+public class LoadStatistics {
+    public static final LoadStatistics EMPTY = new LoadStatistics(0, -1, 0, 0, 0);
+
+    // memory consumed by the loads, and the limit of it, -1 for no limit
+    @SerializedName(value = "loadMemBytes")
+    private final long loadMemBytes;
+    @SerializedName(value = "loadMemLimit")
+    private final long loadMemLimit;
+    @SerializedName(value = "numLoadChannels")
+    private final int numLoadChannels;
+    @SerializedName(value = "numRunningStreamLoads")
+    private final int numRunningStreamLoads;
+    // the time of the leader FE when the statistics are reported
+    @SerializedName(value = "reportTimeMs")
+    private final long reportTimeMs;
+
+    public LoadStatistics(long loadMemBytes, long loadMemLimit, int numLoadChannels, int numRunningStreamLoads,
+                          long reportTimeMs) {
+        this.loadMemBytes = loadMemBytes;
+        this.loadMemLimit = loadMemLimit;
+        this.numLoadChannels = numLoadChannels;
+        this.numRunningStreamLoads = numRunningStreamLoads;
+        this.reportTimeMs = reportTimeMs;
+    }
+
+    public long getLoadMemBytes() {
+        return loadMemBytes;
+    }
+
+    public long getLoadMemLimit() {
+        return loadMemLimit;
+    }
+
+    // the ratio of the load memory to its limit, 0 if there is no limit
+    public double getLoadMemRatio() {
+        if (loadMemLimit <= 0) {
+            return 0;
+        }
+        return (double) loadMemBytes / loadMemLimit;
+    }
+
+    public int getNumLoadChannels() {
+        return numLoadChannels;
+    }
+
+    public int getNumRunningStreamLoads() {
+        return numRunningStreamLoads;
+    }
+
+    public long getReportTimeMs() {
+        return reportTimeMs;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadStatistics{loadMemBytes=" + loadMemBytes + ", loadMemLimit=" + loadMemLimit +
+                ", numLoadChannels=" + numLoadChannels + ", numRunningStreamLoads=" + numRunningStreamLoads +
+                ", reportTimeMs=" + reportTimeMs + "}";
+    }
+}
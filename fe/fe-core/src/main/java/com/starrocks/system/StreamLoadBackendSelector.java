@@ -0,0 +1,215 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.system;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.starrocks.catalog.Database;
+import com.starrocks.catalog.MaterializedIndex;
+import com.starrocks.catalog.OlapTable;
+import com.starrocks.catalog.Partition;
+import com.starrocks.catalog.Table;
+import com.starrocks.catalog.Tablet;
+import com.starrocks.common.Config;
+import com.starrocks.common.DdlException;
+import com.starrocks.server.GlobalStateMgr;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Choose the backend to which a stream load is redirected, it becomes the coordinator of the load.
+ *
+ * The backend with the lowest load score is chosen, the score is the sum of:
+ * - the ratio of the load memory to its limit.
+ * - the load channels per core.
+ * - the running stream loads per core, including the ones redirected by this FE since the last heartbeat.
+ * - the ratio of the used disk capacity.
+ * The backends holding the replicas of the target table get stream_load_replica_locality_weight off their score,
+ * the data sent to the local replicas doesn't go through the network.
+ * The backends running stream_load_max_concurrent_per_backend stream loads are not chosen.
+ *
+ * The load statistics are reported by the heartbeats to the leader FE, and synchronized to the other FEs by the
+ * heartbeat of the leader in the edit log, so every FE applies the same policy. The stream loads redirected by the
+ * other FEs are only known when the backends report them. The statistics not reported in the last
+ * STALE_HEARTBEAT_INTERVALS heartbeat intervals, eg: replayed from an old edit log, or the leader is not upgraded
+ * to report them, are not trusted. Then the backends are chosen by the stream loads redirected by this FE in the
+ * last heartbeat interval, and the concurrent stream loads are not limited.
+ */
+public class StreamLoadBackendSelector {
+    private static final StreamLoadBackendSelector INSTANCE = new StreamLoadBackendSelector();
+
+    // the tablets checked to find the backends holding the replicas of a table
+    private static final int MAX_CHECKED_TABLETS = 1024;
+    private static final int STALE_HEARTBEAT_INTERVALS = 3;
+
+    private final Map<Long, RedirectStat> redirectStats = new ConcurrentHashMap<>();
+    // table id -> the backends holding the replicas of the table
+    private final Cache<Long, Set<Long>> replicaBackends = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .expireAfterWrite(30, TimeUnit.SECONDS)
+            .build();
+    // where to start to check the backends, so the backends with the same score are chosen in turn
+    private final AtomicInteger nextStart = new AtomicInteger(0);
+
+    private static class RedirectStat {
+        private final AtomicLong totalRedirects = new AtomicLong(0);
+        // the redirects since the load statistics reported at lastReportTimeMs
+        private final AtomicInteger pendingRedirects = new AtomicInteger(0);
+        private volatile long lastReportTimeMs = -1;
+        // the start of the interval counting the redirects, if there is no load statistics
+        private volatile long intervalStartMs = 0;
+
+        int getPendingRedirects(long reportTimeMs, long nowMs) {
+            if (reportTimeMs <= 0) {
+                // nothing counts the redirected stream loads, forget them after a heartbeat interval
+                if (nowMs - intervalStartMs >= Config.heartbeat_timeout_second * 1000L) {
+                    intervalStartMs = nowMs;
+                    pendingRedirects.set(0);
+                }
+                lastReportTimeMs = reportTimeMs;
+                return pendingRedirects.get();
+            }
+            if (reportTimeMs != lastReportTimeMs) {
+                // the redirected stream loads are counted by the new statistics
+                lastReportTimeMs = reportTimeMs;
+                pendingRedirects.set(0);
+            }
+            return pendingRedirects.get();
+        }
+    }
+
+    public static StreamLoadBackendSelector getInstance() {
+        return INSTANCE;
+    }
+
+    private RedirectStat getRedirectStat(long backendId) {
+        return redirectStats.computeIfAbsent(backendId, k -> new RedirectStat());
+    }
+
+    public Backend chooseBackend(String dbName, String tableName) throws DdlException {
+        List<Backend> backends = GlobalStateMgr.getCurrentSystemInfo().getBackends();
+        Set<Long> localBackends = Config.stream_load_replica_locality_weight > 0 ?
+                getReplicaBackends(dbName, tableName) : ImmutableSet.of();
+        return chooseBackend(backends, localBackends);
+    }
+
+    @VisibleForTesting
+    Backend chooseBackend(List<Backend> backends, Set<Long> localBackends) throws DdlException {
+        return chooseBackend(backends, localBackends, System.currentTimeMillis());
+    }
+
+    @VisibleForTesting
+    Backend chooseBackend(List<Backend> backends, Set<Long> localBackends, long nowMs) throws DdlException {
+        Backend chosen = null;
+        double minScore = Double.MAX_VALUE;
+        boolean hasAvailable = false;
+        int start = backends.isEmpty() ? 0 : Math.floorMod(nextStart.getAndIncrement(), backends.size());
+        for (int i = 0; i < backends.size(); i++) {
+            Backend backend = backends.get((start + i) % backends.size());
+            if (!backend.isAvailable() || backend.diskExceedLimit()) {
+                continue;
+            }
+            hasAvailable = true;
+            LoadStatistics statistics = backend.getLoadStatistics();
+            long reportTimeMs = isFresh(statistics, nowMs) ? statistics.getReportTimeMs() : 0;
+            int runningStreamLoads = (reportTimeMs > 0 ? statistics.getNumRunningStreamLoads() : 0) +
+                    getRedirectStat(backend.getId()).getPendingRedirects(reportTimeMs, nowMs);
+            if (Config.stream_load_max_concurrent_per_backend > 0 && reportTimeMs > 0 &&
+                    runningStreamLoads >= Config.stream_load_max_concurrent_per_backend) {
+                continue;
+            }
+            double score = getLoadScore(backend, runningStreamLoads);
+            if (localBackends.contains(backend.getId())) {
+                score -= Config.stream_load_replica_locality_weight;
+            }
+            if (score < minScore) {
+                minScore = score;
+                chosen = backend;
+            }
+        }
+        if (chosen == null) {
+            if (hasAvailable) {
+                throw new DdlException("All backends are running " + Config.stream_load_max_concurrent_per_backend
+                        + " stream loads, please retry later.");
+            }
+            throw new DdlException("No backend alive.");
+        }
+        RedirectStat stat = getRedirectStat(chosen.getId());
+        stat.pendingRedirects.incrementAndGet();
+        stat.totalRedirects.incrementAndGet();
+        return chosen;
+    }
+
+    private static boolean isFresh(LoadStatistics statistics, long nowMs) {
+        long staleMs = STALE_HEARTBEAT_INTERVALS * Config.heartbeat_timeout_second * 1000L;
+        return statistics.getReportTimeMs() > 0 && nowMs - statistics.getReportTimeMs() <= staleMs;
+    }
+
+    private static double getLoadScore(Backend backend, int runningStreamLoads) {
+        LoadStatistics statistics = backend.getLoadStatistics();
+        int cpuCores = Math.max(1, backend.getCpuCores());
+        double diskUsedRatio = 0;
+        long totalCapacityB = backend.getTotalCapacityB();
+        if (totalCapacityB > 0) {
+            diskUsedRatio = 1 - (double) backend.getAvailableCapacityB() / totalCapacityB;
+        }
+        return statistics.getLoadMemRatio() + (double) statistics.getNumLoadChannels() / cpuCores +
+                (double) runningStreamLoads / cpuCores + diskUsedRatio;
+    }
+
+    private Set<Long> getReplicaBackends(String dbName, String tableName) {
+        Database db = GlobalStateMgr.getCurrentState().getDb(dbName);
+        if (db == null) {
+            return ImmutableSet.of();
+        }
+        Table table = db.getTable(tableName);
+        if (!(table instanceof OlapTable)) {
+            return ImmutableSet.of();
+        }
+        try {
+            return replicaBackends.get(table.getId(), () -> collectReplicaBackends(db, (OlapTable) table));
+        } catch (ExecutionException e) {
+            return ImmutableSet.of();
+        }
+    }
+
+    private static Set<Long> collectReplicaBackends(Database db, OlapTable table) {
+        ImmutableSet.Builder<Long> backendIds = ImmutableSet.builder();
+        int checkedTablets = 0;
+        db.readLock();
+        try {
+            for (Partition partition : table.getPartitions()) {
+                MaterializedIndex index = partition.getBaseIndex();
+                for (Tablet tablet : index.getTablets()) {
+                    backendIds.addAll(tablet.getBackendIds());
+                    if (++checkedTablets >= MAX_CHECKED_TABLETS) {
+                        return backendIds.build();
+                    }
+                }
+            }
+        } finally {
+            db.readUnlock();
+        }
+        return backendIds.build();
+    }
+
+    public long getTotalRedirects(long backendId) {
+        RedirectStat stat = redirectStats.get(backendId);
+        return stat == null ? 0 : stat.totalRedirects.get();
+    }
+
+    // for test
+    void clear() {
+        redirectStats.clear();
+        replicaBackends.invalidateAll();
+    }
+}
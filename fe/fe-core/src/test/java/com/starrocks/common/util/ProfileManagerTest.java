@@ -0,0 +1,120 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.common.util;
+
+import com.starrocks.common.Config;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+
+public class ProfileManagerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long maxMemoryBytes;
+    private long spillMaxBytes;
+    private String spillDir;
+
+    @Before
+    public void setUp() {
+        maxMemoryBytes = Config.profile_max_memory_bytes;
+        spillMaxBytes = Config.profile_spill_max_bytes;
+        spillDir = Config.profile_spill_dir;
+        Config.profile_spill_dir = folder.getRoot().getAbsolutePath();
+    }
+
+    @After
+    public void tearDown() {
+        Config.profile_max_memory_bytes = maxMemoryBytes;
+        Config.profile_spill_max_bytes = spillMaxBytes;
+        Config.profile_spill_dir = spillDir;
+    }
+
+    private RuntimeProfile createProfile(String queryId) {
+        RuntimeProfile profile = new RuntimeProfile("Query");
+        RuntimeProfile summary = new RuntimeProfile("Summary");
+        summary.addInfoString(ProfileManager.QUERY_ID, queryId);
+        summary.addInfoString(ProfileManager.SQL_STATEMENT, "select * from t0");
+        profile.addChild(summary);
+        RuntimeProfile execution = new RuntimeProfile("Execution");
+        for (int i = 0; i < 100; i++) {
+            execution.addInfoString("Fragment " + i, "fragment of " + queryId);
+        }
+        profile.addChild(execution);
+        return profile;
+    }
+
+    @Test
+    public void testCompressedProfile() {
+        ProfileManager manager = new ProfileManager();
+        RuntimeProfile profile = createProfile("query1");
+        String content = ProfileManager.decompress(manager.pushProfile(profile));
+        Assert.assertEquals(profile.toString(), content);
+        Assert.assertEquals(content, manager.getProfile("query1"));
+        Assert.assertNull(manager.getProfile("query2"));
+    }
+
+    @Test
+    public void testEvictByBytes() {
+        Config.profile_max_memory_bytes = 1;
+        Config.profile_spill_max_bytes = 0;
+        ProfileManager manager = new ProfileManager();
+        manager.pushProfile(createProfile("query1"));
+        manager.pushProfile(createProfile("query2"));
+        // only the newest profile is kept
+        Assert.assertNull(manager.getProfile("query1"));
+        Assert.assertNotNull(manager.getProfile("query2"));
+        Assert.assertEquals(1, manager.getAllQueries().size());
+    }
+
+    @Test
+    public void testSpill() {
+        Config.profile_max_memory_bytes = 1;
+        Config.profile_spill_max_bytes = 1024L * 1024;
+        ProfileManager manager = new ProfileManager();
+        String content1 = ProfileManager.decompress(manager.pushProfile(createProfile("query1")));
+        String content2 = ProfileManager.decompress(manager.pushProfile(createProfile("query2")));
+        manager.pushProfile(createProfile("query3"));
+        Assert.assertEquals(content1, manager.getProfile("query1"));
+        Assert.assertEquals(content2, manager.getProfile("query2"));
+        Assert.assertEquals(2, folder.getRoot().listFiles().length);
+
+        List<List<String>> queries = manager.getAllQueries();
+        Assert.assertEquals(3, queries.size());
+        // from new to old
+        Assert.assertEquals("query3", queries.get(0).get(0));
+        Assert.assertEquals("query1", queries.get(2).get(0));
+
+        // delete the oldest spilled profiles
+        Config.profile_spill_max_bytes = 1;
+        manager.pushProfile(createProfile("query4"));
+        Assert.assertNull(manager.getProfile("query1"));
+        Assert.assertNotNull(manager.getProfile("query4"));
+    }
+
+    @Test
+    public void testSpillFailure() throws Exception {
+        Config.profile_max_memory_bytes = 1;
+        Config.profile_spill_max_bytes = 1024L * 1024;
+        // the spill files can't be written under a regular file
+        Config.profile_spill_dir = folder.newFile("not_dir").getAbsolutePath();
+        ProfileManager manager = new ProfileManager();
+        manager.pushProfile(createProfile("query1"));
+        manager.pushProfile(createProfile("query2"));
+        // the profile failed to spill is discarded
+        Assert.assertNull(manager.getProfile("query1"));
+        Assert.assertNotNull(manager.getProfile("query2"));
+        Assert.assertEquals(1, manager.getAllQueries().size());
+
+        // the oldest profiles are spilled again after the spill dir is fixed
+        Config.profile_spill_dir = folder.newFolder("spill").getAbsolutePath();
+        manager.pushProfile(createProfile("query3"));
+        Assert.assertNotNull(manager.getProfile("query2"));
+        Assert.assertEquals(2, manager.getAllQueries().size());
+    }
+}
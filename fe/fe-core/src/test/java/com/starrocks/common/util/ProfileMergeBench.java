@@ -0,0 +1,92 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.common.util;
+
+import com.google.common.collect.Lists;
+import com.starrocks.thrift.TUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merge the isomorphic profiles of the fragment instances of a wide query, every instance profile has
+ * some pipeline drivers with a few operators, like the profiles reported by BE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ProfileMergeBench {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ProfileMergeBench.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    private static final int DRIVER_NUM = 4;
+    private static final int OPERATOR_NUM = 6;
+    private static final int COUNTER_NUM = 20;
+
+    @Param({"1000", "5000"})
+    public int instances;
+
+    private List<RuntimeProfile> profiles;
+
+    // the merge writes into the first profile, so the profiles are rebuilt for every invocation
+    @Setup(Level.Invocation)
+    public void setup() {
+        profiles = Lists.newArrayListWithCapacity(instances);
+        for (int i = 0; i < instances; i++) {
+            profiles.add(buildInstanceProfile(i));
+        }
+    }
+
+    @Benchmark
+    public void mergeIsomorphicProfiles() {
+        RuntimeProfile.mergeIsomorphicProfiles(profiles);
+        RuntimeProfile.removeRedundantMinMaxMetrics(profiles.get(0));
+    }
+
+    private static RuntimeProfile buildInstanceProfile(int seed) {
+        RuntimeProfile instance = new RuntimeProfile("Instance");
+        instance.addCounter("InstanceTotalTime", TUnit.TIME_NS).setValue(1000000L + seed);
+        for (int d = 0; d < DRIVER_NUM; d++) {
+            RuntimeProfile driver = new RuntimeProfile("PipelineDriver (id=" + d + ")");
+            driver.addCounter("ActiveTime", TUnit.TIME_NS).setValue(100000L * d + seed);
+            driver.addCounter("ScheduleCount", TUnit.UNIT).setValue(seed % 10);
+            for (int o = 0; o < OPERATOR_NUM; o++) {
+                RuntimeProfile operator = new RuntimeProfile("OPERATOR (plan_node_id=" + o + ")");
+                Counter parent = operator.addCounter("OperatorTotalTime", TUnit.TIME_NS);
+                parent.setValue(10000L * o + seed);
+                for (int c = 0; c < COUNTER_NUM; c++) {
+                    TUnit type = c % 2 == 0 ? TUnit.TIME_NS : TUnit.UNIT;
+                    String parentName = c < COUNTER_NUM / 2 ? "OperatorTotalTime" : "";
+                    operator.addCounter("Counter" + c, type, parentName).setValue((long) seed * c);
+                }
+                driver.addChild(operator);
+            }
+            instance.addChild(driver);
+        }
+        return instance;
+    }
+}
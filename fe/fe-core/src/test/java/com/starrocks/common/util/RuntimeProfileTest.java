@@ -111,6 +111,24 @@ public class RuntimeProfileTest {
         Assert.assertEquals(profile.getCounterMap().get("key").getValue(), 1);
     }
 
+    @Test
+    public void testRemoveAndAddCounter() {
+        RuntimeProfile profile = new RuntimeProfile("profile");
+        profile.addCounter("parent", TUnit.UNIT);
+        profile.addCounter("child", TUnit.UNIT, "parent").setValue(1);
+        profile.removeCounter("parent");
+        Assert.assertNull(profile.getCounter("parent"));
+        Assert.assertNull(profile.getCounter("child"));
+
+        // the counter added again is a new one under its new parent
+        profile.addCounter("other", TUnit.UNIT);
+        profile.addCounter("parent", TUnit.BYTES, "other").setValue(2);
+        Assert.assertEquals(TUnit.BYTES, profile.getCounter("parent").getType());
+        Assert.assertEquals(2, profile.getCounter("parent").getValue());
+        Assert.assertEquals(Sets.newHashSet("TotalTime", "other", "parent"), profile.getCounterMap().keySet());
+        Assert.assertEquals("profile:\n   - other: 0\n     - parent: 2.00 B\n", profile.toString());
+    }
+
     @Test
     public void testUpdate() throws IOException {
         RuntimeProfile profile = new RuntimeProfile("REAL_ROOT");
@@ -178,6 +196,47 @@ public class RuntimeProfileTest {
         profile.prettyPrint(builder, "");
     }
 
+    @Test
+    public void testIncrementalUpdate() {
+        TRuntimeProfileNode tnode = new TRuntimeProfileNode();
+        tnode.name = "ROOT";
+        tnode.num_children = 0;
+        tnode.counters = Lists.newArrayList();
+        tnode.counters.add(new TCounter("counterA", TUnit.UNIT, 1));
+        tnode.counters.add(new TCounter("counterASon", TUnit.UNIT, 2));
+        tnode.child_counters_map = Maps.newHashMap();
+        tnode.child_counters_map.put("", Sets.newHashSet("counterA"));
+        tnode.child_counters_map.put("counterA", Sets.newHashSet("counterASon"));
+        TRuntimeProfileTree tprofileTree = new TRuntimeProfileTree();
+        tprofileTree.addToNodes(tnode);
+
+        RuntimeProfile profile = new RuntimeProfile("ROOT");
+        profile.update(tprofileTree);
+        Assert.assertEquals(1, profile.getCounter("counterA").getValue());
+        Assert.assertEquals(2, profile.getCounter("counterASon").getValue());
+
+        // the later report updates the existing counters in place and adds the new ones
+        tnode.counters.clear();
+        tnode.counters.add(new TCounter("counterA", TUnit.UNIT, 10));
+        tnode.counters.add(new TCounter("counterASon", TUnit.BYTES, 20));
+        tnode.counters.add(new TCounter("counterASon2", TUnit.UNIT, 30));
+        tnode.counters.add(new TCounter("counterB", TUnit.UNIT, 40));
+        tnode.child_counters_map.get("counterA").add("counterASon2");
+        Counter counterA = profile.getCounter("counterA");
+        profile.update(tprofileTree);
+        Assert.assertSame(counterA, profile.getCounter("counterA"));
+        Assert.assertEquals(10, counterA.getValue());
+        // the counter with a different type is not updated
+        Assert.assertEquals(2, profile.getCounter("counterASon").getValue());
+        Assert.assertEquals(30, profile.getCounter("counterASon2").getValue());
+        Assert.assertEquals(40, profile.getCounter("counterB").getValue());
+        // removing the parent removes the new child counter as well
+        profile.removeCounter("counterA");
+        Assert.assertNull(profile.getCounter("counterASon"));
+        Assert.assertNull(profile.getCounter("counterASon2"));
+        Assert.assertEquals(40, profile.getCounter("counterB").getValue());
+    }
+
     @Test
     public void testMergeIsomorphicProfiles1() {
         List<RuntimeProfile> profiles = Lists.newArrayList();
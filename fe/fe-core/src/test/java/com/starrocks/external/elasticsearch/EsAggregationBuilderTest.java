@@ -0,0 +1,32 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.external.elasticsearch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EsAggregationBuilderTest {
+
+    @Test
+    public void testToJson() {
+        EsAggregationBuilder builder = new EsAggregationBuilder()
+                .addTerms("k1", "k1")
+                .addDateHistogram("__key_2", "ts", "1d")
+                .addMetric("__agg_3", "max", "v1");
+        Assert.assertEquals("{\"groupby\":{\"composite\":{\"size\":100,\"sources\":["
+                        + "{\"k1\":{\"terms\":{\"field\":\"k1\",\"missing_bucket\":true}}},"
+                        + "{\"__key_2\":{\"date_histogram\":{\"calendar_interval\":\"1d\",\"time_zone\":\"+08:00\","
+                        + "\"field\":\"ts\",\"missing_bucket\":true}}}]},"
+                        + "\"aggregations\":{\"__agg_3\":{\"max\":{\"field\":\"v1\"}}}}}",
+                builder.toJson(100, true));
+        Assert.assertTrue(builder.toJson(100, false).contains("\"interval\":\"1d\""));
+    }
+
+    @Test
+    public void testNoMetric() {
+        EsAggregationBuilder builder = new EsAggregationBuilder().addTerms("k1", "k1");
+        Assert.assertEquals("{\"groupby\":{\"composite\":{\"size\":10,\"sources\":["
+                        + "{\"k1\":{\"terms\":{\"field\":\"k1\",\"missing_bucket\":true}}}]}}}",
+                builder.toJson(10, true));
+    }
+}
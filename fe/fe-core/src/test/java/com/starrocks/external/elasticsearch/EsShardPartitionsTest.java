@@ -26,6 +26,9 @@ import com.starrocks.catalog.GlobalStateMgrTestUtil;
 import com.starrocks.server.GlobalStateMgr;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
@@ -43,4 +46,23 @@ public class EsShardPartitionsTest extends EsTestCase {
         assertEquals(1, esTablePartitions.getUnPartitionedIndexStates().size());
         assertEquals(5, esTablePartitions.getEsShardPartitions("doe").getShardRoutings().size());
     }
+
+    @Test
+    public void testComputeSliceNums() throws Exception {
+        EsShardPartitions esShardPartitions = EsShardPartitions.findShardPartitions("doe",
+                loadJsonFromFile("data/es/test_search_shards.json"));
+        Map<String, Long> shardDocCounts = new HashMap<>();
+        shardDocCounts.put(EsRestClient.shardKey("doe", 0), 100L);
+        shardDocCounts.put(EsRestClient.shardKey("doe", 1), 250L);
+        shardDocCounts.put(EsRestClient.shardKey("doe", 2), 10000L);
+        esShardPartitions.computeSliceNums(shardDocCounts, 100, 8);
+        assertEquals(1, esShardPartitions.getSliceNum(0));
+        assertEquals(3, esShardPartitions.getSliceNum(1));
+        assertEquals(8, esShardPartitions.getSliceNum(2));
+        // no doc count
+        assertEquals(1, esShardPartitions.getSliceNum(3));
+
+        esShardPartitions.computeSliceNums(shardDocCounts, 0, 8);
+        assertEquals(1, esShardPartitions.getSliceNum(2));
+    }
 }
@@ -0,0 +1,166 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.external.iceberg;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.starrocks.common.Pair;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DataFiles;
+import org.apache.iceberg.FileFormat;
+import org.apache.iceberg.ManifestFile;
+import org.apache.iceberg.Metrics;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.hadoop.HadoopTables;
+import org.apache.iceberg.types.Conversions;
+import org.apache.iceberg.types.Types;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toSet;
+
+public class IcebergScanPlannerTest {
+    private static final Schema SCHEMA = new Schema(
+            Types.NestedField.optional(1, "id", Types.IntegerType.get()),
+            Types.NestedField.optional(2, "region", Types.StringType.get()));
+    private static final PartitionSpec SPEC = PartitionSpec.builderFor(SCHEMA).identity("region").build();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Table table;
+
+    @Before
+    public void setUp() throws Exception {
+        table = new HadoopTables(new Configuration()).create(SCHEMA, SPEC, folder.newFolder("t").getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        IcebergScanPlanner.invalidate(table);
+    }
+
+    private DataFile dataFile(String region, int minId, int maxId) {
+        Metrics metrics = new Metrics(10L,
+                ImmutableMap.of(1, 40L, 2, 60L),
+                ImmutableMap.of(1, 10L, 2, 10L),
+                ImmutableMap.of(1, 0L, 2, 0L),
+                ImmutableMap.of(1, Conversions.toByteBuffer(Types.IntegerType.get(), minId)),
+                ImmutableMap.of(1, Conversions.toByteBuffer(Types.IntegerType.get(), maxId)));
+        return DataFiles.builder(SPEC)
+                .withPath(table.location() + "/data/region=" + region + "/" + minId + ".parquet")
+                .withFileSizeInBytes(100)
+                .withPartitionPath("region=" + region)
+                .withMetrics(metrics)
+                .build();
+    }
+
+    private Set<String> planDataFiles(List<Expression> predicates) {
+        table.refresh();
+        return IcebergScanPlanner.planDataFiles(table, table.currentSnapshot(), predicates).stream()
+                .map(dataFile -> dataFile.path().toString())
+                .collect(toSet());
+    }
+
+    private Set<String> paths(DataFile... dataFiles) {
+        return ImmutableList.copyOf(dataFiles).stream().map(dataFile -> dataFile.path().toString()).collect(toSet());
+    }
+
+    private static void deleteManifest(ManifestFile manifest) {
+        Assert.assertTrue(new File(URI.create(manifest.path()).getPath()).delete());
+    }
+
+    @Test
+    public void testPlanDataFilesFromCache() {
+        DataFile fileA = dataFile("a", 1, 10);
+        table.newAppend().appendFile(fileA).commit();
+        Assert.assertEquals(paths(fileA), planDataFiles(Collections.emptyList()));
+
+        // the manifest of the first snapshot is not read again, the new snapshot only reads its new manifest
+        table.refresh();
+        List<ManifestFile> firstManifests = table.currentSnapshot().dataManifests();
+        Assert.assertEquals(1, firstManifests.size());
+        deleteManifest(firstManifests.get(0));
+        Assert.assertEquals(paths(fileA), planDataFiles(Collections.emptyList()));
+        DataFile fileB = dataFile("b", 100, 200);
+        table.newFastAppend().appendFile(fileB).commit();
+        Assert.assertEquals(paths(fileA, fileB), planDataFiles(Collections.emptyList()));
+
+        // the deleted manifest has to be read after the cache of the table is invalidated
+        IcebergScanPlanner.invalidate(table);
+        Assert.assertThrows(StarRocksIcebergException.class, () -> planDataFiles(Collections.emptyList()));
+        // except if it is pruned by its partition summary
+        Assert.assertEquals(paths(fileB), planDataFiles(ImmutableList.of(Expressions.equal("region", "b"))));
+    }
+
+    @Test
+    public void testPlanDataFilesPruning() {
+        DataFile fileA1 = dataFile("a", 1, 10);
+        DataFile fileA2 = dataFile("a", 100, 200);
+        DataFile fileB = dataFile("b", 50, 60);
+        table.newAppend().appendFile(fileA1).appendFile(fileA2).appendFile(fileB).commit();
+
+        Assert.assertEquals(paths(fileA1, fileA2, fileB), planDataFiles(Collections.emptyList()));
+        // by partition
+        Assert.assertEquals(paths(fileA1, fileA2), planDataFiles(ImmutableList.of(Expressions.equal("region", "a"))));
+        // by the min/max of a non-partition column
+        Assert.assertEquals(paths(fileA2, fileB), planDataFiles(ImmutableList.of(Expressions.greaterThan("id", 55))));
+        Assert.assertEquals(paths(fileA1), planDataFiles(ImmutableList.of(Expressions.equal("region", "a"),
+                Expressions.lessThan("id", 20))));
+        Assert.assertTrue(planDataFiles(ImmutableList.of(Expressions.greaterThan("id", 1000))).isEmpty());
+    }
+
+    private static DataFile dataFile(long fileSize, List<Long> splitOffsets) {
+        return DataFiles.builder(PartitionSpec.unpartitioned())
+                .withPath("hdfs://host/path/to/file.parquet")
+                .withFormat(FileFormat.PARQUET)
+                .withFileSizeInBytes(fileSize)
+                .withRecordCount(100)
+                .withSplitOffsets(splitOffsets)
+                .build();
+    }
+
+    private static void assertSplits(List<Pair<Long, Long>> splits, long... startAndLengths) {
+        Assert.assertEquals(startAndLengths.length / 2, splits.size());
+        for (int i = 0; i < splits.size(); i++) {
+            Assert.assertEquals(startAndLengths[i * 2], (long) splits.get(i).first);
+            Assert.assertEquals(startAndLengths[i * 2 + 1], (long) splits.get(i).second);
+        }
+    }
+
+    @Test
+    public void testSplitFileBySize() {
+        assertSplits(IcebergScanPlanner.splitFile(dataFile(250, null), 100),
+                0, 100, 100, 100, 200, 50);
+        assertSplits(IcebergScanPlanner.splitFile(dataFile(100, null), 100),
+                0, 100);
+    }
+
+    @Test
+    public void testSplitFileByOffsets() {
+        // row groups of 40, 40, 40, 30 bytes
+        DataFile file = dataFile(154, ImmutableList.of(4L, 44L, 84L, 124L));
+        assertSplits(IcebergScanPlanner.splitFile(file, 100),
+                4, 80, 84, 70);
+        // a row group larger than split size is not split
+        assertSplits(IcebergScanPlanner.splitFile(file, 10),
+                4, 40, 44, 40, 84, 40, 124, 30);
+        assertSplits(IcebergScanPlanner.splitFile(file, 1000),
+                4, 150);
+    }
+}
@@ -0,0 +1,75 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.external.iceberg.cost;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.iceberg.StructLike;
+import org.apache.iceberg.types.Type;
+import org.apache.iceberg.types.Types;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class IcebergFileStatsTest {
+    private static final Map<Integer, Type.PrimitiveType> ID_TO_TYPE = ImmutableMap.of(
+            1, Types.IntegerType.get(), 2, Types.StringType.get());
+    private static final List<Types.NestedField> COLUMNS = ImmutableList.of(
+            Types.NestedField.optional(1, "k1", Types.IntegerType.get()),
+            Types.NestedField.optional(2, "k2", Types.StringType.get()));
+    private static final StructLike EMPTY_PARTITION = new StructLike() {
+        @Override
+        public int size() {
+            return 0;
+        }
+
+        @Override
+        public <T> T get(int pos, Class<T> javaClass) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> void set(int pos, T value) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private static IcebergFileStats fileStats(int min, int max, String minStr, String maxStr, long nulls) {
+        return new IcebergFileStats(ID_TO_TYPE, COLUMNS, EMPTY_PARTITION, 10, 100,
+                ImmutableMap.of(1, min, 2, minStr), ImmutableMap.of(1, max, 2, maxStr),
+                ImmutableMap.of(1, nulls, 2, 0L), ImmutableMap.of(1, 40L, 2, 60L));
+    }
+
+    @Test
+    public void testMerge() {
+        IcebergFileStats stats1 = fileStats(1, 10, "b", "c", 1);
+        IcebergFileStats stats2 = fileStats(5, 20, "a", "b", 2);
+        IcebergFileStats merged = stats1.copy();
+        merged.merge(stats2);
+
+        Assert.assertEquals(20, merged.getRecordCount());
+        Assert.assertEquals(2, merged.getFileCount());
+        Assert.assertEquals(200, merged.getSize());
+        Assert.assertEquals(1, merged.getMinValues().get(1));
+        Assert.assertEquals(20, merged.getMaxValues().get(1));
+        Assert.assertEquals("a", merged.getMinValues().get(2));
+        Assert.assertEquals("c", merged.getMaxValues().get(2));
+        Assert.assertEquals(3L, (long) merged.getNullCounts().get(1));
+        Assert.assertEquals(120L, (long) merged.getColumnSizes().get(2));
+
+        // the copied statistics are not changed
+        Assert.assertEquals(10, stats1.getRecordCount());
+        Assert.assertEquals(10, stats1.getMaxValues().get(1));
+        Assert.assertEquals(1L, (long) stats1.getNullCounts().get(1));
+    }
+
+    @Test
+    public void testMergeInvalidMetrics() {
+        IcebergFileStats stats = fileStats(1, 10, "b", "c", 1);
+        stats.merge(new IcebergFileStats(ID_TO_TYPE, COLUMNS, EMPTY_PARTITION, 5, 50, null, null, null, null));
+        Assert.assertEquals(15, stats.getRecordCount());
+        Assert.assertFalse(stats.hasValidColumnMetrics());
+    }
+}
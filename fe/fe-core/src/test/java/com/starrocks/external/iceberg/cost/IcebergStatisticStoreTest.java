@@ -0,0 +1,115 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.external.iceberg.cost;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DataFiles;
+import org.apache.iceberg.Metrics;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.hadoop.HadoopTables;
+import org.apache.iceberg.types.Conversions;
+import org.apache.iceberg.types.Types;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+import java.util.List;
+
+public class IcebergStatisticStoreTest {
+    private static final Schema SCHEMA = new Schema(
+            Types.NestedField.optional(1, "id", Types.IntegerType.get()),
+            Types.NestedField.optional(2, "region", Types.StringType.get()));
+    private static final PartitionSpec SPEC = PartitionSpec.builderFor(SCHEMA).identity("region").build();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Table table;
+
+    @Before
+    public void setUp() throws Exception {
+        table = new HadoopTables(new Configuration()).create(SCHEMA, SPEC, folder.newFolder("t").getAbsolutePath());
+    }
+
+    private DataFile dataFile(String region, int minId, int maxId, long recordCount) {
+        Metrics metrics = new Metrics(recordCount,
+                ImmutableMap.of(1, 40L, 2, 60L),
+                ImmutableMap.of(1, recordCount, 2, recordCount),
+                ImmutableMap.of(1, 0L, 2, 0L),
+                ImmutableMap.of(1, Conversions.toByteBuffer(Types.IntegerType.get(), minId)),
+                ImmutableMap.of(1, Conversions.toByteBuffer(Types.IntegerType.get(), maxId)));
+        return DataFiles.builder(SPEC)
+                .withPath(table.location() + "/data/region=" + region + "/" + minId + ".parquet")
+                .withFileSizeInBytes(100)
+                .withPartitionPath("region=" + region)
+                .withMetrics(metrics)
+                .build();
+    }
+
+    private IcebergFileStats getFileStats(List<Expression> predicates) {
+        table.refresh();
+        return IcebergStatisticStore.getFileStats(table, table.currentSnapshot(), predicates);
+    }
+
+    @Test
+    public void testUpdate() {
+        DataFile fileA = dataFile("a", 1, 10, 10);
+        table.newAppend().appendFile(fileA).commit();
+        IcebergFileStats stats = getFileStats(Collections.emptyList());
+        Assert.assertEquals(10, stats.getRecordCount());
+        Assert.assertEquals(1, stats.getFileCount());
+
+        // the statistics of the cached snapshot are updated with the appended files
+        table.newAppend().appendFile(dataFile("b", 100, 200, 20)).appendFile(dataFile("a", 20, 30, 5)).commit();
+        stats = getFileStats(Collections.emptyList());
+        Assert.assertEquals(35, stats.getRecordCount());
+        Assert.assertEquals(3, stats.getFileCount());
+        Assert.assertEquals(1, stats.getMinValues().get(1));
+        Assert.assertEquals(200, stats.getMaxValues().get(1));
+
+        // the partition touched by the deleted file is recomputed
+        table.newDelete().deleteFile(fileA).commit();
+        stats = getFileStats(Collections.emptyList());
+        Assert.assertEquals(25, stats.getRecordCount());
+        Assert.assertEquals(2, stats.getFileCount());
+        Assert.assertEquals(20, stats.getMinValues().get(1));
+        Assert.assertEquals(200, stats.getMaxValues().get(1));
+
+        stats = getFileStats(ImmutableList.of(Expressions.equal("region", "a")));
+        Assert.assertEquals(5, stats.getRecordCount());
+        Assert.assertEquals(30, stats.getMaxValues().get(1));
+        Assert.assertNull(getFileStats(ImmutableList.of(Expressions.equal("region", "c"))));
+        IcebergStatisticStore.invalidate(table);
+    }
+
+    @Test
+    public void testPruneByColumnMetrics() {
+        table.newAppend().appendFile(dataFile("a", 1, 10, 10)).appendFile(dataFile("a", 100, 200, 20))
+                .appendFile(dataFile("b", 50, 60, 5)).commit();
+
+        // the predicate on a non-partition column prunes the files by their min/max
+        IcebergFileStats stats = getFileStats(ImmutableList.of(Expressions.greaterThan("id", 55)));
+        Assert.assertEquals(25, stats.getRecordCount());
+        Assert.assertEquals(2, stats.getFileCount());
+        Assert.assertEquals(50, stats.getMinValues().get(1));
+
+        stats = getFileStats(ImmutableList.of(Expressions.equal("region", "a"), Expressions.lessThan("id", 20)));
+        Assert.assertEquals(10, stats.getRecordCount());
+        Assert.assertEquals(10, stats.getMaxValues().get(1));
+        Assert.assertNull(getFileStats(ImmutableList.of(Expressions.greaterThan("id", 1000))));
+
+        stats = getFileStats(Collections.emptyList());
+        Assert.assertEquals(35, stats.getRecordCount());
+        IcebergStatisticStore.invalidate(table);
+    }
+}
@@ -22,7 +22,13 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 public class MetricsTest {
 
@@ -52,4 +58,74 @@ public class MetricsTest {
             }
         }
     }
+
+    @Test
+    public void testPrometheusMetricVisitor() {
+        LongCounterMetric counter = new LongCounterMetric("query_total", Metric.MetricUnit.REQUESTS, "total query");
+        counter.increase(3L);
+        GaugeMetricImpl<Long> gauge = new GaugeMetricImpl<>("connection", Metric.MetricUnit.CONNECTIONS, "conns");
+        gauge.setValue(5L);
+        gauge.addLabel(new MetricLabel("user", "root"));
+        Assert.assertEquals("{user=\"root\"}", gauge.getLabelsText());
+        gauge.addLabel(new MetricLabel("host", "fe1"));
+        Assert.assertEquals("{user=\"root\", host=\"fe1\"}", gauge.getLabelsText());
+
+        PrometheusMetricVisitor visitor = new PrometheusMetricVisitor("starrocks_fe");
+        visitor.visit(counter);
+        visitor.visit(gauge);
+        String output = visitor.build();
+        Assert.assertTrue(output,
+                output.contains("# TYPE starrocks_fe_query_total counter\nstarrocks_fe_query_total 3\n"));
+        Assert.assertTrue(output, output.contains("starrocks_fe_connection{user=\"root\", host=\"fe1\"} 5\n"));
+        Assert.assertFalse(output, output.contains("# EOF"));
+
+        visitor = new PrometheusMetricVisitor("starrocks_fe", true);
+        visitor.visit(counter);
+        visitor.visit(gauge);
+        output = visitor.build();
+        Assert.assertTrue(output, output.contains("# TYPE starrocks_fe_query counter\nstarrocks_fe_query_total 3\n"));
+        Assert.assertTrue(output, output.endsWith("# EOF\n"));
+    }
+
+    @Test
+    public void testOpenMetricsOutput() {
+        LongCounterMetric counter = new LongCounterMetric("request_total", Metric.MetricUnit.REQUESTS, "requests");
+        counter.addLabel(new MetricLabel("type", "query")).addLabel(new MetricLabel("user", "root"));
+        counter.increase(2L);
+        GaugeMetricImpl<Long> gauge = new GaugeMetricImpl<>("connection", Metric.MetricUnit.CONNECTIONS, "conns");
+        gauge.addLabel(new MetricLabel("user", "root")).addLabel(new MetricLabel("host", "fe1"));
+        gauge.setValue(5L);
+
+        PrometheusMetricVisitor visitor = new PrometheusMetricVisitor("starrocks_fe", true);
+        visitor.visit(counter);
+        visitor.visit(gauge);
+        Assert.assertEquals("# HELP starrocks_fe_request requests\n" +
+                "# TYPE starrocks_fe_request counter\n" +
+                "starrocks_fe_request_total{type=\"query\",user=\"root\"} 2\n" +
+                "# HELP starrocks_fe_connection conns\n" +
+                "# TYPE starrocks_fe_connection gauge\n" +
+                "starrocks_fe_connection{user=\"root\",host=\"fe1\"} 5\n" +
+                "# EOF\n", visitor.build());
+        // the cached prometheus labels are not changed
+        Assert.assertEquals("{user=\"root\", host=\"fe1\"}", gauge.getLabelsText());
+    }
+
+    @Test
+    public void testMetricsSnapshot() throws IOException {
+        MetricsSnapshot snapshot = new MetricsSnapshot("starrocks_fe_query_total 3\n", 1000);
+        Assert.assertFalse(snapshot.isExpired(1500, 1000));
+        Assert.assertTrue(snapshot.isExpired(2000, 1000));
+
+        byte[] compressed = snapshot.getGzipContent();
+        Assert.assertSame(compressed, snapshot.getGzipContent());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+        Assert.assertEquals("starrocks_fe_query_total 3\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
 }
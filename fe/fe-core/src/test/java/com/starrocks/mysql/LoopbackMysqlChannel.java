@@ -0,0 +1,69 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.mysql;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// A MysqlChannel reading the bytes fed to it, and keeping the bytes it sends, without a real connection.
+class LoopbackMysqlChannel extends MysqlChannel {
+    private final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+    private ByteBuffer toRead = ByteBuffer.allocate(0);
+    // discard the sent bytes, for benchmark
+    private final boolean discardSent;
+    private int gatheringWrites = 0;
+
+    LoopbackMysqlChannel(boolean discardSent) {
+        super();
+        this.discardSent = discardSent;
+    }
+
+    void feed(byte[] bytes) {
+        toRead = ByteBuffer.wrap(bytes);
+    }
+
+    byte[] takeSent() {
+        byte[] bytes = sent.toByteArray();
+        sent.reset();
+        return bytes;
+    }
+
+    @Override
+    protected int readAll(ByteBuffer dstBuf) {
+        int readLen = Math.min(dstBuf.remaining(), toRead.remaining());
+        for (int i = 0; i < readLen; i++) {
+            dstBuf.put(toRead.get());
+        }
+        return readLen;
+    }
+
+    @Override
+    protected void realNetSend(ByteBuffer buffer) throws IOException {
+        if (discardSent) {
+            buffer.position(buffer.limit());
+        } else {
+            while (buffer.hasRemaining()) {
+                sent.write(buffer.get());
+            }
+        }
+        isSend = true;
+    }
+
+    @Override
+    protected void realNetSend(ByteBuffer[] buffers) throws IOException {
+        gatheringWrites++;
+        for (ByteBuffer buffer : buffers) {
+            realNetSend(buffer);
+        }
+    }
+
+    int getGatheringWrites() {
+        return gatheringWrites;
+    }
+
+    @Override
+    public void close() {
+        endCompression();
+    }
+}
@@ -0,0 +1,49 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.mysql;
+
+import com.starrocks.common.Config;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class MysqlBufferPoolTest {
+
+    @Test
+    public void testBufferCapacity() {
+        Assert.assertEquals(MysqlBufferPool.MIN_BUFFER_SIZE, MysqlBufferPool.bufferCapacity(100));
+        Assert.assertEquals(MysqlBufferPool.MIN_BUFFER_SIZE, MysqlBufferPool.bufferCapacity(256 * 1024));
+        Assert.assertEquals(512 * 1024, MysqlBufferPool.bufferCapacity(256 * 1024 + 1));
+        Assert.assertEquals(1024 * 1024, MysqlBufferPool.bufferCapacity(1024 * 1024));
+        Assert.assertEquals(MysqlBufferPool.MAX_BUFFER_SIZE, MysqlBufferPool.bufferCapacity(100 * 1024 * 1024));
+    }
+
+    @Test
+    public void testBorrowAndGiveBack() {
+        ByteBuffer buffer = MysqlBufferPool.borrow(300 * 1024);
+        Assert.assertTrue(buffer.isDirect());
+        Assert.assertEquals(512 * 1024, buffer.capacity());
+        buffer.put((byte) 1);
+        long pooledBytes = MysqlBufferPool.getPooledBytes();
+        MysqlBufferPool.giveBack(buffer);
+        Assert.assertEquals(pooledBytes + buffer.capacity(), MysqlBufferPool.getPooledBytes());
+
+        ByteBuffer reused = MysqlBufferPool.borrow(400 * 1024);
+        Assert.assertEquals(buffer.capacity(), reused.capacity());
+        Assert.assertEquals(0, reused.position());
+        Assert.assertEquals(pooledBytes, MysqlBufferPool.getPooledBytes());
+
+        // not kept beyond the limit
+        long maxBytes = Config.mysql_send_buffer_pool_max_bytes;
+        Config.mysql_send_buffer_pool_max_bytes = 0;
+        try {
+            MysqlBufferPool.giveBack(reused);
+            Assert.assertEquals(pooledBytes, MysqlBufferPool.getPooledBytes());
+        } finally {
+            Config.mysql_send_buffer_pool_max_bytes = maxBytes;
+        }
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> MysqlBufferPool.giveBack(ByteBuffer.allocate(1024)));
+    }
+}
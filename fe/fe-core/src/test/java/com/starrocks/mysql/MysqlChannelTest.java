@@ -244,6 +244,19 @@ public class MysqlChannelTest {
                         return writeLen;
                     }
                 };
+
+                channel.write((ByteBuffer[]) any, anyInt, anyInt);
+                minTimes = 0;
+                result = new Delegate() {
+                    long fakeWrite(ByteBuffer[] buffers, int offset, int length) {
+                        long writeLen = 0;
+                        for (int i = offset; i < offset + length; i++) {
+                            writeLen += buffers[i].remaining();
+                            buffers[i].position(buffers[i].limit());
+                        }
+                        return writeLen;
+                    }
+                };
             }
         };
 
@@ -333,4 +346,125 @@ public class MysqlChannelTest {
         channel1.sendOnePacket(buf);
     }
 
+
+    @Test
+    public void testSendLargePacket() throws IOException {
+        LoopbackMysqlChannel server = new LoopbackMysqlChannel(false);
+        LoopbackMysqlChannel client = new LoopbackMysqlChannel(false);
+
+        // the large packet is sent with the buffered small packet by one gathering write
+        byte[] small = "select 1".getBytes();
+        byte[] large = new byte[MysqlBufferPool.MAX_BUFFER_SIZE + 100];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) ('a' + i % 26);
+        }
+        server.setSequenceId(0);
+        server.sendOnePacket(ByteBuffer.wrap(small));
+        server.sendOnePacket(ByteBuffer.wrap(large));
+        Assert.assertEquals(1, server.getGatheringWrites());
+        server.sendAndFlush(ByteBuffer.wrap(small));
+        server.releaseSendBuffer();
+        Assert.assertTrue(server.isSendBufferNull());
+
+        client.setSequenceId(0);
+        client.feed(server.takeSent());
+        Assert.assertEquals(ByteBuffer.wrap(small), client.fetchOnePacket());
+        Assert.assertEquals(ByteBuffer.wrap(large), client.fetchOnePacket());
+        Assert.assertEquals(ByteBuffer.wrap(small), client.fetchOnePacket());
+        Assert.assertNull(client.fetchOnePacket());
+    }
+
+    @Test
+    public void testCompression() throws IOException {
+        LoopbackMysqlChannel server = new LoopbackMysqlChannel(false);
+        LoopbackMysqlChannel client = new LoopbackMysqlChannel(false);
+        server.setCompressionNegotiated(true);
+        client.setCompressionNegotiated(true);
+        server.startCompressionIfNegotiated();
+        client.startCompressionIfNegotiated();
+        Assert.assertTrue(server.isCompressionEnabled());
+
+        // a small packet and a compressible large packet
+        byte[] small = "select 1".getBytes();
+        byte[] large = new byte[100000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) ('a' + i % 26);
+        }
+        server.setSequenceId(0);
+        server.sendOnePacket(ByteBuffer.wrap(small));
+        server.sendOnePacket(ByteBuffer.wrap(large));
+        server.flush();
+        byte[] sent = server.takeSent();
+        Assert.assertTrue(sent.length < large.length / 10);
+        // the header of the compressed packet
+        Assert.assertEquals(0, sent[3]);
+        Assert.assertEquals(small.length + large.length + 8,
+                (sent[4] & 0xFF) | ((sent[5] & 0xFF) << 8) | ((sent[6] & 0xFF) << 16));
+
+        client.setSequenceId(0);
+        client.feed(sent);
+        ByteBuffer packet = client.fetchOnePacket();
+        Assert.assertEquals(ByteBuffer.wrap(small), packet);
+        packet = client.fetchOnePacket();
+        Assert.assertEquals(ByteBuffer.wrap(large), packet);
+        Assert.assertNull(client.fetchOnePacket());
+
+        // the packets smaller than mysql_compression_min_packet_bytes are not compressed
+        server.setSequenceId(0);
+        server.sendAndFlush(ByteBuffer.wrap(small));
+        sent = server.takeSent();
+        Assert.assertEquals(7 + 4 + small.length, sent.length);
+        Assert.assertEquals(0, sent[4] | sent[5] | sent[6]);
+        client.setSequenceId(0);
+        client.feed(sent);
+        Assert.assertEquals(ByteBuffer.wrap(small), client.fetchOnePacket());
+
+        server.close();
+        client.close();
+    }
+
+    @Test
+    public void testCompressPacketLargerThanSendBuffer() throws IOException {
+        LoopbackMysqlChannel server = new LoopbackMysqlChannel(false);
+        LoopbackMysqlChannel client = new LoopbackMysqlChannel(false);
+        server.setCompressionNegotiated(true);
+        client.setCompressionNegotiated(true);
+        server.startCompressionIfNegotiated();
+        client.startCompressionIfNegotiated();
+
+        byte[] large = new byte[1024 * 1024];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) ('a' + i % 26);
+        }
+        server.setSequenceId(0);
+        server.sendAndFlush(ByteBuffer.wrap(large));
+        byte[] sent = server.takeSent();
+
+        // the packet is split into the compressed packets no larger than the send buffer
+        int sendBufferSize = 256 * 1024;
+        int numCompressedPackets = 0;
+        int totalLen = 0;
+        for (int offset = 0; offset < sent.length; numCompressedPackets++) {
+            int compressedLen = (sent[offset] & 0xFF) | ((sent[offset + 1] & 0xFF) << 8)
+                    | ((sent[offset + 2] & 0xFF) << 16);
+            int uncompressedLen = (sent[offset + 4] & 0xFF) | ((sent[offset + 5] & 0xFF) << 8)
+                    | ((sent[offset + 6] & 0xFF) << 16);
+            Assert.assertEquals(numCompressedPackets, sent[offset + 3]);
+            // the bytes not compressed have the uncompressed length 0
+            int len = uncompressedLen == 0 ? compressedLen : uncompressedLen;
+            Assert.assertTrue(len <= sendBufferSize);
+            totalLen += len;
+            offset += 7 + compressedLen;
+        }
+        Assert.assertTrue(numCompressedPackets > 1);
+        Assert.assertEquals(large.length + 4, totalLen);
+
+        client.setSequenceId(0);
+        client.feed(sent);
+        Assert.assertEquals(ByteBuffer.wrap(large), client.fetchOnePacket());
+        Assert.assertNull(client.fetchOnePacket());
+
+        server.close();
+        client.close();
+    }
 }
@@ -0,0 +1,81 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.mysql;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The throughput of sending the rows of a result set through MysqlChannel, with and without compression.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class MysqlCompressionBench {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(MysqlCompressionBench.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    private static final int ROW_NUM = 4096;
+
+    @Param({"false", "true"})
+    public boolean compression;
+
+    private LoopbackMysqlChannel channel;
+    private ByteBuffer[] rows;
+
+    @Setup
+    public void setup() {
+        channel = new LoopbackMysqlChannel(true);
+        channel.setCompressionNegotiated(compression);
+        channel.startCompressionIfNegotiated();
+        rows = new ByteBuffer[ROW_NUM];
+        for (int i = 0; i < ROW_NUM; i++) {
+            MysqlSerializer serializer = MysqlSerializer.newInstance();
+            serializer.writeLenEncodedString(String.valueOf(i));
+            serializer.writeLenEncodedString("2022-10-01 12:00:" + (i % 60));
+            serializer.writeLenEncodedString("customer_" + (i % 1000));
+            serializer.writeLenEncodedString(String.valueOf(i * 3.14));
+            rows[i] = serializer.toByteBuffer();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.close();
+    }
+
+    @Benchmark
+    public void sendResultSet() throws IOException {
+        channel.setSequenceId(0);
+        for (ByteBuffer row : rows) {
+            channel.sendOnePacket(row.duplicate());
+        }
+        channel.flush();
+    }
+}
@@ -0,0 +1,114 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.mysql;
+
+import com.starrocks.qe.RowBatch;
+import com.starrocks.thrift.TResultBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The rows per second sent from the RowBatch to a local socket through MysqlChannel, the peer discards the bytes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class MysqlPacketIoBench {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(MysqlPacketIoBench.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    private static final int ROW_NUM = 4096;
+
+    // the bytes of each row, the large rows don't fit in the send buffer together
+    @Param({"64", "1024", "65536"})
+    public int rowSize;
+
+    private ServerSocketChannel server;
+    private SocketChannel peer;
+    private Thread drainer;
+    private MysqlChannel channel;
+    private RowBatch batch;
+
+    @Setup
+    public void setup() throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", 0));
+        SocketChannel client = SocketChannel.open(server.getLocalAddress());
+        peer = server.accept();
+        drainer = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+            try {
+                while (peer.read(buffer) >= 0) {
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                // closed by tearDown
+            }
+        }, "mysql-bench-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+        channel = new MysqlChannel(client);
+
+        List<ByteBuffer> rows = new ArrayList<>(ROW_NUM);
+        for (int i = 0; i < ROW_NUM; i++) {
+            MysqlSerializer serializer = MysqlSerializer.newInstance();
+            while (serializer.toByteBuffer().remaining() < rowSize) {
+                serializer.writeLenEncodedString("customer_" + i);
+            }
+            rows.add(ByteBuffer.wrap(serializer.toArray()));
+        }
+        batch = new RowBatch();
+        batch.setBatch(new TResultBatch(rows, false, 0));
+        batch.setEos(false);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        channel.close();
+        peer.close();
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW_NUM)
+    public void sendRowBatch() throws IOException {
+        channel.setSequenceId(0);
+        for (ByteBuffer row : batch.getBatch().getRows()) {
+            channel.sendOnePacket(row.duplicate());
+        }
+        channel.flush();
+        channel.releaseSendBuffer();
+    }
+}
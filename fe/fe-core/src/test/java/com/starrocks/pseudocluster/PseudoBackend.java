@@ -139,6 +139,7 @@ public class PseudoBackend {
 
     private volatile float writeFailureRate = 0.0f;
     private volatile float publishFailureRate = 0.0f;
+    private volatile long execPlanFragmentLatencyMs = 0;
 
     Backend be;
     HeartBeatClient heatBeatClient;
@@ -288,6 +289,11 @@ public class PseudoBackend {
         return writeFailureRate;
     }
 
+    // simulate a slow backend
+    public void setExecPlanFragmentLatencyMs(long latencyMs) {
+        execPlanFragmentLatencyMs = latencyMs;
+    }
+
     public void setPublishFailureRate(float rate) {
         publishFailureRate = rate;
     }
@@ -677,6 +683,16 @@ public class PseudoBackend {
                     LOG.warn("error execBatchPlanFragments", e);
                 }
             });
+            if (execPlanFragmentLatencyMs > 0) {
+                try {
+                    Thread.sleep(execPlanFragmentLatencyMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (callback != null) {
+                callback.success(result);
+            }
             return CompletableFuture.completedFuture(result);
         }
 
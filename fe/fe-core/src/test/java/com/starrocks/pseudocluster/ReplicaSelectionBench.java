@@ -0,0 +1,88 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+package com.starrocks.pseudocluster;
+
+import com.starrocks.common.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The latency distribution (p50, p99) of the queries on a pseudo cluster with a slow backend, with and without
+ * enable_load_aware_replica_selection.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ReplicaSelectionBench {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ReplicaSelectionBench.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Param({"false", "true"})
+    public boolean loadAware;
+
+    @Param({"200"})
+    public long slowLatencyMs;
+
+    private Connection connection;
+    private Statement stmt;
+    private int queryId = 0;
+
+    @Setup
+    public void setup() throws Exception {
+        int fePort = new Random().nextInt(10000) + 50000;
+        PseudoCluster.getOrCreate("pseudo_cluster_replica_bench", true, fePort, 3);
+        connection = PseudoCluster.getInstance().getQueryConnection();
+        stmt = connection.createStatement();
+        stmt.execute("create database bench");
+        stmt.execute("use bench");
+        stmt.execute("create table t0 ( k1 bigint NOT NULL, v1 int not null ) duplicate KEY (k1) " +
+                "DISTRIBUTED BY HASH(k1) BUCKETS 12 PROPERTIES(\"replication_num\" = \"3\");");
+        PseudoCluster.getInstance().getBackend(10001).setExecPlanFragmentLatencyMs(slowLatencyMs);
+        Config.enable_load_aware_replica_selection = loadAware;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        stmt.close();
+        connection.close();
+        PseudoCluster.getInstance().shutdown(true);
+    }
+
+    @Benchmark
+    public int runQuery() throws Exception {
+        int rows = 0;
+        try (ResultSet rs = stmt.executeQuery("select count(*) from t0 where k1 > " + (queryId++))) {
+            while (rs.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
@@ -21,10 +21,18 @@
 
 package com.starrocks.qe;
 
+import com.google.common.collect.Lists;
+import com.starrocks.common.Config;
+import com.starrocks.common.DdlException;
+import com.starrocks.common.Pair;
 import com.starrocks.common.util.DigitalVersion;
 import com.starrocks.plugin.AuditEvent;
 import com.starrocks.plugin.AuditEvent.EventType;
+import com.starrocks.plugin.AuditPlugin;
+import com.starrocks.plugin.Plugin;
 import com.starrocks.plugin.PluginInfo;
+import com.starrocks.plugin.PluginInfo.PluginType;
+import com.starrocks.plugin.PluginMgr;
 import com.starrocks.server.GlobalStateMgr;
 import com.starrocks.utframe.UtFrameUtils;
 import org.junit.Assert;
@@ -32,6 +40,9 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AuditEventProcessorTest {
 
@@ -110,4 +121,231 @@ public class AuditEventProcessorTest {
         long total = System.currentTimeMillis() - start;
         System.out.println("total(ms): " + total + ", avg: " + total / 10000.0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSampleUnderBackPressure() {
+        AuditEventProcessor processor = GlobalStateMgr.getCurrentAuditEventProcessor();
+        AuditEvent fastQuery = new AuditEvent.AuditEventBuilder().setEventType(EventType.AFTER_QUERY)
+                .setState("EOF").setQueryTime(1).build();
+        AuditEvent slowQuery = new AuditEvent.AuditEventBuilder().setEventType(EventType.AFTER_QUERY)
+                .setState("EOF").setQueryTime(Config.qe_slow_log_ms).build();
+        AuditEvent failedQuery = new AuditEvent.AuditEventBuilder().setEventType(EventType.AFTER_QUERY)
+                .setState("ERR").setQueryTime(1).build();
+
+        int capacity = Config.audit_event_queue_size;
+        Assert.assertTrue(processor.shouldKeep(fastQuery, 0));
+        Assert.assertTrue(processor.shouldKeep(fastQuery, (int) (capacity * Config.audit_event_sample_watermark)));
+        // the queue is full, only the slow and failed queries are kept
+        Assert.assertFalse(processor.shouldKeep(fastQuery, capacity));
+        Assert.assertTrue(processor.shouldKeep(slowQuery, capacity));
+        Assert.assertTrue(processor.shouldKeep(failedQuery, capacity));
+    }
+
+    @Test
+    public void testAuditChunk() {
+        AuditChunk chunk = new AuditChunk(2);
+        Assert.assertTrue(chunk.isEmpty());
+        chunk.append(new AuditEvent.AuditEventBuilder().setEventType(EventType.AFTER_QUERY)
+                .setTimestamp(System.currentTimeMillis())
+                .setQueryId("q1")
+                .setUser("user1")
+                .setDb("db1")
+                .setState("EOF")
+                .setQueryTime(10)
+                .setStmt("select 'a\\b' from tbl1").build(), 100);
+        Assert.assertFalse(chunk.isFull());
+        chunk.append(new AuditEvent.AuditEventBuilder().setEventType(EventType.AFTER_QUERY)
+                .setTimestamp(System.currentTimeMillis())
+                .setQueryId("q2")
+                .setStmt("select * from a_table_with_a_long_name").build(), 10);
+        Assert.assertTrue(chunk.isFull());
+        Assert.assertEquals(2, chunk.getNumRows());
+
+        List<Pair<String, Integer>> sqls = chunk.toInsertSqls(AuditTableSink.AUDIT_TABLE_NAME, 1024 * 1024);
+        Assert.assertEquals(1, sqls.size());
+        String sql = sqls.get(0).first;
+        Assert.assertEquals(2, (int) sqls.get(0).second);
+        Assert.assertTrue(sql, sql.startsWith("INSERT INTO audit_log VALUES ('q1', '"));
+        Assert.assertTrue(sql, sql.contains("'select \\'a\\\\b\\' from tbl1'"));
+        Assert.assertTrue(sql, sql.contains("'select * f'"));
+
+        // every row is loaded by its own statement if two rows are too long for one
+        sqls = chunk.toInsertSqls(AuditTableSink.AUDIT_TABLE_NAME, sql.length() - 1);
+        Assert.assertEquals(2, sqls.size());
+        Assert.assertTrue(sqls.get(0).first, sqls.get(0).first.startsWith("INSERT INTO audit_log VALUES ('q1', '"));
+        Assert.assertTrue(sqls.get(1).first, sqls.get(1).first.startsWith("INSERT INTO audit_log VALUES ('q2', '"));
+        // without the separator of the rows, with one more prefix
+        Assert.assertEquals(sql.length() - 2 + "INSERT INTO audit_log VALUES ".length(),
+                sqls.get(0).first.length() + sqls.get(1).first.length());
+    }
+
+    @Test
+    public void testAuditTableSink() throws Exception {
+        try (AuditTableSink sink = new AuditTableSink()) {
+            Assert.assertFalse(sink.eventFilter(EventType.AFTER_QUERY));
+            Config.enable_audit_table_sink = true;
+            Assert.assertTrue(sink.eventFilter(EventType.AFTER_QUERY));
+            Assert.assertFalse(sink.eventFilter(EventType.CONNECTION));
+        } finally {
+            Config.enable_audit_table_sink = false;
+        }
+        String createTableSql = AuditTableSink.buildCreateTableSql(1, 7, LocalDate.of(2022, 3, 1));
+        Assert.assertTrue(createTableSql, createTableSql.contains("\"dynamic_partition.start\" = \"-7\""));
+        // the partitions are created with the table
+        Assert.assertTrue(createTableSql, createTableSql.contains(
+                "PARTITION BY RANGE(time) (START (\"2022-02-28\") END (\"2022-03-05\") EVERY (INTERVAL 1 DAY))"));
+        Assert.assertTrue(createTableSql, createTableSql.contains("\"replication_num\" = \"1\""));
+    }
+
+    @Test
+    public void testWorkerExecBatch() throws Exception {
+        RecordingAuditPlugin plugin = new RecordingAuditPlugin();
+        PluginMgr pluginMgr = new PluginMgr();
+        Assert.assertTrue(pluginMgr.registerBuiltinPlugin(
+                new PluginInfo("recording", PluginType.AUDIT, "recording audit plugin"), plugin));
+        AuditEventProcessor processor = new AuditEventProcessor(pluginMgr);
+        processor.start();
+        try {
+            for (int i = 0; i < 10; i++) {
+                processor.handleAuditEvent(queryEvent("q" + i));
+            }
+            processor.handleAuditEvent(new AuditEvent.AuditEventBuilder().setEventType(EventType.CONNECTION).build());
+            long deadline = System.currentTimeMillis() + 10000;
+            while (plugin.getEvents().size() < 10 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            processor.stop();
+        }
+        // the events are delivered in batches, the filtered events are not
+        List<AuditEvent> events = plugin.getEvents();
+        Assert.assertEquals(10, events.size());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("q" + i, events.get(i).queryId);
+        }
+        Assert.assertEquals(0, plugin.execNum.get());
+    }
+
+    @Test
+    public void testSinkSealChunk() throws Exception {
+        int batchRows = Config.audit_table_sink_batch_rows;
+        long flushIntervalMs = Config.audit_table_sink_flush_interval_ms;
+        try (TestAuditTableSink sink = new TestAuditTableSink()) {
+            Config.audit_table_sink_batch_rows = 2;
+            Config.audit_table_sink_flush_interval_ms = 3600 * 1000L;
+            sink.execBatch(Lists.newArrayList(queryEvent("q1"), queryEvent("q2"), queryEvent("q3")));
+            // the full chunk is sealed at once
+            AuditChunk chunk = sink.pollChunk(10);
+            Assert.assertNotNull(chunk);
+            Assert.assertEquals(2, chunk.getNumRows());
+            // the chunk not full is sealed after the flush interval
+            Assert.assertNull(sink.pollChunk(10));
+            Config.audit_table_sink_flush_interval_ms = 0;
+            chunk = sink.pollChunk(10);
+            Assert.assertNotNull(chunk);
+            Assert.assertEquals(1, chunk.getNumRows());
+            Assert.assertNull(sink.pollChunk(10));
+        } finally {
+            Config.audit_table_sink_batch_rows = batchRows;
+            Config.audit_table_sink_flush_interval_ms = flushIntervalMs;
+        }
+    }
+
+    @Test
+    public void testSinkPendingChunksOverflow() throws Exception {
+        int batchRows = Config.audit_table_sink_batch_rows;
+        long flushIntervalMs = Config.audit_table_sink_flush_interval_ms;
+        try (TestAuditTableSink sink = new TestAuditTableSink()) {
+            Config.audit_table_sink_batch_rows = 1;
+            Config.audit_table_sink_flush_interval_ms = 3600 * 1000L;
+            for (int i = 0; i <= AuditTableSink.MAX_PENDING_CHUNKS; i++) {
+                sink.exec(queryEvent("q" + i));
+            }
+            // the chunk sealed when the pending chunks are full is dropped
+            for (int i = 0; i < AuditTableSink.MAX_PENDING_CHUNKS; i++) {
+                Assert.assertNotNull(sink.pollChunk(10));
+            }
+            Assert.assertNull(sink.pollChunk(10));
+        } finally {
+            Config.audit_table_sink_batch_rows = batchRows;
+            Config.audit_table_sink_flush_interval_ms = flushIntervalMs;
+        }
+    }
+
+    @Test
+    public void testSinkLoadChunkRetry() throws Exception {
+        int maxRetries = Config.audit_table_sink_max_retries;
+        try (TestAuditTableSink sink = new TestAuditTableSink()) {
+            Config.audit_table_sink_max_retries = 1;
+            sink.retryBackoffMs = 1;
+            AuditChunk chunk = new AuditChunk(2);
+            chunk.append(queryEvent("q1"), 100);
+            chunk.append(queryEvent("q2"), 100);
+
+            // loaded after a retry
+            sink.failures = 1;
+            Assert.assertEquals(2, sink.loadChunk(chunk));
+            Assert.assertEquals(1, sink.loadedSqls.size());
+
+            // dropped after the retries
+            sink.loadedSqls.clear();
+            sink.failures = 2;
+            Assert.assertEquals(0, sink.loadChunk(chunk));
+            Assert.assertTrue(sink.loadedSqls.isEmpty());
+        } finally {
+            Config.audit_table_sink_max_retries = maxRetries;
+        }
+    }
+
+    private static AuditEvent queryEvent(String queryId) {
+        return new AuditEvent.AuditEventBuilder().setEventType(EventType.AFTER_QUERY)
+                .setTimestamp(System.currentTimeMillis())
+                .setQueryId(queryId)
+                .setState("EOF")
+                .setStmt("select * from tbl1").build();
+    }
+
+    private static class RecordingAuditPlugin extends Plugin implements AuditPlugin {
+        private final List<AuditEvent> events = Lists.newArrayList();
+        private final AtomicInteger execNum = new AtomicInteger();
+
+        @Override
+        public boolean eventFilter(EventType type) {
+            return type == EventType.AFTER_QUERY;
+        }
+
+        @Override
+        public void exec(AuditEvent event) {
+            execNum.incrementAndGet();
+        }
+
+        @Override
+        public synchronized void execBatch(List<AuditEvent> events) {
+            this.events.addAll(events);
+        }
+
+        synchronized List<AuditEvent> getEvents() {
+            return Lists.newArrayList(events);
+        }
+    }
+
+    // loads the audit events without executing the SQL
+    private static class TestAuditTableSink extends AuditTableSink {
+        private final List<String> loadedSqls = Lists.newArrayList();
+        private int failures = 0;
+
+        @Override
+        void startFlushThread() {
+            // the chunks are polled by the test
+        }
+
+        @Override
+        void loadSql(String sql) throws Exception {
+            if (failures > 0) {
+                failures--;
+                throw new DdlException("injected failure");
+            }
+            loadedSqls.add(sql);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.qe;
+
+import com.starrocks.common.Config;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BackendLoadTrackerTest {
+    private BackendLoadTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = BackendLoadTracker.getInstance();
+        tracker.clear();
+    }
+
+    @After
+    public void tearDown() {
+        tracker.clear();
+    }
+
+    @Test
+    public void testRunningInstances() {
+        tracker.addRunningInstances(10001L, 4);
+        tracker.addRunningInstances(10001L, -1);
+        Assert.assertEquals(3, tracker.getRunningInstances(10001L));
+        Assert.assertEquals(0, tracker.getRunningInstances(10002L));
+        Assert.assertEquals(1.5, tracker.getLoadScore(10001L, 2), 0.001);
+        Assert.assertEquals(0, tracker.getLoadScore(10002L, 2), 0.001);
+
+        tracker.addRunningInstances(10001L, -10);
+        Assert.assertEquals(0, tracker.getRunningInstances(10001L));
+    }
+
+    @Test
+    public void testSlowBackend() {
+        for (int i = 0; i < 100; i++) {
+            tracker.recordRpcLatency(10001L, 1000L);
+            tracker.recordRpcLatency(10002L, 2000L);
+            tracker.recordRpcLatency(10003L, Config.slow_replica_min_latency_ms * 1000L * 10);
+        }
+        Assert.assertEquals(1000L, tracker.getP99LatencyUs(10001L));
+        Assert.assertFalse(tracker.isSlow(10001L));
+        Assert.assertFalse(tracker.isSlow(10002L));
+        Assert.assertTrue(tracker.isSlow(10003L));
+        Assert.assertFalse(tracker.isSlow(10004L));
+        // slower than the median
+        Assert.assertTrue(tracker.getLoadScore(10003L, 1) > tracker.getLoadScore(10002L, 1));
+        Assert.assertEquals(0, tracker.getLoadScore(10001L, 1), 0.001);
+    }
+}
@@ -21,13 +21,21 @@
 
 package com.starrocks.qe;
 
+import com.google.common.collect.Lists;
 import com.google.gson.Gson;
+import com.starrocks.common.Config;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 
 import java.util.List;
 
 public class QueryDetailQueueTest {
+    @Before
+    public void setUp() {
+        QueryDetailQueue.clear();
+    }
+
     @Test
     public void testQueryDetailQueue() {
         QueryDetail startQueryDetail = new QueryDetail("219a2d5443c542d4-8fc938db37c892e3", false, 1, "127.0.0.1",
@@ -70,4 +78,99 @@ public class QueryDetailQueueTest {
         queryDetails = QueryDetailQueue.getQueryDetailsAfterTime(startQueryDetail.getEventTime() - 1);
         Assert.assertEquals(2, queryDetails.size());
     }
+
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        int threadNum = 8;
+        int detailNum = 1000;
+        List<Thread> threads = Lists.newArrayList();
+        for (int i = 0; i < threadNum; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < detailNum; j++) {
+                    QueryDetailQueue.addAndRemoveTimeoutQueryDetail(new QueryDetail());
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<QueryDetail> queryDetails = QueryDetailQueue.getQueryDetailsAfterTime(0);
+        Assert.assertEquals(threadNum * detailNum, queryDetails.size());
+        for (int i = 1; i < queryDetails.size(); i++) {
+            Assert.assertTrue(queryDetails.get(i).getEventTime() > queryDetails.get(i - 1).getEventTime());
+        }
+        // binary search from the middle
+        long eventTime = queryDetails.get(queryDetails.size() / 2).getEventTime();
+        List<QueryDetail> laterDetails = QueryDetailQueue.getQueryDetailsAfterTime(eventTime);
+        Assert.assertEquals(queryDetails.size() - queryDetails.size() / 2 - 1, laterDetails.size());
+        Assert.assertSame(queryDetails.get(queryDetails.size() / 2 + 1), laterDetails.get(0));
+    }
+
+    @Test
+    public void testMaxBytes() {
+        long maxBytes = Config.query_detail_queue_max_bytes;
+        try {
+            QueryDetail queryDetail = new QueryDetail();
+            QueryDetailQueue.addAndRemoveTimeoutQueryDetail(queryDetail);
+            long detailBytes = QueryDetailQueue.getTotalBytes();
+            Config.query_detail_queue_max_bytes = detailBytes * 3;
+            for (int i = 0; i < 10; i++) {
+                QueryDetailQueue.addAndRemoveTimeoutQueryDetail(new QueryDetail());
+            }
+            Assert.assertEquals(3, QueryDetailQueue.getQueryDetailsAfterTime(0).size());
+            Assert.assertEquals(detailBytes * 3, QueryDetailQueue.getTotalBytes());
+
+            // the latest detail is always kept
+            Config.query_detail_queue_max_bytes = 0;
+            QueryDetailQueue.addAndRemoveTimeoutQueryDetail(new QueryDetail());
+            Assert.assertEquals(1, QueryDetailQueue.getQueryDetailsAfterTime(0).size());
+        } finally {
+            Config.query_detail_queue_max_bytes = maxBytes;
+        }
+    }
+
+    @Test
+    public void testReleaseEvictedDetails() {
+        long maxBytes = Config.query_detail_queue_max_bytes;
+        try {
+            QueryDetail firstDetail = new QueryDetail();
+            QueryDetailQueue.addAndRemoveTimeoutQueryDetail(firstDetail);
+            long detailBytes = QueryDetailQueue.getTotalBytes();
+            Config.query_detail_queue_max_bytes = detailBytes * 3;
+            for (int i = 0; i < 10; i++) {
+                QueryDetailQueue.addAndRemoveTimeoutQueryDetail(new QueryDetail());
+            }
+            // the ring doesn't reference the evicted details any more
+            Assert.assertEquals(3, QueryDetailQueue.getRetainedNum());
+            List<QueryDetail> queryDetails = QueryDetailQueue.getQueryDetailsAfterTime(0);
+            Assert.assertEquals(3, queryDetails.size());
+            Assert.assertFalse(queryDetails.contains(firstDetail));
+            long eventTime = queryDetails.get(0).getEventTime();
+            Assert.assertEquals(2, QueryDetailQueue.getQueryDetailsAfterTime(eventTime).size());
+        } finally {
+            Config.query_detail_queue_max_bytes = maxBytes;
+        }
+    }
+
+    @Test
+    public void testSample() {
+        double sampleRatio = Config.query_detail_sample_ratio;
+        try {
+            Config.query_detail_sample_ratio = 0;
+            QueryDetail queryDetail = new QueryDetail("219a2d5443c542d4-8fc938db37c892e3", false, 1, "127.0.0.1",
+                    System.currentTimeMillis(), -1, -1, QueryDetail.QueryMemState.RUNNING,
+                    "default_cluster:testDb", "select * from table1 limit 1",
+                    "root", "");
+            QueryDetailQueue.addAndRemoveTimeoutQueryDetail(queryDetail);
+            Assert.assertEquals(0, QueryDetailQueue.getQueryDetailsAfterTime(0).size());
+
+            Config.query_detail_sample_ratio = 1;
+            QueryDetailQueue.addAndRemoveTimeoutQueryDetail(queryDetail);
+            Assert.assertEquals(1, QueryDetailQueue.getQueryDetailsAfterTime(0).size());
+        } finally {
+            Config.query_detail_sample_ratio = sampleRatio;
+        }
+    }
 }
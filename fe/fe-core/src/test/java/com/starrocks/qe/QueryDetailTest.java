@@ -18,6 +18,9 @@ public class QueryDetailTest {
         Gson gson = new Gson();
         Assert.assertEquals(gson.toJson(queryDetail), gson.toJson(copyOfQueryDetail));
 
+        Assert.assertEquals("bbbbb", copyOfQueryDetail.getProfile());
+        Assert.assertSame(queryDetail.getCompressedProfile(), copyOfQueryDetail.getCompressedProfile());
+
         queryDetail.setLatency(10);
         Assert.assertEquals(-1, copyOfQueryDetail.getLatency());
     }
@@ -0,0 +1,166 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.qe;
+
+import com.google.common.collect.Lists;
+import com.starrocks.catalog.ResourceGroup;
+import com.starrocks.common.Config;
+import com.starrocks.common.UserException;
+import com.starrocks.ha.FrontendNodeType;
+import com.starrocks.server.GlobalStateMgr;
+import com.starrocks.system.Frontend;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.Mocked;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class QueryQueueManagerTest {
+    private int pendingTimeoutSecond;
+    private ResourceGroup resourceGroup;
+
+    @Before
+    public void setUp() {
+        pendingTimeoutSecond = Config.query_queue_pending_timeout_second;
+        resourceGroup = new ResourceGroup();
+        resourceGroup.setName("rg1");
+        resourceGroup.setConcurrencyLimit(1);
+    }
+
+    @After
+    public void tearDown() {
+        Config.query_queue_pending_timeout_second = pendingTimeoutSecond;
+    }
+
+    @Test
+    public void testWaitAndRelease(@Mocked Coordinator coord1, @Mocked Coordinator coord2) throws Exception {
+        QueryQueueManager manager = QueryQueueManager.getInstance();
+        coord1.resourceGroup = resourceGroup;
+        coord2.resourceGroup = resourceGroup;
+
+        manager.waitAdmitted(new ConnectContext(null), coord1);
+        Assert.assertEquals(1, manager.getRunningQueryNum());
+
+        AtomicReference<Exception> error = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                manager.waitAdmitted(new ConnectContext(null), coord2);
+            } catch (Exception e) {
+                error.set(e);
+            }
+        });
+        waiter.start();
+        while (manager.getPendingQueryNum() == 0) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, manager.getQueueInfos().size());
+        Assert.assertEquals("1", manager.getQueueInfos().get(0).get(2));
+
+        manager.release(coord1);
+        waiter.join();
+        Assert.assertNull(error.get());
+        Assert.assertEquals(0, manager.getPendingQueryNum());
+        Assert.assertEquals(1, manager.getRunningQueryNum());
+
+        manager.release(coord2);
+        // releasing twice does nothing
+        manager.release(coord2);
+        Assert.assertEquals(0, manager.getRunningQueryNum());
+    }
+
+    @Test
+    public void testPendingTimeout(@Mocked Coordinator coord1, @Mocked Coordinator coord2) throws Exception {
+        QueryQueueManager manager = QueryQueueManager.getInstance();
+        coord1.resourceGroup = resourceGroup;
+        coord2.resourceGroup = resourceGroup;
+        Config.query_queue_pending_timeout_second = 1;
+
+        manager.waitAdmitted(new ConnectContext(null), coord1);
+        try {
+            manager.waitAdmitted(new ConnectContext(null), coord2);
+            Assert.fail("expect the query to time out in the queue");
+        } catch (UserException e) {
+            Assert.assertTrue(e.getMessage().contains("not admitted"));
+        } finally {
+            manager.release(coord1);
+        }
+        Assert.assertEquals(0, manager.getPendingQueryNum());
+        Assert.assertEquals(0, manager.getRunningQueryNum());
+    }
+
+    @Test
+    public void testRaiseLimitWhenPending(@Mocked Coordinator coord1, @Mocked Coordinator coord2) throws Exception {
+        QueryQueueManager manager = QueryQueueManager.getInstance();
+        coord1.resourceGroup = resourceGroup;
+        coord2.resourceGroup = resourceGroup;
+
+        manager.waitAdmitted(new ConnectContext(null), coord1);
+        AtomicReference<Exception> error = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                manager.waitAdmitted(new ConnectContext(null), coord2);
+            } catch (Exception e) {
+                error.set(e);
+            }
+        });
+        waiter.start();
+        while (manager.getPendingQueryNum() == 0) {
+            Thread.sleep(10);
+        }
+
+        // the pending query is admitted without any query released
+        resourceGroup.setConcurrencyLimit(2);
+        waiter.join();
+        Assert.assertNull(error.get());
+        Assert.assertEquals(0, manager.getPendingQueryNum());
+        Assert.assertEquals(2, manager.getRunningQueryNum());
+
+        manager.release(coord1);
+        manager.release(coord2);
+        Assert.assertEquals(0, manager.getRunningQueryNum());
+    }
+
+    @Test
+    public void testShareOfFrontends() {
+        List<Frontend> frontends = Lists.newArrayList(
+                new Frontend(FrontendNodeType.FOLLOWER, "fe_b", "127.0.0.2", 9010),
+                new Frontend(FrontendNodeType.LEADER, "fe_a", "127.0.0.1", 9010),
+                new Frontend(FrontendNodeType.FOLLOWER, "fe_c", "127.0.0.3", 9010));
+        AtomicReference<String> selfName = new AtomicReference<>();
+        new MockUp<Frontend>() {
+            @Mock
+            public boolean isAlive() {
+                return true;
+            }
+        };
+        new MockUp<GlobalStateMgr>() {
+            @Mock
+            public List<Frontend> getFrontends(FrontendNodeType nodeType) {
+                return frontends;
+            }
+
+            @Mock
+            public String getNodeName() {
+                return selfName.get();
+            }
+        };
+
+        QueryQueueManager manager = QueryQueueManager.getInstance();
+        // the shares of all the FEs sum up to the limit
+        int[][] expectedShares = {{1, 1, 0}, {1, 1, 1}, {2, 1, 1}, {3, 3, 3}};
+        int[] limits = {2, 3, 4, 9};
+        String[] names = {"fe_a", "fe_b", "fe_c"};
+        for (int i = 0; i < limits.length; i++) {
+            for (int j = 0; j < names.length; j++) {
+                selfName.set(names[j]);
+                Assert.assertEquals(names[j] + " of limit " + limits[i], expectedShares[i][j],
+                        manager.shareOfFrontends(limits[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.qe;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.starrocks.common.Config;
+import com.starrocks.common.Status;
+import com.starrocks.proto.PFetchDataRequest;
+import com.starrocks.proto.PFetchDataResult;
+import com.starrocks.proto.StatusPB;
+import com.starrocks.rpc.BackendServiceClient;
+import com.starrocks.thrift.TNetworkAddress;
+import com.starrocks.thrift.TUniqueId;
+import mockit.Mock;
+import mockit.MockUp;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ResultReceiverTest {
+    private int prefetchBatchNum;
+
+    @Before
+    public void setUp() {
+        prefetchBatchNum = Config.result_prefetch_batch_num;
+    }
+
+    @After
+    public void tearDown() {
+        Config.result_prefetch_batch_num = prefetchBatchNum;
+    }
+
+    private AtomicInteger mockFetchData(int packetNum, int errorCode) {
+        AtomicInteger fetchTimes = new AtomicInteger(0);
+        new MockUp<BackendServiceClient>() {
+            @Mock
+            public Future<PFetchDataResult> fetchDataAsync(TNetworkAddress address, PFetchDataRequest request) {
+                int seq = fetchTimes.getAndIncrement();
+                PFetchDataResult result = new PFetchDataResult();
+                result.status = new StatusPB();
+                result.status.statusCode = seq == packetNum - 1 ? errorCode : 0;
+                result.packetSeq = (long) seq;
+                result.eos = seq == packetNum - 1;
+                return CompletableFuture.completedFuture(result);
+            }
+        };
+        return fetchTimes;
+    }
+
+    private ResultReceiver createReceiver() {
+        return createReceiver(2);
+    }
+
+    private ResultReceiver createReceiver(long id) {
+        return new ResultReceiver(new TUniqueId(1, id), 10001L, new TNetworkAddress("127.0.0.1", 8060), 10000);
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        Config.result_prefetch_batch_num = 2;
+        AtomicInteger fetchTimes = mockFetchData(3, 0);
+        ResultReceiver receiver = createReceiver();
+        Status status = new Status();
+        RowBatch rowBatch = receiver.getNext(status);
+        Assert.assertTrue(status.ok());
+        Assert.assertNotNull(rowBatch);
+        Assert.assertEquals(3, fetchTimes.get());
+
+        // all the packets are fetched
+        Assert.assertNull(receiver.getNext(status));
+        Assert.assertTrue(status.ok());
+        Assert.assertEquals(0, ResultReceiver.getPrefetchedBytes());
+    }
+
+    @Test
+    public void testPrefetchError() throws Exception {
+        Config.result_prefetch_batch_num = 2;
+        mockFetchData(2, 1);
+        ResultReceiver receiver = createReceiver();
+        Status status = new Status();
+        Assert.assertNull(receiver.getNext(status));
+        Assert.assertFalse(status.ok());
+    }
+
+    @Test
+    public void testFetchWithoutPrefetch() throws Exception {
+        Config.result_prefetch_batch_num = 0;
+        AtomicInteger fetchTimes = mockFetchData(2, 0);
+        ResultReceiver receiver = createReceiver();
+        Status status = new Status();
+        Assert.assertNotNull(receiver.getNext(status));
+        Assert.assertTrue(status.ok());
+        Assert.assertEquals(2, fetchTimes.get());
+    }
+
+    @Test
+    public void testMoreReceiversThanPrefetchThreads() throws Exception {
+        Config.result_prefetch_batch_num = 2;
+        ThreadPoolExecutor prefetchPool = ResultReceiver.getPrefetchPool();
+        int maxPoolSize = prefetchPool.getMaximumPoolSize();
+        prefetchPool.setMaximumPoolSize(1);
+        // the prefetching of the first query is blocked, and occupies the only prefetch thread
+        CountDownLatch blockedFetch = new CountDownLatch(1);
+        Map<Long, AtomicInteger> fetchTimes = new ConcurrentHashMap<>();
+        new MockUp<BackendServiceClient>() {
+            @Mock
+            public Future<PFetchDataResult> fetchDataAsync(TNetworkAddress address, PFetchDataRequest request) {
+                if (request.finstId.lo == 1) {
+                    Uninterruptibles.awaitUninterruptibly(blockedFetch);
+                }
+                int seq = fetchTimes.computeIfAbsent(request.finstId.lo, k -> new AtomicInteger()).getAndIncrement();
+                PFetchDataResult result = new PFetchDataResult();
+                result.status = new StatusPB();
+                result.status.statusCode = 0;
+                result.packetSeq = (long) seq;
+                result.eos = seq == 1;
+                return CompletableFuture.completedFuture(result);
+            }
+        };
+        try {
+            ResultReceiver blockedReceiver = createReceiver(1);
+            CompletableFuture<Status> blockedQuery = CompletableFuture.supplyAsync(() -> {
+                Status status = new Status();
+                try {
+                    blockedReceiver.getNext(status);
+                } catch (Exception e) {
+                    status.setStatus(e.getMessage());
+                }
+                return status;
+            });
+            while (prefetchPool.getActiveCount() == 0) {
+                Thread.sleep(10);
+            }
+
+            // the other queries are rejected by the pool, and fetch their results without waiting
+            for (long i = 2; i < 5; i++) {
+                ResultReceiver receiver = createReceiver(i);
+                Status status = new Status();
+                Assert.assertNotNull(receiver.getNext(status));
+                Assert.assertTrue(status.ok());
+                Assert.assertEquals(2, fetchTimes.get(i).get());
+            }
+            Assert.assertFalse(blockedQuery.isDone());
+
+            blockedFetch.countDown();
+            Assert.assertTrue(blockedQuery.get(10, TimeUnit.SECONDS).ok());
+        } finally {
+            blockedFetch.countDown();
+            prefetchPool.setMaximumPoolSize(maxPoolSize);
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        Config.result_prefetch_batch_num = 2;
+        mockFetchData(3, 0);
+        ResultReceiver receiver = createReceiver();
+        receiver.cancel();
+        Status status = new Status();
+        receiver.getNext(status);
+        Assert.assertTrue(status.isCancelled());
+    }
+}
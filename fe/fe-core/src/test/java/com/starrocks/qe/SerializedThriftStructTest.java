@@ -0,0 +1,77 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.qe;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.starrocks.thrift.InternalServiceVersion;
+import com.starrocks.thrift.TDataPartition;
+import com.starrocks.thrift.TDescriptorTable;
+import com.starrocks.thrift.TExecBatchPlanFragmentsParams;
+import com.starrocks.thrift.TExecPlanFragmentParams;
+import com.starrocks.thrift.TPartitionType;
+import com.starrocks.thrift.TPlan;
+import com.starrocks.thrift.TPlanFragment;
+import com.starrocks.thrift.TTupleDescriptor;
+import com.starrocks.thrift.TUniqueId;
+import org.apache.thrift.TDeserializer;
+import org.apache.thrift.TSerializer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SerializedThriftStructTest {
+
+    @Test
+    public void testSerializeWithFields() throws Exception {
+        TPlanFragment fragment = new TPlanFragment();
+        fragment.setPlan(new TPlan(Lists.newArrayList()));
+        fragment.setPartition(new TDataPartition(TPartitionType.UNPARTITIONED));
+        fragment.setMin_reservation_bytes(1024L);
+        TDescriptorTable descTable = new TDescriptorTable();
+        TTupleDescriptor tupleDesc = new TTupleDescriptor();
+        tupleDesc.setId(1);
+        tupleDesc.setByteSize(8);
+        tupleDesc.setNumNullBytes(1);
+        tupleDesc.setTableId(10);
+        descTable.setTupleDescriptors(Lists.newArrayList(tupleDesc));
+        descTable.setIs_cached(false);
+
+        SerializedThriftStruct serializedFragment = new SerializedThriftStruct(fragment);
+        Assert.assertArrayEquals(new TSerializer().serialize(fragment), serializedFragment.getBytes());
+        SerializedThriftStruct serializedDescTable = new SerializedThriftStruct(descTable);
+
+        TExecPlanFragmentParams commonParams = new TExecPlanFragmentParams();
+        commonParams.setProtocol_version(InternalServiceVersion.V1);
+        commonParams.setFunc_version(3);
+        TExecPlanFragmentParams uniqueParams = new TExecPlanFragmentParams();
+        uniqueParams.setProtocol_version(InternalServiceVersion.V1);
+        uniqueParams.setBackend_num(2);
+        TExecBatchPlanFragmentsParams request = new TExecBatchPlanFragmentsParams();
+        request.setUnique_param_per_instance(Lists.newArrayList(uniqueParams));
+
+        // the fields are appended to the struct serialized without them
+        SerializedThriftStruct serializedCommonParams = SerializedThriftStruct.withFields(commonParams,
+                ImmutableMap.of(TExecPlanFragmentParams._Fields.FRAGMENT, serializedFragment,
+                        TExecPlanFragmentParams._Fields.DESC_TBL, serializedDescTable));
+        byte[] bytes = SerializedThriftStruct.withFields(request,
+                ImmutableMap.of(TExecBatchPlanFragmentsParams._Fields.COMMON_PARAM, serializedCommonParams))
+                .getBytes();
+
+        TExecBatchPlanFragmentsParams deserialized = new TExecBatchPlanFragmentsParams();
+        new TDeserializer().deserialize(deserialized, bytes);
+        commonParams.setFragment(fragment);
+        commonParams.setDesc_tbl(descTable);
+        request.setCommon_param(commonParams);
+        Assert.assertEquals(request, deserialized);
+        Assert.assertEquals(new TSerializer().serialize(request).length, bytes.length);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFieldAlreadySet() throws Exception {
+        TExecPlanFragmentParams params = new TExecPlanFragmentParams();
+        params.setProtocol_version(InternalServiceVersion.V1);
+        params.setFragment(new TPlanFragment(new TDataPartition(TPartitionType.UNPARTITIONED)));
+        SerializedThriftStruct.withFields(params, ImmutableMap.of(TExecPlanFragmentParams._Fields.FRAGMENT,
+                new SerializedThriftStruct(new TUniqueId(1, 2))));
+    }
+}
@@ -0,0 +1,101 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.qe;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.starrocks.common.Config;
+import com.starrocks.common.Reference;
+import com.starrocks.server.GlobalStateMgr;
+import com.starrocks.system.Backend;
+import com.starrocks.thrift.TNetworkAddress;
+import com.starrocks.thrift.TScanRangeLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The throughput of choosing the hosts of the scan ranges by the concurrent queries, while a quarter of the
+ * backends are in the blacklist.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Threads(8)
+public class SimpleSchedulerBench {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SimpleSchedulerBench.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Param({"3", "16", "64"})
+    public int backendNum;
+
+    private ImmutableMap<Long, Backend> backends;
+    private List<TScanRangeLocation> locations;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final Reference<Long> backendIdRef = new Reference<>();
+    }
+
+    @Setup
+    public void setup() {
+        // keep the blacklisted backends in the blacklist during the benchmark
+        Config.heartbeat_timeout_second = 3600;
+        Map<Long, Backend> idToBackend = new TreeMap<>();
+        for (long id = 0; id < backendNum; id++) {
+            Backend backend = new Backend(id, "host" + id, 9060);
+            backend.setAlive(true);
+            idToBackend.put(id, backend);
+            if (id % 4 == 0) {
+                // the backend known by the cluster is dead, so it's not removed from the blacklist
+                GlobalStateMgr.getCurrentSystemInfo().addBackend(new Backend(id, "host" + id, 9060));
+                SimpleScheduler.addToBlacklist(id);
+            }
+        }
+        backends = ImmutableMap.copyOf(idToBackend);
+
+        // the first replica is on a blacklisted backend
+        locations = Lists.newArrayList();
+        for (long id = 0; id < Math.min(3, backendNum); id++) {
+            TScanRangeLocation location = new TScanRangeLocation();
+            location.setBackend_id(id);
+            locations.add(location);
+        }
+    }
+
+    @Benchmark
+    public TNetworkAddress getBackendHost(ThreadState state) {
+        return SimpleScheduler.getBackendHost(backends, state.backendIdRef);
+    }
+
+    @Benchmark
+    public TNetworkAddress getHost(ThreadState state) {
+        return SimpleScheduler.getHost(0, locations, backends, state.backendIdRef);
+    }
+}
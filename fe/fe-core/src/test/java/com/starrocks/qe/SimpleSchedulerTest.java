@@ -34,6 +34,7 @@ import mockit.Expectations;
 import mockit.Mocked;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -201,4 +202,35 @@ public class SimpleSchedulerTest {
         address = SimpleScheduler.getBackendHost(immutableThreeBackends, ref);
         Assert.assertNull(address);
     }
+
+    @Test
+    public void testChooseBackendNotInBlacklist() {
+        int heartbeatTimeoutSecond = Config.heartbeat_timeout_second;
+        Config.heartbeat_timeout_second = 60;
+        try {
+            Map<Long, Backend> backends = Maps.newHashMap();
+            for (long id = 200; id < 203; id++) {
+                Backend backend = new Backend(id, "address" + id, 0);
+                backend.setAlive(true);
+                backends.put(id, backend);
+            }
+            ImmutableMap<Long, Backend> immutableBackends = ImmutableMap.copyOf(backends);
+
+            SimpleScheduler.addToBlacklist(200L);
+            SimpleScheduler.addToBlacklist(201L);
+            Assert.assertTrue(SimpleScheduler.isInBlacklist(200L));
+            Assert.assertFalse(SimpleScheduler.isInBlacklist(202L));
+            for (int i = 0; i < 3; i++) {
+                // only the backend 202 can work
+                Assert.assertEquals("address202", SimpleScheduler.getBackendHost(immutableBackends, ref).hostname);
+                Assert.assertEquals(Long.valueOf(202), ref.getRef());
+            }
+
+            SimpleScheduler.addToBlacklist(202L);
+            // no backend can work
+            Assert.assertNull(SimpleScheduler.getBackendHost(immutableBackends, ref));
+        } finally {
+            Config.heartbeat_timeout_second = heartbeatTimeoutSecond;
+        }
+    }
 }
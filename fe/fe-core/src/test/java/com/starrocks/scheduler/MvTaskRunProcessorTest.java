@@ -1,8 +1,10 @@
 package com.starrocks.scheduler;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.starrocks.analysis.DmlStmt;
+import com.starrocks.analysis.InsertStmt;
 import com.starrocks.catalog.Database;
 import com.starrocks.catalog.LocalTablet;
 import com.starrocks.catalog.MaterializedIndex;
@@ -16,11 +18,15 @@ import com.starrocks.common.FeConstants;
 import com.starrocks.common.io.DeepCopy;
 import com.starrocks.common.jmockit.Deencapsulation;
 import com.starrocks.common.util.UUIDUtil;
+import com.starrocks.planner.OlapScanNode;
+import com.starrocks.planner.ScanNode;
 import com.starrocks.qe.ConnectContext;
 import com.starrocks.qe.StmtExecutor;
 import com.starrocks.server.GlobalStateMgr;
 import com.starrocks.sql.analyzer.SemanticException;
 import com.starrocks.sql.plan.ExecPlan;
+import com.starrocks.thrift.TInternalScanRange;
+import com.starrocks.thrift.TScanRangeLocations;
 import com.starrocks.utframe.StarRocksAssert;
 import com.starrocks.utframe.UtFrameUtils;
 import mockit.Mock;
@@ -34,6 +40,7 @@ import org.junit.Test;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 public class MvTaskRunProcessorTest {
@@ -86,6 +93,26 @@ public class MvTaskRunProcessorTest {
                         "refresh manual\n" +
                         "properties('replication_num' = '1')\n" +
                         "as select tbl1.k1, tbl2.k2 from tbl1 join tbl2 on tbl1.k2 = tbl2.k2;")
+                .withTable("CREATE TABLE test.tbl3\n" +
+                        "(\n" +
+                        "    k1 date,\n" +
+                        "    k2 int,\n" +
+                        "    v1 int\n" +
+                        ")\n" +
+                        "DUPLICATE KEY(k1)\n" +
+                        "PARTITION BY RANGE(k1)\n" +
+                        "(\n" +
+                        "    PARTITION p1 values [('2022-01-01'),('2022-02-01')),\n" +
+                        "    PARTITION p2 values [('2022-02-01'),('2022-03-01'))\n" +
+                        ")\n" +
+                        "DISTRIBUTED BY HASH(k2) BUCKETS 3\n" +
+                        "PROPERTIES('replication_num' = '1');")
+                .withNewMaterializedView("create materialized view test.mv_agg\n" +
+                        "partition by k1\n" +
+                        "distributed by hash(k2)\n" +
+                        "refresh manual\n" +
+                        "properties('replication_num' = '1')\n" +
+                        "as select k1, k2, sum(v1) as s, count(*) as c from tbl3 group by k1, k2;")
                 .withNewMaterializedView("create materialized view test.mv_inactive\n" +
                         "partition by date_trunc('month',k1) \n" +
                         "distributed by hash(k2)\n" +
@@ -169,6 +196,64 @@ public class MvTaskRunProcessorTest {
         }
     }
 
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        List<ExecPlan> execPlans = Lists.newArrayList();
+        List<String> insertSqls = Lists.newArrayList();
+        new MockUp<StmtExecutor>() {
+            @Mock
+            public void handleDMLStmt(ExecPlan execPlan, DmlStmt stmt) throws Exception {
+                execPlans.add(execPlan);
+                insertSqls.add(((InsertStmt) stmt).getQueryStatement().getQueryRelation().toSql());
+            }
+        };
+        Database testDb = GlobalStateMgr.getCurrentState().getDb("default_cluster:test");
+        MaterializedView materializedView = ((MaterializedView) testDb.getTable("mv_agg"));
+        OlapTable tbl3 = ((OlapTable) testDb.getTable("tbl3"));
+        Task task = TaskBuilder.buildMvTask(materializedView, testDb.getFullName());
+        TaskRun taskRun = TaskRunBuilder.newBuilder(task).build();
+        taskRun.initStatus(UUIDUtil.genUUID().toString(), System.currentTimeMillis());
+        taskRun.executeTaskRun();
+
+        // the first load of p1 is read entirely
+        setPartitionVersion(tbl3.getPartition("p1"), 2);
+        taskRun.executeTaskRun();
+        Assert.assertTrue(insertSqls.get(insertSqls.size() - 1).contains("UNION ALL"));
+        Assert.assertFalse(getStartVersion(execPlans.get(execPlans.size() - 1), tbl3).isPresent());
+
+        // the next load of p1 is read from the version after the consumed one
+        setPartitionVersion(tbl3.getPartition("p1"), 3);
+        taskRun.executeTaskRun();
+        Assert.assertTrue(insertSqls.get(insertSqls.size() - 1).contains("UNION ALL"));
+        Assert.assertEquals(3L, (long) getStartVersion(execPlans.get(execPlans.size() - 1), tbl3).get());
+        Assert.assertEquals(3, materializedView.getRefreshScheme().getAsyncRefreshContext()
+                .getBaseTableVisibleVersionMap().get(tbl3.getId()).get("p1").getVersion());
+
+        // fully refresh if incremental refresh is disabled
+        Config.enable_mv_incremental_refresh = false;
+        try {
+            setPartitionVersion(tbl3.getPartition("p1"), 4);
+            taskRun.executeTaskRun();
+            Assert.assertFalse(insertSqls.get(insertSqls.size() - 1).contains("UNION ALL"));
+        } finally {
+            Config.enable_mv_incremental_refresh = true;
+        }
+    }
+
+    private Optional<Long> getStartVersion(ExecPlan execPlan, OlapTable table) {
+        for (ScanNode scanNode : execPlan.getScanNodes()) {
+            if (scanNode instanceof OlapScanNode && ((OlapScanNode) scanNode).getOlapTable().getId() == table.getId()) {
+                for (TScanRangeLocations locations : scanNode.getScanRangeLocations(0)) {
+                    TInternalScanRange internalRange = locations.getScan_range().getInternal_scan_range();
+                    if (internalRange.isSetStart_version()) {
+                        return Optional.of(internalRange.getStart_version());
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
     private void testBaseTablePartitionInsertData(Database testDb, MaterializedView materializedView, TaskRun taskRun)
             throws Exception {
         // mv need refresh with base table partition p0, p0 insert data after collect and before insert overwrite
@@ -17,6 +17,7 @@ import com.starrocks.qe.Coordinator;
 import com.starrocks.qe.RowBatch;
 import com.starrocks.qe.StmtExecutor;
 import com.starrocks.scheduler.persist.TaskRunStatus;
+import com.starrocks.scheduler.persist.TaskRunStatusChange;
 import com.starrocks.scheduler.persist.TaskSchedule;
 import com.starrocks.server.GlobalStateMgr;
 import com.starrocks.sql.ast.CreateMaterializedViewStatement;
@@ -255,6 +256,9 @@ public class TaskManagerTest {
         new MockUp<Coordinator>() {
             @Mock
             public void exec() throws Exception {}
+
+            @Mock
+            public void execQuery() throws Exception {}
         };
 
         LocalDateTime now = LocalDateTime.now();
@@ -508,5 +512,44 @@ public class TaskManagerTest {
 
     }
 
+    @Test
+    public void testScheduleByPriorityAndConcurrency() {
+        new MockUp<TaskRunExecutor>() {
+            @Mock
+            public void executeTaskRun(TaskRun taskRun) {
+            }
+        };
+        TaskRunManager taskRunManager = new TaskRunManager();
+        long now = System.currentTimeMillis();
+        List<TaskRun> taskRuns = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            TaskRun taskRun = TaskRunBuilder.newBuilder(new Task("test" + i)).build();
+            taskRun.setTaskId(i);
+            taskRun.initStatus(String.valueOf(i), now + i);
+            taskRun.getStatus().setDefinition("select " + i);
+            taskRuns.add(taskRun);
+        }
+        taskRuns.get(2).getStatus().setPriority(Constants.TaskRunPriority.HIGH.value());
+        taskRuns.forEach(taskRun -> taskRunManager.arrangeTaskRun(taskRun, false));
 
+        int concurrency = Config.task_runs_concurrency;
+        Config.task_runs_concurrency = 2;
+        try {
+            List<TaskRunStatusChange> statusChanges = new ArrayList<>();
+            taskRunManager.scheduledPendingTaskRun(statusChanges);
+            Assert.assertEquals(2, statusChanges.size());
+            Assert.assertEquals(Constants.TaskRunState.RUNNING, statusChanges.get(0).getToStatus());
+            // the higher priority first, then the earlier created
+            Assert.assertEquals("2", statusChanges.get(0).getQueryId());
+            Assert.assertEquals("0", statusChanges.get(1).getQueryId());
+            Assert.assertEquals(2, taskRunManager.getRunningTaskRunMap().size());
+
+            statusChanges.clear();
+            taskRunManager.scheduledPendingTaskRun(statusChanges);
+            Assert.assertTrue(statusChanges.isEmpty());
+            Assert.assertEquals(1, taskRunManager.getPendingTaskRunMap().get(1L).size());
+        } finally {
+            Config.task_runs_concurrency = concurrency;
+        }
+    }
 }
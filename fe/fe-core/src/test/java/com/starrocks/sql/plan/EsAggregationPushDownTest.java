@@ -0,0 +1,114 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.sql.plan;
+
+import com.google.common.collect.ImmutableMap;
+import com.starrocks.catalog.EsTable;
+import com.starrocks.external.elasticsearch.EsMajorVersion;
+import com.starrocks.external.elasticsearch.EsTablePartitions;
+import mockit.Mock;
+import mockit.MockUp;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class EsAggregationPushDownTest extends PlanTestBase {
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        PlanTestBase.beforeClass();
+        starRocksAssert.withTable("CREATE EXTERNAL TABLE es_agg (\n" +
+                "  k1 varchar(32),\n" +
+                "  k2 int,\n" +
+                "  k3 bigint,\n" +
+                "  dt date,\n" +
+                "  content varchar(256)\n" +
+                ") ENGINE=ELASTICSEARCH\n" +
+                "PROPERTIES (\n" +
+                "  \"hosts\" = \"http://127.0.0.1:9200\",\n" +
+                "  \"index\" = \"es_agg\",\n" +
+                "  \"type\" = \"doc\"\n" +
+                ")");
+        EsTable table = (EsTable) connectContext.getGlobalStateMgr().getDb("default_cluster:test")
+                .getTable("es_agg");
+        table.setEsTablePartitions(new EsTablePartitions());
+
+        // the meta data synced from ES 7, the text field has no doc values
+        new MockUp<EsTable>() {
+            @Mock
+            public EsMajorVersion remoteVersion() {
+                return EsMajorVersion.V_7_X;
+            }
+
+            @Mock
+            public Map<String, String> docValueContext() {
+                return ImmutableMap.of("k1", "k1", "k2", "k2", "k3", "k3", "dt", "dt");
+            }
+        };
+    }
+
+    @Test
+    public void testPushDownGroupBy() throws Exception {
+        String plan = getFragmentPlan("select k1, count(*), max(k2), sum(k2), count(k3) from es_agg " +
+                "where k2 > 1 and k1 in ('a', 'b') group by k1");
+        Assert.assertTrue(plan, plan.contains("ES_AGGREGATION: {\"groupby\":{\"composite\":{"));
+        Assert.assertTrue(plan, plan.contains("{\"k1\":{\"terms\":{\"field\":\"k1\",\"missing_bucket\":true}}}"));
+        Assert.assertTrue(plan, plan.contains("{\"max\":{\"field\":\"k2\"}}"));
+        Assert.assertTrue(plan, plan.contains("{\"sum\":{\"field\":\"k2\"}}"));
+        Assert.assertTrue(plan, plan.contains("{\"value_count\":{\"field\":\"k3\"}}"));
+        Assert.assertTrue(plan, plan.contains("REMOTE_PREDICATES"));
+    }
+
+    @Test
+    public void testPushDownDateTrunc() throws Exception {
+        String plan = getFragmentPlan("select date_trunc('month', dt), k2, min(k2) from es_agg group by 1, 2");
+        Assert.assertTrue(plan, plan.contains("\"date_histogram\":{\"calendar_interval\":\"1M\""));
+        Assert.assertTrue(plan, plan.contains("{\"k2\":{\"terms\":{\"field\":\"k2\",\"missing_bucket\":true}}}"));
+        Assert.assertTrue(plan, plan.contains("{\"min\":{\"field\":\"k2\"}}"));
+    }
+
+    @Test
+    public void testNotPushDownUnsupportedAggregation() throws Exception {
+        // avg is not computed by the composite aggregation
+        String plan = getFragmentPlan("select k1, avg(k2) from es_agg group by k1");
+        Assert.assertFalse(plan, plan.contains("ES_AGGREGATION"));
+        // the sum of bigint loses precision in double
+        plan = getFragmentPlan("select k1, sum(k3) from es_agg group by k1");
+        Assert.assertFalse(plan, plan.contains("ES_AGGREGATION"));
+        plan = getFragmentPlan("select k1, count(distinct k2) from es_agg group by k1");
+        Assert.assertFalse(plan, plan.contains("ES_AGGREGATION"));
+        // no group by
+        plan = getFragmentPlan("select count(*) from es_agg");
+        Assert.assertFalse(plan, plan.contains("ES_AGGREGATION"));
+    }
+
+    @Test
+    public void testNotPushDownPredicate() throws Exception {
+        // the predicate on an expression is evaluated by BE, ES must not aggregate the docs before it
+        String plan = getFragmentPlan("select k1, count(*) from es_agg where abs(k2) > 1 group by k1");
+        Assert.assertFalse(plan, plan.contains("ES_AGGREGATION"));
+        plan = getFragmentPlan("select k1, count(*) from es_agg where k2 > 1 or k2 + k3 > 1 group by k1");
+        Assert.assertFalse(plan, plan.contains("ES_AGGREGATION"));
+    }
+
+    @Test
+    public void testNotPushDownTextField() throws Exception {
+        String plan = getFragmentPlan("select content, count(*) from es_agg group by content");
+        Assert.assertFalse(plan, plan.contains("ES_AGGREGATION"));
+        plan = getFragmentPlan("select k1, max(content) from es_agg group by k1");
+        Assert.assertFalse(plan, plan.contains("ES_AGGREGATION"));
+    }
+
+    @Test
+    public void testDisablePushDown() throws Exception {
+        connectContext.getSessionVariable().setEnableEsAggregationPushDown(false);
+        try {
+            String plan = getFragmentPlan("select k1, count(*) from es_agg group by k1");
+            Assert.assertFalse(plan, plan.contains("ES_AGGREGATION"));
+        } finally {
+            connectContext.getSessionVariable().setEnableEsAggregationPushDown(true);
+        }
+    }
+}
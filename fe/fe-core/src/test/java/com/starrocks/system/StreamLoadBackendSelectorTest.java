@@ -0,0 +1,126 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.system;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.starrocks.catalog.DiskInfo;
+import com.starrocks.common.Config;
+import com.starrocks.common.DdlException;
+import com.starrocks.persist.HbPackage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+
+public class StreamLoadBackendSelectorTest {
+    private StreamLoadBackendSelector selector;
+    private List<Backend> backends;
+
+    private static Backend createBackend(long id, long loadMemBytes, int numRunningStreamLoads, long reportTimeMs) {
+        Backend backend = new Backend(id, "host" + id, 9050);
+        DiskInfo diskInfo = new DiskInfo("/data");
+        diskInfo.setTotalCapacityB(1000L * 1024 * 1024 * 1024);
+        diskInfo.setAvailableCapacityB(500L * 1024 * 1024 * 1024);
+        backend.setDisks(ImmutableMap.of("/data", diskInfo));
+        BackendHbResponse hbResponse = new BackendHbResponse(id, 9060, 8040, 8060, 0, reportTimeMs, "", 16);
+        hbResponse.setLoadStatistics(new LoadStatistics(loadMemBytes, 100, 0, numRunningStreamLoads, reportTimeMs));
+        backend.handleHbResponse(hbResponse);
+        return backend;
+    }
+
+    @Before
+    public void setUp() {
+        selector = new StreamLoadBackendSelector();
+        backends = Lists.newArrayList(createBackend(1, 90, 0, 1000), createBackend(2, 10, 0, 1000),
+                createBackend(3, 50, 0, 1000));
+    }
+
+    @After
+    public void tearDown() {
+        Config.stream_load_max_concurrent_per_backend = 0;
+    }
+
+    @Test
+    public void testChooseLeastLoaded() throws DdlException {
+        Assert.assertEquals(2, selector.chooseBackend(backends, ImmutableSet.of()).getId());
+        Assert.assertEquals(1, selector.getTotalRedirects(2));
+        // the backend holding the replicas is preferred if it's not much busier
+        Assert.assertEquals(3, selector.chooseBackend(backends, ImmutableSet.of(3L)).getId());
+        Assert.assertEquals(2, selector.chooseBackend(backends, ImmutableSet.of(1L)).getId());
+
+        backends.get(1).setAlive(false);
+        Assert.assertEquals(3, selector.chooseBackend(backends, ImmutableSet.of()).getId());
+    }
+
+    @Test
+    public void testConcurrentLimit() throws DdlException {
+        Config.stream_load_max_concurrent_per_backend = 2;
+        backends = Lists.newArrayList(createBackend(1, 10, 1, 1000), createBackend(2, 10, 2, 1000));
+        long nowMs = 2000;
+        // the redirects since the last heartbeat are counted
+        Assert.assertEquals(1, selector.chooseBackend(backends, ImmutableSet.of(), nowMs).getId());
+        Assert.assertThrows(DdlException.class, () -> selector.chooseBackend(backends, ImmutableSet.of(), nowMs));
+
+        // the new statistics include the redirected stream loads
+        backends.set(0, createBackend(1, 10, 1, 2000));
+        Assert.assertEquals(1, selector.chooseBackend(backends, ImmutableSet.of(), nowMs).getId());
+        Assert.assertEquals(2, selector.getTotalRedirects(1));
+        Assert.assertEquals(0, selector.getTotalRedirects(2));
+    }
+
+    @Test
+    public void testNoLoadStatistics() throws DdlException {
+        Config.stream_load_max_concurrent_per_backend = 2;
+        // the load statistics are not reported to the followers
+        backends = Lists.newArrayList(createBackend(1, 0, 0, 0), createBackend(2, 60, 0, 0));
+        long nowMs = 100000;
+        // the running stream loads are unknown and not limited, the redirects are counted in the score,
+        // backend 1 is chosen until its redirects per core are more than the load memory ratio of backend 2
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(1, selector.chooseBackend(backends, ImmutableSet.of(), nowMs).getId());
+        }
+        Assert.assertEquals(2, selector.chooseBackend(backends, ImmutableSet.of(), nowMs + 1000).getId());
+
+        // the redirects are forgotten after a heartbeat interval
+        nowMs += Config.heartbeat_timeout_second * 1000L;
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(1, selector.chooseBackend(backends, ImmutableSet.of(), nowMs).getId());
+        }
+        Assert.assertEquals(20, selector.getTotalRedirects(1));
+        Assert.assertEquals(1, selector.getTotalRedirects(2));
+    }
+
+    @Test
+    public void testSynchronizedLoadStatistics() throws Exception {
+        Config.stream_load_max_concurrent_per_backend = 2;
+        long reportTimeMs = 100000;
+        Backend leaderBackend = createBackend(1, 10, 2, reportTimeMs);
+        HbPackage hbPackage = new HbPackage();
+        hbPackage.addHbResponse(new FrontendHbResponse("leader", 9030, 9020, 1, reportTimeMs, 1, "v",
+                ImmutableMap.of(1L, 16), ImmutableMap.of(1L, leaderBackend.getLoadStatistics())));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        hbPackage.write(new DataOutputStream(bytes));
+        HbPackage replayed = HbPackage.readV2(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        // the follower limits the stream loads by the statistics in the heartbeat of the leader
+        Backend followerBackend = createBackend(1, 0, 0, 0);
+        FrontendHbResponse hbResponse = (FrontendHbResponse) replayed.getHbResults().get(0);
+        followerBackend.setLoadStatistics(hbResponse.getBackendId2LoadStatistics().get(1L));
+        Assert.assertEquals(2, followerBackend.getLoadStatistics().getNumRunningStreamLoads());
+        List<Backend> followerBackends = Lists.newArrayList(followerBackend);
+        Assert.assertThrows(DdlException.class,
+                () -> selector.chooseBackend(followerBackends, ImmutableSet.of(), reportTimeMs + 1000));
+
+        // the stale statistics are not trusted
+        long staleMs = reportTimeMs + 4 * Config.heartbeat_timeout_second * 1000L;
+        Assert.assertEquals(1, selector.chooseBackend(followerBackends, ImmutableSet.of(), staleMs).getId());
+    }
+}
@@ -20,6 +20,7 @@ package com.starrocks.common;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 public class Codec {
 
@@ -53,6 +54,46 @@ public class Codec {
 
         return result;
     }
-}
 
+    // not support encode negative value now
+    public static void encodeVarint64(long source, ByteBuffer out) {
+        assert source >= 0;
+        short b = 128;
+
+        while (source >= b) {
+            out.put((byte) (source & (b - 1) | b));
+            source = source >> 7;
+        }
+        out.put((byte) (source & (b - 1)));
+    }
+
+    // not support decode negative value now
+    public static long decodeVarint64(ByteBuffer in) {
+        long result = 0;
+        int shift = 0;
+        short b = 128;
 
+        while (true) {
+            int oneByte = in.get() & 0xFF;
+            boolean isEnd = (oneByte & b) == 0;
+            result = result | ((long) (oneByte & b - 1) << (shift * 7));
+            if (isEnd) {
+                break;
+            }
+            shift++;
+        }
+
+        return result;
+    }
+
+    // the number of bytes of the varint64 encoded value
+    public static int varint64Size(long source) {
+        assert source >= 0;
+        int size = 1;
+        while (source >= 128) {
+            source = source >> 7;
+            size++;
+        }
+        return size;
+    }
+}
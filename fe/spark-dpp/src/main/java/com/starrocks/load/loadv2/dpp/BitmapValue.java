@@ -48,7 +48,7 @@ public class BitmapValue {
 
     private int bitmapType;
     private long singleValue;
-    private Roaring64Map bitmap;
+    private Roaring64ArrayMap bitmap;
 
     // for single value serialize and deserialize
     private ByteBuffer buffer;
@@ -73,7 +73,7 @@ public class BitmapValue {
                 break;
             case SINGLE_VALUE:
                 if (this.singleValue != value) {
-                    bitmap = new Roaring64Map();
+                    bitmap = new Roaring64ArrayMap();
                     bitmap.add(value);
                     bitmap.add(singleValue);
                     bitmapType = BITMAP_VALUE;
@@ -138,6 +138,48 @@ public class BitmapValue {
         }
     }
 
+    // serialize to the buffer directly, the buffer must have serializedSizeInBytes() bytes remaining
+    public void serialize(ByteBuffer output) {
+        ByteOrder order = output.order();
+        // be deserializes by little endian
+        output.order(ByteOrder.LITTLE_ENDIAN);
+        switch (bitmapType) {
+            case EMPTY:
+                output.put((byte) EMPTY);
+                break;
+            case SINGLE_VALUE:
+                if (isLongValue32bitEnough(singleValue)) {
+                    output.put((byte) SINGLE32);
+                    output.putInt((int) singleValue);
+                } else {
+                    output.put((byte) SINGLE64);
+                    output.putLong(singleValue);
+                }
+                break;
+            case BITMAP_VALUE:
+                bitmap.serialize(output);
+                break;
+        }
+        output.order(order);
+    }
+
+    public int serializedSizeInBytes() {
+        switch (bitmapType) {
+            case SINGLE_VALUE:
+                return isLongValue32bitEnough(singleValue) ? 1 + 4 : 1 + 8;
+            case BITMAP_VALUE:
+                return bitmap.serializedSizeInBytes();
+            default:
+                return 1;
+        }
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[serializedSizeInBytes()];
+        serialize(ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
     public void deserialize(DataInput input) throws IOException {
         clear();
         byte[] bytes;
@@ -165,13 +207,42 @@ public class BitmapValue {
                 break;
             case BITMAP32:
             case BITMAP64:
-                bitmap = bitmap == null ? new Roaring64Map() : bitmap;
+                bitmap = bitmap == null ? new Roaring64ArrayMap() : bitmap;
+                bitmap.deserialize(input, bitmapType);
+                this.bitmapType = BITMAP_VALUE;
+                break;
+            default:
+                throw new RuntimeException(String.format("unknown bitmap type %s ", bitmapType));
+        }
+    }
+
+    // deserialize from the buffer directly, the position of the buffer is moved to the end of the bitmap
+    public void deserialize(ByteBuffer input) throws IOException {
+        clear();
+        ByteOrder order = input.order();
+        input.order(ByteOrder.LITTLE_ENDIAN);
+        int bitmapType = input.get();
+        switch (bitmapType) {
+            case EMPTY:
+                break;
+            case SINGLE32:
+                singleValue = Util.toUnsignedLong(input.getInt());
+                this.bitmapType = SINGLE_VALUE;
+                break;
+            case SINGLE64:
+                singleValue = input.getLong();
+                this.bitmapType = SINGLE_VALUE;
+                break;
+            case BITMAP32:
+            case BITMAP64:
+                bitmap = new Roaring64ArrayMap();
                 bitmap.deserialize(input, bitmapType);
                 this.bitmapType = BITMAP_VALUE;
                 break;
             default:
                 throw new RuntimeException(String.format("unknown bitmap type %s ", bitmapType));
         }
+        input.order(order);
     }
 
     // In-place bitwise AND (intersection) operation. The current bitmap is modified.
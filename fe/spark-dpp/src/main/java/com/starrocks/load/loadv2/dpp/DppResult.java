@@ -35,6 +35,7 @@ public class DppResult implements Serializable {
         unselectRows = 0;
         partialAbnormalRows = "";
         tableCounters = Maps.newHashMap();
+        rollupWritePeakMemory = Maps.newHashMap();
     }
 
     @SerializedName("is_success")
@@ -68,4 +69,9 @@ public class DppResult implements Serializable {
     // table-level metrics
     @SerializedName("table_counters")
     public Map<Long, Map<String, Long>> tableCounters;
-}
\ No newline at end of file
+
+    // tableId -> rollup level -> peak execution memory of the tasks writing the level,
+    // not the peak memory of the whole job
+    @SerializedName("rollup_write_peak_memory")
+    public Map<Long, Map<Integer, Long>> rollupWritePeakMemory;
+}
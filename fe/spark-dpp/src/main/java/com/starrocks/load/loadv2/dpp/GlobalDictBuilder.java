@@ -21,23 +21,27 @@ import org.apache.commons.collections.map.MultiValueMap;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
+import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.sql.AnalysisException;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
 import org.apache.spark.sql.SparkSession;
 import org.apache.spark.sql.catalog.Column;
+import org.apache.spark.sql.functions;
 import org.apache.spark.sql.types.DataTypes;
 import org.apache.spark.sql.types.StructField;
 import org.apache.spark.sql.types.StructType;
+import org.apache.spark.storage.StorageLevel;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -59,6 +63,11 @@ import java.util.stream.Collectors;
  * GlobalDictBuilder.buildGlobalDict()
  * step4, encode intermediate hive table with global dict
  * GlobalDictBuilder.encodeStarRocksIntermediateHiveTable()
+ * <p>
+ * The global dict is built incrementally: the dict of a column is read once, hash partitioned by dict_key
+ * and cached in memory, only the new distinct values are joined against it, and the new values are appended
+ * to the global dict hive table instead of overwriting the whole dict partition. The cached dict, including
+ * the new values, is reused by the following steps of the job, eg: encoding the intermediate hive table.
  */
 
 public class GlobalDictBuilder {
@@ -95,15 +104,15 @@ public class GlobalDictBuilder {
     // key=starrocks column name,value=column type
     private Map<String, String> starrocksColumnNameTypeMap = new HashMap<>();
 
-    // column in this list means need split distinct value and then encode respectively
-    // to avoid the performance bottleneck to transfer origin value to dict value
-    private List<String> veryHighCardinalityColumn;
-    // determine the split num of new distinct value,better can be divisible by 1
-    private int veryHighCardinalityColumnSplitNum;
+    // the number of hash partitions of the cached dict, the new distinct values are partitioned in the same way,
+    // so that joining them against the dict doesn't need to shuffle the dict again
+    private int dictPartitionNum;
+    // key=dict column name, value=cached dict of the column, include the values added by current job
+    private Map<String, Dataset<Row>> dictCache = new ConcurrentHashMap<>();
 
     private ExecutorService pool;
 
-    private StructType distinctValueSchema;
+    private StructType dictSchema;
 
     public GlobalDictBuilder(MultiValueMap dictColumn,
                              List<String> intermediateTableColumnList,
@@ -115,8 +124,7 @@ public class GlobalDictBuilder {
                              String globalDictTableName,
                              String starrocksIntermediateHiveTable,
                              int buildConcurrency,
-                             List<String> veryHighCardinalityColumn,
-                             int veryHighCardinalityColumnSplitNum,
+                             int dictPartitionNum,
                              SparkSession spark) {
         this.dictColumn = dictColumn;
         this.intermediateTableColumnList = intermediateTableColumnList;
@@ -128,8 +136,7 @@ public class GlobalDictBuilder {
         this.starrocksIntermediateHiveTable = starrocksIntermediateHiveTable;
         this.spark = spark;
         this.pool = Executors.newFixedThreadPool(buildConcurrency < 0 ? 1 : buildConcurrency);
-        this.veryHighCardinalityColumn = veryHighCardinalityColumn;
-        this.veryHighCardinalityColumnSplitNum = veryHighCardinalityColumnSplitNum;
+        this.dictPartitionNum = dictPartitionNum <= 0 ? 1 : dictPartitionNum;
 
         spark.sql("use " + starrocksHiveDB);
     }
@@ -201,9 +208,10 @@ public class GlobalDictBuilder {
         for (Object distinctColumnNameOrigin : dictColumn.keySet()) {
             String distinctColumnNameTmp = distinctColumnNameOrigin.toString();
             globalDictBuildWorkers.add(() -> {
+                Dataset<Row> dict = getCachedDict(distinctColumnNameTmp);
                 // get global dict max value
-                List<Row> maxGlobalDictValueRow =
-                        spark.sql(getMaxGlobalDictValueSql(distinctColumnNameTmp)).collectAsList();
+                List<Row> maxGlobalDictValueRow = dict.agg(functions.max("dict_value"), functions.min("dict_value"))
+                        .collectAsList();
                 if (maxGlobalDictValueRow.size() == 0) {
                     throw new RuntimeException(String.format("get max dict value failed: %s", distinctColumnNameTmp));
                 }
@@ -212,8 +220,8 @@ public class GlobalDictBuilder {
                 long minDictValue = 0;
                 Row row = maxGlobalDictValueRow.get(0);
                 if (row != null && row.get(0) != null) {
-                    maxDictValue = (long) row.get(0);
-                    minDictValue = (long) row.get(1);
+                    maxDictValue = row.getLong(0);
+                    minDictValue = row.getLong(1);
                 }
                 LOG.info(" column " + distinctColumnNameTmp + " 's max value in dict is " + maxDictValue +
                         ", min value is " + minDictValue);
@@ -223,15 +231,7 @@ public class GlobalDictBuilder {
                             distinctColumnNameTmp));
                 }
 
-                if (veryHighCardinalityColumn.contains(distinctColumnNameTmp) &&
-                        veryHighCardinalityColumnSplitNum > 1) {
-                    // split distinct key first and then encode with count
-                    buildGlobalDictBySplit(maxDictValue, distinctColumnNameTmp);
-                } else {
-                    // build global dict directly
-                    spark.sql(getBuildGlobalDictSql(maxDictValue, distinctColumnNameTmp));
-                }
-
+                buildGlobalDictIncrementally(dict, maxDictValue, distinctColumnNameTmp);
             });
         }
         submitWorker(globalDictBuildWorkers);
@@ -240,9 +240,15 @@ public class GlobalDictBuilder {
     // encode starrocksIntermediateHiveTable's distinct column
     public void encodeStarRocksIntermediateHiveTable() {
         for (Object distinctColumnObj : dictColumn.keySet()) {
-            spark.sql(getEncodeStarRocksIntermediateHiveTableSql(distinctColumnObj.toString(),
-                    (ArrayList) dictColumn.get(distinctColumnObj.toString())));
+            String distinctColumnName = distinctColumnObj.toString();
+            getCachedDict(distinctColumnName).createOrReplaceTempView(getDictViewName(distinctColumnName));
+            spark.sql(getEncodeStarRocksIntermediateHiveTableSql(distinctColumnName,
+                    (ArrayList) dictColumn.get(distinctColumnName)));
+        }
+        for (Dataset<Row> dict : dictCache.values()) {
+            dict.unpersist();
         }
+        dictCache.clear();
     }
 
     private String getCreateIntermediateHiveTableSql() {
@@ -297,86 +303,77 @@ public class GlobalDictBuilder {
                 + "(dict_key string, dict_value bigint) partitioned by(dict_column string) stored as sequencefile ";
     }
 
-    private String getMaxGlobalDictValueSql(String distinctColumnName) {
-        return "select max(dict_value) as max_value,min(dict_value) as min_value from " + globalDictTableName +
-                " where dict_column='" + distinctColumnName + "'";
+    private String getDictViewName(String distinctColumnName) {
+        return String.format("%s_dict_%s", distinctColumnName, globalDictTableName);
     }
 
-    private void buildGlobalDictBySplit(long maxGlobalDictValue, String distinctColumnName) {
-        // 1. get distinct value
-        Dataset<Row> newDistinctValue = spark.sql(getNewDistinctValue(distinctColumnName));
-
-        // 2. split the newDistinctValue to avoid window functions' single node bottleneck
-        Dataset<Row>[] splitedDistinctValue = newDistinctValue.randomSplit(getRandomSplitWeights());
-        long currentMaxDictValue = maxGlobalDictValue;
-        Map<String, Long> distinctKeyMap = new HashMap<>();
-
-        for (int i = 0; i < splitedDistinctValue.length; i++) {
-            long currentDatasetStartDictValue = currentMaxDictValue;
-            long splitDistinctValueCount = splitedDistinctValue[i].count();
-            currentMaxDictValue += splitDistinctValueCount;
-            String tmpDictTableName =
-                    String.format("%s_%s_tmp_dict_%s", i, currentDatasetStartDictValue, distinctColumnName);
-            distinctKeyMap.put(tmpDictTableName, currentDatasetStartDictValue);
-            Dataset<Row> distinctValueFrame =
-                    spark.createDataFrame(splitedDistinctValue[i].toJavaRDD(), getDistinctValueSchema());
-            distinctValueFrame.createOrReplaceTempView(tmpDictTableName);
-        }
-
-        spark.sql(getSplitBuildGlobalDictSql(distinctKeyMap, distinctColumnName));
+    // read the dict of the column only once in a job, and cache it partitioned by the hash of dict_key
+    private Dataset<Row> getCachedDict(String distinctColumnName) {
+        return dictCache.computeIfAbsent(distinctColumnName, columnName -> {
+            Dataset<Row> dict = spark.sql(getGlobalDictSql(columnName))
+                    .repartition(dictPartitionNum, functions.col("dict_key"))
+                    .persist(StorageLevel.MEMORY_AND_DISK());
+            LOG.info("cache global dict of column " + columnName + ", size: " + dict.count());
+            return dict;
+        });
+    }
 
+    private String getGlobalDictSql(String distinctColumnName) {
+        return "select dict_key,dict_value from " + globalDictTableName + " where dict_column='" +
+                distinctColumnName + "'";
     }
 
-    private String getSplitBuildGlobalDictSql(Map<String, Long> distinctKeyMap, String distinctColumnName) {
-        StringBuilder sql = new StringBuilder();
-        sql.append("insert overwrite table ").append(globalDictTableName).append(" partition(dict_column='")
-                .append(distinctColumnName).append("') ")
-                .append(" select dict_key,dict_value from ").append(globalDictTableName).append(" where dict_column='")
-                .append(distinctColumnName).append("' ");
-        for (Map.Entry<String, Long> entry : distinctKeyMap.entrySet()) {
-            sql.append(" union all select dict_key, (row_number() over(order by dict_key)) ")
-                    .append(String.format(" +(%s) as dict_value from %s", entry.getValue(), entry.getKey()));
-        }
-        return sql.toString();
+    private void buildGlobalDictIncrementally(Dataset<Row> dict, long maxGlobalDictValue, String distinctColumnName) {
+        // 1. get the new distinct values, they are partitioned in the same way as the cached dict,
+        //    so only the new distinct values are shuffled when joining
+        Dataset<Row> distinctValue = spark.sql(getDistinctValueSql(distinctColumnName))
+                .repartition(dictPartitionNum, functions.col("dict_key"));
+        Dataset<Row> newDistinctValue = distinctValue
+                .join(dict, distinctValue.col("dict_key").equalTo(dict.col("dict_key")), "left_anti")
+                .persist(StorageLevel.MEMORY_AND_DISK());
+
+        // 2. assign dict value. zipWithIndex reserves a continuous range of dict value for each partition
+        //    by the partition sizes, and then each executor encodes its partitions independently,
+        //    to avoid the single node bottleneck of window function
+        long startDictValue = maxGlobalDictValue + 1;
+        JavaRDD<Row> newDictRDD = newDistinctValue.toJavaRDD().zipWithIndex()
+                .map(pair -> RowFactory.create(pair._1().getString(0), pair._2() + startDictValue));
+        // the dict and the new values are checkpointed before they are appended to the dict table,
+        // because the insert uncaches the datasets read from the table, and reading them again would
+        // get the appended values twice
+        Dataset<Row> newDict = spark.createDataFrame(newDictRDD, getDictSchema()).localCheckpoint();
+        Dataset<Row> oldDict = dict.localCheckpoint();
+        LOG.info("column " + distinctColumnName + " has " + newDict.count() + " new distinct values");
+        newDistinctValue.unpersist();
+        dict.unpersist();
+
+        // 3. append the new values to the global dict table
+        String newDictViewName = String.format("%s_new_dict_%s", distinctColumnName, globalDictTableName);
+        newDict.createOrReplaceTempView(newDictViewName);
+        spark.sql("insert into table " + globalDictTableName + " partition(dict_column='" + distinctColumnName
+                + "') select dict_key,dict_value from " + newDictViewName);
+
+        // 4. the cached dict with the new values can be reused in current job
+        Dataset<Row> fullDict = oldDict.union(newDict)
+                .repartition(dictPartitionNum, functions.col("dict_key"))
+                .persist(StorageLevel.MEMORY_AND_DISK());
+        LOG.info("global dict of column " + distinctColumnName + " size: " + fullDict.count());
+        dictCache.put(distinctColumnName, fullDict);
     }
 
-    private StructType getDistinctValueSchema() {
-        if (distinctValueSchema == null) {
+    private StructType getDictSchema() {
+        if (dictSchema == null) {
             List<StructField> fieldList = new ArrayList<>();
             fieldList.add(DataTypes.createStructField("dict_key", DataTypes.StringType, false));
-            distinctValueSchema = DataTypes.createStructType(fieldList);
+            fieldList.add(DataTypes.createStructField("dict_value", DataTypes.LongType, false));
+            dictSchema = DataTypes.createStructType(fieldList);
         }
-        return distinctValueSchema;
-    }
-
-    private double[] getRandomSplitWeights() {
-        double[] weights = new double[veryHighCardinalityColumnSplitNum];
-        double weight = 1 / Double.parseDouble(String.valueOf(veryHighCardinalityColumnSplitNum));
-        Arrays.fill(weights, weight);
-        return weights;
-    }
-
-    private String getBuildGlobalDictSql(long maxGlobalDictValue, String distinctColumnName) {
-        return "insert overwrite table " + globalDictTableName + " partition(dict_column='" + distinctColumnName + "') "
-                + " select dict_key,dict_value from " + globalDictTableName + " where dict_column='" +
-                distinctColumnName + "' "
-                + " union all select t1.dict_key as dict_key,(row_number() over(order by t1.dict_key)) + (" +
-                maxGlobalDictValue + ") as dict_value from "
-                + "(select dict_key from " + distinctKeyTableName + " where dict_column='" + distinctColumnName +
-                "' and dict_key is not null)t1 left join "
-                + " (select dict_key,dict_value from " + globalDictTableName + " where dict_column='" +
-                distinctColumnName + "' )t2 " +
-                "on t1.dict_key = t2.dict_key where t2.dict_value is null";
+        return dictSchema;
     }
 
-    private String getNewDistinctValue(String distinctColumnName) {
-        return "select t1.dict_key from " +
-                " (select dict_key from " + distinctKeyTableName + " where dict_column='" + distinctColumnName +
-                "' and dict_key is not null)t1 left join " +
-                " (select dict_key,dict_value from " + globalDictTableName + " where dict_column='" +
-                distinctColumnName + "' )t2 " +
-                "on t1.dict_key = t2.dict_key where t2.dict_value is null";
-
+    private String getDistinctValueSql(String distinctColumnName) {
+        return "select dict_key from " + distinctKeyTableName + " where dict_column='" + distinctColumnName +
+                "' and dict_key is not null";
     }
 
     private String getEncodeStarRocksIntermediateHiveTableSql(String dictColumn, List<String> childColumn) {
@@ -400,8 +397,7 @@ public class GlobalDictBuilder {
         sql.deleteCharAt(sql.length() - 1)
                 .append(" from ")
                 .append(starrocksIntermediateHiveTable)
-                .append(" LEFT OUTER JOIN ( select dict_key,dict_value from ").append(globalDictTableName)
-                .append(" where dict_column='").append(dictColumn).append("' ) t on ")
+                .append(" LEFT OUTER JOIN ").append(getDictViewName(dictColumn)).append(" t on ")
                 .append(starrocksIntermediateHiveTable).append(".").append(dictColumn)
                 .append(" = t.dict_key ");
         return sql.toString();
@@ -0,0 +1,43 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.load.loadv2.dpp;
+
+import org.apache.spark.util.AccumulatorV2;
+
+// Keep the max value reported by tasks, eg: the peak execution memory of the tasks in one stage
+public class LongMaxAccumulator extends AccumulatorV2<Long, Long> {
+    private long max = Long.MIN_VALUE;
+
+    @Override
+    public boolean isZero() {
+        return max == Long.MIN_VALUE;
+    }
+
+    @Override
+    public AccumulatorV2<Long, Long> copy() {
+        LongMaxAccumulator newAccumulator = new LongMaxAccumulator();
+        newAccumulator.max = this.max;
+        return newAccumulator;
+    }
+
+    @Override
+    public void reset() {
+        max = Long.MIN_VALUE;
+    }
+
+    @Override
+    public void add(Long v) {
+        max = Math.max(max, v);
+    }
+
+    @Override
+    public void merge(AccumulatorV2<Long, Long> other) {
+        LongMaxAccumulator o = (LongMaxAccumulator) other;
+        max = Math.max(max, o.max);
+    }
+
+    @Override
+    public Long value() {
+        return isZero() ? 0L : max;
+    }
+}
@@ -0,0 +1,403 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.load.loadv2.dpp;
+
+import com.starrocks.common.Codec;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.InvalidRoaringFormat;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * 64-bit bitmap which keeps the high 32 bits of the values in a sorted primitive int array,
+ * and the low 32 bits in a RoaringBitmap per high bits, like be's Roaring64Map.
+ * Compared to Roaring64Map which is based on a NavigableMap with boxed keys, it
+ * 1. finds the bitmap of the high bits by binary search on the int array without boxing
+ * 2. adds values in batch by addMany, the low bits with the same high bits are added by RoaringBitmap.addN
+ * 3. merges two bitmaps by a linear merge of the sorted high bits
+ * 4. serializes to and deserializes from a ByteBuffer directly, without the intermediate streams
+ * <p>
+ * The serialized format is the same as Roaring64Map, which is compatible with be's bitmap_value.h.
+ * The high bits are ordered as unsigned int, the same as be.
+ */
+public class Roaring64ArrayMap {
+    private static final int INITIAL_CAPACITY = 4;
+
+    // high 32 bits of the values, sorted as unsigned int
+    private int[] highs;
+    // bitmaps[i] keeps the low 32 bits of the values whose high 32 bits are highs[i]
+    private RoaringBitmap[] bitmaps;
+    private int size;
+    // index of the high bits added last time, consecutive added values usually have the same high bits
+    private int lastIndex = -1;
+
+    public Roaring64ArrayMap() {
+        highs = new int[INITIAL_CAPACITY];
+        bitmaps = new RoaringBitmap[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    public static Roaring64ArrayMap bitmapOf(long... values) {
+        Roaring64ArrayMap bitmap = new Roaring64ArrayMap();
+        bitmap.addMany(values);
+        return bitmap;
+    }
+
+    public void addLong(long x) {
+        getOrCreateBitmap(Roaring64Map.high(x)).add(Roaring64Map.low(x));
+    }
+
+    public void add(long... values) {
+        addMany(values);
+    }
+
+    public void addMany(long... values) {
+        addMany(values, 0, values.length);
+    }
+
+    // add values[offset, offset + length), the values needn't be sorted,
+    // but it's faster when the values with the same high bits are adjacent
+    public void addMany(long[] values, int offset, int length) {
+        int[] lows = new int[length];
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int high = Roaring64Map.high(values[i]);
+            int n = 0;
+            while (i < end && Roaring64Map.high(values[i]) == high) {
+                lows[n++] = Roaring64Map.low(values[i]);
+                i++;
+            }
+            getOrCreateBitmap(high).addN(lows, 0, n);
+        }
+    }
+
+    public boolean contains(long x) {
+        int index = search(Roaring64Map.high(x));
+        return index >= 0 && bitmaps[index].contains(Roaring64Map.low(x));
+    }
+
+    public boolean isEmpty() {
+        return getLongCardinality() == 0;
+    }
+
+    public long getLongCardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += bitmaps[i].getLongCardinality();
+        }
+        return cardinality;
+    }
+
+    // return the jth value of the sorted values
+    public long select(long j) {
+        long left = j;
+        for (int i = 0; i < size; i++) {
+            long cardinality = bitmaps[i].getLongCardinality();
+            if (left < cardinality) {
+                return Roaring64Map.pack(highs[i], bitmaps[i].select((int) left));
+            }
+            left -= cardinality;
+        }
+        throw new IllegalArgumentException("select " + j + " when the cardinality is " + getLongCardinality());
+    }
+
+    // In-place bitwise OR (union) operation. The current bitmap is modified.
+    public void or(Roaring64ArrayMap other) {
+        if (other.size == 0) {
+            return;
+        }
+        if (other.size == 1) {
+            // most bitmaps of spark load have only one high bits, avoid to rebuild the arrays
+            getOrCreateBitmap(other.highs[0]).or(other.bitmaps[0]);
+            return;
+        }
+
+        int[] newHighs = new int[size + other.size];
+        RoaringBitmap[] newBitmaps = new RoaringBitmap[size + other.size];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size && j < other.size) {
+            int cmp = Integer.compareUnsigned(highs[i], other.highs[j]);
+            if (cmp < 0) {
+                newHighs[k] = highs[i];
+                newBitmaps[k++] = bitmaps[i++];
+            } else if (cmp > 0) {
+                newHighs[k] = other.highs[j];
+                newBitmaps[k++] = other.bitmaps[j++].clone();
+            } else {
+                bitmaps[i].or(other.bitmaps[j++]);
+                newHighs[k] = highs[i];
+                newBitmaps[k++] = bitmaps[i++];
+            }
+        }
+        while (i < size) {
+            newHighs[k] = highs[i];
+            newBitmaps[k++] = bitmaps[i++];
+        }
+        while (j < other.size) {
+            newHighs[k] = other.highs[j];
+            newBitmaps[k++] = other.bitmaps[j++].clone();
+        }
+        highs = newHighs;
+        bitmaps = newBitmaps;
+        size = k;
+        lastIndex = -1;
+    }
+
+    // In-place bitwise AND (intersection) operation. The current bitmap is modified.
+    public void and(Roaring64ArrayMap other) {
+        int k = 0;
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && Integer.compareUnsigned(other.highs[j], highs[i]) < 0) {
+                j++;
+            }
+            if (j < other.size && other.highs[j] == highs[i]) {
+                bitmaps[i].and(other.bitmaps[j]);
+                if (!bitmaps[i].isEmpty()) {
+                    highs[k] = highs[i];
+                    bitmaps[k++] = bitmaps[i];
+                }
+            }
+        }
+        Arrays.fill(bitmaps, k, size, null);
+        size = k;
+        lastIndex = -1;
+    }
+
+    public void clear() {
+        Arrays.fill(bitmaps, 0, size, null);
+        size = 0;
+        lastIndex = -1;
+    }
+
+    public boolean is32BitsEnough() {
+        return size == 1 && highs[0] == 0;
+    }
+
+    // size in heap
+    public long getSizeInBytes() {
+        long sizeInBytes = 16 + 4L * highs.length + 8L * bitmaps.length;
+        for (int i = 0; i < size; i++) {
+            sizeInBytes += bitmaps[i].getLongSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    // the same format as Roaring64Map#serialize
+    public int serializedSizeInBytes() {
+        if (size == 0) {
+            return 0;
+        }
+        if (is32BitsEnough()) {
+            return 1 + bitmaps[0].serializedSizeInBytes();
+        }
+        int sizeInBytes = 1 + Codec.varint64Size(size);
+        for (int i = 0; i < size; i++) {
+            sizeInBytes += 4 + bitmaps[i].serializedSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    public void serialize(DataOutput out) throws IOException {
+        if (size == 0) {
+            return;
+        }
+        if (is32BitsEnough()) {
+            out.write(BitmapValue.BITMAP32);
+            bitmaps[0].serialize(out);
+            return;
+        }
+
+        out.write(BitmapValue.BITMAP64);
+        Codec.encodeVarint64(size, out);
+        for (int i = 0; i < size; i++) {
+            // The key should be the same little endian with BE deserialized process
+            out.writeInt(Integer.reverseBytes(highs[i]));
+            bitmaps[i].serialize(out);
+        }
+    }
+
+    // serialize to the buffer from its position, the buffer must have serializedSizeInBytes() bytes remaining
+    public void serialize(ByteBuffer buffer) {
+        if (size == 0) {
+            return;
+        }
+        if (is32BitsEnough()) {
+            buffer.put((byte) BitmapValue.BITMAP32);
+            bitmaps[0].serialize(buffer);
+            return;
+        }
+
+        buffer.put((byte) BitmapValue.BITMAP64);
+        Codec.encodeVarint64(size, buffer);
+        boolean isLittleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(isLittleEndian ? highs[i] : Integer.reverseBytes(highs[i]));
+            bitmaps[i].serialize(buffer);
+        }
+    }
+
+    public void deserialize(DataInput in, int bitmapType) throws IOException {
+        clear();
+        if (bitmapType == BitmapValue.BITMAP32) {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            bitmap.deserialize(in);
+            append(0, bitmap);
+            return;
+        }
+        if (bitmapType != BitmapValue.BITMAP64) {
+            throw new InvalidRoaringFormat("invalid bitmap type");
+        }
+
+        long nbHighs = Codec.decodeVarint64(in);
+        for (int i = 0; i < nbHighs; i++) {
+            // The key should be the same little endian with serialize.
+            int high = Integer.reverseBytes(in.readInt());
+            RoaringBitmap bitmap = new RoaringBitmap();
+            bitmap.deserialize(in);
+            append(high, bitmap);
+        }
+    }
+
+    // deserialize from the buffer whose position is after the bitmap type,
+    // the position of the buffer is moved to the end of the bitmap
+    public void deserialize(ByteBuffer buffer, int bitmapType) throws IOException {
+        clear();
+        if (bitmapType == BitmapValue.BITMAP32) {
+            append(0, deserializeRoaringBitmap(buffer));
+            return;
+        }
+        if (bitmapType != BitmapValue.BITMAP64) {
+            throw new InvalidRoaringFormat("invalid bitmap type");
+        }
+
+        long nbHighs = Codec.decodeVarint64(buffer);
+        boolean isLittleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+        for (int i = 0; i < nbHighs; i++) {
+            int high = buffer.getInt();
+            append(isLittleEndian ? high : Integer.reverseBytes(high), deserializeRoaringBitmap(buffer));
+        }
+    }
+
+    private RoaringBitmap deserializeRoaringBitmap(ByteBuffer buffer) throws IOException {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        // RoaringBitmap#deserialize doesn't move the position of the buffer
+        bitmap.deserialize(buffer);
+        buffer.position(buffer.position() + bitmap.serializedSizeInBytes());
+        return bitmap;
+    }
+
+    // the high bits of the deserialized bitmaps are in order, so they are appended directly
+    private void append(int high, RoaringBitmap bitmap) {
+        if (size > 0 && Integer.compareUnsigned(highs[size - 1], high) >= 0) {
+            throw new InvalidRoaringFormat("high bits are not in order");
+        }
+        ensureCapacity(size + 1);
+        highs[size] = high;
+        bitmaps[size] = bitmap;
+        size++;
+    }
+
+    private RoaringBitmap getOrCreateBitmap(int high) {
+        if (lastIndex >= 0 && highs[lastIndex] == high) {
+            return bitmaps[lastIndex];
+        }
+        int index = search(high);
+        if (index < 0) {
+            index = -index - 1;
+            ensureCapacity(size + 1);
+            System.arraycopy(highs, index, highs, index + 1, size - index);
+            System.arraycopy(bitmaps, index, bitmaps, index + 1, size - index);
+            highs[index] = high;
+            bitmaps[index] = new RoaringBitmap();
+            size++;
+        }
+        lastIndex = index;
+        return bitmaps[index];
+    }
+
+    // binary search the high bits in unsigned order,
+    // return the index if found, otherwise return (-(insertion point) - 1)
+    private int search(int high) {
+        int low = 0;
+        int up = size - 1;
+        while (low <= up) {
+            int middle = (low + up) >>> 1;
+            int cmp = Integer.compareUnsigned(highs[middle], high);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                up = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > highs.length) {
+            int newCapacity = Math.max(capacity, highs.length * 2);
+            highs = Arrays.copyOf(highs, newCapacity);
+            bitmaps = Arrays.copyOf(bitmaps, newCapacity);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + highs[i];
+            result = 31 * result + bitmaps[i].hashCode();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Roaring64ArrayMap)) {
+            return false;
+        }
+        Roaring64ArrayMap other = (Roaring64ArrayMap) obj;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (highs[i] != other.highs[i] || !bitmaps[i].equals(other.bitmaps[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < size; i++) {
+            IntIterator it = bitmaps[i].getIntIterator();
+            while (it.hasNext()) {
+                if (builder.length() > 1) {
+                    builder.append(",");
+                }
+                // to avoid using too much memory, we limit the size
+                if (builder.length() > 0x80000) {
+                    return builder.append("...}").toString();
+                }
+                builder.append(Roaring64Map.toUnsignedString(Roaring64Map.pack(highs[i], it.next())));
+            }
+        }
+        return builder.append("}").toString();
+    }
+}
@@ -36,6 +36,7 @@ import org.apache.parquet.column.ParquetProperties;
 import org.apache.parquet.hadoop.ParquetWriter;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.spark.Partitioner;
+import org.apache.spark.SparkConf;
 import org.apache.spark.TaskContext;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
@@ -71,14 +72,18 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 // This class is a Spark-based data preprocessing program,
 // which will make use of the distributed compute framework of spark to
@@ -100,6 +105,25 @@ public final class SparkDpp implements java.io.Serializable {
     private static final String TABLE_LOAD_ROWS = "table_load_rows";
     private static final String TABLE_LOAD_BYTES = "table_load_bytes";
     private static final String TABLE_LOAD_FINISHED = "table_load_finished";
+    // spark conf to set the storage level of the persisted rollup rdd, eg: MEMORY_AND_DISK_SER
+    private static final String ROLLUP_STORAGE_LEVEL_CONF = "spark.starrocks.dpp.rollup.storageLevel";
+    private static final String DEFAULT_ROLLUP_STORAGE_LEVEL = "MEMORY_AND_DISK";
+    // spark conf to set the max number of indexes in the same rollup level written concurrently
+    private static final String ROLLUP_WRITE_PARALLELISM_CONF = "spark.starrocks.dpp.rollup.writeParallelism";
+    private static final int DEFAULT_ROLLUP_WRITE_PARALLELISM = 4;
+    // spark confs of the parquet writer of the output files
+    private static final String PARQUET_COMPRESSION_CONF = "spark.starrocks.dpp.parquet.compression";
+    private static final String PARQUET_ROW_GROUP_SIZE_CONF = "spark.starrocks.dpp.parquet.rowGroupSize";
+    private static final String PARQUET_PAGE_SIZE_CONF = "spark.starrocks.dpp.parquet.pageSize";
+    private static final String PARQUET_DICTIONARY_PAGE_SIZE_CONF = "spark.starrocks.dpp.parquet.dictionaryPageSize";
+    private static final String PARQUET_ENABLE_DICTIONARY_CONF = "spark.starrocks.dpp.parquet.enableDictionary";
+    // the codecs of the parquet files which can be read by the backends
+    private static final Set<CompressionCodecName> BE_SUPPORTED_PARQUET_CODECS = EnumSet.of(
+            CompressionCodecName.UNCOMPRESSED, CompressionCodecName.SNAPPY, CompressionCodecName.GZIP,
+            CompressionCodecName.ZSTD, CompressionCodecName.LZ4);
+    private static final int DEFAULT_PARQUET_ROW_GROUP_SIZE = 256 * 1024 * 1024;
+    private static final int DEFAULT_PARQUET_PAGE_SIZE = 16 * 1024;
+    private static final int DEFAULT_PARQUET_DICTIONARY_PAGE_SIZE = 1024 * 1024;
     private SparkSession spark = null;
     private EtlJobConfig etlJobConfig = null;
     private LongAccumulator abnormalRowAcc = null;
@@ -119,6 +143,9 @@ public final class SparkDpp implements java.io.Serializable {
     private SerializableConfiguration serializableHadoopConf;
     private DppResult dppResult = new DppResult();
     private Map<Long, Set<String>> tableToBitmapDictColumns = new HashMap<>();
+    // tableId -> rollup level -> peak execution memory of the tasks writing the level, it does not cover
+    // the stages which read the source files and aggregate the rollups before the shuffle of the write stage
+    private Map<Long, Map<Integer, Long>> rollupWritePeakMemory = new HashMap<>();
 
     // just for ut
     public SparkDpp() {
@@ -211,12 +238,14 @@ public final class SparkDpp implements java.io.Serializable {
                                                        String pathPattern,
                                                        long tableId,
                                                        EtlJobConfig.EtlIndex indexMeta,
-                                                       SparkRDDAggregator[] sparkRDDAggregators)
+                                                       SparkRDDAggregator[] sparkRDDAggregators,
+                                                       LongMaxAccumulator writePeakMemoryAcc)
             throws SparkDppException {
         // TODO(wb) should deal largint as BigInteger instead of string when using biginteger as key,
         // data type may affect sorting logic
         StructType dstSchema = DppUtils.createDstTableSchema(indexMeta.columns, false, true);
         ExpressionEncoder encoder = RowEncoder.apply(dstSchema);
+        ParquetWriterOptions writerOptions = getParquetWriterOptions();
 
         resultRDD.repartitionAndSortWithinPartitions(new BucketPartitioner(bucketKeyMap), new BucketComparator())
                 .foreachPartition(new VoidFunction<Iterator<Tuple2<List<Object>, Object[]>>>() {
@@ -275,20 +304,7 @@ public final class SparkDpp implements java.io.Serializable {
                                 dstPath = String.format(pathPattern, tableId, partitionId, indexMeta.indexId,
                                         bucketId, indexMeta.schemaHash);
                                 tmpPath = dstPath + "." + taskAttemptId;
-                                conf.setBoolean("spark.sql.parquet.writeLegacyFormat", false);
-                                conf.setBoolean("spark.sql.parquet.int64AsTimestampMillis", false);
-                                conf.setBoolean("spark.sql.parquet.int96AsTimestamp", true);
-                                conf.setBoolean("spark.sql.parquet.binaryAsString", false);
-                                conf.set("spark.sql.parquet.outputTimestampType", "INT96");
-                                ParquetWriteSupport.setSchema(dstSchema, conf);
-                                ParquetWriteSupport parquetWriteSupport = new ParquetWriteSupport();
-                                parquetWriter = new ParquetWriter<InternalRow>(new Path(tmpPath), parquetWriteSupport,
-                                        CompressionCodecName.SNAPPY,
-                                        256 * 1024 * 1024, 16 * 1024,
-                                        1024 * 1024,
-                                        true, false,
-                                        ParquetProperties.WriterVersion.PARQUET_1_0,
-                                        conf);
+                                parquetWriter = createParquetWriter(new Path(tmpPath), dstSchema, conf, writerOptions);
                                 if (parquetWriter != null) {
                                     LOG.info("[HdfsOperate]>> initialize writer succeed! path:" + tmpPath);
                                 }
@@ -307,63 +323,196 @@ public final class SparkDpp implements java.io.Serializable {
                                 throw ioe;
                             }
                         }
+                        writePeakMemoryAcc.add(taskContext.taskMetrics().peakExecutionMemory());
 
                     }
                 });
     }
 
+    // the parquet files are decoded by be when pushing them into tablets,
+    // the options are configurable to trade off the file size against the decoding cost of be
+    static class ParquetWriterOptions implements java.io.Serializable {
+        CompressionCodecName compressionCodec = CompressionCodecName.SNAPPY;
+        int rowGroupSize = DEFAULT_PARQUET_ROW_GROUP_SIZE;
+        int pageSize = DEFAULT_PARQUET_PAGE_SIZE;
+        int dictionaryPageSize = DEFAULT_PARQUET_DICTIONARY_PAGE_SIZE;
+        boolean enableDictionary = true;
+
+        @Override
+        public String toString() {
+            return "ParquetWriterOptions{" +
+                    "compressionCodec=" + compressionCodec +
+                    ", rowGroupSize=" + rowGroupSize +
+                    ", pageSize=" + pageSize +
+                    ", dictionaryPageSize=" + dictionaryPageSize +
+                    ", enableDictionary=" + enableDictionary +
+                    '}';
+        }
+    }
+
+    private ParquetWriterOptions getParquetWriterOptions() throws SparkDppException {
+        SparkConf conf = spark.sparkContext().getConf();
+        ParquetWriterOptions options = new ParquetWriterOptions();
+        options.compressionCodec = parseParquetCompressionCodec(
+                conf.get(PARQUET_COMPRESSION_CONF, options.compressionCodec.name()));
+        options.rowGroupSize = conf.getInt(PARQUET_ROW_GROUP_SIZE_CONF, options.rowGroupSize);
+        options.pageSize = conf.getInt(PARQUET_PAGE_SIZE_CONF, options.pageSize);
+        options.dictionaryPageSize = conf.getInt(PARQUET_DICTIONARY_PAGE_SIZE_CONF, options.dictionaryPageSize);
+        options.enableDictionary = conf.getBoolean(PARQUET_ENABLE_DICTIONARY_CONF, options.enableDictionary);
+        if (options.rowGroupSize <= 0 || options.pageSize <= 0 || options.dictionaryPageSize <= 0) {
+            throw new SparkDppException("invalid parquet writer options: " + options);
+        }
+        LOG.info("parquet writer options: " + options);
+        return options;
+    }
+
+    static CompressionCodecName parseParquetCompressionCodec(String codec) throws SparkDppException {
+        CompressionCodecName codecName;
+        try {
+            codecName = CompressionCodecName.valueOf(codec.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new SparkDppException("invalid " + PARQUET_COMPRESSION_CONF + ": " + codec);
+        }
+        if (!BE_SUPPORTED_PARQUET_CODECS.contains(codecName)) {
+            throw new SparkDppException("unsupported " + PARQUET_COMPRESSION_CONF + ": " + codec +
+                    ", the supported codecs are " + BE_SUPPORTED_PARQUET_CODECS);
+        }
+        return codecName;
+    }
+
+    static ParquetWriter<InternalRow> createParquetWriter(Path path, StructType dstSchema, Configuration conf,
+                                                          ParquetWriterOptions options) throws IOException {
+        conf.setBoolean("spark.sql.parquet.writeLegacyFormat", false);
+        conf.setBoolean("spark.sql.parquet.int64AsTimestampMillis", false);
+        conf.setBoolean("spark.sql.parquet.int96AsTimestamp", true);
+        conf.setBoolean("spark.sql.parquet.binaryAsString", false);
+        conf.set("spark.sql.parquet.outputTimestampType", "INT96");
+        ParquetWriteSupport.setSchema(dstSchema, conf);
+        ParquetWriteSupport parquetWriteSupport = new ParquetWriteSupport();
+        return new ParquetWriter<InternalRow>(path, parquetWriteSupport,
+                options.compressionCodec,
+                options.rowGroupSize, options.pageSize,
+                options.dictionaryPageSize,
+                options.enableDictionary, false,
+                ParquetProperties.WriterVersion.PARQUET_1_0,
+                conf);
+    }
+
     // TODO(wb) one shuffle to calculate the rollup in the same level
+    // The rollup tree is processed level by level. The rollup of a node is derived from the nearest ancestor
+    // chosen by the RollupTreeBuilder, so the aggregated result of a node which has children is persisted
+    // until all of its children are calculated, to avoid computing the parent aggregation again for each child.
+    // The indexes in the same level are independent of each other, so they are written concurrently.
     private void processRollupTree(RollupTreeNode rootNode,
                                    JavaPairRDD<List<Object>, Object[]> rootRDD,
                                    long tableId, EtlJobConfig.EtlIndex baseIndex) throws SparkDppException {
-        Queue<RollupTreeNode> nodeQueue = new LinkedList<>();
-        nodeQueue.offer(rootNode);
-        int currentLevel = 0;
-        // level travel the tree
-        Map<Long, JavaPairRDD<List<Object>, Object[]>> parentRDDMap = new HashMap<>();
-        parentRDDMap.put(baseIndex.indexId, rootRDD);
-        Map<Long, JavaPairRDD<List<Object>, Object[]>> childrenRDDMap = new HashMap<>();
+        StorageLevel storageLevel = getRollupStorageLevel();
+        int writeParallelism = getRollupWriteParallelism();
+        LOG.info("process rollup tree with storage level: " + storageLevel.description()
+                + ", write parallelism: " + writeParallelism);
+
         String pathPattern = etlJobConfig.outputPath + "/" + etlJobConfig.outputFilePattern;
-        while (!nodeQueue.isEmpty()) {
-            RollupTreeNode curNode = nodeQueue.poll();
-            LOG.info("start to process index:" + curNode.indexId);
-            if (curNode.children != null) {
-                for (RollupTreeNode child : curNode.children) {
-                    nodeQueue.offer(child);
+        Map<Integer, Long> levelWritePeakMemory = new TreeMap<>();
+        // persisted rdd of the indexes which have children, the children are derived from them.
+        // the rdd of a duplicate base index is rootRDD itself, it is persisted and unpersisted like the others
+        Map<Long, JavaPairRDD<List<Object>, Object[]>> parentRDDMap = new HashMap<>();
+        List<RollupTreeNode> curLevelNodes = Lists.newArrayList(rootNode);
+        int currentLevel = 0;
+        ExecutorService writeExecutor = Executors.newFixedThreadPool(writeParallelism);
+        try {
+            while (!curLevelNodes.isEmpty()) {
+                LongMaxAccumulator writePeakMemoryAcc = new LongMaxAccumulator();
+                spark.sparkContext().register(writePeakMemoryAcc,
+                        "rollupWritePeakMemoryAcc_" + tableId + "_" + currentLevel);
+
+                Map<Long, JavaPairRDD<List<Object>, Object[]>> childrenRDDMap = new HashMap<>();
+                List<RollupTreeNode> nextLevelNodes = new ArrayList<>();
+                List<Future<?>> writeFutures = new ArrayList<>();
+                for (RollupTreeNode curNode : curLevelNodes) {
+                    LOG.info("start to process index:" + curNode.indexId + ", level:" + curNode.level);
+                    JavaPairRDD<List<Object>, Object[]> parentRDD = rootRDD;
+                    if (curNode.parent != null) {
+                        parentRDD = parentRDDMap.get(curNode.parent.indexId);
+                    }
+
+                    // aggregate
+                    SparkRDDAggregator[] sparkRDDAggregators =
+                            new SparkRDDAggregator[curNode.valueColumnNames.size()];
+                    JavaPairRDD<List<Object>, Object[]> curRDD =
+                            processRDDAggregate(parentRDD, curNode, sparkRDDAggregators);
+
+                    if (curNode.children != null && !curNode.children.isEmpty()) {
+                        // persist the rdd, so the children can be derived from it without recomputing
+                        curRDD.persist(storageLevel);
+                        childrenRDDMap.put(curNode.indexId, curRDD);
+                        nextLevelNodes.addAll(curNode.children);
+                    }
+                    // repartition and write to hdfs
+                    writeFutures.add(writeExecutor.submit(() -> {
+                        writeRepartitionAndSortedRDDToParquet(curRDD, pathPattern, tableId, curNode.indexMeta,
+                                sparkRDDAggregators, writePeakMemoryAcc);
+                        return null;
+                    }));
                 }
-            }
-            JavaPairRDD<List<Object>, Object[]> curRDD = null;
-            // column select for rollup
-            if (curNode.level != currentLevel) {
+                waitRollupWriteFinished(writeFutures);
+                levelWritePeakMemory.put(currentLevel, writePeakMemoryAcc.value());
+                LOG.info("finish to process rollup level:" + currentLevel + ", table:" + tableId
+                        + ", peak execution memory of the write stage:" + writePeakMemoryAcc.value());
+
+                // all the children of the parents have been written
                 for (JavaPairRDD<List<Object>, Object[]> rdd : parentRDDMap.values()) {
-                    rdd.unpersist();
+                    rdd.unpersist(false);
                 }
-                currentLevel = curNode.level;
-                parentRDDMap.clear();
                 parentRDDMap = childrenRDDMap;
-                childrenRDDMap = new HashMap<>();
+                curLevelNodes = nextLevelNodes;
+                currentLevel++;
             }
-
-            long parentIndexId = baseIndex.indexId;
-            if (curNode.parent != null) {
-                parentIndexId = curNode.parent.indexId;
+        } finally {
+            writeExecutor.shutdownNow();
+            for (JavaPairRDD<List<Object>, Object[]> rdd : parentRDDMap.values()) {
+                rdd.unpersist(false);
             }
+        }
+        rollupWritePeakMemory.put(tableId, levelWritePeakMemory);
+    }
 
-            JavaPairRDD<List<Object>, Object[]> parentRDD = parentRDDMap.get(parentIndexId);
-
-            // aggregate
-            SparkRDDAggregator[] sparkRDDAggregators = new SparkRDDAggregator[curNode.valueColumnNames.size()];
-            curRDD = processRDDAggregate(parentRDD, curNode, sparkRDDAggregators);
+    private void waitRollupWriteFinished(List<Future<?>> writeFutures) throws SparkDppException {
+        SparkDppException exception = null;
+        for (Future<?> future : writeFutures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SparkDppException("interrupted when writing rollup: " + e.getMessage());
+            } catch (ExecutionException e) {
+                LOG.warn("write rollup failed. exception:" + e.getCause());
+                if (exception == null) {
+                    exception = new SparkDppException("write rollup failed: " + e.getCause().getMessage());
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
 
-            childrenRDDMap.put(curNode.indexId, curRDD);
+    private StorageLevel getRollupStorageLevel() throws SparkDppException {
+        String storageLevel = spark.sparkContext().getConf()
+                .get(ROLLUP_STORAGE_LEVEL_CONF, DEFAULT_ROLLUP_STORAGE_LEVEL);
+        try {
+            return StorageLevel.fromString(storageLevel.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new SparkDppException("invalid " + ROLLUP_STORAGE_LEVEL_CONF + ": " + storageLevel);
+        }
+    }
 
-            if (curNode.children != null && curNode.children.size() > 1) {
-                // if the children number larger than 1, persist the dataframe for performance
-                curRDD.persist(StorageLevel.MEMORY_AND_DISK());
-            }
-            // repartition and write to hdfs
-            writeRepartitionAndSortedRDDToParquet(curRDD, pathPattern, tableId, curNode.indexMeta, sparkRDDAggregators);
+    private int getRollupWriteParallelism() throws SparkDppException {
+        int parallelism = spark.sparkContext().getConf()
+                .getInt(ROLLUP_WRITE_PARALLELISM_CONF, DEFAULT_ROLLUP_WRITE_PARALLELISM);
+        if (parallelism <= 0) {
+            throw new SparkDppException("invalid " + ROLLUP_WRITE_PARALLELISM_CONF + ": " + parallelism);
         }
+        return parallelism;
     }
 
     // get column index map from parent rollup to child rollup
@@ -1223,6 +1372,7 @@ public final class SparkDpp implements java.io.Serializable {
             dppResult.fileNumber = fileNumberAcc.value();
             dppResult.fileSize = fileSizeAcc.value();
             dppResult.partialAbnormalRows = invalidRows.value();
+            dppResult.rollupWritePeakMemory = rollupWritePeakMemory;
             dppResult.tableCounters = Maps.newHashMap();
             for (Map.Entry<Long, Map<String, LongAccumulator>> t : tableCounters.entrySet()) {
                 Map<String, Long> metrics = Maps.newHashMap();
@@ -34,6 +34,7 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -255,7 +256,7 @@ class BitmapUnionAggregator extends SparkRDDAggregator<BitmapValue> {
         try {
             BitmapValue bitmapValue = new BitmapValue();
             if (value instanceof byte[]) {
-                bitmapValue.deserialize(new DataInputStream(new ByteArrayInputStream((byte[]) value)));
+                bitmapValue.deserialize(ByteBuffer.wrap((byte[]) value));
             } else if (value != null) {
                 bitmapValue.add(Long.valueOf(value.toString()));
             }
@@ -279,15 +280,8 @@ class BitmapUnionAggregator extends SparkRDDAggregator<BitmapValue> {
 
     @Override
     byte[] finalize(Object value) {
-        try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            DataOutputStream outputStream = new DataOutputStream(bos);
-            ((BitmapValue) value).serialize(outputStream);
-            return bos.toByteArray();
-        } catch (IOException ioException) {
-            ioException.printStackTrace();
-            throw new RuntimeException(ioException);
-        }
+        // serialize into a byte array of the exact size, without the intermediate streams
+        return ((BitmapValue) value).toBytes();
     }
 
 }
@@ -28,6 +28,7 @@ public class StarRocksKryoRegistrator implements KryoRegistrator {
     @Override
     public void registerClasses(Kryo kryo) {
         kryo.register(Roaring64Map.class);
+        kryo.register(Roaring64ArrayMap.class);
         kryo.register(BitmapValue.class);
     }
 }
@@ -51,6 +51,9 @@ public class SparkEtlJob {
     private static final String BITMAP_DICT_FUNC = "bitmap_dict";
     private static final String TO_BITMAP_FUNC = "to_bitmap";
     private static final String BITMAP_HASH = "bitmap_hash";
+    // spark conf to set the number of hash partitions of the global dict cached in a job
+    private static final String GLOBAL_DICT_PARTITION_NUM_CONF = "spark.starrocks.dpp.globalDict.partitionNum";
+    private static final int DEFAULT_GLOBAL_DICT_PARTITION_NUM = 200;
 
     private String jobConfigFilePath;
     private EtlJobConfig etlJobConfig;
@@ -167,8 +170,8 @@ public class SparkEtlJob {
         // others
         List<String> mapSideJoinColumns = Lists.newArrayList();
         int buildConcurrency = 1;
-        List<String> veryHighCardinalityColumn = Lists.newArrayList();
-        int veryHighCardinalityColumnSplitNum = 1;
+        int dictPartitionNum = spark.sparkContext().getConf()
+                .getInt(GLOBAL_DICT_PARTITION_NUM_CONF, DEFAULT_GLOBAL_DICT_PARTITION_NUM);
 
         LOG.info("global dict builder args, dictColumnMap: " + dictColumnMap
                 + ", intermediateTableColumnList: " + intermediateTableColumnList
@@ -176,13 +179,14 @@ public class SparkEtlJob {
                 + ", sourceHiveFilter: " + sourceHiveFilter
                 + ", distinctKeyTableName: " + distinctKeyTableName
                 + ", globalDictTableName: " + globalDictTableName
-                + ", starrocksIntermediateHiveTable: " + starrocksIntermediateHiveTable);
+                + ", starrocksIntermediateHiveTable: " + starrocksIntermediateHiveTable
+                + ", dictPartitionNum: " + dictPartitionNum);
         try {
             GlobalDictBuilder globalDictBuilder = new GlobalDictBuilder(
                     dictColumnMap, intermediateTableColumnList, mapSideJoinColumns, sourceHiveDBTableName,
                     sourceHiveFilter, starrocksHiveDB, distinctKeyTableName, globalDictTableName,
                     starrocksIntermediateHiveTable,
-                    buildConcurrency, veryHighCardinalityColumn, veryHighCardinalityColumnSplitNum, spark);
+                    buildConcurrency, dictPartitionNum, spark);
             globalDictBuilder.checkGlobalDictTableName(dorisGlobalDictTableName);
             globalDictBuilder.createHiveIntermediateTable();
             globalDictBuilder.extractDistinctColumn();
@@ -0,0 +1,144 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.load.loadv2.dpp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+public class Roaring64ArrayMapTest {
+
+    private static long[] randomValues(int count, int highBound) {
+        Random random = new Random(count);
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Roaring64Map.pack(random.nextInt(highBound), random.nextInt());
+        }
+        return values;
+    }
+
+    private static byte[] serialize(Roaring64Map bitmap) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        bitmap.serialize(new DataOutputStream(bos));
+        return bos.toByteArray();
+    }
+
+    private static byte[] serialize(Roaring64ArrayMap bitmap) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        bitmap.serialize(new DataOutputStream(bos));
+        return bos.toByteArray();
+    }
+
+    @Test
+    public void testAddAndContains() {
+        Roaring64ArrayMap bitmap = new Roaring64ArrayMap();
+        Roaring64Map expected = new Roaring64Map();
+        long[] values = randomValues(10000, 16);
+        for (int i = 0; i < values.length; i++) {
+            if (i % 2 == 0) {
+                bitmap.addLong(values[i]);
+            } else {
+                bitmap.addMany(values, i, 1);
+            }
+            expected.addLong(values[i]);
+        }
+        Assert.assertEquals(expected.getLongCardinality(), bitmap.getLongCardinality());
+        for (long value : values) {
+            Assert.assertTrue(bitmap.contains(value));
+        }
+        Assert.assertFalse(bitmap.contains(Roaring64Map.pack(100, 1)));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(expected.select(i * 10), bitmap.select(i * 10));
+        }
+        Assert.assertEquals(expected.toString(), bitmap.toString());
+
+        Roaring64ArrayMap addManyBitmap = Roaring64ArrayMap.bitmapOf(values);
+        Assert.assertEquals(bitmap, addManyBitmap);
+    }
+
+    @Test
+    public void testOrAndAnd() {
+        long[] values1 = randomValues(1000, 8);
+        long[] values2 = randomValues(2000, 4);
+        Roaring64ArrayMap bitmap1 = Roaring64ArrayMap.bitmapOf(values1);
+        Roaring64ArrayMap bitmap2 = Roaring64ArrayMap.bitmapOf(values2);
+        Roaring64Map expected1 = Roaring64Map.bitmapOf(values1);
+        Roaring64Map expected2 = Roaring64Map.bitmapOf(values2);
+
+        bitmap1.or(bitmap2);
+        expected1.or(expected2);
+        Assert.assertEquals(expected1.getLongCardinality(), bitmap1.getLongCardinality());
+        Assert.assertEquals(expected1.toString(), bitmap1.toString());
+        // other bitmap is not modified
+        Assert.assertEquals(expected2.toString(), bitmap2.toString());
+
+        bitmap2.and(Roaring64ArrayMap.bitmapOf(values1));
+        expected2.and(Roaring64Map.bitmapOf(values1));
+        Assert.assertEquals(expected2.getLongCardinality(), bitmap2.getLongCardinality());
+        Assert.assertEquals(expected2.toString(), bitmap2.toString());
+
+        bitmap2.and(new Roaring64ArrayMap());
+        Assert.assertTrue(bitmap2.isEmpty());
+    }
+
+    @Test
+    public void testSerializeCompatibleWithRoaring64Map() throws IOException {
+        // 32-bit bitmap and 64-bit bitmap
+        for (int highBound : new int[] {1, 1000}) {
+            long[] values = randomValues(5000, highBound);
+            Roaring64ArrayMap bitmap = Roaring64ArrayMap.bitmapOf(values);
+            byte[] expected = serialize(Roaring64Map.bitmapOf(values));
+            Assert.assertEquals(highBound == 1, bitmap.is32BitsEnough());
+
+            Assert.assertArrayEquals(expected, serialize(bitmap));
+            Assert.assertEquals(expected.length, bitmap.serializedSizeInBytes());
+            ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+            bitmap.serialize(buffer);
+            Assert.assertArrayEquals(expected, buffer.array());
+
+            // deserialize from stream
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(expected));
+            Roaring64ArrayMap deserialized = new Roaring64ArrayMap();
+            deserialized.deserialize(in, in.readByte());
+            Assert.assertEquals(bitmap, deserialized);
+
+            // deserialize from buffer
+            buffer.flip();
+            deserialized = new Roaring64ArrayMap();
+            deserialized.deserialize(buffer, buffer.get());
+            Assert.assertEquals(bitmap, deserialized);
+            Assert.assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    public void testBitmapValueSerializeToBuffer() throws IOException {
+        BitmapValue[] bitmapValues = new BitmapValue[4];
+        for (int i = 0; i < bitmapValues.length; i++) {
+            bitmapValues[i] = new BitmapValue();
+        }
+        bitmapValues[1].add(1);
+        bitmapValues[2].add(4294967297L);
+        for (long value : randomValues(100, 4)) {
+            bitmapValues[3].add(value);
+        }
+
+        for (BitmapValue bitmapValue : bitmapValues) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            bitmapValue.serialize(new DataOutputStream(bos));
+            byte[] bytes = bitmapValue.toBytes();
+            Assert.assertArrayEquals(bos.toByteArray(), bytes);
+
+            BitmapValue deserialized = new BitmapValue();
+            deserialized.deserialize(ByteBuffer.wrap(bytes));
+            Assert.assertEquals(bitmapValue, deserialized);
+        }
+    }
+}
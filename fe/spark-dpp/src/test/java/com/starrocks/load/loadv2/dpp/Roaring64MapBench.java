@@ -0,0 +1,133 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.load.loadv2.dpp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Compare Roaring64ArrayMap with Roaring64Map on the operations used by bitmap union of spark load
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class Roaring64MapBench {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(Roaring64MapBench.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    // number of distinct high 32 bits of the values, 1 means all the values are 32-bit
+    @Param({"1", "16"})
+    public int highs;
+
+    @Param({"100000"})
+    public int count;
+
+    private long[] values;
+    private Roaring64Map map1;
+    private Roaring64Map map2;
+    private Roaring64ArrayMap arrayMap1;
+    private Roaring64ArrayMap arrayMap2;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Roaring64Map.pack(random.nextInt(highs), random.nextInt(count * 10));
+        }
+        map1 = new Roaring64Map();
+        map2 = new Roaring64Map();
+        arrayMap1 = new Roaring64ArrayMap();
+        arrayMap2 = new Roaring64ArrayMap();
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                map1.addLong(values[i]);
+                arrayMap1.addLong(values[i]);
+            } else {
+                map2.addLong(values[i]);
+                arrayMap2.addLong(values[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    public Roaring64Map addRoaring64Map() {
+        Roaring64Map map = new Roaring64Map();
+        for (long value : values) {
+            map.addLong(value);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Roaring64ArrayMap addRoaring64ArrayMap() {
+        Roaring64ArrayMap map = new Roaring64ArrayMap();
+        for (long value : values) {
+            map.addLong(value);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Roaring64ArrayMap addManyRoaring64ArrayMap() {
+        Roaring64ArrayMap map = new Roaring64ArrayMap();
+        map.addMany(values);
+        return map;
+    }
+
+    @Benchmark
+    public Roaring64Map orRoaring64Map() {
+        Roaring64Map map = new Roaring64Map();
+        map.or(map1);
+        map.or(map2);
+        return map;
+    }
+
+    @Benchmark
+    public Roaring64ArrayMap orRoaring64ArrayMap() {
+        Roaring64ArrayMap map = new Roaring64ArrayMap();
+        map.or(arrayMap1);
+        map.or(arrayMap2);
+        return map;
+    }
+
+    @Benchmark
+    public byte[] serializeRoaring64Map() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        map1.serialize(new DataOutputStream(bos));
+        return bos.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serializeRoaring64ArrayMap() {
+        byte[] bytes = new byte[arrayMap1.serializedSizeInBytes()];
+        arrayMap1.serialize(ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+}
@@ -17,15 +17,36 @@
 //
 package com.starrocks.load.loadv2.dpp;
 
+import com.starrocks.common.SparkDppException;
 import com.starrocks.load.loadv2.etl.EtlJobConfig;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.catalyst.InternalRow;
+import org.apache.spark.sql.catalyst.encoders.ExpressionEncoder;
+import org.apache.spark.sql.catalyst.encoders.RowEncoder;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.math.BigDecimal;
+import java.util.Random;
 
 public class SparkDppTest {
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     @Test
     public void testValidateData() {
         SparkDpp sparkDpp = new SparkDpp();
@@ -67,4 +88,58 @@ public class SparkDppTest {
                 sparkDpp.validateData(failedStringCN, stringColumn, stringParser, RowFactory.create(failedStringCN)));
     }
 
+    @Test
+    public void testParquetWriterRoundTrip() throws Exception {
+        StructType schema = DataTypes.createStructType(new StructField[] {
+                DataTypes.createStructField("k1", DataTypes.IntegerType, false),
+                DataTypes.createStructField("k2", DataTypes.StringType, true),
+                DataTypes.createStructField("v1", DataTypes.LongType, true)});
+        ExpressionEncoder encoder = RowEncoder.apply(schema);
+        Random random = new Random(0);
+        int rowNum = 10000;
+        String[] k2Values = new String[rowNum];
+        long[] v1Values = new long[rowNum];
+        for (int i = 0; i < rowNum; i++) {
+            // low cardinality column to use dictionary pages
+            k2Values[i] = "k2_" + random.nextInt(16);
+            v1Values[i] = random.nextLong();
+        }
+
+        for (CompressionCodecName codec : new CompressionCodecName[] {
+                CompressionCodecName.SNAPPY, CompressionCodecName.UNCOMPRESSED, CompressionCodecName.GZIP}) {
+            SparkDpp.ParquetWriterOptions options = new SparkDpp.ParquetWriterOptions();
+            options.compressionCodec = codec;
+            options.pageSize = 1024;
+            Path path = new Path(new File(tempFolder.getRoot(), codec.name() + ".parquet").toURI());
+            // rows are written sorted by key, as SparkDpp does for each bucket
+            try (ParquetWriter<InternalRow> writer =
+                         SparkDpp.createParquetWriter(path, schema, new Configuration(), options)) {
+                for (int i = 0; i < rowNum; i++) {
+                    writer.write(encoder.toRow(RowFactory.create(i, k2Values[i], v1Values[i])));
+                }
+            }
+
+            try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), path).build()) {
+                for (int i = 0; i < rowNum; i++) {
+                    Group group = reader.read();
+                    Assert.assertNotNull(group);
+                    Assert.assertEquals(i, group.getInteger("k1", 0));
+                    Assert.assertEquals(k2Values[i], group.getString("k2", 0));
+                    Assert.assertEquals(v1Values[i], group.getLong("v1", 0));
+                }
+                Assert.assertNull(reader.read());
+            }
+        }
+    }
+
+    @Test
+    public void testParseParquetCompressionCodec() throws SparkDppException {
+        Assert.assertEquals(CompressionCodecName.SNAPPY, SparkDpp.parseParquetCompressionCodec("snappy"));
+        Assert.assertEquals(CompressionCodecName.ZSTD, SparkDpp.parseParquetCompressionCodec("ZSTD"));
+        Assert.assertEquals(CompressionCodecName.UNCOMPRESSED, SparkDpp.parseParquetCompressionCodec("uncompressed"));
+        // the backends can't read them
+        Assert.assertThrows(SparkDppException.class, () -> SparkDpp.parseParquetCompressionCodec("brotli"));
+        Assert.assertThrows(SparkDppException.class, () -> SparkDpp.parseParquetCompressionCodec("lzo"));
+        Assert.assertThrows(SparkDppException.class, () -> SparkDpp.parseParquetCompressionCodec("unknown"));
+    }
 }
@@ -27,6 +27,31 @@ public class BrokerConfig extends ConfigBase {
     
     @ConfField
     public static int hdfs_write_buffer_size_kb = 1024;
+
+    // size of the read ahead buffer of each opened file, it is also the max length returned by a pread request
+    @ConfField
+    public static int hdfs_read_ahead_buffer_size_kb = 4096;
+
+    // max number of the read ahead buffers, both in use and free, the files are read without
+    // buffering if all of them are in use
+    @ConfField
+    public static int hdfs_read_ahead_buffer_max_num = 32;
+
+    // the read ahead buffer of a file is given back to the pool if the file is not read for this time
+    @ConfField
+    public static int hdfs_read_ahead_buffer_idle_seconds = 10;
+
+    // read by ByteBufferReadable if the file system supports it
+    @ConfField
+    public static boolean hdfs_read_use_byte_buffer = false;
+
+    // read by positional read for the non-sequential reads instead of seeking the stream
+    @ConfField
+    public static boolean hdfs_read_use_positional_read = false;
+
+    // interval to log the read throughput and gc of broker, 0 to disable it
+    @ConfField
+    public static int read_metrics_report_interval_seconds = 60;
     
     @ConfField
     public static int client_expire_seconds = 300;
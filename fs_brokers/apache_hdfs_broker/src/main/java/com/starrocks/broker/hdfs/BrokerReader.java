@@ -0,0 +1,178 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.broker.hdfs;
+
+import com.starrocks.common.BrokerPerfMonitor;
+import org.apache.hadoop.fs.ByteBufferReadable;
+import org.apache.hadoop.fs.FSDataInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Serve the pread requests of an opened file.
+// Sequential requests are coalesced into one read of a whole read ahead buffer, so that
+// small requests do not go to the storage one by one. The requested bytes are copied out of
+// the read ahead buffer while the reader is locked, because the response is written after
+// the lock is released, and a concurrent close() may give the buffer back to the pool.
+// The buffer is only held while it has bytes not read by the client yet. Random requests,
+// eg: the footer of a parquet file, and the requests while all the buffers of the pool are
+// in use are read without buffering, only what is requested is read.
+public class BrokerReader {
+    private final FSDataInputStream inputStream;
+    private final ReadBufferPool bufferPool;
+    private final boolean useByteBufferRead;
+    private final boolean usePositionalRead;
+
+    // borrowed from pool by a sequential read, given back when all of it is read by the client,
+    // when the reader is idle or closed
+    private byte[] buffer;
+    // the range [bufferOffset, bufferOffset + bufferLength) of the file is in the buffer
+    private long bufferOffset = 0;
+    private int bufferLength = 0;
+    // end offset of the last request, a request starts from here is a sequential read
+    private long lastReadEnd;
+    private long lastAccessMs = System.currentTimeMillis();
+    private boolean closed = false;
+
+    public BrokerReader(FSDataInputStream inputStream, long startOffset, ReadBufferPool bufferPool,
+                        boolean useByteBufferRead, boolean usePositionalRead) {
+        this.inputStream = inputStream;
+        this.bufferPool = bufferPool;
+        this.useByteBufferRead = useByteBufferRead && inputStream.getWrappedStream() instanceof ByteBufferReadable;
+        this.usePositionalRead = usePositionalRead;
+        this.lastReadEnd = startOffset;
+    }
+
+    public FSDataInputStream getInputStream() {
+        return inputStream;
+    }
+
+    // Read at most length bytes from offset, an empty buffer is returned at end of file.
+    // The returned buffer is owned by the caller.
+    public synchronized ByteBuffer read(long offset, long length) throws IOException {
+        if (closed) {
+            throw new IOException("reader is already closed");
+        }
+        if (offset < 0) {
+            throw new IOException("invalid read offset " + offset);
+        }
+        long startNanos = System.nanoTime();
+        lastAccessMs = System.currentTimeMillis();
+        boolean bufferHit = bufferLength > 0 && offset >= bufferOffset && offset < bufferOffset + bufferLength;
+        ByteBuffer result;
+        if (length <= 0) {
+            result = ByteBuffer.allocate(0);
+        } else if (bufferHit) {
+            result = copyFromBuffer(offset, length);
+        } else if (offset == lastReadEnd && (buffer != null || (buffer = bufferPool.borrow()) != null)) {
+            fill(offset);
+            result = copyFromBuffer(offset, length);
+        } else {
+            result = readDirect(offset, (int) Math.min(length, bufferPool.getBufferSize()));
+        }
+        lastReadEnd = offset + result.remaining();
+        if (buffer != null && lastReadEnd >= bufferOffset + bufferLength) {
+            // the client has read all of the buffer, the next sequential request borrows it again
+            releaseBuffer();
+        }
+        BrokerPerfMonitor.addRead(result.remaining(), System.nanoTime() - startNanos, bufferHit);
+        return result;
+    }
+
+    private ByteBuffer copyFromBuffer(long offset, long length) {
+        int start = (int) (offset - bufferOffset);
+        if (start < 0 || start >= bufferLength) {
+            return ByteBuffer.allocate(0);
+        }
+        int readLength = (int) Math.min(length, bufferLength - start);
+        return ByteBuffer.wrap(Arrays.copyOfRange(buffer, start, start + readLength));
+    }
+
+    private void fill(long offset) throws IOException {
+        bufferOffset = offset;
+        bufferLength = 0;
+        bufferLength = readFully(offset, buffer, buffer.length);
+    }
+
+    private ByteBuffer readDirect(long offset, int length) throws IOException {
+        byte[] dest = new byte[length];
+        int readLength = readFully(offset, dest, length);
+        return ByteBuffer.wrap(dest, 0, readLength);
+    }
+
+    private int readFully(long offset, byte[] dest, int length) throws IOException {
+        int readLength;
+        if (usePositionalRead && offset != inputStream.getPos()) {
+            // read without moving the stream, the sequential reads can go on from where they were
+            readLength = readPositionalFully(offset, dest, length);
+        } else {
+            if (inputStream.getPos() != offset) {
+                // it's ok, when reading some format like parquet, it is not a sequential read
+                inputStream.seek(offset);
+            }
+            readLength = readStreamFully(dest, length);
+        }
+        BrokerPerfMonitor.addStorageRead(readLength);
+        return readLength;
+    }
+
+    private int readStreamFully(byte[] dest, int length) throws IOException {
+        int readLength = 0;
+        ByteBuffer byteBuffer = useByteBufferRead ? ByteBuffer.wrap(dest, 0, length) : null;
+        while (readLength < length) {
+            int n;
+            if (byteBuffer != null) {
+                n = inputStream.read(byteBuffer);
+            } else {
+                n = inputStream.read(dest, readLength, length - readLength);
+            }
+            if (n <= 0) {
+                break;
+            }
+            readLength += n;
+        }
+        return readLength;
+    }
+
+    private int readPositionalFully(long offset, byte[] dest, int length) throws IOException {
+        int readLength = 0;
+        while (readLength < length) {
+            int n = inputStream.read(offset + readLength, dest, readLength, length - readLength);
+            if (n <= 0) {
+                break;
+            }
+            readLength += n;
+        }
+        return readLength;
+    }
+
+    private void releaseBuffer() {
+        bufferPool.giveBack(buffer);
+        buffer = null;
+        bufferLength = 0;
+    }
+
+    // Give back the buffer if the reader is not accessed for idleMs, so that the clients
+    // which keep the files opened do not hold the buffers.
+    public synchronized void releaseIdleBuffer(long nowMs, long idleMs) {
+        if (buffer != null && nowMs - lastAccessMs >= idleMs) {
+            releaseBuffer();
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (buffer != null) {
+            releaseBuffer();
+        }
+        inputStream.close();
+    }
+
+    synchronized boolean isBuffered() {
+        return buffer != null;
+    }
+}
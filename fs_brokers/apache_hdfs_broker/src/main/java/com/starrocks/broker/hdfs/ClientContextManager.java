@@ -21,7 +21,6 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
-import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.log4j.Logger;
 
@@ -42,6 +41,11 @@ public class ClientContextManager {
         fdToClientMap = new ConcurrentHashMap<>();
         this.executorService = executorService;
         this.executorService.schedule(new CheckClientExpirationTask(), 0, TimeUnit.SECONDS);
+        if (BrokerConfig.hdfs_read_ahead_buffer_idle_seconds > 0) {
+            this.executorService.scheduleWithFixedDelay(this::releaseIdleReadBuffers,
+                    BrokerConfig.hdfs_read_ahead_buffer_idle_seconds,
+                    BrokerConfig.hdfs_read_ahead_buffer_idle_seconds, TimeUnit.SECONDS);
+        }
     }
     
     public void onPing(String clientId) {
@@ -63,18 +67,18 @@ public class ClientContextManager {
         fdToClientMap.putIfAbsent(fd, clientId);
     }
     
-    public synchronized void putNewInputStream(String clientId, TBrokerFD fd, FSDataInputStream fsDataInputStream, 
+    public synchronized void putNewInputStream(String clientId, TBrokerFD fd, BrokerReader brokerReader,
             BrokerFileSystem brokerFileSystem) {
         if (!clientContexts.containsKey(clientId)) {
             clientContexts.putIfAbsent(clientId, new ClientResourceContext(clientId));
         }
         ClientResourceContext clientContext = clientContexts.get(clientId);
         clientContext.updateClientLastPingTime();
-        clientContext.putInputStream(fd, fsDataInputStream, brokerFileSystem);
+        clientContext.putInputStream(fd, brokerReader, brokerFileSystem);
         fdToClientMap.putIfAbsent(fd, clientId);
     }
     
-    public synchronized FSDataInputStream getFsDataInputStream(TBrokerFD fd) {
+    public synchronized BrokerReader getBrokerReader(TBrokerFD fd) {
         String clientId = fdToClientMap.get(fd);
         if (clientId == null) {
             throw new BrokerException(TBrokerOperationStatusCode.TARGET_STORAGE_SERVICE_ERROR, 
@@ -82,8 +86,8 @@ public class ClientContextManager {
         }
         ClientResourceContext clientContext = clientContexts.get(clientId);
         clientContext.updateClientLastPingTime();
-        FSDataInputStream fsDataInputStream = clientContext.getInputStream(fd);
-        return fsDataInputStream;
+        BrokerReader brokerReader = clientContext.getInputStream(fd);
+        return brokerReader;
     }
     
     public synchronized FSDataOutputStream getFsDataOutputStream(TBrokerFD fd) {
@@ -107,7 +111,7 @@ public class ClientContextManager {
         BrokerInputStream brokerInputStream = clientContext.inputStreams.remove(fd);
         try {
             if (brokerInputStream != null) {
-                brokerInputStream.inputStream.close();
+                brokerInputStream.reader.close();
             }
         } catch (Exception e) {
             logger.error("errors while close file data input stream", e);
@@ -130,6 +134,21 @@ public class ClientContextManager {
         }
     }
     
+    // give back the read ahead buffers of the opened files which are not read for a while
+    private void releaseIdleReadBuffers() {
+        try {
+            long nowMs = System.currentTimeMillis();
+            long idleMs = BrokerConfig.hdfs_read_ahead_buffer_idle_seconds * 1000L;
+            for (ClientResourceContext clientContext : clientContexts.values()) {
+                for (BrokerInputStream brokerInputStream : clientContext.inputStreams.values()) {
+                    brokerInputStream.reader.releaseIdleBuffer(nowMs, idleMs);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("errors while release the idle read buffers", e);
+        }
+    }
+
     class CheckClientExpirationTask implements Runnable {
         @Override
         public void run() {
@@ -177,18 +196,18 @@ public class ClientContextManager {
     
     private static class BrokerInputStream {
         
-        private final FSDataInputStream inputStream;
+        private final BrokerReader reader;
         private final BrokerFileSystem brokerFileSystem;
         
-        public BrokerInputStream(FSDataInputStream inputStream, BrokerFileSystem brokerFileSystem) {
-            this.inputStream = inputStream;
+        public BrokerInputStream(BrokerReader reader, BrokerFileSystem brokerFileSystem) {
+            this.reader = reader;
             this.brokerFileSystem = brokerFileSystem;
             this.brokerFileSystem.updateLastUpdateAccessTime();
         }
         
-        public FSDataInputStream getInputStream() {
+        public BrokerReader getReader() {
             this.brokerFileSystem.updateLastUpdateAccessTime();
-            return inputStream;
+            return reader;
         }
         
         public void updateLastUpdateAccessTime() {
@@ -210,18 +229,18 @@ public class ClientContextManager {
             this.lastPingTimestamp = System.currentTimeMillis();
         }
         
-        public void putInputStream(TBrokerFD fd, FSDataInputStream inputStream, BrokerFileSystem fileSystem) {
-            inputStreams.putIfAbsent(fd, new BrokerInputStream(inputStream, fileSystem));
+        public void putInputStream(TBrokerFD fd, BrokerReader reader, BrokerFileSystem fileSystem) {
+            inputStreams.putIfAbsent(fd, new BrokerInputStream(reader, fileSystem));
         }
         
         public void putOutputStream(TBrokerFD fd, FSDataOutputStream outputStream, BrokerFileSystem fileSystem) {
             outputStreams.putIfAbsent(fd, new BrokerOutputStream(outputStream, fileSystem));
         }
         
-        public FSDataInputStream getInputStream(TBrokerFD fd) {
+        public BrokerReader getInputStream(TBrokerFD fd) {
             BrokerInputStream brokerInputStream = inputStreams.get(fd);
             if (brokerInputStream != null) {
-                return brokerInputStream.getInputStream();
+                return brokerInputStream.getReader();
             }
             return null;
         }
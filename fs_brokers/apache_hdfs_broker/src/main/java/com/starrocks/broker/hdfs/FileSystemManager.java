@@ -23,6 +23,7 @@
 
 package com.starrocks.broker.hdfs;
 
+import com.starrocks.common.BrokerPerfMonitor;
 import com.starrocks.common.WildcardURI;
 import com.starrocks.thrift.TBrokerFD;
 import com.starrocks.thrift.TBrokerFileStatus;
@@ -145,13 +146,21 @@ public class FileSystemManager {
 
     private ConcurrentHashMap<FileSystemIdentity, BrokerFileSystem> cachedFileSystem;
     private ClientContextManager clientContextManager;
+    private ReadBufferPool readBufferPool;
 
     public FileSystemManager() {
         cachedFileSystem = new ConcurrentHashMap<>();
         clientContextManager = new ClientContextManager(handleManagementPool);
         readBufferSize = BrokerConfig.hdfs_read_buffer_size_kb << 10;
         writeBufferSize = BrokerConfig.hdfs_write_buffer_size_kb << 10;
+        readBufferPool = new ReadBufferPool(BrokerConfig.hdfs_read_ahead_buffer_size_kb << 10,
+                BrokerConfig.hdfs_read_ahead_buffer_max_num);
         handleManagementPool.schedule(new FileSystemExpirationChecker(), 0, TimeUnit.SECONDS);
+        if (BrokerConfig.read_metrics_report_interval_seconds > 0) {
+            handleManagementPool.scheduleWithFixedDelay(BrokerPerfMonitor::reportReadMetrics,
+                    BrokerConfig.read_metrics_report_interval_seconds,
+                    BrokerConfig.read_metrics_report_interval_seconds, TimeUnit.SECONDS);
+        }
     }
 
     private static String preparePrincipal(String originalPrincipal) throws UnknownHostException {
@@ -800,7 +809,9 @@ public class FileSystemManager {
             fsDataInputStream.seek(startOffset);
             UUID uuid = UUID.randomUUID();
             TBrokerFD fd = parseUUIDToFD(uuid);
-            clientContextManager.putNewInputStream(clientId, fd, fsDataInputStream, fileSystem);
+            BrokerReader brokerReader = new BrokerReader(fsDataInputStream, startOffset, readBufferPool,
+                    BrokerConfig.hdfs_read_use_byte_buffer, BrokerConfig.hdfs_read_use_positional_read);
+            clientContextManager.putNewInputStream(clientId, fd, brokerReader, fileSystem);
             return fd;
         } catch (IOException e) {
             logger.error("errors while open path", e);
@@ -810,50 +821,22 @@ public class FileSystemManager {
     }
 
     public ByteBuffer pread(TBrokerFD fd, long offset, long length) {
-        FSDataInputStream fsDataInputStream = clientContextManager.getFsDataInputStream(fd);
-        synchronized (fsDataInputStream) {
-            long currentStreamOffset;
-            try {
-                currentStreamOffset = fsDataInputStream.getPos();
-            } catch (IOException e) {
-                logger.error("errors while get file pos from output stream", e);
-                throw new BrokerException(TBrokerOperationStatusCode.TARGET_STORAGE_SERVICE_ERROR,
-                        "errors while get file pos from output stream");
-            }
-            if (currentStreamOffset != offset) {
-                // it's ok, when reading some format like parquet, it is not a sequential read
-                logger.debug("invalid offset, current read offset is "
-                        + currentStreamOffset + " is not equal to request offset "
-                        + offset + " seek to it");
-                try {
-                    fsDataInputStream.seek(offset);
-                } catch (IOException e) {
-                    throw new BrokerException(TBrokerOperationStatusCode.INVALID_INPUT_OFFSET,
-                            e, "current read offset {} is not equal to {}, and could not seek to it",
-                            currentStreamOffset, offset);
-                }
-            }
-            byte[] buf;
-            if (length > readBufferSize) {
-                buf = new byte[readBufferSize];
-            } else {
-                buf = new byte[(int) length];
-            }
-            try {
-                int readLength = readByteArrayFully(fsDataInputStream, buf);
-                if (readLength < 0) {
-                    throw new BrokerException(TBrokerOperationStatusCode.END_OF_FILE,
-                            "end of file reached");
-                }
-                if (logger.isDebugEnabled()) {
-                    logger.debug("read buffer from input stream, buffer size:" + buf.length + ", read length:" + readLength);
-                }
-                return ByteBuffer.wrap(buf, 0, readLength);
-            } catch (IOException e) {
-                logger.error("errors while read data from stream", e);
-                throw new BrokerException(TBrokerOperationStatusCode.TARGET_STORAGE_SERVICE_ERROR,
-                        e, "errors while read data from stream");
+        BrokerReader brokerReader = clientContextManager.getBrokerReader(fd);
+        if (brokerReader == null) {
+            throw new BrokerException(TBrokerOperationStatusCode.INVALID_ARGUMENT,
+                    "the fd is already closed");
+        }
+        try {
+            ByteBuffer buf = brokerReader.read(offset, length);
+            if (logger.isDebugEnabled()) {
+                logger.debug("read buffer from input stream, request length:" + length
+                        + ", read length:" + buf.remaining());
             }
+            return buf;
+        } catch (IOException e) {
+            logger.error("errors while read data from stream", e);
+            throw new BrokerException(TBrokerOperationStatusCode.TARGET_STORAGE_SERVICE_ERROR,
+                    e, "errors while read data from stream");
         }
     }
 
@@ -863,17 +846,17 @@ public class FileSystemManager {
     }
 
     public void closeReader(TBrokerFD fd) {
-        FSDataInputStream fsDataInputStream = clientContextManager.getFsDataInputStream(fd);
-        synchronized (fsDataInputStream) {
-            try {
-                fsDataInputStream.close();
-            } catch (IOException e) {
-                logger.error("errors while close file input stream", e);
-                throw new BrokerException(TBrokerOperationStatusCode.TARGET_STORAGE_SERVICE_ERROR,
-                        e, "errors while close file input stream");
-            } finally {
-                clientContextManager.removeInputStream(fd);
+        BrokerReader brokerReader = clientContextManager.getBrokerReader(fd);
+        try {
+            if (brokerReader != null) {
+                brokerReader.close();
             }
+        } catch (IOException e) {
+            logger.error("errors while close file input stream", e);
+            throw new BrokerException(TBrokerOperationStatusCode.TARGET_STORAGE_SERVICE_ERROR,
+                    e, "errors while close file input stream");
+        } finally {
+            clientContextManager.removeInputStream(fd);
         }
     }
 
@@ -938,18 +921,6 @@ public class FileSystemManager {
         return new TBrokerFD(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
     }
 
-    private int readByteArrayFully(FSDataInputStream is, byte[] dest) throws IOException {
-        int readLength = 0;
-        while (readLength < dest.length) {
-            int n = is.read(dest, readLength, dest.length - readLength);
-            if (n <= 0) {
-                break;
-            }
-            readLength += n;
-        }
-        return readLength;
-    }
-
     class FileSystemExpirationChecker implements Runnable {
         @Override
         public void run() {
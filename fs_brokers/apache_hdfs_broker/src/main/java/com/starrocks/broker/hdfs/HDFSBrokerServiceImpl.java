@@ -155,7 +155,8 @@ public class HDFSBrokerServiceImpl implements TFileBrokerService.Iface {
         TBrokerReadResponse response = new TBrokerReadResponse();
         try {
             ByteBuffer readBuf = fileSystemManager.pread(request.fd, request.offset, request.length);
-            response.setData(readBuf);
+            // the buffer is already a copy owned by this request, setData() would copy it again
+            response.data = readBuf;
             response.setOpStatus(generateOKStatus());
         } catch (BrokerException e) {
             logger.warn("failed to pread: " + request.fd, e);
@@ -0,0 +1,67 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.broker.hdfs;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pool of the read buffers used by BrokerReader, so that reading large files does not
+// allocate a new buffer for every pread request.
+// The number of buffers, both in use and free, is bounded by maxNum. borrow() returns null
+// when all of them are in use, the reader reads without buffering then, so that the memory
+// of the broker does not grow with the number of opened files.
+// Heap buffers are pooled instead of direct buffers, because the thrift binary protocol
+// writes a ByteBuffer through its backing array.
+public class ReadBufferPool {
+    private final int bufferSize;
+    // one permit for each buffer that can be borrowed
+    private final Semaphore permits;
+    private final ArrayBlockingQueue<byte[]> freeBuffers;
+    private final AtomicLong allocatedNum = new AtomicLong(0);
+
+    public ReadBufferPool(int bufferSize, int maxNum) {
+        this.bufferSize = bufferSize;
+        this.permits = new Semaphore(Math.max(1, maxNum));
+        this.freeBuffers = new ArrayBlockingQueue<>(Math.max(1, maxNum));
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    // return null if all the buffers are in use
+    public byte[] borrow() {
+        if (!permits.tryAcquire()) {
+            return null;
+        }
+        byte[] buffer = freeBuffers.poll();
+        if (buffer == null) {
+            buffer = new byte[bufferSize];
+            allocatedNum.incrementAndGet();
+        }
+        return buffer;
+    }
+
+    // only the buffers returned by borrow() can be given back
+    public void giveBack(byte[] buffer) {
+        if (buffer == null || buffer.length != bufferSize) {
+            return;
+        }
+        // there is always room for it, the number of buffers is bounded by the permits
+        freeBuffers.offer(buffer);
+        permits.release();
+    }
+
+    public int getFreeNum() {
+        return freeBuffers.size();
+    }
+
+    public int getAvailableNum() {
+        return permits.availablePermits();
+    }
+
+    public long getAllocatedNum() {
+        return allocatedNum.get();
+    }
+}
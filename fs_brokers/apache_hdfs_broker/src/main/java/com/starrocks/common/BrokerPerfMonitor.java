@@ -18,12 +18,114 @@
 package com.starrocks.common;
 
 import com.google.common.base.Stopwatch;
+import org.apache.log4j.Logger;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public class BrokerPerfMonitor {
+    private static Logger logger = Logger.getLogger(BrokerPerfMonitor.class.getName());
+
+    // pread requests and the bytes returned to clients
+    private static final LongAdder READ_REQUESTS = new LongAdder();
+    private static final LongAdder READ_BYTES = new LongAdder();
+    private static final LongAdder READ_NANOS = new LongAdder();
+    // pread requests served from the read ahead buffer without accessing the storage
+    private static final LongAdder READ_BUFFER_HITS = new LongAdder();
+    // reads and bytes issued to the storage
+    private static final LongAdder STORAGE_READS = new LongAdder();
+    private static final LongAdder STORAGE_READ_BYTES = new LongAdder();
+
+    // values of the last report, only accessed by the report thread
+    private static long lastReportNanos = System.nanoTime();
+    private static long lastReadRequests = 0;
+    private static long lastReadBytes = 0;
+    private static long lastReadNanos = 0;
+    private static long lastReadBufferHits = 0;
+    private static long lastStorageReads = 0;
+    private static long lastStorageReadBytes = 0;
+    private static long lastGcCount = 0;
+    private static long lastGcMillis = 0;
 
     public static Stopwatch startWatch() {
         Stopwatch stopwatch = Stopwatch.createUnstarted();
         stopwatch.start();
         return stopwatch;
     }
+
+    public static void addRead(long bytes, long nanos, boolean bufferHit) {
+        READ_REQUESTS.increment();
+        READ_BYTES.add(bytes);
+        READ_NANOS.add(nanos);
+        if (bufferHit) {
+            READ_BUFFER_HITS.increment();
+        }
+    }
+
+    public static void addStorageRead(long bytes) {
+        STORAGE_READS.increment();
+        STORAGE_READ_BYTES.add(bytes);
+    }
+
+    public static long getReadRequests() {
+        return READ_REQUESTS.sum();
+    }
+
+    public static long getReadBytes() {
+        return READ_BYTES.sum();
+    }
+
+    public static long getReadBufferHits() {
+        return READ_BUFFER_HITS.sum();
+    }
+
+    public static long getStorageReads() {
+        return STORAGE_READS.sum();
+    }
+
+    public static long getStorageReadBytes() {
+        return STORAGE_READ_BYTES.sum();
+    }
+
+    // Log the read throughput and the gc of the broker since the last report
+    public static synchronized void reportReadMetrics() {
+        long now = System.nanoTime();
+        long readRequests = READ_REQUESTS.sum();
+        long readBytes = READ_BYTES.sum();
+        long readNanos = READ_NANOS.sum();
+        long readBufferHits = READ_BUFFER_HITS.sum();
+        long storageReads = STORAGE_READS.sum();
+        long storageReadBytes = STORAGE_READ_BYTES.sum();
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, gcBean.getCollectionCount());
+            gcMillis += Math.max(0, gcBean.getCollectionTime());
+        }
+
+        long requests = readRequests - lastReadRequests;
+        if (requests > 0) {
+            double seconds = Math.max(1, now - lastReportNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            long bytes = readBytes - lastReadBytes;
+            logger.info(String.format("read metrics in last %.1f seconds: requests=%d, bytes=%d, "
+                            + "throughput=%.2fMB/s, avg_latency=%.3fms, buffer_hits=%d, storage_reads=%d, "
+                            + "storage_read_bytes=%d, gc_count=%d, gc_time=%dms",
+                    seconds, requests, bytes, bytes / seconds / 1024 / 1024,
+                    (readNanos - lastReadNanos) / (double) requests / TimeUnit.MILLISECONDS.toNanos(1),
+                    readBufferHits - lastReadBufferHits, storageReads - lastStorageReads,
+                    storageReadBytes - lastStorageReadBytes, gcCount - lastGcCount, gcMillis - lastGcMillis));
+        }
+
+        lastReportNanos = now;
+        lastReadRequests = readRequests;
+        lastReadBytes = readBytes;
+        lastReadNanos = readNanos;
+        lastReadBufferHits = readBufferHits;
+        lastStorageReads = storageReads;
+        lastStorageReadBytes = storageReadBytes;
+        lastGcCount = gcCount;
+        lastGcMillis = gcMillis;
+    }
 }
@@ -0,0 +1,172 @@
+// This file is licensed under the Elastic License 2.0. Copyright 2021-present, StarRocks Limited.
+
+package com.starrocks.broker.hdfs;
+
+import com.starrocks.common.BrokerPerfMonitor;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class BrokerReaderTest {
+    private static final int BUFFER_SIZE = 1024;
+
+    private File dir;
+    private Path path;
+    private byte[] content;
+    private FileSystem fs;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("broker_reader_test").toFile();
+        File file = new File(dir, "data");
+        content = new byte[BUFFER_SIZE * 3 + 100];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        path = new Path(file.getAbsolutePath());
+        fs = FileSystem.getLocal(new Configuration());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        fs.close();
+        new File(dir, "data").delete();
+        dir.delete();
+    }
+
+    private void assertContent(long offset, int length, ByteBuffer buf) {
+        Assert.assertEquals(length, buf.remaining());
+        for (int i = 0; i < length; i++) {
+            Assert.assertEquals(content[(int) offset + i], buf.get(buf.position() + i));
+        }
+    }
+
+    private void testRead(boolean useByteBufferRead, boolean usePositionalRead) throws IOException {
+        ReadBufferPool pool = new ReadBufferPool(BUFFER_SIZE, 2);
+        BrokerReader reader = new BrokerReader(fs.open(path), 0, pool, useByteBufferRead, usePositionalRead);
+
+        // sequential small reads are served by the read ahead buffer
+        long storageReads = BrokerPerfMonitor.getStorageReads();
+        for (int offset = 0; offset < BUFFER_SIZE; offset += 100) {
+            int length = Math.min(100, BUFFER_SIZE - offset);
+            assertContent(offset, length, reader.read(offset, 100));
+        }
+        Assert.assertEquals(storageReads + 1, BrokerPerfMonitor.getStorageReads());
+
+        // a large read is returned in chunks of the buffer size
+        assertContent(BUFFER_SIZE, BUFFER_SIZE, reader.read(BUFFER_SIZE, BUFFER_SIZE * 10));
+
+        // random read only reads what is requested
+        storageReads = BrokerPerfMonitor.getStorageReads();
+        assertContent(10, 20, reader.read(10, 20));
+        assertContent(30, 10, reader.read(30, 10));
+        Assert.assertEquals(storageReads + 2, BrokerPerfMonitor.getStorageReads());
+
+        // read to the end of file
+        assertContent(BUFFER_SIZE * 3, 100, reader.read(BUFFER_SIZE * 3, BUFFER_SIZE));
+        Assert.assertEquals(0, reader.read(content.length, BUFFER_SIZE).remaining());
+
+        reader.close();
+        reader.close();
+        Assert.assertEquals(1, pool.getFreeNum());
+        try {
+            reader.read(0, 10);
+            Assert.fail("read after close");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        testRead(false, false);
+        testRead(true, false);
+        testRead(false, true);
+    }
+
+    @Test
+    public void testReadAfterClose() throws IOException {
+        ReadBufferPool pool = new ReadBufferPool(BUFFER_SIZE, 2);
+        BrokerReader reader = new BrokerReader(fs.open(path), 0, pool, false, false);
+        ByteBuffer buf = reader.read(0, 100);
+        // the response doesn't share the read ahead buffer, which is reused after the reader is closed
+        reader.close();
+        byte[] buffer = pool.borrow();
+        Arrays.fill(buffer, (byte) -1);
+        assertContent(0, 100, buf);
+    }
+
+    @Test
+    public void testBufferPool() {
+        ReadBufferPool pool = new ReadBufferPool(BUFFER_SIZE, 2);
+        byte[] buffer1 = pool.borrow();
+        byte[] buffer2 = pool.borrow();
+        // the buffers in use are bounded too
+        Assert.assertNull(pool.borrow());
+        Assert.assertEquals(2, pool.getAllocatedNum());
+        pool.giveBack(buffer1);
+        pool.giveBack(new byte[10]);
+        Assert.assertEquals(1, pool.getFreeNum());
+        Assert.assertEquals(1, pool.getAvailableNum());
+        Assert.assertSame(buffer1, pool.borrow());
+        pool.giveBack(buffer1);
+        pool.giveBack(buffer2);
+        Assert.assertEquals(2, pool.getAvailableNum());
+        Assert.assertEquals(2, pool.getAllocatedNum());
+    }
+
+    @Test
+    public void testBufferHeldOnlyWhenNeeded() throws IOException {
+        ReadBufferPool pool = new ReadBufferPool(BUFFER_SIZE, 1);
+        BrokerReader reader1 = new BrokerReader(fs.open(path), 0, pool, false, false);
+        BrokerReader reader2 = new BrokerReader(fs.open(path), 0, pool, false, false);
+
+        // a small random read doesn't borrow the buffer
+        assertContent(BUFFER_SIZE * 3, 10, reader1.read(BUFFER_SIZE * 3, 10));
+        Assert.assertFalse(reader1.isBuffered());
+
+        // the buffer is held until the client reads all of it
+        assertContent(0, 100, reader2.read(0, 100));
+        Assert.assertTrue(reader2.isBuffered());
+        // all the buffers are in use, the sequential reads of the other reader are not buffered
+        long storageReads = BrokerPerfMonitor.getStorageReads();
+        assertContent(BUFFER_SIZE * 3 + 10, 20, reader1.read(BUFFER_SIZE * 3 + 10, 20));
+        assertContent(BUFFER_SIZE * 3 + 30, 20, reader1.read(BUFFER_SIZE * 3 + 30, 20));
+        Assert.assertEquals(storageReads + 2, BrokerPerfMonitor.getStorageReads());
+        Assert.assertFalse(reader1.isBuffered());
+
+        assertContent(100, BUFFER_SIZE - 100, reader2.read(100, BUFFER_SIZE));
+        Assert.assertFalse(reader2.isBuffered());
+        Assert.assertEquals(1, pool.getAvailableNum());
+
+        // the buffer of an idle reader is given back
+        assertContent(BUFFER_SIZE, 10, reader2.read(BUFFER_SIZE, 10));
+        Assert.assertTrue(reader2.isBuffered());
+        reader2.releaseIdleBuffer(System.currentTimeMillis(), 60000);
+        Assert.assertTrue(reader2.isBuffered());
+        reader2.releaseIdleBuffer(System.currentTimeMillis() + 60000, 60000);
+        Assert.assertFalse(reader2.isBuffered());
+        Assert.assertEquals(1, pool.getAvailableNum());
+        // the following read fills the buffer again
+        assertContent(BUFFER_SIZE + 10, 10, reader2.read(BUFFER_SIZE + 10, 10));
+
+        reader1.close();
+        reader2.close();
+        Assert.assertEquals(1, pool.getAvailableNum());
+        Assert.assertEquals(1, pool.getAllocatedNum());
+    }
+}
@@ -39,6 +39,11 @@ struct TBackendInfo {
     5: optional string version
     6: optional i32 num_hardware_cores
     7: optional Types.TPort starlet_port
+    // the load statistics, used by FE to choose the coordinator BE of the stream loads
+    8: optional i64 load_mem_bytes
+    9: optional i64 load_mem_limit
+    10: optional i32 num_load_channels
+    11: optional i32 num_running_stream_loads
 }
 
 struct THeartbeatResult {
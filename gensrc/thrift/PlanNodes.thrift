@@ -104,6 +104,9 @@ struct TInternalScanRange {
   7: optional list<TKeyRange> partition_column_ranges
   8: optional string index_name
   9: optional string table_name
+  // read the rowsets of versions [start_version, version] only, used by the incremental refresh
+  // of materialized views to read the data loaded since the last refresh
+  10: optional i64 start_version
 }
 
 enum TFileFormatType {
@@ -232,6 +235,9 @@ struct TEsScanRange {
   2: required string index
   3: optional string type
   4: required i32 shard_id
+  // sliced scroll of the shard, the shard is split into slice_max slices and this range scans the slice_id one
+  5: optional i32 slice_id
+  6: optional i32 slice_max
 }
 
 // Hdfs scan range